@@ -0,0 +1,11 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+/** Receives results of {@link MemoryCacheHitRateBenchmark} */
+public interface HitRateReporter {
+
+	/** Is called before replaying of trace */
+	void onTraceLoaded(String traceName, int accessCount, int cacheCapacity);
+
+	/** Is called when trace was replayed against memory cache */
+	void onTraceReplayed(String cacheName, int accessCount, int hitCount);
+}
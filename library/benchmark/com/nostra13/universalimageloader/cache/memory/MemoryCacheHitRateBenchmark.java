@@ -0,0 +1,138 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.impl.FIFOLimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LRULimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LargestLimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.ShardedLruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.TinyLfuMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.UsingFreqLimitedMemoryCache;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays image access trace against every memory cache implementation and reports their hit rates. It isn't a part
+ * of regular test suite, run it by {@link #main(String[])} with test classpath, e.g.:<br />
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.nostra13.universalimageloader.cache.memory.MemoryCacheHitRateBenchmark
+ * -Dexec.args=trace.txt</code><br />
+ * Trace is a text file with one image URI per line (URIs in order of displaying). Synthetic feed trace is used if
+ * trace file isn't passed: unique feed images with small set of frequently reused avatars.<br />
+ * Soft references of {@link LimitedMemoryCache} implementations can make their hit rates higher than in real app
+ * where soft references are cleared under memory pressure.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MemoryCacheHitRateBenchmark {
+
+	/** System property which keeps path to trace file for benchmark run */
+	private static final String PROPERTY_TRACE = "uil.trace";
+
+	private static final int IMAGE_WIDTH = 100;
+	private static final int IMAGE_HEIGHT = 100;
+	/** Cache size in images */
+	private static final int CACHE_CAPACITY = 60;
+
+	private Bitmap image;
+	private int cacheSize;
+
+	/** @param args Path to trace file (optional) */
+	public static void main(String[] args) {
+		if (args.length > 0) {
+			System.setProperty(PROPERTY_TRACE, args[0]);
+		}
+		// Bitmaps work in Robolectric environment only so benchmark is run by its runner
+		Result result = new JUnitCore().run(MemoryCacheHitRateBenchmark.class);
+		System.exit(result.wasSuccessful() ? 0 : 1);
+	}
+
+	@Before
+	public void setUp() {
+		image = Bitmap.createBitmap(IMAGE_WIDTH, IMAGE_HEIGHT, Bitmap.Config.ARGB_8888);
+		int imageSize = image == null ? 0 : image.getRowBytes() * image.getHeight();
+		Assume.assumeTrue(imageSize > 0); // Bitmap sizes are required for replaying
+		cacheSize = imageSize * CACHE_CAPACITY;
+	}
+
+	@Test
+	public void compareHitRates() throws Exception {
+		String tracePath = System.getProperty(PROPERTY_TRACE);
+		List<String> trace = tracePath == null ? createFeedTrace() : readTrace(tracePath);
+		HitRateReporter reporter = new PrintStreamHitRateReporter(System.out);
+
+		reporter.onTraceLoaded(tracePath == null ? "synthetic feed" : tracePath, trace.size(), CACHE_CAPACITY);
+		replay(trace, "LruMemoryCache", new LruMemoryCache(cacheSize), reporter);
+		replay(trace, "ShardedLruMemoryCache", new ShardedLruMemoryCache(cacheSize), reporter);
+		replay(trace, "FIFOLimitedMemoryCache", new FIFOLimitedMemoryCache(cacheSize), reporter);
+		replay(trace, "LRULimitedMemoryCache", new LRULimitedMemoryCache(cacheSize), reporter);
+		replay(trace, "UsingFreqLimitedMemoryCache", new UsingFreqLimitedMemoryCache(cacheSize), reporter);
+		replay(trace, "LargestLimitedMemoryCache", new LargestLimitedMemoryCache(cacheSize), reporter);
+		replay(trace, "TinyLfuMemoryCache", new TinyLfuMemoryCache(cacheSize), reporter);
+	}
+
+	/** Missed images are put into cache as image loader does */
+	private void replay(List<String> trace, String cacheName, MemoryCache cache, HitRateReporter reporter) {
+		int hits = 0;
+		for (String key : trace) {
+			if (cache.get(key) != null) {
+				hits++;
+			} else {
+				cache.put(key, image);
+			}
+		}
+		reporter.onTraceReplayed(cacheName, trace.size(), hits);
+	}
+
+	private static List<String> readTrace(String path) throws IOException {
+		List<String> trace = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0) {
+					trace.add(line);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return trace;
+	}
+
+	/**
+	 * Feed of 3000 unique posts, every post shows its image and its author's avatar. Authors are 40 users, some of them
+	 * post much more often than others. User sometimes scrolls back a little.
+	 */
+	private static List<String> createFeedTrace() {
+		Random random = new Random(42);
+		List<String> trace = new ArrayList<String>();
+		int postCount = 3000;
+		int authorCount = 40;
+		for (int post = 0; post < postCount; post++) {
+			int author = (int) (authorCount * Math.pow(random.nextDouble(), 3)); // skewed to first authors
+			trace.add("http://example.com/avatar/" + author);
+			trace.add("http://example.com/post/" + post);
+
+			if (post > 10 && random.nextInt(20) == 0) {
+				// Scroll back for a few posts
+				for (int back = post - 1; back > post - 5; back--) {
+					trace.add("http://example.com/post/" + back);
+				}
+			}
+		}
+		return trace;
+	}
+}
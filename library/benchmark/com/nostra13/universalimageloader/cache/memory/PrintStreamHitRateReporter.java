@@ -0,0 +1,25 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import java.io.PrintStream;
+
+/** Prints hit rates of memory caches as a table */
+public class PrintStreamHitRateReporter implements HitRateReporter {
+
+	private final PrintStream out;
+
+	public PrintStreamHitRateReporter(PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void onTraceLoaded(String traceName, int accessCount, int cacheCapacity) {
+		out.println(String.format("Trace: %s, %d accesses, cache capacity: %d images", traceName, accessCount,
+				cacheCapacity));
+	}
+
+	@Override
+	public void onTraceReplayed(String cacheName, int accessCount, int hitCount) {
+		double hitRate = accessCount == 0 ? 0 : (double) hitCount / accessCount;
+		out.println(String.format("%-30s %6.2f%% (%d hits)", cacheName, hitRate * 100, hitCount));
+	}
+}
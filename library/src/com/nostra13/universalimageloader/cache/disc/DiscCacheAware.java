@@ -61,7 +61,7 @@ public interface DiscCacheAware {
 	boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException;
 
 	/**
-	 * Saves image bitmap in disk cache.
+	 * Saves image bitmap in disk cache. Bitmap still belongs to caller after saving (it isn't recycled).
 	 *
 	 * @param imageUri Original image URI
 	 * @param bitmap   Image bitmap
@@ -15,6 +15,8 @@
  *******************************************************************************/
 package com.nostra13.universalimageloader.cache.disc;
 
+import java.io.InputStream;
+
 /**
  * Interface for disk cache
  *
@@ -22,4 +24,23 @@ package com.nostra13.universalimageloader.cache.disc;
  * @since 1.9.2
  */
 public interface DiskCache extends DiscCacheAware {
+
+	/**
+	 * Checks whether image for incoming URI is cached on disk. This method must be cheap (it's called on the thread
+	 * which submits display task) so it should be answered from in-memory index of cached images and shouldn't touch
+	 * file system. The answer is used as a hint only: {@link #get(String)} is still the source of truth.
+	 *
+	 * @param imageUri Original image URI
+	 * @return <b>true</b> - if image is cached on disk (probably); <b>false</b> - otherwise
+	 */
+	boolean contains(String imageUri);
+
+	/**
+	 * Opens stream of cached image. Stream is positioned at the start of image and is bounded by image length, so
+	 * image can be decoded from it right away, without resolving of cached file.
+	 *
+	 * @param imageUri Original image URI
+	 * @return Stream of cached image or <b>null</b> if image isn't cached
+	 */
+	InputStream openRead(String imageUri);
 }
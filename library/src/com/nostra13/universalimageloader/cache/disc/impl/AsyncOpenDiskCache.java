@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.disc.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.utils.IoUtils;
+import com.nostra13.universalimageloader.utils.L;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decorator which opens wrapped disk cache in background. It's useful for caches which read their journal on opening
+ * (e.g. {@link com.nostra13.universalimageloader.cache.disc.impl.ext.LruDiscCache LruDiscCache}) so app start isn't
+ * blocked by cache size.<br />
+ * While cache is being opened:
+ * <ul>
+ * <li>{@link #get(String)} and {@link #openRead(String)} wait for opening at most for defined lookup timeout and reports miss after that;</li>
+ * <li>{@link #contains(String)} doesn't wait and reports miss;</li>
+ * <li>saving, removing, clearing and closing wait until cache is opened.</li>
+ * </ul>
+ * If opening fails then cache behaves as empty cache which can't save anything.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class AsyncOpenDiskCache implements DiskCache {
+
+	private final File directory;
+	private final FutureTask<DiskCache> openTask;
+	private final long lookupTimeout;
+
+	/**
+	 * @param directory           Root directory of cache. It's reported by {@link #getDirectory()} until cache is
+	 *                            opened.
+	 * @param opener              Creates (opens) wrapped disk cache
+	 * @param executor            Executor which runs opening of disk cache
+	 * @param lookupTimeoutMillis Max time (in milliseconds) which {@link #get(String)} and {@link #openRead(String)}
+	 *                            wait for opening of disk cache.
+	 *                            <b>0</b> - don't wait.
+	 */
+	public AsyncOpenDiskCache(File directory, final Callable<DiskCache> opener, Executor executor,
+			long lookupTimeoutMillis) {
+		if (lookupTimeoutMillis < 0) throw new IllegalArgumentException("lookupTimeoutMillis must not be negative");
+
+		this.directory = directory;
+		this.lookupTimeout = lookupTimeoutMillis;
+		this.openTask = new FutureTask<DiskCache>(new Callable<DiskCache>() {
+			@Override
+			public DiskCache call() throws Exception {
+				try {
+					return opener.call();
+				} catch (Exception e) {
+					L.e(e);
+					throw e;
+				}
+			}
+		});
+		executor.execute(openTask);
+	}
+
+	/** @return Future which is completed by wrapped disk cache when it's opened */
+	public Future<DiskCache> getReadyFuture() {
+		return openTask;
+	}
+
+	/** @return <b>true</b> - if opening of wrapped disk cache is finished (successfully or not) */
+	public boolean isReady() {
+		return openTask.isDone();
+	}
+
+	@Override
+	public File getDirectory() {
+		DiskCache cache = getCache(0);
+		return cache == null ? directory : cache.getDirectory();
+	}
+
+	@Override
+	public File get(String imageUri) {
+		DiskCache cache = getCache(lookupTimeout);
+		return cache == null ? null : cache.get(imageUri);
+	}
+
+	@Override
+	public InputStream openRead(String imageUri) {
+		DiskCache cache = getCache(lookupTimeout);
+		return cache == null ? null : cache.openRead(imageUri);
+	}
+
+	@Override
+	public boolean contains(String imageUri) {
+		DiskCache cache = getCache(0);
+		return cache != null && cache.contains(imageUri);
+	}
+
+	@Override
+	public boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException {
+		DiskCache cache = awaitCache();
+		return cache != null && cache.save(imageUri, imageStream, listener);
+	}
+
+	@Override
+	public boolean save(String imageUri, Bitmap bitmap) throws IOException {
+		DiskCache cache = awaitCache();
+		return cache != null && cache.save(imageUri, bitmap);
+	}
+
+	@Override
+	public boolean remove(String imageUri) {
+		DiskCache cache = awaitCache();
+		return cache != null && cache.remove(imageUri);
+	}
+
+	@Override
+	public void close() {
+		DiskCache cache = awaitCache();
+		if (cache != null) {
+			cache.close();
+		}
+	}
+
+	@Override
+	public void clear() {
+		DiskCache cache = awaitCache();
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/** @return Opened disk cache or <b>null</b> if it isn't opened during incoming time or opening failed */
+	private DiskCache getCache(long timeoutMillis) {
+		if (!openTask.isDone() && timeoutMillis == 0) return null;
+
+		try {
+			return openTask.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null; // is logged by opener
+		} catch (CancellationException e) {
+			return null;
+		}
+	}
+
+	/** @return Opened disk cache or <b>null</b> if opening failed */
+	private DiskCache awaitCache() {
+		try {
+			return openTask.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null; // is logged by opener
+		} catch (CancellationException e) {
+			return null;
+		}
+	}
+}
@@ -23,10 +23,16 @@ import com.nostra13.universalimageloader.utils.IoUtils;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Base disk cache.
@@ -45,6 +51,7 @@ public abstract class BaseDiscCache implements DiskCache {
 
 	private static final String ERROR_ARG_NULL = " argument must be not null";
 	private static final String TEMP_IMAGE_POSTFIX = ".tmp";
+	private static final String INDEX_THREAD_NAME = "uil-dc-index";
 
 	protected final File cacheDir;
 	protected final File reserveCacheDir;
@@ -56,6 +63,19 @@ public abstract class BaseDiscCache implements DiskCache {
 	protected Bitmap.CompressFormat compressFormat = DEFAULT_COMPRESS_FORMAT;
 	protected int compressQuality = DEFAULT_COMPRESS_QUALITY;
 
+	/**
+	 * Names of cached files. It's filled from cache directories in background thread which is started by constructor,
+	 * {@link #contains(String)} reports a miss until it's filled.
+	 */
+	private final Set<String> cachedFileNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private volatile boolean indexed;
+	/** Guards changes of index while it's being filled */
+	private final Object indexLock = new Object();
+	/** Names of files removed while index is being filled. They mustn't get into index from directory listing. */
+	private final Set<String> removedWhileIndexing = new HashSet<String>();
+	/** Is incremented on {@link #clear()}, so directory listing taken before clearing isn't put into index */
+	private int clearCount;
+
 	/** @param cacheDir Directory for file caching */
 	public BaseDiscCache(File cacheDir) {
 		this(cacheDir, null);
@@ -86,6 +106,16 @@ public abstract class BaseDiscCache implements DiskCache {
 		this.cacheDir = cacheDir;
 		this.reserveCacheDir = reserveCacheDir;
 		this.fileNameGenerator = fileNameGenerator;
+
+		// Cache directory can contain thousands of files so they're listed off the calling (usually main) thread
+		Thread indexThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				indexCachedFiles();
+			}
+		}, INDEX_THREAD_NAME);
+		indexThread.setPriority(Thread.MIN_PRIORITY);
+		indexThread.start();
 	}
 
 	@Override
@@ -98,6 +128,21 @@ public abstract class BaseDiscCache implements DiskCache {
 		return getFile(imageUri);
 	}
 
+	@Override
+	public InputStream openRead(String imageUri) {
+		try {
+			return new FileInputStream(getFile(imageUri));
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+	}
+
+	/** @return <b>false</b> - if index of cached files isn't filled yet */
+	@Override
+	public boolean contains(String imageUri) {
+		return indexed && cachedFileNames.contains(fileNameGenerator.generate(imageUri));
+	}
+
 	@SuppressWarnings("ResultOfMethodCallIgnored")
 	@Override
 	public boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException {
@@ -120,6 +165,9 @@ public abstract class BaseDiscCache implements DiskCache {
 				tmpFile.delete();
 			}
 		}
+		if (loaded) {
+			cachedFileNames.add(imageFile.getName());
+		}
 		return loaded;
 	}
 
@@ -141,13 +189,17 @@ public abstract class BaseDiscCache implements DiskCache {
 				tmpFile.delete();
 			}
 		}
-		bitmap.recycle();
+		if (savedSuccessfully) {
+			cachedFileNames.add(imageFile.getName());
+		}
 		return savedSuccessfully;
 	}
 
 	@Override
 	public boolean remove(String imageUri) {
-		return getFile(imageUri).delete();
+		File imageFile = getFile(imageUri);
+		removeFromIndex(imageFile.getName());
+		return imageFile.delete();
 	}
 
 	@Override
@@ -158,10 +210,63 @@ public abstract class BaseDiscCache implements DiskCache {
 	@SuppressWarnings("ResultOfMethodCallIgnored")
 	@Override
 	public void clear() {
-		File[] files = cacheDir.listFiles();
-		if (files != null) {
-			for (File f : files) {
-				f.delete();
+		synchronized (indexLock) {
+			clearCount++;
+			File[] files = cacheDir.listFiles();
+			if (files != null) {
+				for (File f : files) {
+					f.delete();
+				}
+			}
+			cachedFileNames.clear();
+		}
+	}
+
+	/** Removes cached file from index of cached files. Should be called if the file was deleted bypassing cache API. */
+	protected void onFileDeleted(File file) {
+		removeFromIndex(file.getName());
+	}
+
+	private void removeFromIndex(String fileName) {
+		synchronized (indexLock) {
+			cachedFileNames.remove(fileName);
+			if (!indexed) {
+				removedWhileIndexing.add(fileName);
+			}
+		}
+	}
+
+	/**
+	 * Lists cache directories and puts names of cached files into index. Files which were removed (or cache which was
+	 * cleared) during listing don't get into index; files saved during listing are put into index by save itself.
+	 */
+	private void indexCachedFiles() {
+		int listedClearCount;
+		synchronized (indexLock) {
+			listedClearCount = clearCount;
+		}
+		Set<String> fileNames = new HashSet<String>();
+		listDirectory(cacheDir, fileNames);
+		if (reserveCacheDir != null) {
+			listDirectory(reserveCacheDir, fileNames);
+		}
+		synchronized (indexLock) {
+			if (listedClearCount == clearCount) {
+				fileNames.removeAll(removedWhileIndexing);
+				cachedFileNames.addAll(fileNames);
+			}
+			removedWhileIndexing.clear();
+			indexed = true;
+		}
+	}
+
+	private static void listDirectory(File dir, Set<String> fileNames) {
+		String[] names = dir.list();
+		if (names != null) {
+			for (String fileName : names) {
+				if (!fileName.endsWith(TEMP_IMAGE_POSTFIX)) {
+					fileNames.add(fileName);
+				}
 			}
 		}
 	}
@@ -85,6 +85,7 @@ public class LimitedAgeDiscCache extends BaseDiscCache {
 			if (System.currentTimeMillis() - loadingDate > maxFileAge) {
 				file.delete();
 				loadingDates.remove(file);
+				onFileDeleted(file);
 			} else if (!cached) {
 				loadingDates.put(file, loadingDate);
 			}
@@ -0,0 +1,896 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.disc.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
+import com.nostra13.universalimageloader.utils.IoUtils;
+import com.nostra13.universalimageloader.utils.L;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Disk cache which packs images into large segment files instead of storing every image in separate file. It's
+ * intended for small images (e.g. thumbnails): saving of image is an append to current segment file, so there is no
+ * file creation and renaming per image and cache directory doesn't contain tens of thousands of small files.<br />
+ * <br />
+ * Locations of images (segment, offset, length) are kept in in-memory index. Index is checkpointed to disk
+ * periodically and on {@link #close()}: changes since previous checkpoint are appended to index log, so checkpoint
+ * cost depends on number of changes, not on number of cached images. Index log is replaced by full index snapshot
+ * when it becomes bigger than index. Snapshot is written to temporary file, synced and renamed, so it's never partial.
+ * Images appended after the last checkpoint are recovered on opening by scanning the segment tail, torn records are
+ * discarded by their checksums.<br />
+ * When cache exceeds max size the oldest segment is dropped entirely. Segments which are mostly occupied by removed or
+ * overwritten images are compacted in background thread: their live images are copied into current segment.<br />
+ * <br />
+ * Cached images are read by {@link #openRead(String)}. {@link #get(String)} always returns <b>null</b> because
+ * images aren't stored as separate files, so {@link com.nostra13.universalimageloader.utils.DiskCacheUtils#findInCache(String, DiskCache)}
+ * doesn't find images of this cache. Use {@link #contains(String)} and {@link #openRead(String)} instead.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class PackedDiscCache implements DiskCache {
+	/** {@value} */
+	public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024; // 4 Mb
+	/** {@value} */
+	public static final int DEFAULT_BUFFER_SIZE = 32 * 1024; // 32 Kb
+	/** {@value} */
+	public static final Bitmap.CompressFormat DEFAULT_COMPRESS_FORMAT = Bitmap.CompressFormat.PNG;
+	/** {@value} */
+	public static final int DEFAULT_COMPRESS_QUALITY = 100;
+
+	private static final String ERROR_ARG_NULL = " argument must be not null";
+	private static final String ERROR_ARG_NEGATIVE = " argument must be positive number";
+
+	private static final String SEGMENT_FILE_SUFFIX = ".seg";
+	private static final String INDEX_FILE = "index";
+	private static final String INDEX_FILE_TEMP = "index.tmp";
+	private static final String INDEX_LOG_FILE = "index.log";
+	private static final int RECORD_MAGIC = 0x55494c42; // "UILB"
+	private static final int INDEX_MAGIC = 0x55494c49; // "UILI"
+	private static final int INDEX_LOG_MAGIC = 0x55494c4c; // "UILL"
+	private static final int INDEX_VERSION = 1;
+	/** Record header: magic (4 bytes), key length (2 bytes), data length (4 bytes), checksum of key and data (4 bytes) */
+	private static final int RECORD_HEADER_SIZE = 14;
+	/** Data length of record which marks removal of image */
+	private static final int TOMBSTONE = -1;
+	/** Segment id of index log entry which marks removal of image */
+	private static final int REMOVED = -1;
+	/** Number of writes between index checkpoints */
+	private static final int CHECKPOINT_INTERVAL = 64;
+	/** Index log is replaced by snapshot when it has more entries than index, but not less than {@value} */
+	private static final int MIN_INDEX_LOG_ENTRIES_TO_SNAPSHOT = 512;
+	/** Segment is compacted if its live images occupy less than this part of it */
+	private static final float COMPACTION_THRESHOLD = 0.5f;
+
+	protected final File cacheDir;
+	protected final FileNameGenerator fileNameGenerator;
+	private final long maxSize;
+	private final int segmentSize;
+
+	protected int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	protected Bitmap.CompressFormat compressFormat = DEFAULT_COMPRESS_FORMAT;
+	protected int compressQuality = DEFAULT_COMPRESS_QUALITY;
+
+	/** Image key to location of image data. It's read without lock and changed under lock. */
+	private final Map<String, Location> index = new ConcurrentHashMap<String, Location>();
+	/** Segments ordered by id. The last one is active (is appended to). Guarded by this. */
+	private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+	private Segment activeSegment;
+	private RandomAccessFile activeFile;
+	private long size;
+	private int writesSinceCheckpoint;
+	/** Index changes since previous checkpoint. Location is <b>null</b> for removed image. Guarded by this. */
+	private final Map<String, Location> pendingChanges = new LinkedHashMap<String, Location>();
+	/** Generation of index snapshot. Index log is applied only to snapshot of the same generation. */
+	private long indexGeneration;
+	private int indexLogEntryCount;
+	private boolean compactionScheduled;
+	private final CRC32 checksum = new CRC32();
+	private byte[] scanBuffer = new byte[0];
+
+	/** This cache uses a single background thread to compact segments. */
+	private final ThreadPoolExecutor executorService =
+			new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+	private final Runnable compactionRunnable = new Runnable() {
+		@Override
+		public void run() {
+			compactSparseSegments();
+		}
+	};
+
+	/**
+	 * @param cacheDir          Directory for segment files
+	 * @param fileNameGenerator {@linkplain com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator
+	 *                          Name generator} for keys of cached images
+	 * @param cacheMaxSize      Max cache size in bytes. <b>0</b> means cache size is unlimited.
+	 * @throws IOException if cache can't be initialized (e.g. "No space left on device")
+	 */
+	public PackedDiscCache(File cacheDir, FileNameGenerator fileNameGenerator, long cacheMaxSize) throws IOException {
+		this(cacheDir, fileNameGenerator, cacheMaxSize, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param cacheDir          Directory for segment files
+	 * @param fileNameGenerator {@linkplain com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator
+	 *                          Name generator} for keys of cached images
+	 * @param cacheMaxSize      Max cache size in bytes. <b>0</b> means cache size is unlimited.
+	 * @param segmentSize       Max size of segment file in bytes. Images which are bigger than segment aren't cached.
+	 * @throws IOException if cache can't be initialized (e.g. "No space left on device")
+	 */
+	public PackedDiscCache(File cacheDir, FileNameGenerator fileNameGenerator, long cacheMaxSize, int segmentSize)
+			throws IOException {
+		if (cacheDir == null) {
+			throw new IllegalArgumentException("cacheDir" + ERROR_ARG_NULL);
+		}
+		if (fileNameGenerator == null) {
+			throw new IllegalArgumentException("fileNameGenerator" + ERROR_ARG_NULL);
+		}
+		if (cacheMaxSize < 0) {
+			throw new IllegalArgumentException("cacheMaxSize" + ERROR_ARG_NEGATIVE);
+		}
+		if (segmentSize <= RECORD_HEADER_SIZE) {
+			throw new IllegalArgumentException("segmentSize" + ERROR_ARG_NEGATIVE);
+		}
+
+		this.cacheDir = cacheDir;
+		this.fileNameGenerator = fileNameGenerator;
+		this.maxSize = cacheMaxSize == 0 ? Long.MAX_VALUE : cacheMaxSize;
+		this.segmentSize = segmentSize;
+		open();
+	}
+
+	@Override
+	public File getDirectory() {
+		return cacheDir;
+	}
+
+	/** @return Always <b>null</b>. Use {@link #openRead(String)} instead. */
+	@Override
+	public File get(String imageUri) {
+		return null;
+	}
+
+	@Override
+	public InputStream openRead(String imageUri) {
+		String key = getKey(imageUri);
+		// Segment of image can be compacted or dropped after lookup, then image is looked up once more
+		for (int attempt = 0; attempt < 2; attempt++) {
+			Location location = index.get(key);
+			if (location == null) return null;
+
+			try {
+				return openRead(location);
+			} catch (FileNotFoundException e) {
+				// look up again
+			} catch (IOException e) {
+				L.e(e);
+				return null;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean contains(String imageUri) {
+		return index.containsKey(getKey(imageUri));
+	}
+
+	@Override
+	public boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream(bufferSize);
+		boolean copied;
+		try {
+			copied = IoUtils.copyStream(imageStream, os, listener, bufferSize);
+		} finally {
+			IoUtils.closeSilently(imageStream);
+		}
+		return copied && put(getKey(imageUri), os.toByteArray());
+	}
+
+	@Override
+	public boolean save(String imageUri, Bitmap bitmap) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream(bufferSize);
+		boolean savedSuccessfully = bitmap.compress(compressFormat, compressQuality, os);
+		return savedSuccessfully && put(getKey(imageUri), os.toByteArray());
+	}
+
+	@Override
+	public synchronized boolean remove(String imageUri) {
+		if (activeFile == null) return false;
+
+		String key = getKey(imageUri);
+		if (!index.containsKey(key)) return false;
+
+		setLocation(key, null);
+		try {
+			// Tombstone prevents resurrection of image by recovery if index isn't checkpointed yet
+			append(key, null);
+			onWrite();
+		} catch (IOException e) {
+			L.e(e);
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (activeFile == null) return;
+
+		try {
+			checkpoint();
+		} catch (IOException e) {
+			L.e(e);
+		}
+		IoUtils.closeSilently(activeFile);
+		activeFile = null;
+	}
+
+	@Override
+	public synchronized void clear() {
+		IoUtils.closeSilently(activeFile);
+		activeFile = null;
+		index.clear();
+		segments.clear();
+		pendingChanges.clear();
+		size = 0;
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(SEGMENT_FILE_SUFFIX) || file.getName().startsWith(INDEX_FILE)) {
+					file.delete();
+				}
+			}
+		}
+		try {
+			open();
+		} catch (IOException e) {
+			L.e(e);
+		}
+	}
+
+	/** @return Size of segment files in bytes */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public void setCompressFormat(Bitmap.CompressFormat compressFormat) {
+		this.compressFormat = compressFormat;
+	}
+
+	public void setCompressQuality(int compressQuality) {
+		this.compressQuality = compressQuality;
+	}
+
+	private String getKey(String imageUri) {
+		return fileNameGenerator.generate(imageUri);
+	}
+
+	private synchronized boolean put(String key, byte[] data) throws IOException {
+		if (activeFile == null) return false;
+		// Key takes up to 3 bytes per char in UTF-8
+		if (RECORD_HEADER_SIZE + key.length() * 3 + data.length > segmentSize) return false; // too big for segment
+
+		setLocation(key, append(key, data));
+		onWrite();
+		return true;
+	}
+
+	/** Drops oldest segments if cache is too big, schedules compaction and checkpoints index if it's time */
+	private void onWrite() throws IOException {
+		while (size > maxSize && segments.size() > 1) {
+			drop(segments.firstEntry().getValue());
+		}
+		if (!compactionScheduled && findSparseSegment() != null) {
+			compactionScheduled = true;
+			executorService.execute(compactionRunnable);
+		}
+		if (++writesSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+			checkpoint();
+		}
+	}
+
+	/**
+	 * Changes location of image in index and updates live space of segments.
+	 *
+	 * @param location New location of image; <b>null</b> - if image is removed
+	 */
+	private void setLocation(String key, Location location) {
+		Location previous = location == null ? index.remove(key) : index.put(key, location);
+		if (previous != null) {
+			Segment segment = segments.get(previous.segmentId);
+			if (segment != null) {
+				segment.liveBytes -= previous.recordSize;
+				segment.keys.remove(key);
+			}
+		}
+		if (location != null) {
+			Segment segment = segments.get(location.segmentId);
+			segment.liveBytes += location.recordSize;
+			segment.keys.add(key);
+		}
+		pendingChanges.put(key, location);
+	}
+
+	/** @return Sealed segment which is mostly occupied by removed or overwritten images; <b>null</b> - if no one */
+	private Segment findSparseSegment() {
+		for (Segment segment : segments.values()) {
+			if (segment != activeSegment && segment.liveBytes < segment.length * COMPACTION_THRESHOLD) {
+				return segment;
+			}
+		}
+		return null;
+	}
+
+	/** Appends record to active segment. Data is <b>null</b> for tombstone. */
+	private Location append(String key, byte[] data) throws IOException {
+		byte[] keyBytes = key.getBytes("UTF-8");
+		int dataLength = data == null ? TOMBSTONE : data.length;
+		int recordSize = RECORD_HEADER_SIZE + keyBytes.length + (data == null ? 0 : data.length);
+		if (activeSegment.length > 0 && activeSegment.length + recordSize > segmentSize) {
+			startSegment(activeSegment.id + 1);
+		}
+
+		checksum.reset();
+		checksum.update(keyBytes);
+		if (data != null) {
+			checksum.update(data);
+		}
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		header.putInt(RECORD_MAGIC).putShort((short) keyBytes.length).putInt(dataLength).putInt((int) checksum.getValue());
+
+		long offset = activeSegment.length;
+		try {
+			activeFile.write(header.array());
+			activeFile.write(keyBytes);
+			if (data != null) {
+				activeFile.write(data);
+			}
+		} catch (IOException e) {
+			// Cut off partial record
+			activeFile.setLength(offset);
+			activeFile.seek(offset);
+			throw e;
+		}
+		activeSegment.length += recordSize;
+		size += recordSize;
+		return new Location(activeSegment.id, offset + RECORD_HEADER_SIZE + keyBytes.length, dataLength, recordSize);
+	}
+
+	/** Compacts sparse segments one by one. Is run in background thread. */
+	private void compactSparseSegments() {
+		while (true) {
+			Segment segment;
+			List<Map.Entry<String, Location>> liveImages;
+			synchronized (this) {
+				segment = activeFile == null ? null : findSparseSegment();
+				if (segment == null) {
+					compactionScheduled = false;
+					return;
+				}
+				liveImages = new ArrayList<Map.Entry<String, Location>>(segment.keys.size());
+				for (String key : segment.keys) {
+					liveImages.add(new AbstractMap.SimpleImmutableEntry<String, Location>(key, index.get(key)));
+				}
+			}
+			try {
+				compact(segment, liveImages);
+			} catch (IOException e) {
+				L.e(e);
+				synchronized (this) {
+					// Images of unreadable segment are lost anyway
+					if (activeFile != null && segments.get(segment.id) == segment) {
+						drop(segment);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies live images of segment into active segment and deletes segment. Segment file is read without lock, cache
+	 * lock is held only while every image is appended to active segment.
+	 */
+	private void compact(Segment segment, List<Map.Entry<String, Location>> liveImages) throws IOException {
+		// Images are read in order of their location in segment
+		Collections.sort(liveImages, new Comparator<Map.Entry<String, Location>>() {
+			@Override
+			public int compare(Map.Entry<String, Location> lhs, Map.Entry<String, Location> rhs) {
+				long lhsOffset = lhs.getValue().dataOffset;
+				long rhsOffset = rhs.getValue().dataOffset;
+				return lhsOffset < rhsOffset ? -1 : (lhsOffset == rhsOffset ? 0 : 1);
+			}
+		});
+		RandomAccessFile file = new RandomAccessFile(segment.file, "r");
+		try {
+			for (Map.Entry<String, Location> liveImage : liveImages) {
+				Location location = liveImage.getValue();
+				byte[] data = new byte[location.length];
+				file.seek(location.dataOffset);
+				file.readFully(data);
+				synchronized (this) {
+					// Cache is closed or cleared or segment is dropped
+					if (activeFile == null || segments.get(segment.id) != segment) return;
+					// Image is removed or overwritten while it was read
+					if (index.get(liveImage.getKey()) != location) continue;
+
+					setLocation(liveImage.getKey(), append(liveImage.getKey(), data));
+				}
+			}
+		} finally {
+			IoUtils.closeSilently(file);
+		}
+		synchronized (this) {
+			if (activeFile == null || segments.get(segment.id) != segment) return;
+			// Checkpoint moves recovery start point past the segment, so its tombstones aren't needed anymore
+			checkpoint();
+			drop(segment);
+		}
+	}
+
+	/** Deletes segment and all images which are located in it */
+	private void drop(Segment segment) {
+		for (String key : segment.keys) {
+			index.remove(key);
+		}
+		segments.remove(segment.id);
+		size -= segment.length;
+		if (!segment.file.delete()) {
+			L.w("Can't delete segment file %s", segment.file);
+		}
+	}
+
+	private void startSegment(int id) throws IOException {
+		if (activeFile != null) {
+			activeFile.getFD().sync();
+			IoUtils.closeSilently(activeFile);
+		}
+		Segment segment = segments.get(id);
+		if (segment == null) {
+			segment = new Segment(id, new File(cacheDir, id + SEGMENT_FILE_SUFFIX));
+			segments.put(id, segment);
+		}
+		activeSegment = segment;
+		activeFile = new RandomAccessFile(segment.file, "rw");
+		activeFile.seek(segment.length);
+	}
+
+	/**
+	 * Writes index changes to disk. Active segment is synced before, so index doesn't refer to data which can be lost.
+	 * Changes are appended to index log; when index log becomes bigger than index it's replaced by index snapshot.
+	 */
+	private void checkpoint() throws IOException {
+		activeFile.getFD().sync();
+		if (indexLogEntryCount + pendingChanges.size() > Math.max(index.size(), MIN_INDEX_LOG_ENTRIES_TO_SNAPSHOT)) {
+			writeIndexSnapshot();
+		} else {
+			appendIndexLog();
+		}
+		pendingChanges.clear();
+		writesSinceCheckpoint = 0;
+	}
+
+	/** Appends changes since previous checkpoint to index log as one checksummed batch */
+	private void appendIndexLog() throws IOException {
+		ByteArrayOutputStream batch = new ByteArrayOutputStream();
+		CheckedOutputStream checkedStream = new CheckedOutputStream(batch, new CRC32());
+		DataOutputStream out = new DataOutputStream(checkedStream);
+		out.writeInt(activeSegment.id);
+		out.writeLong(activeSegment.length);
+		out.writeInt(pendingChanges.size());
+		for (Map.Entry<String, Location> entry : pendingChanges.entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeLocation(out, entry.getValue());
+		}
+		out.writeInt((int) checkedStream.getChecksum().getValue());
+		out.flush();
+
+		FileOutputStream fileStream = new FileOutputStream(new File(cacheDir, INDEX_LOG_FILE), true);
+		try {
+			batch.writeTo(fileStream);
+			fileStream.getFD().sync();
+		} finally {
+			IoUtils.closeSilently(fileStream);
+		}
+		indexLogEntryCount += pendingChanges.size();
+	}
+
+	/**
+	 * Writes whole index to snapshot file and starts new index log. Snapshot is written to temporary file which
+	 * replaces snapshot file only when it's written completely. Old index log isn't applied to new snapshot because
+	 * of generation mismatch.
+	 */
+	private void writeIndexSnapshot() throws IOException {
+		long generation = indexGeneration + 1;
+		File indexFileTemp = new File(cacheDir, INDEX_FILE_TEMP);
+		FileOutputStream fileStream = new FileOutputStream(indexFileTemp);
+		CheckedOutputStream checkedStream = new CheckedOutputStream(new BufferedOutputStream(fileStream), new CRC32());
+		DataOutputStream out = new DataOutputStream(checkedStream);
+		try {
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_VERSION);
+			out.writeLong(generation);
+			out.writeInt(activeSegment.id);
+			out.writeLong(activeSegment.length);
+			out.writeInt(index.size());
+			for (Map.Entry<String, Location> entry : index.entrySet()) {
+				out.writeUTF(entry.getKey());
+				writeLocation(out, entry.getValue());
+			}
+			out.writeInt((int) checkedStream.getChecksum().getValue());
+			out.flush();
+			fileStream.getFD().sync();
+		} finally {
+			IoUtils.closeSilently(out);
+		}
+		if (!indexFileTemp.renameTo(new File(cacheDir, INDEX_FILE))) {
+			throw new IOException("Can't rename " + indexFileTemp);
+		}
+		indexGeneration = generation;
+
+		FileOutputStream logStream = new FileOutputStream(new File(cacheDir, INDEX_LOG_FILE));
+		try {
+			DataOutputStream logOut = new DataOutputStream(logStream);
+			logOut.writeInt(INDEX_LOG_MAGIC);
+			logOut.writeLong(generation);
+			logOut.flush();
+			logStream.getFD().sync();
+		} finally {
+			IoUtils.closeSilently(logStream);
+		}
+		indexLogEntryCount = 0;
+	}
+
+	private static void writeLocation(DataOutputStream out, Location location) throws IOException {
+		if (location == null) {
+			out.writeInt(REMOVED);
+		} else {
+			out.writeInt(location.segmentId);
+			out.writeLong(location.dataOffset);
+			out.writeInt(location.length);
+			out.writeInt(location.recordSize);
+		}
+	}
+
+	/** @return Location of image; <b>null</b> - if image was removed */
+	private static Location readLocation(DataInputStream in) throws IOException {
+		int segmentId = in.readInt();
+		return segmentId == REMOVED ? null : new Location(segmentId, in.readLong(), in.readInt(), in.readInt());
+	}
+
+	/** Loads checkpointed index, recovers images appended after checkpoint and opens active segment */
+	private synchronized void open() throws IOException {
+		if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+			throw new IOException("Can't create cache directory " + cacheDir);
+		}
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (!name.endsWith(SEGMENT_FILE_SUFFIX)) continue;
+				try {
+					int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+					Segment segment = new Segment(id, file);
+					segment.length = file.length();
+					segments.put(id, segment);
+					size += segment.length;
+				} catch (NumberFormatException e) {
+					// not a segment
+				}
+			}
+		}
+
+		// Recovery starts from checkpointed end of active segment or from the very beginning if there is no index
+		long[] checkpoint = {Integer.MIN_VALUE, 0};
+		File indexFile = new File(cacheDir, INDEX_FILE);
+		if (indexFile.exists()) {
+			try {
+				CheckedInputStream in = new CheckedInputStream(new BufferedInputStream(new FileInputStream(indexFile)),
+						new CRC32());
+				try {
+					checkpoint = readIndex(in);
+				} finally {
+					IoUtils.closeSilently(in);
+				}
+				checkpoint = readIndexLog(new File(cacheDir, INDEX_LOG_FILE), checkpoint);
+			} catch (IOException e) {
+				L.w("Index of disk cache %s is corrupt (%s), segments are scanned", cacheDir, e.getMessage());
+				index.clear();
+				checkpoint = new long[]{Integer.MIN_VALUE, 0};
+			}
+		}
+		int checkpointSegmentId = (int) checkpoint[0];
+		long checkpointLength = checkpoint[1];
+		for (Segment segment : new ArrayList<Segment>(segments.tailMap(checkpointSegmentId, true).values())) {
+			long from = segment.id == checkpointSegmentId ? Math.min(checkpointLength, segment.length) : 0;
+			scan(segment, from);
+		}
+
+		// Drop images of deleted or truncated segments and compute live space of segments
+		for (Iterator<Map.Entry<String, Location>> it = index.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<String, Location> entry = it.next();
+			Location location = entry.getValue();
+			Segment segment = segments.get(location.segmentId);
+			if (segment == null || location.dataOffset + location.length > segment.length) {
+				it.remove();
+			} else {
+				segment.liveBytes += location.recordSize;
+				segment.keys.add(entry.getKey());
+			}
+		}
+
+		startSegment(segments.isEmpty() ? 0 : segments.lastKey());
+		if (activeSegment.length >= segmentSize) {
+			startSegment(activeSegment.id + 1);
+		}
+		// Recovered state is saved as new snapshot, it also starts clean index log
+		activeFile.getFD().sync();
+		writeIndexSnapshot();
+	}
+
+	/** @return Checkpointed active segment id and its length */
+	private long[] readIndex(CheckedInputStream checkedStream) throws IOException {
+		DataInputStream in = new DataInputStream(checkedStream);
+		int magic = in.readInt();
+		int version = in.readInt();
+		if (magic != INDEX_MAGIC || version != INDEX_VERSION) {
+			throw new IOException("unexpected index header: [" + Integer.toHexString(magic) + ", " + version + "]");
+		}
+		long generation = in.readLong();
+		int segmentId = in.readInt();
+		long segmentLength = in.readLong();
+		int count = in.readInt();
+		List<String> keys = new ArrayList<String>(count);
+		List<Location> locations = new ArrayList<Location>(count);
+		for (int i = 0; i < count; i++) {
+			keys.add(in.readUTF());
+			locations.add(readLocation(in));
+		}
+		int expectedChecksum = (int) checkedStream.getChecksum().getValue();
+		if (in.readInt() != expectedChecksum) {
+			throw new IOException("unexpected index checksum");
+		}
+		for (int i = 0; i < count; i++) {
+			index.put(keys.get(i), locations.get(i));
+		}
+		indexGeneration = generation;
+		return new long[]{segmentId, segmentLength};
+	}
+
+	/**
+	 * Applies batches of index log to loaded index snapshot. Log of another generation is ignored. Torn or corrupt
+	 * batch and all batches after it are ignored, images of these batches are recovered by scanning of segments.
+	 *
+	 * @param checkpoint Checkpointed active segment id and its length of index snapshot
+	 * @return Checkpointed active segment id and its length of the last applied batch
+	 */
+	private long[] readIndexLog(File logFile, long[] checkpoint) throws IOException {
+		if (!logFile.exists()) return checkpoint;
+
+		CheckedInputStream checkedStream = new CheckedInputStream(new BufferedInputStream(new FileInputStream(logFile)),
+				new CRC32());
+		DataInputStream in = new DataInputStream(checkedStream);
+		try {
+			if (in.readInt() != INDEX_LOG_MAGIC || in.readLong() != indexGeneration) return checkpoint;
+
+			Map<String, Location> changes = new LinkedHashMap<String, Location>();
+			while (true) {
+				checkedStream.getChecksum().reset();
+				changes.clear();
+				int segmentId = in.readInt();
+				long segmentLength = in.readLong();
+				int count = in.readInt();
+				if (count < 0) break;
+				for (int i = 0; i < count; i++) {
+					String key = in.readUTF();
+					changes.put(key, readLocation(in));
+				}
+				int expectedChecksum = (int) checkedStream.getChecksum().getValue();
+				if (in.readInt() != expectedChecksum) break;
+
+				for (Map.Entry<String, Location> change : changes.entrySet()) {
+					if (change.getValue() == null) {
+						index.remove(change.getKey());
+					} else {
+						index.put(change.getKey(), change.getValue());
+					}
+				}
+				checkpoint = new long[]{segmentId, segmentLength};
+			}
+		} catch (IOException e) {
+			// end of log or torn batch
+		} finally {
+			IoUtils.closeSilently(in);
+		}
+		return checkpoint;
+	}
+
+	/** Applies records of segment to index starting from incoming offset. Torn tail of segment is cut off. */
+	private void scan(Segment segment, long from) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(segment.file, "rw");
+		try {
+			long offset = from;
+			byte[] header = new byte[RECORD_HEADER_SIZE];
+			ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+			while (offset + RECORD_HEADER_SIZE <= segment.length) {
+				file.seek(offset);
+				file.readFully(header);
+				headerBuffer.rewind();
+				int magic = headerBuffer.getInt();
+				int keyLength = headerBuffer.getShort();
+				int dataLength = headerBuffer.getInt();
+				int recordChecksum = headerBuffer.getInt();
+				int bodyLength = keyLength + Math.max(dataLength, 0);
+				if (magic != RECORD_MAGIC || keyLength <= 0 || dataLength < TOMBSTONE
+						|| offset + RECORD_HEADER_SIZE + bodyLength > segment.length) {
+					break;
+				}
+				if (scanBuffer.length < bodyLength) {
+					scanBuffer = new byte[bodyLength];
+				}
+				file.readFully(scanBuffer, 0, bodyLength);
+				checksum.reset();
+				checksum.update(scanBuffer, 0, bodyLength);
+				if ((int) checksum.getValue() != recordChecksum) break;
+
+				String key = new String(scanBuffer, 0, keyLength, "UTF-8");
+				int recordSize = RECORD_HEADER_SIZE + bodyLength;
+				if (dataLength == TOMBSTONE) {
+					index.remove(key);
+				} else {
+					index.put(key, new Location(segment.id, offset + RECORD_HEADER_SIZE + keyLength, dataLength,
+							recordSize));
+				}
+				offset += recordSize;
+			}
+			if (offset < segment.length) {
+				L.w("Torn tail of segment %s is cut off (%d bytes)", segment.file, segment.length - offset);
+				file.setLength(offset);
+				size -= segment.length - offset;
+				segment.length = offset;
+			}
+		} finally {
+			IoUtils.closeSilently(file);
+		}
+	}
+
+	private InputStream openRead(Location location) throws IOException {
+		FileInputStream in = new FileInputStream(new File(cacheDir, location.segmentId + SEGMENT_FILE_SUFFIX));
+		try {
+			in.getChannel().position(location.dataOffset);
+		} catch (IOException e) {
+			IoUtils.closeSilently(in);
+			throw e;
+		}
+		return new SliceInputStream(in, location.length);
+	}
+
+	private static final class Segment {
+		final int id;
+		final File file;
+		/** Length of segment file */
+		long length;
+		/** Size of records of images which are in index */
+		long liveBytes;
+		/** Keys of images which are located in this segment */
+		final Set<String> keys = new HashSet<String>();
+
+		Segment(int id, File file) {
+			this.id = id;
+			this.file = file;
+		}
+	}
+
+	private static final class Location {
+		final int segmentId;
+		final long dataOffset;
+		final int length;
+		/** Size of record (header, key and data) in segment */
+		final int recordSize;
+
+		Location(int segmentId, long dataOffset, int length, int recordSize) {
+			this.segmentId = segmentId;
+			this.dataOffset = dataOffset;
+			this.length = length;
+			this.recordSize = recordSize;
+		}
+	}
+
+	/** Stream of image data in segment file. It's bounded by image length. */
+	private static final class SliceInputStream extends FilterInputStream {
+		private long remaining;
+
+		SliceInputStream(InputStream in, long length) {
+			super(in);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0) return -1;
+			int result = in.read();
+			if (result != -1) {
+				remaining--;
+			}
+			return result;
+		}
+
+		@Override
+		public int read(byte[] buffer, int byteOffset, int byteCount) throws IOException {
+			if (remaining <= 0) return -1;
+			int read = in.read(buffer, byteOffset, (int) Math.min(byteCount, remaining));
+			if (read > 0) {
+				remaining -= read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long byteCount) throws IOException {
+			long skipped = in.skip(Math.min(byteCount, remaining));
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(remaining, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
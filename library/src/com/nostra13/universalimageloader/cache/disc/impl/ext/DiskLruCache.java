@@ -15,7 +15,7 @@
  */
 package com.nostra13.universalimageloader.cache.disc.impl.ext;
 
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.File;
@@ -29,16 +29,25 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 /**
  * A cache that uses a bounded amount of space on a filesystem. Each cache
@@ -89,14 +98,30 @@ final class DiskLruCache implements Closeable {
 	static final String JOURNAL_FILE = "journal";
 	static final String JOURNAL_FILE_TEMP = "journal.tmp";
 	static final String JOURNAL_FILE_BACKUP = "journal.bkp";
+	static final String BINARY_JOURNAL_FILE = "journal.bin";
+	static final String BINARY_JOURNAL_FILE_TEMP = "journal.bin.tmp";
+	static final String BINARY_JOURNAL_FILE_BACKUP = "journal.bin.bkp";
 	static final String MAGIC = "libcore.io.DiskLruCache";
 	static final String VERSION_1 = "1";
+	static final int BINARY_MAGIC = 0x444c5243; // "DLRC"
+	static final int BINARY_VERSION_1 = 1;
 	static final long ANY_SEQUENCE_NUMBER = -1;
 	static final Pattern LEGAL_KEY_PATTERN = Pattern.compile("[a-z0-9_-]{1,64}");
 	private static final String CLEAN = "CLEAN";
 	private static final String DIRTY = "DIRTY";
 	private static final String REMOVE = "REMOVE";
 	private static final String READ = "READ";
+	private static final byte BINARY_CLEAN = 1;
+	private static final byte BINARY_DIRTY = 2;
+	private static final byte BINARY_REMOVE = 3;
+	private static final byte BINARY_READ = 4;
+	private static final int BINARY_HEADER_SIZE = 16;
+	private static final int MAX_KEY_LENGTH = 64;
+	/** Offset of value lengths in binary journal record: op (1 byte), key length (1 byte), key (64 bytes) */
+	private static final int BINARY_LENGTHS_OFFSET = 2 + MAX_KEY_LENGTH;
+	private static final int READ_BUFFER_SIZE = 256; // power of two
+	private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+	private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 4;
 
     /*
      * This cache uses a journal file named "journal". A typical journal file
@@ -136,22 +161,60 @@ final class DiskLruCache implements Closeable {
      * occasionally be compacted by dropping redundant lines. A temporary file named
      * "journal.tmp" will be used during compaction; that file should be deleted if
      * it exists when the cache is opened.
+     *
+     * Optional binary journal named "journal.bin" has the same structure: a
+     * snapshot of entries written on compaction followed by appended records.
+     * Its header consists of four big-endian ints: magic 0x444c5243, the binary
+     * journal version, the application's version and the value count. Records
+     * have fixed size so the journal can be memory-mapped and replayed without
+     * parsing text:
+     *   o op (1 byte): 1 - CLEAN, 2 - DIRTY, 3 - REMOVE, 4 - READ;
+     *   o key length (1 byte) and ASCII key padded with zeros to 64 bytes;
+     *   o value lengths (8 bytes per value), zeros unless op is CLEAN;
+     *   o CRC32 of all preceding bytes of the record (4 bytes).
+     * A torn or corrupt last record (e.g. after a crash) is dropped and the
+     * journal is rewritten; corruption of any other record invalidates the
+     * cache. A text journal is migrated to a binary one on open and vice versa.
      */
 
 	private final File directory;
 	private final File journalFile;
 	private final File journalFileTmp;
 	private final File journalFileBackup;
+	/** Journal of other format. It's migrated to journal of current format on open. */
+	private final File legacyJournalFile;
+	private final boolean binaryJournal;
 	private final int appVersion;
 	private long maxSize;
 	private int maxFileCount;
 	private final int valueCount;
 	private long size = 0;
 	private int fileCount = 0;
-	private Writer journalWriter;
+	private volatile OutputStream journalWriter;
 	private final LinkedHashMap<String, Entry> lruEntries =
 			new LinkedHashMap<>(0, 0.75f, true);
+	/**
+	 * Readable entries. It can be read without lock and doesn't affect LRU order. Hits found here are recorded into
+	 * {@link #readBuffer} and are applied to {@link #lruEntries} and journal later.
+	 */
+	private final ConcurrentHashMap<String, Entry> readableEntries = new ConcurrentHashMap<>();
 	private int redundantOpCount;
+	/** True if torn last record was dropped from binary journal, so it must be rewritten before appending */
+	private boolean journalTailDropped;
+
+	/** Buffer for encoding and decoding binary journal records. Guarded by cache lock. */
+	private final byte[] record;
+	private final ByteBuffer recordBuffer;
+	private final CRC32 recordChecksum = new CRC32();
+
+	/**
+	 * Ring buffer of entries which were read without lock. READ records are appended to journal in batches when buffer
+	 * is drained: on background thread or before next write operation.
+	 */
+	private final AtomicReferenceArray<Entry> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+	private final AtomicLong readBufferWriteCount = new AtomicLong();
+	private volatile long readBufferReadCount;
+	private final AtomicBoolean readBufferDrainScheduled = new AtomicBoolean();
 
 	/**
 	 * To differentiate between old and current snapshots, each entry is given
@@ -179,16 +242,41 @@ final class DiskLruCache implements Closeable {
 			return null;
 		}
 	};
+	private final Callable<Void> drainReadBufferCallable = new Callable<Void>() {
+		public Void call() throws Exception {
+			readBufferDrainScheduled.set(false);
+			synchronized (DiskLruCache.this) {
+				drainReadBuffer();
+				if (journalWriter != null && journalRebuildRequired()) {
+					rebuildJournal();
+					redundantOpCount = 0;
+				}
+			}
+			return null;
+		}
+	};
 
-	private DiskLruCache(File directory, int appVersion, int valueCount, long maxSize, int maxFileCount) {
+	private DiskLruCache(File directory, int appVersion, int valueCount, long maxSize, int maxFileCount,
+			boolean binaryJournal) {
 		this.directory = directory;
 		this.appVersion = appVersion;
-		this.journalFile = new File(directory, JOURNAL_FILE);
-		this.journalFileTmp = new File(directory, JOURNAL_FILE_TEMP);
-		this.journalFileBackup = new File(directory, JOURNAL_FILE_BACKUP);
+		this.binaryJournal = binaryJournal;
+		if (binaryJournal) {
+			this.journalFile = new File(directory, BINARY_JOURNAL_FILE);
+			this.journalFileTmp = new File(directory, BINARY_JOURNAL_FILE_TEMP);
+			this.journalFileBackup = new File(directory, BINARY_JOURNAL_FILE_BACKUP);
+			this.legacyJournalFile = new File(directory, JOURNAL_FILE);
+		} else {
+			this.journalFile = new File(directory, JOURNAL_FILE);
+			this.journalFileTmp = new File(directory, JOURNAL_FILE_TEMP);
+			this.journalFileBackup = new File(directory, JOURNAL_FILE_BACKUP);
+			this.legacyJournalFile = new File(directory, BINARY_JOURNAL_FILE);
+		}
 		this.valueCount = valueCount;
 		this.maxSize = maxSize;
 		this.maxFileCount = maxFileCount;
+		this.record = new byte[BINARY_LENGTHS_OFFSET + valueCount * 8 + 4];
+		this.recordBuffer = ByteBuffer.wrap(record);
 	}
 
 	/**
@@ -203,6 +291,22 @@ final class DiskLruCache implements Closeable {
 	 */
 	public static DiskLruCache open(File directory, int appVersion, int valueCount, long maxSize, int maxFileCount)
 			throws IOException {
+		return open(directory, appVersion, valueCount, maxSize, maxFileCount, false);
+	}
+
+	/**
+	 * Opens the cache in {@code directory}, creating a cache if none exists
+	 * there. Journal of other format is migrated if it exists.
+	 *
+	 * @param directory a writable directory
+	 * @param valueCount the number of values per cache entry. Must be positive.
+	 * @param maxSize the maximum number of bytes this cache should use to store
+	 * @param maxFileCount the maximum file count this cache should store
+	 * @param binaryJournal whether cache should keep binary journal instead of text one
+	 * @throws IOException if reading or writing the cache directory fails
+	 */
+	public static DiskLruCache open(File directory, int appVersion, int valueCount, long maxSize, int maxFileCount,
+			boolean binaryJournal) throws IOException {
 		if (maxSize <= 0) {
 			throw new IllegalArgumentException("maxSize <= 0");
 		}
@@ -214,25 +318,29 @@ final class DiskLruCache implements Closeable {
 		}
 
 		// If a bkp file exists, use it instead.
-		File backupFile = new File(directory, JOURNAL_FILE_BACKUP);
-		if (backupFile.exists()) {
-			File journalFile = new File(directory, JOURNAL_FILE);
-			// If journal file also exists just delete backup file.
-			if (journalFile.exists()) {
-				backupFile.delete();
-			} else {
-				renameTo(backupFile, journalFile, false);
-			}
-		}
+		restoreBackup(new File(directory, JOURNAL_FILE_BACKUP), new File(directory, JOURNAL_FILE));
+		restoreBackup(new File(directory, BINARY_JOURNAL_FILE_BACKUP), new File(directory, BINARY_JOURNAL_FILE));
 
 		// Prefer to pick up where we left off.
-		DiskLruCache cache = new DiskLruCache(directory, appVersion, valueCount, maxSize, maxFileCount);
-		if (cache.journalFile.exists()) {
+		DiskLruCache cache = new DiskLruCache(directory, appVersion, valueCount, maxSize, maxFileCount, binaryJournal);
+		boolean migrate = !cache.journalFile.exists() && cache.legacyJournalFile.exists();
+		if (cache.journalFile.exists() || migrate) {
 			try {
-				cache.readJournal();
+				File existingJournalFile = migrate ? cache.legacyJournalFile : cache.journalFile;
+				if (binaryJournal != migrate) {
+					cache.readBinaryJournal(existingJournalFile);
+				} else {
+					cache.readJournal(existingJournalFile);
+				}
 				cache.processJournal();
-				cache.journalWriter = new BufferedWriter(
-						new OutputStreamWriter(new FileOutputStream(cache.journalFile, true), Util.US_ASCII));
+				if (migrate || cache.journalTailDropped) {
+					cache.rebuildJournal();
+				} else {
+					cache.journalWriter = new BufferedOutputStream(new FileOutputStream(cache.journalFile, true));
+				}
+				// Journal of another format is stale (e.g. it's left after crash right after migration). It must
+				// not be picked up if journal format is switched back later.
+				cache.legacyJournalFile.delete();
 				return cache;
 			} catch (IOException journalIsCorrupt) {
 				System.out
@@ -247,12 +355,23 @@ final class DiskLruCache implements Closeable {
 
 		// Create a new empty cache.
 		directory.mkdirs();
-		cache = new DiskLruCache(directory, appVersion, valueCount, maxSize, maxFileCount);
+		cache = new DiskLruCache(directory, appVersion, valueCount, maxSize, maxFileCount, binaryJournal);
 		cache.rebuildJournal();
 		return cache;
 	}
 
-	private void readJournal() throws IOException {
+	private static void restoreBackup(File backupFile, File journalFile) throws IOException {
+		if (backupFile.exists()) {
+			// If journal file also exists just delete backup file.
+			if (journalFile.exists()) {
+				backupFile.delete();
+			} else {
+				renameTo(backupFile, journalFile, false);
+			}
+		}
+	}
+
+	private void readJournal(File journalFile) throws IOException {
 		StrictLineReader reader = new StrictLineReader(new FileInputStream(journalFile), Util.US_ASCII);
 		try {
 			String magic = reader.readLine();
@@ -323,6 +442,88 @@ final class DiskLruCache implements Closeable {
 		}
 	}
 
+	/** Replays memory-mapped binary journal. */
+	private void readBinaryJournal(File journalFile) throws IOException {
+		FileInputStream in = new FileInputStream(journalFile);
+		try {
+			FileChannel channel = in.getChannel();
+			long journalSize = channel.size();
+			if (journalSize < BINARY_HEADER_SIZE) {
+				throw new IOException("unexpected journal size: " + journalSize);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, journalSize);
+			int magic = buffer.getInt();
+			int version = buffer.getInt();
+			int journalAppVersion = buffer.getInt();
+			int journalValueCount = buffer.getInt();
+			if (magic != BINARY_MAGIC
+					|| version != BINARY_VERSION_1
+					|| journalAppVersion != appVersion
+					|| journalValueCount != valueCount) {
+				throw new IOException("unexpected journal header: [" + Integer.toHexString(magic) + ", " + version
+						+ ", " + journalAppVersion + ", " + journalValueCount + "]");
+			}
+
+			long recordCount = (journalSize - BINARY_HEADER_SIZE) / record.length;
+			journalTailDropped = (journalSize - BINARY_HEADER_SIZE) % record.length != 0;
+			int replayedCount = 0;
+			for (long i = 0; i < recordCount; i++) {
+				buffer.get(record);
+				recordChecksum.reset();
+				recordChecksum.update(record, 0, record.length - 4);
+				if ((int) recordChecksum.getValue() != recordBuffer.getInt(record.length - 4)) {
+					if (i == recordCount - 1) {
+						journalTailDropped = true;
+						break;
+					}
+					throw new IOException("unexpected journal record checksum: #" + i);
+				}
+				readJournalRecord();
+				replayedCount++;
+			}
+			redundantOpCount = replayedCount - lruEntries.size();
+		} finally {
+			Util.closeQuietly(in);
+		}
+	}
+
+	private void readJournalRecord() throws IOException {
+		byte op = record[0];
+		int keyLength = record[1];
+		if (keyLength <= 0 || keyLength > MAX_KEY_LENGTH) {
+			throw new IOException("unexpected journal record key length: " + keyLength);
+		}
+		String key = new String(record, 2, keyLength, Util.US_ASCII);
+		if (op == BINARY_REMOVE) {
+			lruEntries.remove(key);
+			return;
+		}
+
+		Entry entry = lruEntries.get(key);
+		if (entry == null) {
+			entry = new Entry(key);
+			lruEntries.put(key, entry);
+		}
+
+		switch (op) {
+			case BINARY_CLEAN:
+				entry.readable = true;
+				entry.currentEditor = null;
+				for (int i = 0; i < valueCount; i++) {
+					entry.lengths[i] = recordBuffer.getLong(BINARY_LENGTHS_OFFSET + i * 8);
+				}
+				break;
+			case BINARY_DIRTY:
+				entry.currentEditor = new Editor(entry);
+				break;
+			case BINARY_READ:
+				// This work was already done by calling lruEntries.get().
+				break;
+			default:
+				throw new IOException("unexpected journal record op: " + op);
+		}
+	}
+
 	/**
 	 * Computes the initial size and collects garbage as a part of opening the
 	 * cache. Dirty entries are assumed to be inconsistent and will be deleted.
@@ -336,6 +537,10 @@ final class DiskLruCache implements Closeable {
 					size += entry.lengths[t];
 					fileCount++;
 				}
+				if (entry.readable) {
+					entry.publishLengths();
+					readableEntries.put(entry.key, entry);
+				}
 			} else {
 				entry.currentEditor = null;
 				for (int t = 0; t < valueCount; t++) {
@@ -353,27 +558,26 @@ final class DiskLruCache implements Closeable {
 	 */
 	private synchronized void rebuildJournal() throws IOException {
 		if (journalWriter != null) {
+			drainReadBuffer();
 			journalWriter.close();
 		}
 
-		Writer writer = new BufferedWriter(
-				new OutputStreamWriter(new FileOutputStream(journalFileTmp), Util.US_ASCII));
+		OutputStream writer = new BufferedOutputStream(new FileOutputStream(journalFileTmp));
 		try {
-			writer.write(MAGIC);
-			writer.write("\n");
-			writer.write(VERSION_1);
-			writer.write("\n");
-			writer.write(Integer.toString(appVersion));
-			writer.write("\n");
-			writer.write(Integer.toString(valueCount));
-			writer.write("\n");
-			writer.write("\n");
+			if (binaryJournal) {
+				ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE);
+				header.putInt(BINARY_MAGIC).putInt(BINARY_VERSION_1).putInt(appVersion).putInt(valueCount);
+				writer.write(header.array());
+			} else {
+				String header = MAGIC + "\n" + VERSION_1 + "\n" + appVersion + "\n" + valueCount + "\n" + "\n";
+				writer.write(header.getBytes(Util.US_ASCII));
+			}
 
 			for (Entry entry : lruEntries.values()) {
 				if (entry.currentEditor != null) {
-					writer.write(DIRTY + ' ' + entry.key + '\n');
+					writeJournalRecord(writer, DIRTY, entry);
 				} else {
-					writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+					writeJournalRecord(writer, CLEAN, entry);
 				}
 			}
 		} finally {
@@ -386,8 +590,40 @@ final class DiskLruCache implements Closeable {
 		renameTo(journalFileTmp, journalFile, false);
 		journalFileBackup.delete();
 
-		journalWriter = new BufferedWriter(
-				new OutputStreamWriter(new FileOutputStream(journalFile, true), Util.US_ASCII));
+		journalWriter = new BufferedOutputStream(new FileOutputStream(journalFile, true));
+		journalTailDropped = false;
+	}
+
+	/** Writes journal record of current format. Is called under cache lock. */
+	private void writeJournalRecord(OutputStream out, String op, Entry entry) throws IOException {
+		if (!binaryJournal) {
+			String line = op + ' ' + entry.key + (op.equals(CLEAN) ? entry.getLengths() : "") + '\n';
+			out.write(line.getBytes(Util.US_ASCII));
+			return;
+		}
+
+		Arrays.fill(record, (byte) 0);
+		if (op.equals(CLEAN)) {
+			record[0] = BINARY_CLEAN;
+			for (int i = 0; i < valueCount; i++) {
+				recordBuffer.putLong(BINARY_LENGTHS_OFFSET + i * 8, entry.lengths[i]);
+			}
+		} else if (op.equals(DIRTY)) {
+			record[0] = BINARY_DIRTY;
+		} else if (op.equals(REMOVE)) {
+			record[0] = BINARY_REMOVE;
+		} else {
+			record[0] = BINARY_READ;
+		}
+		String key = entry.key;
+		record[1] = (byte) key.length();
+		for (int i = 0; i < key.length(); i++) {
+			record[2 + i] = (byte) key.charAt(i);
+		}
+		recordChecksum.reset();
+		recordChecksum.update(record, 0, record.length - 4);
+		recordBuffer.putInt(record.length - 4, (int) recordChecksum.getValue());
+		out.write(record);
 	}
 
 	private static void deleteIfExists(File file) throws IOException {
@@ -408,11 +644,38 @@ final class DiskLruCache implements Closeable {
 	/**
 	 * Returns a snapshot of the entry named {@code key}, or null if it doesn't
 	 * exist is not currently readable. If a value is returned, it is moved to
-	 * the head of the LRU queue.
+	 * the head of the LRU queue.<br />
+	 * Readable entry is opened without cache lock. Its access is recorded into read buffer, so LRU queue and journal
+	 * are updated a bit later in batch. If entry is being published at the same time then lock is taken.
 	 */
-	public synchronized Snapshot get(String key) throws IOException {
+	public Snapshot get(String key) throws IOException {
 		checkNotClosed();
 		validateKey(key);
+		Entry entry = readableEntries.get(key);
+		if (entry == null) {
+			return null;
+		}
+
+		// Only volatile fields are read between stamp reads, so these reads can't be reordered after the second one
+		int stamp = entry.publishStamp;
+		if ((stamp & 1) == 0) {
+			long[] lengths = entry.publishedLengths; // is never changed after publication
+			Snapshot snapshot = openSnapshot(entry, entry.sequenceNumber, lengths.clone());
+			if (snapshot == null) {
+				return null;
+			}
+			if (entry.publishStamp == stamp) {
+				recordRead(entry);
+				return snapshot;
+			}
+			// Values were replaced while we were opening them
+			snapshot.close();
+		}
+		return getLocked(key);
+	}
+
+	private synchronized Snapshot getLocked(String key) throws IOException {
+		checkNotClosed();
 		Entry entry = lruEntries.get(key);
 		if (entry == null) {
 			return null;
@@ -422,6 +685,22 @@ final class DiskLruCache implements Closeable {
 			return null;
 		}
 
+		Snapshot snapshot = openSnapshot(entry, entry.sequenceNumber, entry.lengths.clone());
+		if (snapshot == null) {
+			return null;
+		}
+
+		redundantOpCount++;
+		writeJournalRecord(journalWriter, READ, entry);
+		if (journalRebuildRequired()) {
+			executorService.submit(cleanupCallable);
+		}
+
+		return snapshot;
+	}
+
+	/** Returns snapshot with opened values of entry or null if any value file is missing. */
+	private Snapshot openSnapshot(Entry entry, long sequenceNumber, long[] lengths) {
 		// Open all streams eagerly to guarantee that we see a single published
 		// snapshot. If we opened streams lazily then the streams could come
 		// from different edits.
@@ -445,14 +724,57 @@ final class DiskLruCache implements Closeable {
 			}
 			return null;
 		}
+		return new Snapshot(entry.key, sequenceNumber, files, ins, lengths);
+	}
 
-		redundantOpCount++;
-		journalWriter.append(READ + ' ' + key + '\n');
-		if (journalRebuildRequired()) {
-			executorService.submit(cleanupCallable);
+	/** Records read of entry without locking. Read can be lost if buffer is full. */
+	private void recordRead(Entry entry) {
+		long writeCount = readBufferWriteCount.get();
+		long pending = writeCount - readBufferReadCount;
+		if (pending < READ_BUFFER_SIZE && readBufferWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+			readBuffer.lazySet((int) (writeCount & READ_BUFFER_MASK), entry);
+			pending++;
+		}
+		if (pending >= READ_BUFFER_DRAIN_THRESHOLD && readBufferDrainScheduled.compareAndSet(false, true)) {
+			executorService.submit(drainReadBufferCallable);
+		}
+	}
+
+	/**
+	 * Moves recently read entries to the head of LRU queue and appends READ records for them to journal. Is called
+	 * under cache lock.
+	 */
+	private void drainReadBuffer() throws IOException {
+		if (journalWriter == null) {
+			return; // Closed.
+		}
+		long readCount = readBufferReadCount;
+		long writeCount = readBufferWriteCount.get();
+		try {
+			for (; readCount < writeCount; readCount++) {
+				int index = (int) (readCount & READ_BUFFER_MASK);
+				Entry entry = readBuffer.get(index);
+				if (entry == null) break; // slot is claimed but not written yet
+
+				readBuffer.lazySet(index, null);
+				if (readableEntries.get(entry.key) == entry) { // entry wasn't removed
+					lruEntries.get(entry.key);
+					redundantOpCount++;
+					writeJournalRecord(journalWriter, READ, entry);
+				}
+			}
+		} finally {
+			readBufferReadCount = readCount;
 		}
+	}
 
-		return new Snapshot(key, entry.sequenceNumber, files, ins, entry.lengths);
+	/**
+	 * Returns true if the entry named {@code key} exists and is readable. Unlike
+	 * {@link #get(String)} this method doesn't touch the file system, doesn't
+	 * block on the cache lock and doesn't move the entry in the LRU queue.
+	 */
+	public boolean contains(String key) {
+		return readableEntries.containsKey(key);
 	}
 
 	/**
@@ -466,6 +788,7 @@ final class DiskLruCache implements Closeable {
 	private synchronized Editor edit(String key, long expectedSequenceNumber) throws IOException {
 		checkNotClosed();
 		validateKey(key);
+		drainReadBuffer();
 		Entry entry = lruEntries.get(key);
 		if (expectedSequenceNumber != ANY_SEQUENCE_NUMBER && (entry == null
 				|| entry.sequenceNumber != expectedSequenceNumber)) {
@@ -482,7 +805,7 @@ final class DiskLruCache implements Closeable {
 		entry.currentEditor = editor;
 
 		// Flush the journal before creating files to prevent file leaks.
-		journalWriter.write(DIRTY + ' ' + key + '\n');
+		writeJournalRecord(journalWriter, DIRTY, entry);
 		journalWriter.flush();
 		return editor;
 	}
@@ -552,20 +875,30 @@ final class DiskLruCache implements Closeable {
 			}
 		}
 
-		for (int i = 0; i < valueCount; i++) {
-			File dirty = entry.getDirtyFile(i);
-			if (success) {
-				if (dirty.exists()) {
-					File clean = entry.getCleanFile(i);
-					dirty.renameTo(clean);
-					long oldLength = entry.lengths[i];
-					long newLength = clean.length();
-					entry.lengths[i] = newLength;
-					size = size - oldLength + newLength;
-					fileCount++;
+		drainReadBuffer();
+		if (success) {
+			entry.publishStamp++; // Odd stamp makes lock-free readers of this entry retry under lock
+			try {
+				for (int i = 0; i < valueCount; i++) {
+					File dirty = entry.getDirtyFile(i);
+					if (dirty.exists()) {
+						File clean = entry.getCleanFile(i);
+						dirty.renameTo(clean);
+						long oldLength = entry.lengths[i];
+						long newLength = clean.length();
+						entry.lengths[i] = newLength;
+						size = size - oldLength + newLength;
+						fileCount++;
+					}
 				}
-			} else {
-				deleteIfExists(dirty);
+				entry.sequenceNumber = nextSequenceNumber++;
+				entry.publishLengths();
+			} finally {
+				entry.publishStamp++;
+			}
+		} else {
+			for (int i = 0; i < valueCount; i++) {
+				deleteIfExists(entry.getDirtyFile(i));
 			}
 		}
 
@@ -573,13 +906,11 @@ final class DiskLruCache implements Closeable {
 		entry.currentEditor = null;
 		if (entry.readable | success) {
 			entry.readable = true;
-			journalWriter.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
-			if (success) {
-				entry.sequenceNumber = nextSequenceNumber++;
-			}
+			readableEntries.put(entry.key, entry);
+			writeJournalRecord(journalWriter, CLEAN, entry);
 		} else {
 			lruEntries.remove(entry.key);
-			journalWriter.write(REMOVE + ' ' + entry.key + '\n');
+			writeJournalRecord(journalWriter, REMOVE, entry);
 		}
 		journalWriter.flush();
 
@@ -607,6 +938,7 @@ final class DiskLruCache implements Closeable {
 	public synchronized boolean remove(String key) throws IOException {
 		checkNotClosed();
 		validateKey(key);
+		drainReadBuffer();
 		Entry entry = lruEntries.get(key);
 		if (entry == null || entry.currentEditor != null) {
 			return false;
@@ -623,8 +955,9 @@ final class DiskLruCache implements Closeable {
 		}
 
 		redundantOpCount++;
-		journalWriter.append(REMOVE + ' ' + key + '\n');
+		writeJournalRecord(journalWriter, REMOVE, entry);
 		lruEntries.remove(key);
+		readableEntries.remove(key);
 
 		if (journalRebuildRequired()) {
 			executorService.submit(cleanupCallable);
@@ -669,6 +1002,7 @@ final class DiskLruCache implements Closeable {
 	}
 
 	private void trimToSize() throws IOException {
+		drainReadBuffer();
 		while (size > maxSize) {
 			Map.Entry<String, Entry> toEvict = lruEntries.entrySet().iterator().next();
 			remove(toEvict.getKey());
@@ -689,6 +1023,7 @@ final class DiskLruCache implements Closeable {
 	 */
 	public void delete() throws IOException {
 		close();
+		readableEntries.clear();
 		Util.deleteContents(directory);
 	}
 
@@ -923,6 +1258,12 @@ final class DiskLruCache implements Closeable {
 		/** Lengths of this entry's files. */
 		private final long[] lengths;
 
+		/**
+		 * Copy of {@link #lengths} which was published by the last committed edit. Array is replaced on every
+		 * publication and never changed after it, so it's read by lock-free readers.
+		 */
+		private volatile long[] publishedLengths;
+
 		/** True if this entry has ever been published. */
 		private boolean readable;
 
@@ -930,11 +1271,23 @@ final class DiskLruCache implements Closeable {
 		private Editor currentEditor;
 
 		/** The sequence number of the most recently committed edit to this entry. */
-		private long sequenceNumber;
+		private volatile long sequenceNumber;
+
+		/**
+		 * Is incremented before and after values of this entry are replaced by committed edit, so it's odd while
+		 * values are being replaced. Is changed under cache lock.
+		 */
+		private volatile int publishStamp;
 
 		private Entry(String key) {
 			this.key = key;
 			this.lengths = new long[valueCount];
+			this.publishedLengths = new long[valueCount];
+		}
+
+		/** Is called under cache lock when entry values are published */
+		private void publishLengths() {
+			publishedLengths = lengths.clone();
 		}
 
 		public String getLengths() throws IOException {
@@ -49,6 +49,7 @@ public class LruDiscCache implements DiskCache {
 
 	protected DiskLruCache cache;
 	private File reserveCacheDir;
+	private final boolean binaryJournal;
 
 	protected final FileNameGenerator fileNameGenerator;
 
@@ -81,6 +82,23 @@ public class LruDiscCache implements DiskCache {
 	 */
 	public LruDiscCache(File cacheDir, File reserveCacheDir, FileNameGenerator fileNameGenerator, long cacheMaxSize,
 			int cacheMaxFileCount) throws IOException {
+		this(cacheDir, reserveCacheDir, fileNameGenerator, cacheMaxSize, cacheMaxFileCount, false);
+	}
+
+	/**
+	 * @param cacheDir          Directory for file caching
+	 * @param reserveCacheDir   null-ok; Reserve directory for file caching. It's used when the primary directory isn't available.
+	 * @param fileNameGenerator {@linkplain com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator
+	 *                          Name generator} for cached files. Generated names must match the regex
+	 *                          <strong>[a-z0-9_-]{1,64}</strong>
+	 * @param cacheMaxSize      Max cache size in bytes. <b>0</b> means cache size is unlimited.
+	 * @param cacheMaxFileCount Max file count in cache. <b>0</b> means file count is unlimited.
+	 * @param binaryJournal     Whether cache journal should be kept in binary format. Binary journal is replayed much
+	 *                          faster on cache opening. Existing journal of other format is migrated automatically.
+	 * @throws IOException if cache can't be initialized (e.g. "No space left on device")
+	 */
+	public LruDiscCache(File cacheDir, File reserveCacheDir, FileNameGenerator fileNameGenerator, long cacheMaxSize,
+			int cacheMaxFileCount, boolean binaryJournal) throws IOException {
 		if (cacheDir == null) {
 			throw new IllegalArgumentException("cacheDir" + ERROR_ARG_NULL);
 		}
@@ -103,13 +121,14 @@ public class LruDiscCache implements DiskCache {
 
 		this.reserveCacheDir = reserveCacheDir;
 		this.fileNameGenerator = fileNameGenerator;
+		this.binaryJournal = binaryJournal;
 		initCache(cacheDir, reserveCacheDir, cacheMaxSize, cacheMaxFileCount);
 	}
 
 	private void initCache(File cacheDir, File reserveCacheDir, long cacheMaxSize, int cacheMaxFileCount)
 			throws IOException {
 		try {
-			cache = DiskLruCache.open(cacheDir, 1, 1, cacheMaxSize, cacheMaxFileCount);
+			cache = DiskLruCache.open(cacheDir, 1, 1, cacheMaxSize, cacheMaxFileCount, binaryJournal);
 		} catch (IOException e) {
 			L.e(e);
 			if (reserveCacheDir != null) {
@@ -142,6 +161,24 @@ public class LruDiscCache implements DiskCache {
 		}
 	}
 
+	@Override
+	public InputStream openRead(String imageUri) {
+		try {
+			// Snapshot holds opened streams only, so its stream stays readable without it
+			DiskLruCache.Snapshot snapshot = cache.get(getKey(imageUri));
+			return snapshot == null ? null : snapshot.getInputStream(0);
+		} catch (IOException e) {
+			L.e(e);
+			return null;
+		}
+	}
+
+	@Override
+	public boolean contains(String imageUri) {
+		DiskLruCache cache = this.cache;
+		return cache != null && cache.contains(getKey(imageUri));
+	}
+
 	@Override
 	public boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException {
 		DiskLruCache.Editor editor = cache.edit(getKey(imageUri));
@@ -32,6 +32,10 @@ public abstract class BaseMemoryCache implements MemoryCache {
 	/** Stores not strong references to objects */
 	private final Map<String, Reference<Bitmap>> softMap = Collections.synchronizedMap(new HashMap<String, Reference<Bitmap>>());
 
+	private final UriKeyIndex keyIndex = new UriKeyIndex();
+
+	private volatile MemoryCacheEvictionListener evictionListener;
+
 	@Override
 	public Bitmap get(String key) {
 		Bitmap result = null;
@@ -44,14 +48,32 @@ public abstract class BaseMemoryCache implements MemoryCache {
 
 	@Override
 	public boolean put(String key, Bitmap value) {
-		softMap.put(key, createReference(value));
+		Reference<Bitmap> previousRef;
+		synchronized (softMap) {
+			previousRef = softMap.put(key, createReference(value));
+			keyIndex.add(key);
+		}
+		if (previousRef != null) {
+			Bitmap previous = previousRef.get();
+			if (previous != null && previous != value) {
+				notifyEvicted(key, previous, EvictionCause.REPLACED);
+			}
+		}
 		return true;
 	}
 
 	@Override
 	public Bitmap remove(String key) {
-		Reference<Bitmap> bmpRef = softMap.remove(key);
-		return bmpRef == null ? null : bmpRef.get();
+		Reference<Bitmap> bmpRef;
+		synchronized (softMap) {
+			bmpRef = softMap.remove(key);
+			keyIndex.remove(key);
+		}
+		Bitmap value = bmpRef == null ? null : bmpRef.get();
+		if (value != null) {
+			notifyEvicted(key, value, EvictionCause.REMOVED);
+		}
+		return value;
 	}
 
 	@Override
@@ -61,9 +83,68 @@ public abstract class BaseMemoryCache implements MemoryCache {
 		}
 	}
 
+	@Override
+	public Collection<String> keysForUri(String imageUri) {
+		return keyIndex.get(imageUri);
+	}
+
 	@Override
 	public void clear() {
-		softMap.clear();
+		removeAll(EvictionCause.CLEARED);
+	}
+
+	/**
+	 * Bitmaps are held by not strong references so they are collected by GC under memory pressure. So cache is
+	 * emptied only if it's trimmed to zero size.
+	 */
+	@Override
+	public void trimToSize(int maxSize) {
+		if (maxSize <= 0) {
+			removeAll(EvictionCause.TRIMMED);
+		}
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		if (level == TrimLevel.CRITICAL) {
+			removeAll(EvictionCause.TRIMMED);
+		}
+	}
+
+	private void removeAll(EvictionCause cause) {
+		if (evictionListener == null) {
+			synchronized (softMap) {
+				softMap.clear();
+				keyIndex.clear();
+			}
+			return;
+		}
+
+		Map<String, Reference<Bitmap>> removed;
+		synchronized (softMap) {
+			removed = new HashMap<String, Reference<Bitmap>>(softMap);
+			softMap.clear();
+			keyIndex.clear();
+		}
+		for (Map.Entry<String, Reference<Bitmap>> entry : removed.entrySet()) {
+			Bitmap value = entry.getValue().get();
+			if (value != null) {
+				notifyEvicted(entry.getKey(), value, cause);
+			}
+		}
+	}
+
+	@Override
+	public void setEvictionListener(MemoryCacheEvictionListener listener) {
+		this.evictionListener = listener;
+	}
+
+	/** Notifies {@linkplain MemoryCacheEvictionListener eviction listener} (if it's set) */
+	protected void notifyEvicted(String key, Bitmap value, EvictionCause cause) {
+		MemoryCacheEvictionListener listener = evictionListener;
+		if (listener != null) {
+			listener.onEvicted(key, value, value.getRowBytes() * value.getHeight(), cause);
+		}
 	}
 
 	/** Creates {@linkplain Reference not strong} reference of value */
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of encoded images (bytes of JPEG, PNG, WebP files) by image URI. It's memory tier between
+ * {@linkplain MemoryCache memory cache} of decoded Bitmaps and disk cache: image found here is decoded without file
+ * reading. Encoded image takes several times less memory than decoded one so this cache holds much more images than
+ * memory cache of the same size.<br />
+ * Sizes are counted in bytes. Image which is bigger than {@linkplain #getMaxEntrySize() max entry size} isn't cached
+ * so one big image doesn't evict all others.<br />
+ * <b>NOTE:</b> Cached arrays are shared with callers, they mustn't be modified.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class EncodedMemoryCache {
+
+	/** Max entry size is 1/{@value} of cache size */
+	private static final int MAX_ENTRY_SIZE_DIVIDER = 8;
+
+	private final LinkedHashMap<String, byte[]> map = new LinkedHashMap<String, byte[]>(0, 0.75f, true);
+
+	private final int maxSize;
+	private final int maxEntrySize;
+	/** Size of this cache in bytes */
+	private int size;
+
+	/** @param maxSize Maximum sum of the sizes of the encoded images in this cache */
+	public EncodedMemoryCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.maxSize = maxSize;
+		this.maxEntrySize = maxSize / MAX_ENTRY_SIZE_DIVIDER;
+	}
+
+	/** @return Encoded image for incoming URI or <b>null</b> if it isn't cached */
+	public synchronized byte[] get(String imageUri) {
+		return map.get(imageUri);
+	}
+
+	/** @return <b>true</b> - if encoded image for incoming URI is cached; <b>false</b> - otherwise */
+	public synchronized boolean contains(String imageUri) {
+		return map.containsKey(imageUri);
+	}
+
+	/**
+	 * Caches encoded image. Least recently used images are evicted if cache exceeds its max size.
+	 *
+	 * @return <b>true</b> - if image was cached; <b>false</b> - if image is bigger than max entry size
+	 */
+	public boolean put(String imageUri, byte[] encodedImage) {
+		if (imageUri == null || encodedImage == null) {
+			throw new NullPointerException("imageUri == null || encodedImage == null");
+		}
+		if (encodedImage.length > maxEntrySize) return false;
+
+		synchronized (this) {
+			byte[] previous = map.put(imageUri, encodedImage);
+			size += encodedImage.length;
+			if (previous != null) {
+				size -= previous.length;
+			}
+			trimToSize(maxSize);
+		}
+		return true;
+	}
+
+	/** @return Removed encoded image or <b>null</b> if it wasn't cached */
+	public synchronized byte[] remove(String imageUri) {
+		byte[] removed = map.remove(imageUri);
+		if (removed != null) {
+			size -= removed.length;
+		}
+		return removed;
+	}
+
+	public synchronized void clear() {
+		map.clear();
+		size = 0;
+	}
+
+	/** Evicts least recently used images until sum of sizes of remaining ones is not bigger than incoming size */
+	public synchronized void trimToSize(int maxSize) {
+		Iterator<Map.Entry<String, byte[]>> iterator = map.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			size -= iterator.next().getValue().length;
+			iterator.remove();
+		}
+	}
+
+	/** {@linkplain #trimToSize(int) Trims} cache to size defined by memory pressure level */
+	public void trim(TrimLevel level) {
+		trimToSize(level.getRetainedSize(maxSize));
+	}
+
+	/** @return Sum of the sizes of the encoded images in this cache */
+	public synchronized int size() {
+		return size;
+	}
+
+	/** @return Maximum sum of the sizes of the encoded images in this cache */
+	public int maxSize() {
+		return maxSize;
+	}
+
+	/** @return Max size of encoded image which can be cached */
+	public int getMaxEntrySize() {
+		return maxEntrySize;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("EncodedMemoryCache[size=%d, maxSize=%d, images=%d]", size, maxSize, map.size());
+	}
+}
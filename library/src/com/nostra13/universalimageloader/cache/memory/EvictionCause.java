@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+/**
+ * Reason why Bitmap left {@linkplain MemoryCache memory cache}
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see MemoryCacheEvictionListener
+ * @since 1.9.2
+ */
+public enum EvictionCause {
+	/** Bitmap was evicted to keep cache size within limit */
+	SIZE,
+	/** Bitmap was replaced by another Bitmap put by the same key */
+	REPLACED,
+	/** Bitmap was removed explicitly by {@link MemoryCache#remove(Object)} */
+	REMOVED,
+	/** Bitmap was removed by {@link MemoryCache#clear()} */
+	CLEARED,
+	/** Bitmap was evicted because system is running low on memory */
+	TRIMMED;
+
+	/**
+	 * @return <b>true</b> - if cache has dropped Bitmap by itself; <b>false</b> - if Bitmap was returned to caller of
+	 * {@link MemoryCache#remove(Object) remove(...)} and can be still used by it
+	 */
+	public boolean wasEvicted() {
+		return this != REMOVED;
+	}
+}
@@ -20,8 +20,8 @@ import android.graphics.Bitmap;
 import com.nostra13.universalimageloader.utils.L;
 
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -29,7 +29,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * {@link #getSizeLimit()}).<br />
  * <br />
  * <b>NOTE:</b> This cache uses strong and weak references for stored Bitmaps. Strong references - for limited count of
- * Bitmaps (depends on cache size), weak references - for all other cached Bitmaps.
+ * Bitmaps (depends on cache size), weak references - for all other cached Bitmaps. Bitmaps which exceed size limit
+ * stay in cache by weak references so they aren't reported to
+ * {@linkplain com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener eviction listener}.
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @see BaseMemoryCache
@@ -47,9 +49,9 @@ public abstract class LimitedMemoryCache extends BaseMemoryCache {
 	/**
 	 * Contains strong references to stored objects. Each next object is added last. If hard cache size will exceed
 	 * limit then first object is deleted (but it continue exist at {@link #softMap} and can be collected by GC at any
-	 * time)
+	 * time). Set is used so removing of object takes O(1).
 	 */
-	private final List<Bitmap> hardCache = Collections.synchronizedList(new LinkedList<Bitmap>());
+	private final Set<Bitmap> hardCache = Collections.synchronizedSet(new LinkedHashSet<Bitmap>());
 
     public LimitedMemoryCache(int sizeLimit, boolean useSoftmap) {
         this(sizeLimit);
@@ -73,19 +75,10 @@ public abstract class LimitedMemoryCache extends BaseMemoryCache {
 		int sizeLimit = getSizeLimit();
 		int curCacheSize = cacheSize.get();
 		if (valueSize < sizeLimit) {
-			while (curCacheSize + valueSize > sizeLimit) {
-                int cacheSizeBeforeRemove = cacheSize.get();
-				Bitmap removedValue = removeNext();
-                int cacheSizeAfterRemove = cacheSize.get();
-				if (hardCache.remove(removedValue)) {
-					curCacheSize = cacheSize.addAndGet(-getSize(removedValue));
-				}
-                if(cacheSizeAfterRemove != cacheSizeBeforeRemove) {
-                    curCacheSize = cacheSize.get();
-                }
+			removeFromHardCache(sizeLimit - valueSize);
+			if (hardCache.add(value)) {
+				cacheSize.addAndGet(valueSize);
 			}
-			hardCache.add(value);
-			cacheSize.addAndGet(valueSize);
 
 			putSuccessfully = true;
 		}
@@ -114,6 +107,38 @@ public abstract class LimitedMemoryCache extends BaseMemoryCache {
 		super.clear();
 	}
 
+	/**
+	 * Removes strong references to Bitmaps until their sum size is not bigger than incoming size. Bitmaps stay in
+	 * cache by weak references (so they can be collected by GC) unless cache is trimmed to zero size.
+	 */
+	@Override
+	public void trimToSize(int maxSize) {
+		removeFromHardCache(maxSize);
+		super.trimToSize(maxSize);
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		trimToSize(level.getRetainedSize(getSizeLimit()));
+	}
+
+	/** Removes strong references to Bitmaps until their sum size is not bigger than incoming size */
+	private void removeFromHardCache(int maxSize) {
+		int curCacheSize = cacheSize.get();
+		while (curCacheSize > maxSize) {
+            int cacheSizeBeforeRemove = cacheSize.get();
+			Bitmap removedValue = removeNext();
+			if (removedValue == null) break; // nothing to remove anymore
+            int cacheSizeAfterRemove = cacheSize.get();
+			if (hardCache.remove(removedValue)) {
+				curCacheSize = cacheSize.addAndGet(-getSize(removedValue));
+			}
+            if(cacheSizeAfterRemove != cacheSizeBeforeRemove) {
+                curCacheSize = cacheSize.get();
+            }
+		}
+	}
+
 	protected int getSizeLimit() {
 		return sizeLimit;
 	}
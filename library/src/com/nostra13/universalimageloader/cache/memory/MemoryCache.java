@@ -16,6 +16,10 @@
 package com.nostra13.universalimageloader.cache.memory;
 
 import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+
+import java.util.Collection;
 
 /**
  * Interface for memory cache
@@ -24,4 +28,36 @@ import android.graphics.Bitmap;
  * @since 1.9.2
  */
 public interface MemoryCache extends MemoryCacheAware<String, Bitmap> {
+
+	/**
+	 * Sets listener which will be notified about Bitmaps leaving this cache. Caches which keep Bitmaps by not strong
+	 * references can't report Bitmaps collected by GC.
+	 *
+	 * @param listener Eviction listener or <b>null</b> to stop notifications
+	 */
+	void setEvictionListener(MemoryCacheEvictionListener listener);
+
+	/**
+	 * Returns keys of all sizes of image cached for incoming URI. Keys are found by {@linkplain UriKeyIndex index}
+	 * without iterating over all {@linkplain #keys() cache keys}.
+	 *
+	 * @param imageUri Image URI which keys were {@linkplain MemoryCacheUtils#generateKey(String, ImageSize) generated}
+	 *                 for
+	 */
+	Collection<String> keysForUri(String imageUri);
+
+	/**
+	 * Evicts the least valuable Bitmaps until sum of sizes of Bitmaps held by strong references is not bigger than
+	 * incoming size. Max size of cache isn't changed. Evicted Bitmaps are reported with
+	 * {@link EvictionCause#TRIMMED} cause.
+	 *
+	 * @param maxSize Size (in bytes) which cache should be trimmed to
+	 */
+	void trimToSize(int maxSize);
+
+	/**
+	 * {@linkplain #trimToSize(int) Trims} cache to {@linkplain TrimLevel#getRetainedSize(int) size} defined by
+	 * memory pressure level.
+	 */
+	void trim(TrimLevel level);
 }
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.graphics.Bitmap;
+
+/**
+ * Listener of Bitmaps leaving {@linkplain MemoryCache memory cache}. Listener can recycle Bitmap, return it into
+ * {@linkplain com.nostra13.universalimageloader.core.assist.pool.BitmapPool pool} for reuse or move it to secondary
+ * cache. But Bitmap can still be displayed at the moment of eviction so listener must check it isn't used anymore
+ * before recycling or reusing.<br />
+ * <br />
+ * Listener is called on thread which modified cache and outside of cache's internal locks, so it can access the cache
+ * safely.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see MemoryCache#setEvictionListener(MemoryCacheEvictionListener)
+ * @since 1.9.2
+ */
+public interface MemoryCacheEvictionListener {
+
+	/**
+	 * Is called when Bitmap left memory cache
+	 *
+	 * @param key   Key of Bitmap in cache
+	 * @param value Bitmap which left cache
+	 * @param size  Size of Bitmap (in bytes) which was counted by cache
+	 * @param cause Reason of eviction
+	 */
+	void onEvicted(String key, Bitmap value, int size, EvictionCause cause);
+}
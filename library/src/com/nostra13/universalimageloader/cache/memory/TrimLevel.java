@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.content.ComponentCallbacks2;
+
+/**
+ * Level of memory pressure which {@linkplain MemoryCache memory cache} is {@linkplain MemoryCache#trim(TrimLevel)
+ * trimmed} for
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public enum TrimLevel {
+	/** Cache keeps 50% of its max size */
+	BACKGROUND(50),
+	/** Cache keeps 25% of its max size */
+	MODERATE(25),
+	/**
+	 * Cache keeps nothing. {@link com.nostra13.universalimageloader.core.ImageLoader#trimMemory(TrimLevel)
+	 * ImageLoader} keeps only images which are displayed in views at the moment.
+	 */
+	CRITICAL(0);
+
+	private final int retainedPercent;
+
+	TrimLevel(int retainedPercent) {
+		this.retainedPercent = retainedPercent;
+	}
+
+	/** @return Size (in bytes) which cache of incoming max size should be trimmed to */
+	public int getRetainedSize(int maxSize) {
+		return (int) ((long) maxSize * retainedPercent / 100);
+	}
+
+	/**
+	 * Converts level of {@link ComponentCallbacks2#onTrimMemory(int)} into trim level
+	 *
+	 * @return Trim level or <b>null</b> if memory shouldn't be trimmed for incoming level
+	 */
+	public static TrimLevel fromTrimMemoryLevel(int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+			return CRITICAL;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+			return MODERATE;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+			return BACKGROUND;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+			return null; // UI is hidden but app isn't going to be killed
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			return CRITICAL;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			return MODERATE;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+			return BACKGROUND;
+		}
+		return null;
+	}
+}
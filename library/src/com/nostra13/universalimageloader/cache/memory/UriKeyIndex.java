@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary index of {@linkplain MemoryCache memory cache} keys by image URI. Keys are expected to be
+ * {@linkplain MemoryCacheUtils#generateKey(String, ImageSize) generated} for image URI and size, other keys are indexed
+ * as URIs themselves. Memory cache adds keys of put entries and removes keys of evicted entries so keys of image URI
+ * are found without iterating over all cache keys.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public final class UriKeyIndex {
+
+	private final Map<String, Set<String>> keysByUri = new HashMap<String, Set<String>>();
+
+	public void add(String key) {
+		String imageUri = imageUriOf(key);
+		synchronized (keysByUri) {
+			Set<String> keys = keysByUri.get(imageUri);
+			if (keys == null) {
+				keys = new HashSet<String>(4);
+				keysByUri.put(imageUri, keys);
+			}
+			keys.add(key);
+		}
+	}
+
+	public void remove(String key) {
+		String imageUri = imageUriOf(key);
+		synchronized (keysByUri) {
+			Set<String> keys = keysByUri.get(imageUri);
+			if (keys != null && keys.remove(key) && keys.isEmpty()) {
+				keysByUri.remove(imageUri);
+			}
+		}
+	}
+
+	/** @return Copy of keys indexed for incoming image URI */
+	public Collection<String> get(String imageUri) {
+		synchronized (keysByUri) {
+			Set<String> keys = keysByUri.get(imageUri);
+			return keys == null ? Collections.<String>emptyList() : new ArrayList<String>(keys);
+		}
+	}
+
+	public void clear() {
+		synchronized (keysByUri) {
+			keysByUri.clear();
+		}
+	}
+
+	private static String imageUriOf(String key) {
+		String imageUri = MemoryCacheUtils.getImageUri(key);
+		return imageUri == null ? key : imageUri;
+	}
+}
@@ -21,8 +21,9 @@ import com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Limited {@link Bitmap bitmap} cache. Provides {@link Bitmap bitmaps} storing. Size of all stored bitmaps will not to
@@ -36,7 +37,7 @@ import java.util.List;
  */
 public class FIFOLimitedMemoryCache extends LimitedMemoryCache {
 
-	private final List<Bitmap> queue = Collections.synchronizedList(new LinkedList<Bitmap>());
+	private final Set<Bitmap> queue = Collections.synchronizedSet(new LinkedHashSet<Bitmap>());
 
 	public FIFOLimitedMemoryCache(int sizeLimit) {
 		super(sizeLimit);
@@ -74,7 +75,14 @@ public class FIFOLimitedMemoryCache extends LimitedMemoryCache {
 
 	@Override
 	protected Bitmap removeNext() {
-		return queue.remove(0);
+		synchronized (queue) {
+			Iterator<Bitmap> iterator = queue.iterator();
+			if (!iterator.hasNext()) return null;
+
+			Bitmap first = iterator.next();
+			iterator.remove();
+			return first;
+		}
 	}
 
 	@Override
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+/**
+ * Count-Min sketch which estimates how often keys were used recently. Every key has four 4-bit counters (max
+ * frequency is 15) spread over the table, estimated frequency is the minimum of them. When number of increments reaches
+ * sample size all counters are halved, so old popularity fades away.<br />
+ * This class isn't thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long ONE_MASK = 0x1111111111111111L;
+	private static final int MAX_FREQUENCY = 15;
+
+	private long[] table;
+	private int tableMask;
+	private int sampleSize;
+	private int size;
+
+	/** @param expectedSize Expected number of cached keys */
+	FrequencySketch(int expectedSize) {
+		table = new long[0];
+		ensureCapacity(expectedSize);
+	}
+
+	/** Grows the sketch if number of cached keys exceeds its capacity. Counters are reset on growing. */
+	void ensureCapacity(int expectedSize) {
+		int capacity = Math.max(1, Math.min(expectedSize, 1 << 30));
+		if (table.length >= capacity) return;
+
+		int length = Integer.highestOneBit(capacity - 1) << 1;
+		if (length < capacity) length = capacity; // capacity is 1
+		table = new long[length];
+		tableMask = length - 1;
+		sampleSize = 10 * capacity;
+		size = 0;
+	}
+
+	/** @return Estimated number of occurrences of the key (0..15) */
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		int frequency = MAX_FREQUENCY;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/** Increments frequency of the key. Counters are halved when sample size is reached. */
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && ++size == sampleSize) {
+			reset();
+		}
+	}
+
+	/** @return <b>true</b> - if counter was incremented; <b>false</b> - if it's saturated */
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) != mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	/** Halves all counters */
+	private void reset() {
+		int oddCount = 0;
+		for (int i = 0; i < table.length; i++) {
+			oddCount += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		size = (size - (oddCount >>> 2)) >>> 1;
+	}
+
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return ((int) h) & tableMask;
+	}
+
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+}
@@ -18,6 +18,10 @@ package com.nostra13.universalimageloader.cache.memory.impl;
 import android.graphics.Bitmap;
 
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
 
 import java.util.Collection;
 import java.util.Comparator;
@@ -25,7 +29,8 @@ import java.util.Comparator;
 /**
  * Decorator for {@link MemoryCache}. Provides special feature for cache: some different keys are considered as
  * equals (using {@link Comparator comparator}). And when you try to put some value into cache by key so entries with
- * "equals" keys will be removed from cache before.<br />
+ * "equals" keys will be removed from cache before. Keys generated for the same image URI are only compared with each
+ * other (see {@link MemoryCache#keysForUri(String)}).<br />
  * <b>NOTE:</b> Used for internal needs. Normally you don't need to use this class.
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
@@ -44,21 +49,32 @@ public class FuzzyKeyMemoryCache implements MemoryCache {
 	@Override
 	public boolean put(String key, Bitmap value) {
 		// Search equal key and remove this entry
+		String keyToRemove = null;
 		synchronized (cache) {
-			String keyToRemove = null;
-			for (String cacheKey : cache.keys()) {
+			for (String cacheKey : findCandidateKeys(key)) {
 				if (keyComparator.compare(key, cacheKey) == 0) {
 					keyToRemove = cacheKey;
 					break;
 				}
 			}
-			if (keyToRemove != null) {
-				cache.remove(keyToRemove);
-			}
+		}
+		// Entry is removed out of lock of wrapped cache because eviction listener can be called
+		if (keyToRemove != null) {
+			cache.remove(keyToRemove);
 		}
 		return cache.put(key, value);
 	}
 
+	/**
+	 * Returns keys which can be equal to incoming key. Keys {@linkplain MemoryCacheUtils#generateKey(String,
+	 * ImageSize) generated} for the same image URI are taken from index of wrapped cache, other keys are compared with
+	 * all cache keys.
+	 */
+	private Collection<String> findCandidateKeys(String key) {
+		String imageUri = MemoryCacheUtils.getImageUri(key);
+		return imageUri == null ? cache.keys() : cache.keysForUri(imageUri);
+	}
+
 	@Override
 	public Bitmap get(String key) {
 		return cache.get(key);
@@ -78,4 +94,24 @@ public class FuzzyKeyMemoryCache implements MemoryCache {
 	public Collection<String> keys() {
 		return cache.keys();
 	}
+
+	@Override
+	public Collection<String> keysForUri(String imageUri) {
+		return cache.keysForUri(imageUri);
+	}
+
+	@Override
+	public void trimToSize(int maxSize) {
+		cache.trimToSize(maxSize);
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		cache.trim(level);
+	}
+
+	@Override
+	public void setEvictionListener(MemoryCacheEvictionListener listener) {
+		cache.setEvictionListener(listener);
+	}
 }
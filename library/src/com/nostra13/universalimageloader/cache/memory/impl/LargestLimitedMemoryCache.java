@@ -20,11 +20,6 @@ import com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 
 /**
  * Limited {@link Bitmap bitmap} cache. Provides {@link Bitmap bitmaps} storing. Size of all stored bitmaps will not to
@@ -39,11 +34,11 @@ import java.util.Set;
  */
 public class LargestLimitedMemoryCache extends LimitedMemoryCache {
 	/**
-	 * Contains strong references to stored objects (keys) and sizes of the objects. If hard cache
+	 * Contains strong references to stored objects (keys) ordered by sizes of the objects. If hard cache
 	 * size will exceed limit then object with the largest size is deleted (but it continue exist at
-	 * {@link #softMap} and can be collected by GC at any time)
+	 * {@link #softMap} and can be collected by GC at any time). Guarded by itself.
 	 */
-	private final Map<Bitmap, Integer> valueSizes = Collections.synchronizedMap(new HashMap<Bitmap, Integer>());
+	private final SortedBitmapIndex valueSizes = new SortedBitmapIndex();
 
 	public LargestLimitedMemoryCache(int sizeLimit) {
 		super(sizeLimit);
@@ -52,7 +47,9 @@ public class LargestLimitedMemoryCache extends LimitedMemoryCache {
 	@Override
 	public boolean put(String key, Bitmap value) {
 		if (super.put(key, value)) {
-			valueSizes.put(value, getSize(value));
+			synchronized (valueSizes) {
+				valueSizes.put(value, getSize(value));
+			}
 			return true;
 		} else {
 			return false;
@@ -63,14 +60,18 @@ public class LargestLimitedMemoryCache extends LimitedMemoryCache {
 	public Bitmap remove(String key) {
 		Bitmap value = super.get(key);
 		if (value != null) {
-			valueSizes.remove(value);
+			synchronized (valueSizes) {
+				valueSizes.remove(value);
+			}
 		}
 		return super.remove(key);
 	}
 
 	@Override
 	public void clear() {
-		valueSizes.clear();
+		synchronized (valueSizes) {
+			valueSizes.clear();
+		}
 		super.clear();
 	}
 
@@ -81,25 +82,9 @@ public class LargestLimitedMemoryCache extends LimitedMemoryCache {
 
 	@Override
 	protected Bitmap removeNext() {
-		Integer maxSize = null;
-		Bitmap largestValue = null;
-		Set<Entry<Bitmap, Integer>> entries = valueSizes.entrySet();
 		synchronized (valueSizes) {
-			for (Entry<Bitmap, Integer> entry : entries) {
-				if (largestValue == null) {
-					largestValue = entry.getKey();
-					maxSize = entry.getValue();
-				} else {
-					Integer size = entry.getValue();
-					if (size > maxSize) {
-						maxSize = size;
-						largestValue = entry.getKey();
-					}
-				}
-			}
+			return valueSizes.pollHighest();
 		}
-		valueSizes.remove(largestValue);
-		return largestValue;
 	}
 
 	@Override
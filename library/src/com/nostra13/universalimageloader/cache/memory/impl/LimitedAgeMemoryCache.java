@@ -18,6 +18,8 @@ package com.nostra13.universalimageloader.cache.memory.impl;
 import android.graphics.Bitmap;
 
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -85,4 +87,26 @@ public class LimitedAgeMemoryCache implements MemoryCache {
 		cache.clear();
 		loadingDates.clear();
 	}
+
+	@Override
+	public Collection<String> keysForUri(String imageUri) {
+		return cache.keysForUri(imageUri);
+	}
+
+	@Override
+	public void trimToSize(int maxSize) {
+		cache.trimToSize(maxSize);
+		loadingDates.keySet().retainAll(cache.keys());
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		cache.trim(level);
+		loadingDates.keySet().retainAll(cache.keys());
+	}
+
+	@Override
+	public void setEvictionListener(MemoryCacheEvictionListener listener) {
+		cache.setEvictionListener(listener);
+	}
 }
@@ -2,7 +2,11 @@ package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
 
+import com.nostra13.universalimageloader.cache.memory.EvictionCause;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
+import com.nostra13.universalimageloader.cache.memory.UriKeyIndex;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -22,11 +26,14 @@ import java.util.Map;
 public class LruMemoryCache implements MemoryCache {
 
 	private final LinkedHashMap<String, Bitmap> map;
+	private final UriKeyIndex keyIndex = new UriKeyIndex();
 
 	private final int maxSize;
 	/** Size of this cache in bytes */
 	private int size;
 
+	private volatile MemoryCacheEvictionListener evictionListener;
+
 	/** @param maxSize Maximum sum of the sizes of the Bitmaps in this cache */
 	public LruMemoryCache(int maxSize) {
 		if (maxSize <= 0) {
@@ -58,15 +65,20 @@ public class LruMemoryCache implements MemoryCache {
 			throw new NullPointerException("key == null || value == null");
 		}
 
+		Bitmap previous;
 		synchronized (this) {
 			size += sizeOf(key, value);
-			Bitmap previous = map.put(key, value);
+			previous = map.put(key, value);
+			keyIndex.add(key);
 			if (previous != null) {
 				size -= sizeOf(key, previous);
 			}
 		}
+		if (previous != null && previous != value) {
+			notifyEvicted(key, previous, EvictionCause.REPLACED);
+		}
 
-		trimToSize(maxSize);
+		trimToSize(maxSize, EvictionCause.SIZE);
 		return true;
 	}
 
@@ -74,8 +86,9 @@ public class LruMemoryCache implements MemoryCache {
 	 * Remove the eldest entries until the total of remaining entries is at or below the requested size.
 	 *
 	 * @param maxSize the maximum size of the cache before returning. May be -1 to evict even 0-sized elements.
+	 * @param cause   the cause reported to eviction listener
 	 */
-	private void trimToSize(int maxSize) {
+	private void trimToSize(int maxSize, EvictionCause cause) {
 		while (true) {
 			String key;
 			Bitmap value;
@@ -95,8 +108,10 @@ public class LruMemoryCache implements MemoryCache {
 				key = toEvict.getKey();
 				value = toEvict.getValue();
 				map.remove(key);
+				keyIndex.remove(key);
 				size -= sizeOf(key, value);
 			}
+			notifyEvicted(key, value, cause);
 		}
 	}
 
@@ -107,13 +122,18 @@ public class LruMemoryCache implements MemoryCache {
 			throw new NullPointerException("key == null");
 		}
 
+		Bitmap previous;
 		synchronized (this) {
-			Bitmap previous = map.remove(key);
+			previous = map.remove(key);
 			if (previous != null) {
+				keyIndex.remove(key);
 				size -= sizeOf(key, previous);
 			}
-			return previous;
 		}
+		if (previous != null) {
+			notifyEvicted(key, previous, EvictionCause.REMOVED);
+		}
+		return previous;
 	}
 
 	@Override
@@ -123,9 +143,37 @@ public class LruMemoryCache implements MemoryCache {
 		}
 	}
 
+	@Override
+	public Collection<String> keysForUri(String imageUri) {
+		return keyIndex.get(imageUri);
+	}
+
 	@Override
 	public void clear() {
-		trimToSize(-1); // -1 will evict 0-sized elements
+		trimToSize(-1, EvictionCause.CLEARED); // -1 will evict 0-sized elements
+	}
+
+	/** Removes the eldest entries until the total of remaining entries is at or below the requested size. */
+	@Override
+	public void trimToSize(int maxSize) {
+		trimToSize(maxSize, EvictionCause.TRIMMED);
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		trimToSize(level.getRetainedSize(maxSize), EvictionCause.TRIMMED);
+	}
+
+	@Override
+	public void setEvictionListener(MemoryCacheEvictionListener listener) {
+		this.evictionListener = listener;
+	}
+
+	private void notifyEvicted(String key, Bitmap value, EvictionCause cause) {
+		MemoryCacheEvictionListener listener = evictionListener;
+		if (listener != null) {
+			listener.onEvicted(key, value, sizeOf(key, value), cause);
+		}
 	}
 
 	/**
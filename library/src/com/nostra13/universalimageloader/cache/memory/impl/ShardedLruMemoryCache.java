@@ -0,0 +1,517 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.EvictionCause;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
+import com.nostra13.universalimageloader.cache.memory.UriKeyIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent LRU memory cache. Keys are spread over several shards by hash, every shard has own LRU queue and own byte
+ * budget. Sum of shard budgets is equal to max cache size. Budgets are periodically rebalanced in proportion to
+ * recent demand of shards (bytes put and hit), so hot shards can hold more. Shard can hold one Bitmap which is bigger
+ * than its budget, then least recently used Bitmaps of other shards are evicted so sum of sizes of all cached Bitmaps
+ * doesn't exceed max cache size. Bitmap which is bigger than max cache size isn't cached.<br />
+ * <br />
+ * Read path doesn't take any lock: {@link #get(String)} looks up concurrent map and records access into lossy buffer
+ * of the shard. Buffered accesses are applied to LRU queue by the next write or by the next read which can acquire
+ * shard lock without waiting. So cache hits (on UI thread) never block behind eviction.<br />
+ * <br />
+ * <b>NOTE:</b> This cache uses only strong references for stored Bitmaps.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class ShardedLruMemoryCache implements MemoryCache {
+
+	/** {@value} */
+	public static final int DEFAULT_SHARD_COUNT = 4;
+
+	/** Budgets are rebalanced after every {@value} puts */
+	private static final int REBALANCE_PUT_INTERVAL = 64;
+
+	private final int maxSize;
+	private final Shard[] shards;
+	private final int shardMask;
+	/** Is shared by all shards */
+	private final UriKeyIndex keyIndex = new UriKeyIndex();
+	/** Sum of sizes of all shards */
+	private final AtomicInteger totalSize = new AtomicInteger();
+
+	private final AtomicInteger putsSinceRebalance = new AtomicInteger();
+	private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+	private volatile MemoryCacheEvictionListener evictionListener;
+
+	/** @param maxSize Maximum sum of the sizes of the Bitmaps in this cache */
+	public ShardedLruMemoryCache(int maxSize) {
+		this(maxSize, DEFAULT_SHARD_COUNT);
+	}
+
+	/**
+	 * @param maxSize    Maximum sum of the sizes of the Bitmaps in this cache
+	 * @param shardCount Number of shards (rounded up to power of two). More shards - less contention of writers, but
+	 *                   smaller budget of every shard.
+	 */
+	public ShardedLruMemoryCache(int maxSize, int shardCount) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		if (shardCount <= 0) {
+			throw new IllegalArgumentException("shardCount <= 0");
+		}
+		int count = 1;
+		while (count < shardCount) {
+			count <<= 1;
+		}
+		this.maxSize = maxSize;
+		this.shards = new Shard[count];
+		this.shardMask = count - 1;
+		int budget = maxSize / count;
+		for (int i = 0; i < count; i++) {
+			shards[i] = new Shard(i == 0 ? maxSize - budget * (count - 1) : budget, keyIndex, totalSize);
+		}
+	}
+
+	@Override
+	public final Bitmap get(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		return shardFor(key).get(key);
+	}
+
+	@Override
+	public final boolean put(String key, Bitmap value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("key == null || value == null");
+		}
+
+		int valueSize = sizeOf(value);
+		if (valueSize > maxSize) return false;
+
+		// Evicted nodes are collected only if somebody listens to evictions
+		List<Node> evicted = evictionListener == null ? null : new ArrayList<Node>();
+		Shard shard = shardFor(key);
+		Node previous = shard.put(key, value, valueSize, evicted);
+		if (putsSinceRebalance.incrementAndGet() >= REBALANCE_PUT_INTERVAL) {
+			rebalance(evicted);
+		}
+		if (totalSize.get() > maxSize) {
+			evictOverflow(shard, evicted);
+		}
+
+		if (previous != null && previous.value != value) {
+			notifyEvicted(previous, EvictionCause.REPLACED);
+		}
+		notifyEvicted(evicted, EvictionCause.SIZE);
+		return true;
+	}
+
+	@Override
+	public final Bitmap remove(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		Node node = shardFor(key).remove(key);
+		if (node == null) return null;
+
+		notifyEvicted(node, EvictionCause.REMOVED);
+		return node.value;
+	}
+
+	@Override
+	public Collection<String> keys() {
+		Collection<String> keys = new HashSet<>();
+		for (Shard shard : shards) {
+			keys.addAll(shard.map.keySet());
+		}
+		return keys;
+	}
+
+	@Override
+	public Collection<String> keysForUri(String imageUri) {
+		return keyIndex.get(imageUri);
+	}
+
+	@Override
+	public void clear() {
+		List<Node> cleared = evictionListener == null ? null : new ArrayList<Node>();
+		for (Shard shard : shards) {
+			shard.clear(cleared);
+		}
+		notifyEvicted(cleared, EvictionCause.CLEARED);
+	}
+
+	/**
+	 * Evicts least recently used Bitmaps until sum of their sizes is not bigger than incoming size. Incoming size is
+	 * split between shards in proportion to their current budgets.
+	 */
+	@Override
+	public void trimToSize(int maxSize) {
+		List<Node> evicted = evictionListener == null ? null : new ArrayList<Node>();
+		for (Shard shard : shards) {
+			int shardMaxSize = (int) ((long) shard.budget * Math.max(maxSize, 0) / this.maxSize);
+			shard.trim(shardMaxSize, false, evicted);
+		}
+		notifyEvicted(evicted, EvictionCause.TRIMMED);
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		trimToSize(level.getRetainedSize(maxSize));
+	}
+
+	@Override
+	public void setEvictionListener(MemoryCacheEvictionListener listener) {
+		this.evictionListener = listener;
+	}
+
+	/** @return Sum of the sizes of the Bitmaps in this cache */
+	public int size() {
+		return totalSize.get();
+	}
+
+	/**
+	 * Evicts least recently used nodes of shards while sum of sizes of all shards exceeds max cache size. Is called
+	 * when shard holds Bitmap which is bigger than shard budget. Shards are visited one by one starting from the next
+	 * shard after incoming one, so only one shard lock is held at a time.
+	 *
+	 * @param evicted List for evicted nodes. Can be <b>null</b>.
+	 */
+	private void evictOverflow(Shard overflowed, List<Node> evicted) {
+		int start = 0;
+		while (shards[start] != overflowed) {
+			start++;
+		}
+		for (int i = 1; i <= shards.length && totalSize.get() > maxSize; i++) {
+			Shard shard = shards[(start + i) & shardMask];
+			shard.evictOverflow(maxSize, evicted);
+		}
+	}
+
+	/**
+	 * Redistributes byte budgets of shards in proportion to their demand since previous rebalancing. Every shard keeps
+	 * at least half of even share. Does nothing if another thread is rebalancing at this moment.
+	 *
+	 * @param evicted List for nodes evicted from shards which exceed new budgets. Can be <b>null</b>.
+	 */
+	private void rebalance(List<Node> evicted) {
+		if (!rebalanceLock.tryLock()) return;
+		try {
+			putsSinceRebalance.set(0);
+			long[] demands = new long[shards.length];
+			long totalDemand = 0;
+			for (int i = 0; i < shards.length; i++) {
+				demands[i] = shards[i].demand.getAndSet(0);
+				totalDemand += demands[i];
+			}
+			if (totalDemand == 0) return;
+
+			int minBudget = maxSize / shards.length / 2;
+			long sharedBudget = maxSize - (long) minBudget * shards.length;
+			int distributed = 0;
+			for (int i = 1; i < shards.length; i++) {
+				int budget = (int) (minBudget + sharedBudget * demands[i] / totalDemand);
+				shards[i].budget = budget;
+				distributed += budget;
+			}
+			shards[0].budget = maxSize - distributed;
+
+			for (Shard shard : shards) {
+				if (shard.size > shard.budget) {
+					// Most recently used Bitmap can be bigger than new budget, global size is kept by put()
+					shard.trim(shard.budget, true, evicted);
+				}
+			}
+		} finally {
+			rebalanceLock.unlock();
+		}
+	}
+
+	private Shard shardFor(String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return shards[h & shardMask];
+	}
+
+	private void notifyEvicted(List<Node> nodes, EvictionCause cause) {
+		if (nodes == null) return;
+
+		for (Node node : nodes) {
+			notifyEvicted(node, cause);
+		}
+	}
+
+	private void notifyEvicted(Node node, EvictionCause cause) {
+		MemoryCacheEvictionListener listener = evictionListener;
+		if (listener != null) {
+			listener.onEvicted(node.key, node.value, node.size, cause);
+		}
+	}
+
+	/** Returns the size {@code Bitmap} in bytes. */
+	private static int sizeOf(Bitmap value) {
+		return value.getRowBytes() * value.getHeight();
+	}
+
+	@Override
+	public final String toString() {
+		return String.format("ShardedLruCache[maxSize=%d, shards=%d]", maxSize, shards.length);
+	}
+
+	/** Part of cache with own LRU queue and byte budget */
+	private static final class Shard {
+
+		private static final int READ_BUFFER_SIZE = 32; // power of two
+		private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+		private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+		final ConcurrentHashMap<String, Node> map = new ConcurrentHashMap<>();
+		final ReentrantLock lock = new ReentrantLock();
+		final UriKeyIndex keyIndex;
+		/** Sum of sizes of all shards of cache */
+		final AtomicInteger totalSize;
+		/** Sum of sizes of put and hit Bitmaps since previous rebalancing */
+		final AtomicLong demand = new AtomicLong();
+
+		volatile int budget;
+		volatile int size;
+
+		/** Head of LRU queue is the most recently used node. Guarded by lock. */
+		private final Node head = new Node(null, null, 0);
+
+		private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+		private final AtomicLong readBufferWriteCount = new AtomicLong();
+		private volatile long readBufferReadCount;
+
+		Shard(int budget, UriKeyIndex keyIndex, AtomicInteger totalSize) {
+			this.budget = budget;
+			this.keyIndex = keyIndex;
+			this.totalSize = totalSize;
+			head.prev = head;
+			head.next = head;
+		}
+
+		Bitmap get(String key) {
+			Node node = map.get(key);
+			if (node == null) return null;
+
+			recordAccess(node);
+			return node.value;
+		}
+
+		/** @return Replaced node or <b>null</b> */
+		Node put(String key, Bitmap value, int valueSize, List<Node> evicted) {
+			Node node = new Node(key, value, valueSize);
+			demand.addAndGet(valueSize);
+			lock.lock();
+			try {
+				drainReadBuffer();
+				Node previous = map.put(key, node);
+				keyIndex.add(key);
+				if (previous != null) {
+					unlink(previous);
+					changeSize(-previous.size);
+				}
+				linkFirst(node);
+				changeSize(valueSize);
+				evict(node, budget, evicted);
+				return previous;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		Node remove(String key) {
+			lock.lock();
+			try {
+				Node node = map.remove(key);
+				if (node == null) return null;
+
+				keyIndex.remove(key);
+				unlink(node);
+				changeSize(-node.size);
+				return node;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void clear(List<Node> cleared) {
+			lock.lock();
+			try {
+				map.clear();
+				// Nodes are unlinked one by one so buffered accesses to them are ignored
+				while (head.next != head) {
+					Node node = head.next;
+					unlink(node);
+					keyIndex.remove(node.key);
+					changeSize(-node.size);
+					if (cleared != null) {
+						cleared.add(node);
+					}
+				}
+				for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+					readBuffer.set(i, null);
+				}
+				readBufferReadCount = readBufferWriteCount.get();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Evicts least recently used nodes until shard size is not bigger than incoming size
+		 *
+		 * @param keepMostRecent Whether most recently used node is kept even if it's bigger than incoming size
+		 */
+		void trim(int maxSize, boolean keepMostRecent, List<Node> evicted) {
+			lock.lock();
+			try {
+				drainReadBuffer();
+				evict(keepMostRecent ? head.next : null, maxSize, evicted);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/** Evicts least recently used nodes while sum of sizes of all shards exceeds incoming size */
+		void evictOverflow(int maxTotalSize, List<Node> evicted) {
+			lock.lock();
+			try {
+				drainReadBuffer();
+				while (totalSize.get() > maxTotalSize && head.prev != head) {
+					evictEldest(evicted);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Evicts least recently used nodes while shard exceeds incoming size. The newest node isn't evicted so Bitmap
+		 * which is bigger than shard budget still can be cached.
+		 */
+		private void evict(Node newest, int maxSize, List<Node> evicted) {
+			while (size > maxSize) {
+				Node eldest = head.prev;
+				if (eldest == head || eldest == newest) break;
+
+				evictEldest(evicted);
+			}
+		}
+
+		private void evictEldest(List<Node> evicted) {
+			Node eldest = head.prev;
+			map.remove(eldest.key, eldest);
+			keyIndex.remove(eldest.key);
+			unlink(eldest);
+			changeSize(-eldest.size);
+			if (evicted != null) {
+				evicted.add(eldest);
+			}
+		}
+
+		/** Is called under lock */
+		private void changeSize(int delta) {
+			size += delta;
+			totalSize.addAndGet(delta);
+		}
+
+		/** Records access to node without locking. Access can be lost if buffer is full. */
+		private void recordAccess(Node node) {
+			long writeCount = readBufferWriteCount.get();
+			long pending = writeCount - readBufferReadCount;
+			if (pending < READ_BUFFER_SIZE && readBufferWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+				readBuffer.lazySet((int) (writeCount & READ_BUFFER_MASK), node);
+				pending++;
+			}
+			if (pending >= READ_BUFFER_DRAIN_THRESHOLD && lock.tryLock()) {
+				try {
+					drainReadBuffer();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+
+		/** Moves recently accessed nodes to the head of LRU queue. Is called under lock. */
+		private void drainReadBuffer() {
+			long readCount = readBufferReadCount;
+			long writeCount = readBufferWriteCount.get();
+			for (; readCount < writeCount; readCount++) {
+				int index = (int) (readCount & READ_BUFFER_MASK);
+				Node node = readBuffer.get(index);
+				if (node == null) break; // slot is claimed but not written yet
+
+				readBuffer.lazySet(index, null);
+				if (node.prev != null) { // node is still in queue
+					unlink(node);
+					linkFirst(node);
+					demand.addAndGet(node.size);
+				}
+			}
+			readBufferReadCount = readCount;
+		}
+
+		private void linkFirst(Node node) {
+			node.prev = head;
+			node.next = head.next;
+			head.next.prev = node;
+			head.next = node;
+		}
+
+		private void unlink(Node node) {
+			if (node.prev == null) return;
+
+			node.prev.next = node.next;
+			node.next.prev = node.prev;
+			node.prev = null;
+			node.next = null;
+		}
+	}
+
+	private static final class Node {
+		final String key;
+		final Bitmap value;
+		final int size;
+		/** Guarded by shard lock */
+		Node prev;
+		Node next;
+
+		Node(String key, Bitmap value, int size) {
+			this.key = key;
+			this.value = value;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.utils.ImageSizeUtils;
+import com.nostra13.universalimageloader.utils.L;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Decorator for {@link MemoryCache}. If there is no Bitmap for requested key then the smallest Bitmap of the same image
+ * which is at least as large as requested size is returned (cached sizes of image are found by
+ * {@link MemoryCache#keysForUri(String)}). So image decoded for large view (e.g. on detail screen) is taken from
+ * memory for small view (e.g. in list) instead of decoding from disk again.<br />
+ * Keys must be generated by {@link MemoryCacheUtils#generateKey(String, ImageSize)}. Sizes are compared by target sizes
+ * encoded in keys.<br />
+ * Larger Bitmap can be downscaled to requested size on worker thread if executor for downscaling is set. Then
+ * downscaled Bitmap is cached for requested key.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class SizeTolerantMemoryCache implements MemoryCache {
+
+	private static final String LOG_DOWNSCALE_CACHED_IMAGE = "Downscale cached image [%s -> %s]";
+	private static final String LOG_DOWNSCALE_REJECTED = "Downscaling of cached image is rejected [%s]";
+
+	private static final Comparator<CachedSize> AREA_COMPARATOR = new Comparator<CachedSize>() {
+		@Override
+		public int compare(CachedSize lhs, CachedSize rhs) {
+			return lhs.area < rhs.area ? -1 : (lhs.area == rhs.area ? 0 : 1);
+		}
+	};
+
+	private final MemoryCache cache;
+	/** Is <b>null</b> if Bitmaps aren't downscaled */
+	private final Executor downscaleExecutor;
+
+	/** Keys which Bitmaps are downscaled for at this moment */
+	private final Set<String> downscalingKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** @param cache Wrapped memory cache */
+	public SizeTolerantMemoryCache(MemoryCache cache) {
+		this(cache, null);
+	}
+
+	/**
+	 * @param cache             Wrapped memory cache
+	 * @param downscaleExecutor Executor for downscaling of larger Bitmaps to requested size. Can be <b>null</b> - then
+	 *                          larger Bitmaps aren't downscaled.
+	 */
+	public SizeTolerantMemoryCache(MemoryCache cache, Executor downscaleExecutor) {
+		this.cache = cache;
+		this.downscaleExecutor = downscaleExecutor;
+	}
+
+	@Override
+	public boolean put(String key, Bitmap value) {
+		return cache.put(key, value);
+	}
+
+	/**
+	 * Returns Bitmap cached for incoming key or, if there is no such Bitmap, the smallest Bitmap of the same image
+	 * which was cached for larger target size.
+	 */
+	@Override
+	public Bitmap get(String key) {
+		Bitmap bitmap = cache.get(key);
+		if (bitmap != null) return bitmap;
+
+		String imageUri = MemoryCacheUtils.getImageUri(key);
+		ImageSize targetSize = MemoryCacheUtils.getTargetSize(key);
+		if (imageUri == null || targetSize == null) return null;
+
+		for (String largerKey : findLargerKeys(imageUri, targetSize)) {
+			bitmap = cache.get(largerKey);
+			if (bitmap != null) {
+				downscale(bitmap, largerKey, key, targetSize);
+				return bitmap;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Bitmap remove(String key) {
+		return cache.remove(key);
+	}
+
+	@Override
+	public Collection<String> keys() {
+		return cache.keys();
+	}
+
+	@Override
+	public Collection<String> keysForUri(String imageUri) {
+		return cache.keysForUri(imageUri);
+	}
+
+	@Override
+	public void clear() {
+		cache.clear();
+	}
+
+	@Override
+	public void trimToSize(int maxSize) {
+		cache.trimToSize(maxSize);
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		cache.trim(level);
+	}
+
+	@Override
+	public void setEvictionListener(MemoryCacheEvictionListener listener) {
+		cache.setEvictionListener(listener);
+	}
+
+	/** @return Keys of the same image cached for larger target sizes, the smallest size is the first */
+	private List<String> findLargerKeys(String imageUri, ImageSize targetSize) {
+		List<CachedSize> largerSizes = new ArrayList<CachedSize>();
+		for (String cachedKey : cache.keysForUri(imageUri)) {
+			ImageSize size = MemoryCacheUtils.getTargetSize(cachedKey);
+			if (size != null && size.getWidth() >= targetSize.getWidth() && size.getHeight() >= targetSize.getHeight()) {
+				largerSizes.add(new CachedSize(cachedKey, size));
+			}
+		}
+		Collections.sort(largerSizes, AREA_COMPARATOR);
+
+		List<String> largerKeys = new ArrayList<String>(largerSizes.size());
+		for (CachedSize size : largerSizes) {
+			largerKeys.add(size.key);
+		}
+		return largerKeys;
+	}
+
+	/** Downscales larger Bitmap to target size on worker thread and caches result for incoming key */
+	private void downscale(final Bitmap source, final String sourceKey, final String key, final ImageSize targetSize) {
+		if (downscaleExecutor == null || !downscalingKeys.add(key)) return;
+
+		try {
+			downscaleExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						// Bitmap which is still cached isn't reused for decoding of other images
+						if (cache.get(key) != null || cache.get(sourceKey) != source) return;
+
+						ImageSize sourceSize = new ImageSize(source.getWidth(), source.getHeight());
+						float scale = ImageSizeUtils.computeImageScale(sourceSize, targetSize, ViewScaleType.CROP, false);
+						if (scale >= 1) return;
+
+						int width = Math.max(1, Math.round(source.getWidth() * scale));
+						int height = Math.max(1, Math.round(source.getHeight() * scale));
+						Bitmap downscaled = Bitmap.createScaledBitmap(source, width, height, true);
+						if (downscaled != source && cache.get(sourceKey) == source) {
+							L.d(LOG_DOWNSCALE_CACHED_IMAGE, sourceKey, key);
+							put(key, downscaled);
+						}
+					} finally {
+						downscalingKeys.remove(key);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			L.w(LOG_DOWNSCALE_REJECTED, key);
+			downscalingKeys.remove(key);
+		}
+	}
+
+	private static final class CachedSize {
+		final String key;
+		final long area;
+
+		CachedSize(String key, ImageSize size) {
+			this.key = key;
+			this.area = (long) size.getWidth() * size.getHeight();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of Bitmaps ordered by integer rank (usage count, size). Bitmaps of equal rank are kept in buckets in order of
+ * adding. Lookup of Bitmap with the lowest or the highest rank takes O(log r) where r is number of distinct ranks.<br />
+ * This class isn't thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+final class SortedBitmapIndex {
+
+	private final Map<Bitmap, Integer> ranks = new HashMap<>();
+	private final TreeMap<Integer, Set<Bitmap>> buckets = new TreeMap<>();
+
+	/** Adds Bitmap with incoming rank or changes rank of indexed Bitmap */
+	void put(Bitmap value, int rank) {
+		Integer previousRank = ranks.put(value, rank);
+		if (previousRank != null) {
+			removeFromBucket(value, previousRank);
+		}
+		Set<Bitmap> bucket = buckets.get(rank);
+		if (bucket == null) {
+			bucket = new LinkedHashSet<>();
+			buckets.put(rank, bucket);
+		}
+		bucket.add(value);
+	}
+
+	/** @return Rank of Bitmap; <b>null</b> - if Bitmap isn't indexed */
+	Integer getRank(Bitmap value) {
+		return ranks.get(value);
+	}
+
+	boolean remove(Bitmap value) {
+		Integer rank = ranks.remove(value);
+		if (rank == null) return false;
+
+		removeFromBucket(value, rank);
+		return true;
+	}
+
+	/** Removes and returns the earliest added Bitmap of the lowest rank; <b>null</b> - if index is empty */
+	Bitmap pollLowest() {
+		return buckets.isEmpty() ? null : poll(buckets.firstKey());
+	}
+
+	/** Removes and returns the earliest added Bitmap of the highest rank; <b>null</b> - if index is empty */
+	Bitmap pollHighest() {
+		return buckets.isEmpty() ? null : poll(buckets.lastKey());
+	}
+
+	void clear() {
+		ranks.clear();
+		buckets.clear();
+	}
+
+	private Bitmap poll(Integer rank) {
+		Set<Bitmap> bucket = buckets.get(rank);
+		Iterator<Bitmap> iterator = bucket.iterator();
+		Bitmap value = iterator.next();
+		iterator.remove();
+		if (bucket.isEmpty()) {
+			buckets.remove(rank);
+		}
+		ranks.remove(value);
+		return value;
+	}
+
+	private void removeFromBucket(Bitmap value, Integer rank) {
+		Set<Bitmap> bucket = buckets.get(rank);
+		if (bucket != null && bucket.remove(value) && bucket.isEmpty()) {
+			buckets.remove(rank);
+		}
+	}
+}
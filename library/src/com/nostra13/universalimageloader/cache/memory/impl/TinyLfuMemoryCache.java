@@ -0,0 +1,391 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.EvictionCause;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
+import com.nostra13.universalimageloader.cache.memory.UriKeyIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory cache with W-TinyLFU eviction policy. It resists one-hit-wonder scans (e.g. fast fling through long list):
+ * images which are used often (avatars, icons) stay in cache while images seen only once pass through small
+ * window.<br />
+ * <br />
+ * Cache consists of:
+ * <ul>
+ * <li><b>admission window</b> ({@value #DEFAULT_WINDOW_PERCENT}% of size by default) - LRU region for all new images.
+ * Memory cache holds only few dozens of Bitmaps so window is bigger than 1% usual for caches of many small entries;</li>
+ * <li><b>main region</b> (the rest of size) - segmented LRU: <i>probation</i> segment for images admitted from window and
+ * <i>protected</i> segment (80% of main region) for images which were hit in probation segment.</li>
+ * </ul>
+ * Image evicted from window is admitted to main region only if its estimated frequency (by
+ * {@linkplain FrequencySketch count-min sketch} of recent accesses) is higher than frequency of image which would be
+ * evicted for it. Sizes are counted in bytes.<br />
+ * <br />
+ * <b>NOTE:</b> This cache uses only strong references for stored Bitmaps.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class TinyLfuMemoryCache implements MemoryCache {
+
+	/** {@value} */
+	public static final int DEFAULT_WINDOW_PERCENT = 10;
+
+	private static final int PROTECTED_PERCENT = 80;
+	/** Initial capacity (in entries) of frequency sketch */
+	private static final int INITIAL_SKETCH_CAPACITY = 64;
+
+	private final int maxSize;
+	private final int windowMaxSize;
+	private final int protectedMaxSize;
+	private final int mainMaxSize;
+
+	private final Map<String, Entry> entries = new HashMap<>();
+	private final UriKeyIndex keyIndex = new UriKeyIndex();
+	private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(0, 0.75f, true);
+	private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(0, 0.75f, true);
+	private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(0, 0.75f, true);
+	private final FrequencySketch sketch = new FrequencySketch(INITIAL_SKETCH_CAPACITY);
+
+	private int windowSize;
+	private int probationSize;
+	private int protectedSize;
+
+	private volatile MemoryCacheEvictionListener evictionListener;
+
+	/** @param maxSize Maximum sum of the sizes of the Bitmaps in this cache */
+	public TinyLfuMemoryCache(int maxSize) {
+		this(maxSize, DEFAULT_WINDOW_PERCENT);
+	}
+
+	/**
+	 * @param maxSize       Maximum sum of the sizes of the Bitmaps in this cache
+	 * @param windowPercent Size of admission window in percent of cache size. Smaller window - better resistance to
+	 *                      scans, bigger window - better for images which are reused soon after first displaying.
+	 */
+	public TinyLfuMemoryCache(int maxSize, int windowPercent) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		if (windowPercent <= 0 || windowPercent >= 100) {
+			throw new IllegalArgumentException("windowPercent must be in range (0 < % < 100)");
+		}
+		this.maxSize = maxSize;
+		this.windowMaxSize = Math.max(1, maxSize / 100 * windowPercent);
+		this.mainMaxSize = maxSize - windowMaxSize;
+		this.protectedMaxSize = mainMaxSize / 100 * PROTECTED_PERCENT;
+	}
+
+	@Override
+	public final Bitmap get(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		synchronized (this) {
+			sketch.increment(key);
+			Entry entry = entries.get(key);
+			if (entry == null) return null;
+
+			switch (entry.region) {
+				case WINDOW:
+					window.get(key);
+					break;
+				case PROBATION:
+					promote(entry);
+					break;
+				case PROTECTED:
+					protectedSegment.get(key);
+					break;
+			}
+			return entry.value;
+		}
+	}
+
+	@Override
+	public final boolean put(String key, Bitmap value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("key == null || value == null");
+		}
+
+		Entry previous;
+		List<Entry> evicted = evictionListener == null ? null : new ArrayList<Entry>();
+		synchronized (this) {
+			sketch.increment(key);
+			previous = entries.remove(key);
+			if (previous != null) {
+				unlink(previous);
+			}
+
+			Entry entry = new Entry(key, value, sizeOf(value));
+			entries.put(key, entry);
+			keyIndex.add(key);
+			window.put(key, entry);
+			windowSize += entry.size;
+			sketch.ensureCapacity(entries.size());
+
+			evictFromWindow(evicted);
+		}
+
+		if (previous != null && previous.value != value) {
+			notifyEvicted(previous, EvictionCause.REPLACED);
+		}
+		notifyEvicted(evicted, EvictionCause.SIZE);
+		return true;
+	}
+
+	@Override
+	public final Bitmap remove(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		Entry entry;
+		synchronized (this) {
+			entry = entries.remove(key);
+			if (entry == null) return null;
+
+			keyIndex.remove(key);
+			unlink(entry);
+		}
+		notifyEvicted(entry, EvictionCause.REMOVED);
+		return entry.value;
+	}
+
+	@Override
+	public synchronized Collection<String> keys() {
+		return new HashSet<>(entries.keySet());
+	}
+
+	@Override
+	public Collection<String> keysForUri(String imageUri) {
+		return keyIndex.get(imageUri);
+	}
+
+	@Override
+	public void clear() {
+		List<Entry> cleared;
+		synchronized (this) {
+			cleared = evictionListener == null ? null : new ArrayList<Entry>(entries.values());
+			entries.clear();
+			keyIndex.clear();
+			window.clear();
+			probation.clear();
+			protectedSegment.clear();
+			windowSize = 0;
+			probationSize = 0;
+			protectedSize = 0;
+		}
+		notifyEvicted(cleared, EvictionCause.CLEARED);
+	}
+
+	/**
+	 * Removes entries until sum size of the rest ones is not bigger than incoming size. Entries of admission window are
+	 * removed first, then entries of probation and protected segments (least recently used first).
+	 */
+	@Override
+	public void trimToSize(int maxSize) {
+		List<Entry> evicted = evictionListener == null ? null : new ArrayList<Entry>();
+		synchronized (this) {
+			trimSegment(window, maxSize, evicted);
+			trimSegment(probation, maxSize, evicted);
+			trimSegment(protectedSegment, maxSize, evicted);
+		}
+		notifyEvicted(evicted, EvictionCause.TRIMMED);
+	}
+
+	@Override
+	public void trim(TrimLevel level) {
+		trimToSize(level.getRetainedSize(maxSize));
+	}
+
+	@Override
+	public void setEvictionListener(MemoryCacheEvictionListener listener) {
+		this.evictionListener = listener;
+	}
+
+	/** @return Sum of the sizes of the Bitmaps in this cache */
+	public synchronized int size() {
+		return windowSize + probationSize + protectedSize;
+	}
+
+	/** Moves entry which was hit in probation segment to protected segment */
+	private void promote(Entry entry) {
+		probation.remove(entry.key);
+		probationSize -= entry.size;
+		entry.region = Region.PROTECTED;
+		protectedSegment.put(entry.key, entry);
+		protectedSize += entry.size;
+
+		// Demote least recently used protected entries back to probation segment
+		while (protectedSize > protectedMaxSize && protectedSegment.size() > 1) {
+			Entry demoted = removeEldest(protectedSegment);
+			protectedSize -= demoted.size;
+			demoted.region = Region.PROBATION;
+			probation.put(demoted.key, demoted);
+			probationSize += demoted.size;
+		}
+	}
+
+	/**
+	 * Moves least recently used entries from overflowed window to main region if they win admission
+	 *
+	 * @param evicted List for evicted entries. Can be <b>null</b>.
+	 */
+	private void evictFromWindow(List<Entry> evicted) {
+		while (windowSize > windowMaxSize && !window.isEmpty()) {
+			Entry candidate = removeEldest(window);
+			windowSize -= candidate.size;
+			if (admit(candidate, evicted)) {
+				candidate.region = Region.PROBATION;
+				probation.put(candidate.key, candidate);
+				probationSize += candidate.size;
+			} else {
+				entries.remove(candidate.key);
+				keyIndex.remove(candidate.key);
+				if (evicted != null) {
+					evicted.add(candidate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evicts victims from main region to free space for candidate while candidate is used more often than victim.
+	 *
+	 * @return <b>true</b> - if candidate is admitted to main region; <b>false</b> - if it should be evicted
+	 */
+	private boolean admit(Entry candidate, List<Entry> evicted) {
+		if (candidate.size > mainMaxSize) return false;
+
+		int candidateFrequency = sketch.frequency(candidate.key);
+		while (probationSize + protectedSize + candidate.size > mainMaxSize) {
+			boolean fromProbation = !probation.isEmpty();
+			Entry victim = fromProbation ? eldest(probation) : eldest(protectedSegment);
+			if (candidateFrequency <= sketch.frequency(victim.key)) return false;
+
+			if (fromProbation) {
+				probation.remove(victim.key);
+				probationSize -= victim.size;
+			} else {
+				protectedSegment.remove(victim.key);
+				protectedSize -= victim.size;
+			}
+			entries.remove(victim.key);
+			keyIndex.remove(victim.key);
+			if (evicted != null) {
+				evicted.add(victim);
+			}
+		}
+		return true;
+	}
+
+	/** Removes least recently used entries of segment while sum size of cache is bigger than incoming size */
+	private void trimSegment(LinkedHashMap<String, Entry> segment, int maxSize, List<Entry> evicted) {
+		while (windowSize + probationSize + protectedSize > maxSize && !segment.isEmpty()) {
+			Entry entry = eldest(segment);
+			entries.remove(entry.key);
+			keyIndex.remove(entry.key);
+			unlink(entry);
+			if (evicted != null) {
+				evicted.add(entry);
+			}
+		}
+	}
+
+	private void unlink(Entry entry) {
+		switch (entry.region) {
+			case WINDOW:
+				window.remove(entry.key);
+				windowSize -= entry.size;
+				break;
+			case PROBATION:
+				probation.remove(entry.key);
+				probationSize -= entry.size;
+				break;
+			case PROTECTED:
+				protectedSegment.remove(entry.key);
+				protectedSize -= entry.size;
+				break;
+		}
+	}
+
+	private void notifyEvicted(List<Entry> evicted, EvictionCause cause) {
+		if (evicted == null) return;
+
+		for (Entry entry : evicted) {
+			notifyEvicted(entry, cause);
+		}
+	}
+
+	private void notifyEvicted(Entry entry, EvictionCause cause) {
+		MemoryCacheEvictionListener listener = evictionListener;
+		if (listener != null) {
+			listener.onEvicted(entry.key, entry.value, entry.size, cause);
+		}
+	}
+
+	private static Entry eldest(LinkedHashMap<String, Entry> segment) {
+		return segment.values().iterator().next();
+	}
+
+	private static Entry removeEldest(LinkedHashMap<String, Entry> segment) {
+		Iterator<Entry> iterator = segment.values().iterator();
+		Entry eldest = iterator.next();
+		iterator.remove();
+		return eldest;
+	}
+
+	/** Returns the size {@code Bitmap} in bytes. */
+	private static int sizeOf(Bitmap value) {
+		return value.getRowBytes() * value.getHeight();
+	}
+
+	@Override
+	public final String toString() {
+		return String.format("TinyLfuCache[maxSize=%d]", maxSize);
+	}
+
+	private enum Region {
+		WINDOW, PROBATION, PROTECTED
+	}
+
+	private static final class Entry {
+		final String key;
+		final Bitmap value;
+		final int size;
+		Region region = Region.WINDOW;
+
+		Entry(String key, Bitmap value, int size) {
+			this.key = key;
+			this.value = value;
+			this.size = size;
+		}
+	}
+}
@@ -20,11 +20,6 @@ import com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 
 /**
  * Limited {@link Bitmap bitmap} cache. Provides {@link Bitmap bitmaps} storing. Size of all stored bitmaps will not to
@@ -39,11 +34,11 @@ import java.util.Set;
  */
 public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 	/**
-	 * Contains strong references to stored objects (keys) and last object usage date (in milliseconds). If hard cache
-	 * size will exceed limit then object with the least frequently usage is deleted (but it continue exist at
-	 * {@link #softMap} and can be collected by GC at any time)
+	 * Contains strong references to stored objects (keys) ordered by usage count. If hard cache size will exceed limit
+	 * then object with the least frequently usage is deleted (but it continue exist at {@link #softMap} and can be
+	 * collected by GC at any time). Guarded by itself.
 	 */
-	private final Map<Bitmap, Integer> usingCounts = Collections.synchronizedMap(new HashMap<Bitmap, Integer>());
+	private final SortedBitmapIndex usingCounts = new SortedBitmapIndex();
 
 	public UsingFreqLimitedMemoryCache(int sizeLimit) {
 		super(sizeLimit);
@@ -52,7 +47,9 @@ public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 	@Override
 	public boolean put(String key, Bitmap value) {
 		if (super.put(key, value)) {
-			usingCounts.put(value, 0);
+			synchronized (usingCounts) {
+				usingCounts.put(value, 0);
+			}
 			return true;
 		} else {
 			return false;
@@ -64,9 +61,11 @@ public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 		Bitmap value = super.get(key);
 		// Increment usage count for value if value is contained in hardCahe
 		if (value != null) {
-			Integer usageCount = usingCounts.get(value);
-			if (usageCount != null) {
-				usingCounts.put(value, usageCount + 1);
+			synchronized (usingCounts) {
+				Integer usageCount = usingCounts.getRank(value);
+				if (usageCount != null) {
+					usingCounts.put(value, usageCount + 1);
+				}
 			}
 		}
 		return value;
@@ -76,14 +75,18 @@ public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 	public Bitmap remove(String key) {
 		Bitmap value = super.get(key);
 		if (value != null) {
-			usingCounts.remove(value);
+			synchronized (usingCounts) {
+				usingCounts.remove(value);
+			}
 		}
 		return super.remove(key);
 	}
 
 	@Override
 	public void clear() {
-		usingCounts.clear();
+		synchronized (usingCounts) {
+			usingCounts.clear();
+		}
 		super.clear();
 	}
 
@@ -94,25 +97,9 @@ public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 
 	@Override
 	protected Bitmap removeNext() {
-		Integer minUsageCount = null;
-		Bitmap leastUsedValue = null;
-		Set<Entry<Bitmap, Integer>> entries = usingCounts.entrySet();
 		synchronized (usingCounts) {
-			for (Entry<Bitmap, Integer> entry : entries) {
-				if (leastUsedValue == null) {
-					leastUsedValue = entry.getKey();
-					minUsageCount = entry.getValue();
-				} else {
-					Integer lastValueUsage = entry.getValue();
-					if (lastValueUsage < minUsageCount) {
-						minUsageCount = lastValueUsage;
-						leastUsedValue = entry.getKey();
-					}
-				}
-			}
+			return usingCounts.pollLowest();
 		}
-		usingCounts.remove(leastUsedValue);
-		return leastUsedValue;
 	}
 
 	@Override
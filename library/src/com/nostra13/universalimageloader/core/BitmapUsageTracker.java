@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import android.graphics.Bitmap;
+import android.view.View;
+
+import com.nostra13.universalimageloader.cache.memory.EvictionCause;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import com.nostra13.universalimageloader.core.assist.BitmapHandle;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
+import com.nostra13.universalimageloader.core.imageaware.ImageAware;
+import com.nostra13.universalimageloader.utils.L;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps {@linkplain BitmapHandle handles} of Bitmaps cached in memory. Memory cache owns one reference of every cached
+ * Bitmap, views which display Bitmap and tasks which are going to display it own other references. Reference of cache
+ * is released when Bitmap is evicted so Bitmap is returned into {@linkplain BitmapPool pool} when nobody uses it
+ * anymore.<br />
+ * Bitmaps passed to not view {@linkplain ImageAware ImageAwares} (e.g. loaded by
+ * {@link ImageLoader#loadImage(String, com.nostra13.universalimageloader.core.listener.ImageLoadingListener)
+ * loadImage(...)}) and Bitmaps {@linkplain MemoryCache#remove(Object) removed} from cache explicitly are never reused
+ * because their owners are unknown.<br />
+ * Handles and views are referenced weakly so tracker doesn't prevent them from garbage collection. Bitmap of
+ * destroyed view isn't reused.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+final class BitmapUsageTracker implements MemoryCacheEvictionListener {
+
+	private static final String LOG_RELEASE_EVICTED_BITMAP = "Release evicted bitmap (%2$s) [%1$s]";
+
+	private final MemoryCache memoryCache;
+	private final BitmapPool bitmapPool;
+
+	private final Map<Bitmap, WeakReference<BitmapHandle>> handles = new WeakHashMap<Bitmap, WeakReference<BitmapHandle>>();
+	/** Handles of Bitmaps displayed in views */
+	private final Map<View, BitmapHandle> displayedHandles = new WeakHashMap<View, BitmapHandle>();
+	/** Bitmaps which were passed out of ImageLoader's control */
+	private final Set<Bitmap> escapedBitmaps = Collections.newSetFromMap(new WeakHashMap<Bitmap, Boolean>());
+
+	BitmapUsageTracker(MemoryCache memoryCache, BitmapPool bitmapPool) {
+		this.memoryCache = memoryCache;
+		this.bitmapPool = bitmapPool;
+	}
+
+	/**
+	 * Gets Bitmap from memory cache and retains it. Cache is read under tracker lock so Bitmap can't be evicted and
+	 * released between reading and retaining.
+	 *
+	 * @return Retained handle or <b>null</b> if memory cache doesn't contain Bitmap for incoming key
+	 */
+	synchronized BitmapHandle retainFromMemoryCache(String key) {
+		Bitmap bitmap = memoryCache.get(key);
+		if (bitmap == null) return null;
+
+		return handleFor(bitmap).retain();
+	}
+
+	/** Retains Bitmap which is going to be cached in memory. Handle owns reference of cache too. */
+	synchronized BitmapHandle retain(Bitmap bitmap) {
+		return handleFor(bitmap).retain();
+	}
+
+	/** Retains Bitmap displayed in ImageAware and releases Bitmap which was displayed in it before */
+	synchronized void onDisplayed(ImageAware imageAware, Bitmap bitmap) {
+		View view = imageAware.getWrappedView();
+		if (view == null) {
+			escapedBitmaps.add(bitmap);
+			WeakReference<BitmapHandle> handleRef = handles.get(bitmap);
+			BitmapHandle handle = handleRef == null ? null : handleRef.get();
+			if (handle != null) {
+				handle.denyReuse();
+			}
+			return;
+		}
+
+		BitmapHandle previous = displayedHandles.put(view, handleFor(bitmap).retain());
+		if (previous != null) {
+			previous.release();
+		}
+	}
+
+	/** Releases Bitmap displayed in ImageAware because ImageAware shows something else now */
+	synchronized void onReset(ImageAware imageAware) {
+		View view = imageAware.getWrappedView();
+		if (view == null) return;
+
+		BitmapHandle previous = displayedHandles.remove(view);
+		if (previous != null) {
+			previous.release();
+		}
+	}
+
+	/** Releases reference of memory cache */
+	@Override
+	public synchronized void onEvicted(String key, Bitmap value, int size, EvictionCause cause) {
+		BitmapHandle handle = handleFor(value);
+		if (!cause.wasEvicted()) {
+			// Removed Bitmap is returned to caller of remove(...)
+			escapedBitmaps.add(value);
+			handle.denyReuse();
+		}
+		L.d(LOG_RELEASE_EVICTED_BITMAP, key, cause);
+		handle.release();
+	}
+
+	/**
+	 * Returns actual handle of Bitmap or creates new one. New handle has one reference which belongs to memory cache
+	 * (Bitmap either is cached already or is going to be cached).
+	 */
+	private BitmapHandle handleFor(Bitmap bitmap) {
+		WeakReference<BitmapHandle> handleRef = handles.get(bitmap);
+		BitmapHandle handle = handleRef == null ? null : handleRef.get();
+		// Released Bitmap can be pooled, reused for decoding and cached again
+		if (handle == null || handle.getRefCount() == 0) {
+			handle = new BitmapHandle(bitmap, bitmapPool);
+			if (escapedBitmaps.contains(bitmap)) {
+				handle.denyReuse();
+			}
+			handles.put(bitmap, new WeakReference<BitmapHandle>(handle));
+		}
+		return handle;
+	}
+}
@@ -17,26 +17,34 @@ package com.nostra13.universalimageloader.core;
 
 import android.content.Context;
 import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.disc.impl.AsyncOpenDiskCache;
 import com.nostra13.universalimageloader.cache.disc.impl.UnlimitedDiscCache;
 import com.nostra13.universalimageloader.cache.disc.impl.ext.LruDiscCache;
 import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
 import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
+import com.nostra13.universalimageloader.cache.memory.EncodedMemoryCache;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
-import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.ShardedLruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.SizeTolerantMemoryCache;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
 import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
-import com.nostra13.universalimageloader.core.assist.deque.LIFOLinkedBlockingDeque;
+import com.nostra13.universalimageloader.core.assist.deque.PriorityTaskQueue;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
 import com.nostra13.universalimageloader.core.decode.BaseImageDecoder;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.display.BitmapDisplayer;
 import com.nostra13.universalimageloader.core.display.SimpleBitmapDisplayer;
 import com.nostra13.universalimageloader.core.download.BaseImageDownloader;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.core.executor.BaseTaskExecutorFactory;
+import com.nostra13.universalimageloader.core.executor.TaskExecutorFactory;
 import com.nostra13.universalimageloader.utils.L;
 import com.nostra13.universalimageloader.utils.StorageUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -53,27 +61,71 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class DefaultConfigurationFactory {
 
-	/** Creates default implementation of task executor */
+	/** Idle downscaling thread is stopped after {@value} seconds */
+	private static final long DOWNSCALE_THREAD_KEEP_ALIVE = 10;
+	private static final long DISK_CACHE_OPEN_THREAD_KEEP_ALIVE = 1;
+	/** Idle thread of executor with custom thread factory is stopped after {@value} seconds */
+	private static final long CUSTOM_THREAD_KEEP_ALIVE = 60;
+
+	/**
+	 * Creates default implementation of task executor. Tasks are taken from queue according to their
+	 * {@linkplain com.nostra13.universalimageloader.core.assist.LoadingPriority priority}, tasks of equal priority -
+	 * according to <b>tasksProcessingType</b>.
+	 */
 	public static Executor createExecutor(int threadPoolSize, int threadPriority,
 			QueueProcessingType tasksProcessingType) {
 		boolean lifo = tasksProcessingType == QueueProcessingType.LIFO;
-		BlockingQueue<Runnable> taskQueue =
-				lifo ? new LIFOLinkedBlockingDeque<Runnable>() : new LinkedBlockingQueue<Runnable>();
+		BlockingQueue<Runnable> taskQueue = new PriorityTaskQueue(lifo);
 		return new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0L, TimeUnit.MILLISECONDS, taskQueue,
 				createThreadFactory(threadPriority, "uil-pool-"));
 	}
 
+	/** Creates {@linkplain BaseTaskExecutorFactory default implementation} of TaskExecutorFactory */
+	public static TaskExecutorFactory createTaskExecutorFactory() {
+		return new BaseTaskExecutorFactory();
+	}
+
 	/** Creates default implementation of task distributor */
 	public static Executor createTaskDistributor() {
 		return Executors.newCachedThreadPool(createThreadFactory(Thread.NORM_PRIORITY, "uil-pool-d-"));
 	}
 
     public static Executor createNetworkLoadExecutor(int threadPoolSize, int threadPriority, QueueProcessingType tasksProcessingType) {
-//        BlockingDeque<Runnable> queue = new CyclingLinkedBlockingDeque<Runnable>(ImageLoaderConfiguration.Builder.NETWORK_LOAD_QUEUE_CAPACITY);
-//        return new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 10, TimeUnit.MINUTES, queue, createThreadFactory(threadPriority));
         return createExecutor(threadPoolSize, threadPriority, tasksProcessingType);
     }
 
+	/**
+	 * Creates default implementation of task executor for network loads. Its queue is bounded by
+	 * <b>maxQueuedTasks</b> (<b>0</b> means unlimited queue), <b>admissionPolicy</b> defines what to do with incoming
+	 * task if queue is full.
+	 */
+	public static Executor createNetworkLoadExecutor(int threadPoolSize, int threadPriority,
+			QueueProcessingType tasksProcessingType, int maxQueuedTasks, QueueAdmissionPolicy admissionPolicy) {
+		if (maxQueuedTasks <= 0) {
+			return createNetworkLoadExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+		}
+		boolean lifo = tasksProcessingType == QueueProcessingType.LIFO;
+		BlockingQueue<Runnable> taskQueue = new PriorityTaskQueue(lifo, maxQueuedTasks, admissionPolicy);
+		return new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0L, TimeUnit.MILLISECONDS, taskQueue,
+				createThreadFactory(threadPriority, "uil-pool-"));
+	}
+
+	/**
+	 * Creates task executor for network loads which runs up to <b>threadPoolSize</b> tasks at once on threads created
+	 * by <b>threadFactory</b>. Other tasks wait in queue according to their priority. Queue is bounded by
+	 * <b>maxQueuedTasks</b> (<b>0</b> means unlimited queue). Idle threads are stopped.
+	 */
+	public static Executor createNetworkLoadExecutor(int threadPoolSize, ThreadFactory threadFactory,
+			QueueProcessingType tasksProcessingType, int maxQueuedTasks, QueueAdmissionPolicy admissionPolicy) {
+		boolean lifo = tasksProcessingType == QueueProcessingType.LIFO;
+		BlockingQueue<Runnable> taskQueue = maxQueuedTasks > 0 ?
+				new PriorityTaskQueue(lifo, maxQueuedTasks, admissionPolicy) : new PriorityTaskQueue(lifo);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, CUSTOM_THREAD_KEEP_ALIVE,
+				TimeUnit.SECONDS, taskQueue, threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	/** Creates {@linkplain HashCodeFileNameGenerator default implementation} of FileNameGenerator */
 	public static FileNameGenerator createFileNameGenerator() {
 		return new HashCodeFileNameGenerator();
@@ -99,6 +151,33 @@ public class DefaultConfigurationFactory {
 		return new UnlimitedDiscCache(cacheDir, reserveCacheDir, diskCacheFileNameGenerator);
 	}
 
+	/**
+	 * Creates default implementation of {@link DiskCache} depends on incoming parameters. Cache which has to read its
+	 * journal on opening is opened in background and is wrapped by {@link AsyncOpenDiskCache}.
+	 *
+	 * @param lookupTimeout Max time (in milliseconds) which cache lookups wait for cache opening
+	 */
+	public static DiskCache createDiskCacheInBackground(final Context context,
+			final FileNameGenerator diskCacheFileNameGenerator, final long diskCacheSize, final int diskCacheFileCount,
+			long lookupTimeout) {
+		if (diskCacheSize <= 0 && diskCacheFileCount <= 0) {
+			// Unlimited cache doesn't read anything on creation
+			return createDiskCache(context, diskCacheFileNameGenerator, diskCacheSize, diskCacheFileCount);
+		}
+		Callable<DiskCache> opener = new Callable<DiskCache>() {
+			@Override
+			public DiskCache call() {
+				return createDiskCache(context, diskCacheFileNameGenerator, diskCacheSize, diskCacheFileCount);
+			}
+		};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, DISK_CACHE_OPEN_THREAD_KEEP_ALIVE,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				createThreadFactory(Thread.NORM_PRIORITY, "uil-pool-dc-"));
+		executor.allowCoreThreadTimeOut(true);
+		File cacheDir = StorageUtils.getIndividualCacheDirectory(context);
+		return new AsyncOpenDiskCache(cacheDir, opener, executor, lookupTimeout);
+	}
+
 	/** Creates reserve disk cache folder which will be used if primary disk cache folder becomes unavailable */
 	private static File createReserveDiskCacheDir(Context context) {
 		File cacheDir = StorageUtils.getCacheDirectory(context, false);
@@ -110,14 +189,30 @@ public class DefaultConfigurationFactory {
 	}
 
 	/**
-	 * Creates default implementation of {@link MemoryCache} - {@link LruMemoryCache}<br />
+	 * Creates default implementation of {@link MemoryCache} - {@link ShardedLruMemoryCache}<br />
 	 * Default cache size = 1/8 of available app memory.
 	 */
 	public static MemoryCache createMemoryCache(int memoryCacheSize) {
 		if (memoryCacheSize == 0) {
 			memoryCacheSize = (int) (Runtime.getRuntime().maxMemory() / 8);
 		}
-		return new LruMemoryCache(memoryCacheSize);
+		return new ShardedLruMemoryCache(memoryCacheSize);
+	}
+
+	/** Creates {@linkplain EncodedMemoryCache memory cache of encoded images} of incoming size */
+	public static EncodedMemoryCache createEncodedMemoryCache(int encodedMemoryCacheSize) {
+		return new EncodedMemoryCache(encodedMemoryCacheSize);
+	}
+
+	/**
+	 * Creates executor for downscaling of larger Bitmaps taken from memory cache (see
+	 * {@link SizeTolerantMemoryCache}). It has one low priority thread which is stopped when idle.
+	 */
+	public static Executor createDownscaleExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, DOWNSCALE_THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), createThreadFactory(Thread.MIN_PRIORITY, "uil-pool-ds-"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
 	}
 
 	/** Creates default implementation of {@link ImageDownloader} - {@link BaseImageDownloader} */
@@ -125,9 +220,30 @@ public class DefaultConfigurationFactory {
 		return new BaseImageDownloader(context);
 	}
 
+	/**
+	 * Creates default {@linkplain BitmapPool pool} of Bitmaps which are reused for decoding. Pool is created only if
+	 * Bitmap reuse is enabled in configuration.<br />
+	 * Default pool size = 1/16 of available app memory.
+	 */
+	public static BitmapPool createBitmapPool(int bitmapPoolSize) {
+		if (bitmapPoolSize == 0) {
+			bitmapPoolSize = (int) (Runtime.getRuntime().maxMemory() / 16);
+		}
+		return new BitmapPool(bitmapPoolSize);
+	}
+
 	/** Creates default implementation of {@link ImageDecoder} - {@link BaseImageDecoder} */
 	public static ImageDecoder createImageDecoder(boolean loggingEnabled) {
-		return new BaseImageDecoder(loggingEnabled);
+		return createImageDecoder(loggingEnabled, null);
+	}
+
+	/**
+	 * Creates default implementation of {@link ImageDecoder} - {@link BaseImageDecoder}
+	 *
+	 * @param bitmapPool Pool of Bitmaps for reuse. Can be <b>null</b> - then Bitmaps won't be reused.
+	 */
+	public static ImageDecoder createImageDecoder(boolean loggingEnabled, BitmapPool bitmapPool) {
+		return new BaseImageDecoder(loggingEnabled, bitmapPool);
 	}
 
 	/** Creates default implementation of {@link BitmapDisplayer} - {@link SimpleBitmapDisplayer} */
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.core.assist.ContentLengthInputStream;
+import com.nostra13.universalimageloader.core.assist.io.RecyclableBufferedInputStream;
+import com.nostra13.universalimageloader.core.download.ImageDownloader;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decorator. Provides image from disk cache {@linkplain DiskCache#openRead(String) stream} for its original URI
+ * instead of downloading it. Stream which was opened beforehand is returned at the first request, so cached image
+ * isn't opened twice.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+final class DiskCacheImageDownloader implements ImageDownloader {
+
+	private static final int BUFFER_SIZE = 32 * 1024; // 32 Kb
+
+	private final String imageUri;
+	private final DiskCache diskCache;
+	private final ImageDownloader wrappedDownloader;
+	private InputStream openedStream;
+
+	/**
+	 * @param openedStream Already opened stream of cached image. Can be <b>null</b>.
+	 */
+	DiskCacheImageDownloader(String imageUri, DiskCache diskCache, InputStream openedStream,
+			ImageDownloader wrappedDownloader) {
+		this.imageUri = imageUri;
+		this.diskCache = diskCache;
+		this.openedStream = openedStream;
+		this.wrappedDownloader = wrappedDownloader;
+	}
+
+	@Override
+	public InputStream getStream(String imageUri, Object extra) throws IOException {
+		if (!this.imageUri.equals(imageUri)) {
+			return wrappedDownloader.getStream(imageUri, extra);
+		}
+
+		InputStream stream = openedStream;
+		openedStream = null;
+		if (stream == null) {
+			stream = diskCache.openRead(imageUri);
+			if (stream == null) {
+				throw new FileNotFoundException("Image isn't cached on disk: " + imageUri);
+			}
+		}
+		return new ContentLengthInputStream(new RecyclableBufferedInputStream(stream, BUFFER_SIZE), stream.available());
+	}
+}
@@ -16,6 +16,7 @@
 package com.nostra13.universalimageloader.core;
 
 import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.core.assist.BitmapHandle;
 import com.nostra13.universalimageloader.core.assist.LoadedFrom;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.display.BitmapDisplayer;
@@ -48,11 +49,14 @@ final class DisplayBitmapTask implements Runnable {
     private DisplayImageOptions options;
     private ImageDecoder imageDecoder;
     private boolean releaseOnCancel = false;
+    /** Retained handle of displayed bitmap which is released after displaying. Can be null. */
+    private BitmapHandle bitmapHandle;
 
-    public DisplayBitmapTask(Bitmap bitmap, ImageLoadingInfo imageLoadingInfo, ImageLoaderEngine engine, LoadedFrom loadedFrom, ImageDecoder imageDecoder, boolean releaseOnCancel) {
+    public DisplayBitmapTask(Bitmap bitmap, ImageLoadingInfo imageLoadingInfo, ImageLoaderEngine engine, LoadedFrom loadedFrom, ImageDecoder imageDecoder, boolean releaseOnCancel, BitmapHandle bitmapHandle) {
         this(bitmap, imageLoadingInfo, engine, loadedFrom);
         this.releaseOnCancel = releaseOnCancel;
         this.imageDecoder = imageDecoder;
+        this.bitmapHandle = bitmapHandle;
     }
 
 	public DisplayBitmapTask(Bitmap bitmap, ImageLoadingInfo imageLoadingInfo, ImageLoaderEngine engine, LoadedFrom loadedFrom) {
@@ -70,6 +74,16 @@ final class DisplayBitmapTask implements Runnable {
 
 	@Override
 	public void run() {
+		try {
+			display();
+		} finally {
+			if (bitmapHandle != null) {
+				bitmapHandle.release();
+			}
+		}
+	}
+
+	private void display() {
 		if (imageAware.isCollected()) {
 			L.d(LOG_TASK_CANCELLED_IMAGEAWARE_COLLECTED, memoryCacheKey);
 			listener.onLoadingCancelled(imageUri, imageAware.getWrappedView());
@@ -81,6 +95,9 @@ final class DisplayBitmapTask implements Runnable {
 		} else {
 			L.d(LOG_DISPLAY_IMAGE_IN_IMAGEAWARE, loadedFrom, memoryCacheKey);
 			displayer.display(bitmap, imageAware, loadedFrom);
+			if (bitmap != null) {
+				engine.onBitmapDisplayed(imageAware, memoryCacheKey, bitmap);
+			}
 			engine.cancelDisplayTaskFor(imageAware);
 			listener.onLoadingComplete(imageUri, imageAware.getWrappedView(), bitmap, loadedFrom);
 		}
@@ -93,7 +110,7 @@ final class DisplayBitmapTask implements Runnable {
 	}
 
     private void releaseBitmap() {
-        if(bitmap != null && releaseOnCancel) {
+        if(bitmap != null && releaseOnCancel && imageDecoder != null) {
             imageDecoder.release(bitmap, options);
         }
     }
@@ -22,6 +22,7 @@ import android.graphics.drawable.Drawable;
 import android.os.Handler;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
 import com.nostra13.universalimageloader.core.assist.ImageScaleType;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
 import com.nostra13.universalimageloader.core.display.BitmapDisplayer;
 import com.nostra13.universalimageloader.core.display.SimpleBitmapDisplayer;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
@@ -48,6 +49,7 @@ import com.nostra13.universalimageloader.core.process.BitmapProcessor;
  * <li>pre-processor for image Bitmap (before caching in memory)</li>
  * <li>post-processor for image Bitmap (after caching in memory, before displaying)</li>
  * <li>how decoded {@link Bitmap} will be displayed</li>
+ * <li>priority of loading task</li>
  * </ul>
  * <p/>
  * You can create instance:
@@ -82,6 +84,7 @@ public final class DisplayImageOptions {
 	private final BitmapProcessor postProcessor;
 	private final BitmapDisplayer displayer;
 	private final Handler handler;
+	private final LoadingPriority priority;
 	private final boolean isSyncLoading;
 
 	private DisplayImageOptions(Builder builder) {
@@ -103,6 +106,7 @@ public final class DisplayImageOptions {
 		postProcessor = builder.postProcessor;
 		displayer = builder.displayer;
 		handler = builder.handler;
+		priority = builder.priority;
 		isSyncLoading = builder.isSyncLoading;
 	}
 
@@ -190,6 +194,10 @@ public final class DisplayImageOptions {
 		return handler;
 	}
 
+	public LoadingPriority getPriority() {
+		return priority;
+	}
+
 	boolean isSyncLoading() {
 		return isSyncLoading;
 	}
@@ -218,6 +226,7 @@ public final class DisplayImageOptions {
 		private BitmapProcessor postProcessor = null;
 		private BitmapDisplayer displayer = DefaultConfigurationFactory.createBitmapDisplayer();
 		private Handler handler = null;
+		private LoadingPriority priority = LoadingPriority.VISIBLE;
 		private boolean isSyncLoading = false;
 
 		public Builder() {
@@ -460,6 +469,19 @@ public final class DisplayImageOptions {
 			return this;
 		}
 
+		/**
+		 * Sets {@linkplain LoadingPriority priority} of loading task. Tasks with higher priority are executed before
+		 * queued tasks with lower priority. Priority of queued task can be changed by
+		 * {@link ImageLoader#setLoadingPriority(com.nostra13.universalimageloader.core.imageaware.ImageAware,
+		 * LoadingPriority) ImageLoader.setLoadingPriority(...)}.<br />
+		 * Default value - {@link LoadingPriority#VISIBLE}
+		 */
+		public Builder priority(LoadingPriority priority) {
+			if (priority == null) throw new IllegalArgumentException("priority can't be null");
+			this.priority = priority;
+			return this;
+		}
+
 		/** Sets all options equal to incoming options */
 		public Builder cloneFrom(DisplayImageOptions options) {
 			imageResOnLoading = options.imageResOnLoading;
@@ -480,6 +502,7 @@ public final class DisplayImageOptions {
 			postProcessor = options.postProcessor;
 			displayer = options.displayer;
 			handler = options.handler;
+			priority = options.priority;
 			isSyncLoading = options.isSyncLoading;
 			return this;
 		}
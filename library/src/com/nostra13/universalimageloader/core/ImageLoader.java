@@ -23,12 +23,23 @@ import android.view.View;
 import android.widget.ImageView;
 
 import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.memory.EncodedMemoryCache;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
+import com.nostra13.universalimageloader.core.assist.BitmapHandle;
 import com.nostra13.universalimageloader.core.assist.FailReason;
 import com.nostra13.universalimageloader.core.assist.FlushedInputStream;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 import com.nostra13.universalimageloader.core.assist.LoadedFrom;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.PauseStats;
+import com.nostra13.universalimageloader.core.assist.PipelineStage;
+import com.nostra13.universalimageloader.core.assist.StageStats;
+import com.nostra13.universalimageloader.core.assist.UriContentionStats;
 import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
+import com.nostra13.universalimageloader.core.assist.pool.ByteArrayPool;
+import com.nostra13.universalimageloader.core.assist.pool.SizedByteArrayPool;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.imageaware.ImageViewAware;
 import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
@@ -39,6 +50,9 @@ import com.nostra13.universalimageloader.utils.ImageSizeUtils;
 import com.nostra13.universalimageloader.utils.L;
 import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Singletone for image loading and displaying at {@link ImageView ImageViews}<br />
  * <b>NOTE:</b> {@link #init(ImageLoaderConfiguration)} method must be called before any other method.
@@ -53,6 +67,7 @@ public class ImageLoader {
 	static final String LOG_INIT_CONFIG = "Initialize ImageLoader with configuration";
 	static final String LOG_DESTROY = "Destroy ImageLoader";
 	static final String LOG_LOAD_IMAGE_FROM_MEMORY_CACHE = "Load image from memory cache [%s]";
+	static final String LOG_TRIM_MEMORY = "Trim memory (%s)";
 
 	private static final String WARNING_RE_INIT_CONFIG = "Try to initialize ImageLoader which had already been initialized before. " + "To re-init ImageLoader with new configuration call ImageLoader.destroy() at first.";
 	private static final String ERROR_WRONG_ARGUMENTS = "Wrong arguments were passed to displayImage() method (ImageView reference must not be null)";
@@ -219,6 +234,7 @@ public class ImageLoader {
 
 		if (TextUtils.isEmpty(uri)) {
 			engine.cancelDisplayTaskFor(imageAware);
+			engine.onImageAwareReset(imageAware);
 			listener.onLoadingStarted(uri, imageAware.getWrappedView());
 			if (options.shouldShowImageForEmptyUri()) {
 				imageAware.setImageDrawable(options.getImageForEmptyUri(configuration.resources));
@@ -235,15 +251,16 @@ public class ImageLoader {
 
 		listener.onLoadingStarted(uri, imageAware.getWrappedView());
 
-		Bitmap bmp = configuration.memoryCache.get(memoryCacheKey);
+		BitmapHandle bitmapHandle = engine.retainFromMemoryCache(memoryCacheKey);
+		Bitmap bmp = bitmapHandle == null ? null : bitmapHandle.getBitmap();
 		if (bmp != null && !bmp.isRecycled()) {
 			L.d(LOG_LOAD_IMAGE_FROM_MEMORY_CACHE, memoryCacheKey);
 
 			if (options.shouldPostProcess()) {
 				ImageLoadingInfo imageLoadingInfo = new ImageLoadingInfo(uri, imageAware, targetSize, memoryCacheKey,
-						options, listener, progressListener, engine.getLockForUri(uri));
-				ProcessAndDisplayImageTask displayTask = new ProcessAndDisplayImageTask(engine, bmp, imageLoadingInfo,
-						defineHandler(options));
+						options, listener, progressListener);
+				ProcessAndDisplayImageTask displayTask = new ProcessAndDisplayImageTask(engine, bitmapHandle,
+						imageLoadingInfo, defineHandler(options));
 				if (options.isSyncLoading()) {
 					displayTask.run();
 				} else {
@@ -251,17 +268,24 @@ public class ImageLoader {
 				}
 			} else {
 				options.getDisplayer().display(bmp, imageAware, LoadedFrom.MEMORY_CACHE);
+				engine.onBitmapDisplayed(imageAware, memoryCacheKey, bmp);
+				bitmapHandle.release();
 				listener.onLoadingComplete(uri, imageAware.getWrappedView(), bmp, LoadedFrom.MEMORY_CACHE);
 			}
 		} else {
+			if (bitmapHandle != null) {
+				bitmapHandle.release();
+			}
 			if (options.shouldShowImageOnLoading()) {
 				imageAware.setImageDrawable(options.getImageOnLoading(configuration.resources));
+				engine.onImageAwareReset(imageAware);
 			} else if (options.isResetViewBeforeLoading()) {
 				imageAware.setImageDrawable(null);
+				engine.onImageAwareReset(imageAware);
 			}
 
 			ImageLoadingInfo imageLoadingInfo = new ImageLoadingInfo(uri, imageAware, targetSize, memoryCacheKey,
-					options, listener, progressListener, engine.getLockForUri(uri));
+					options, listener, progressListener);
 			LoadAndDisplayImageTask displayTask = new LoadAndDisplayImageTask(engine, imageLoadingInfo,
 					defineHandler(options));
 			if (options.isSyncLoading()) {
@@ -578,11 +602,11 @@ public class ImageLoader {
             return;
         }
 
-        if(engine.getPausedPreload().get()) {
+        if(engine.isPreloadPaused()) {
             return;
         }
 
-        ImageLoadingInfo imageLoadingInfo = new ImageLoadingInfo(uri, null, null, null, options, listener, null, engine.getLockForUri(uri));
+        ImageLoadingInfo imageLoadingInfo = new ImageLoadingInfo(uri, null, null, null, options, listener, null);
         PreloadToDiskTask displayTask = new PreloadToDiskTask(engine, imageLoadingInfo, options.getHandler());
         engine.submit(displayTask);
     }
@@ -598,6 +622,22 @@ public class ImageLoader {
 		}
 	}
 
+	/**
+	 * Returns retained handle of Bitmap cached in memory. Bitmap won't be reused for other images (if
+	 * {@link ImageLoaderConfiguration.Builder#reuseEvictedBitmaps() reuse of evicted Bitmaps} is enabled) until handle
+	 * is {@linkplain BitmapHandle#release() released}. So use it instead of direct reading of
+	 * {@linkplain #getMemoryCache() memory cache} if you need cached Bitmap for a while.
+	 *
+	 * @param memoryCacheKey Key of Bitmap in memory cache (see
+	 *                       {@link MemoryCacheUtils#generateKey(String, ImageSize)})
+	 * @return Retained handle or <b>null</b> if memory cache doesn't contain Bitmap for incoming key
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public BitmapHandle retainCachedBitmap(String memoryCacheKey) {
+		checkConfiguration();
+		return engine.retainFromMemoryCache(memoryCacheKey);
+	}
+
 	/**
 	 * Returns memory cache
 	 *
@@ -609,13 +649,106 @@ public class ImageLoader {
 	}
 
 	/**
-	 * Clears memory cache
+	 * Returns pool of Bitmaps which are reused for decoding
+	 *
+	 * @return Bitmap pool or <b>null</b> if Bitmaps aren't reused
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public BitmapPool getBitmapPool() {
+		checkConfiguration();
+		return configuration.bitmapPool;
+	}
+
+	/**
+	 * Returns memory cache of encoded images
+	 *
+	 * @return Memory cache of encoded images or <b>null</b> if encoded images aren't cached in memory
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public EncodedMemoryCache getEncodedMemoryCache() {
+		checkConfiguration();
+		return configuration.encodedMemoryCache;
+	}
+
+	/**
+	 * Clears memory cache, memory cache of encoded images and pool of reusable Bitmaps
 	 *
 	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
 	 */
 	public void clearMemoryCache() {
 		checkConfiguration();
 		configuration.memoryCache.clear();
+		if (configuration.encodedMemoryCache != null) {
+			configuration.encodedMemoryCache.clear();
+		}
+		if (configuration.bitmapPool != null) {
+			configuration.bitmapPool.clear();
+		}
+	}
+
+	/**
+	 * Releases memory held by ImageLoader: trims memory cache, memory cache of encoded images, pool of reusable Bitmaps
+	 * and pools of byte buffers according to incoming level. {@link TrimLevel#BACKGROUND} and {@link TrimLevel#MODERATE} keep corresponding part
+	 * of every cache and pool, {@link TrimLevel#CRITICAL} keeps in memory cache only images which are displayed in views
+	 * at this moment and clears pools.
+	 *
+	 * @param level Trim level
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @see #onTrimMemory(int)
+	 */
+	public void trimMemory(TrimLevel level) {
+		checkConfiguration();
+		L.d(LOG_TRIM_MEMORY, level);
+		MemoryCache memoryCache = configuration.memoryCache;
+		BitmapPool bitmapPool = configuration.bitmapPool;
+		if (configuration.encodedMemoryCache != null) {
+			configuration.encodedMemoryCache.trim(level);
+		}
+		if (level == TrimLevel.CRITICAL) {
+			// Memory cache doesn't know which images are visible so they are kept in memory and cached again
+			Map<String, BitmapHandle> visibleBitmaps = new HashMap<String, BitmapHandle>();
+			for (String memoryCacheKey : engine.getDisplayedCacheKeys()) {
+				BitmapHandle bitmapHandle = engine.retainFromMemoryCache(memoryCacheKey);
+				if (bitmapHandle != null) {
+					visibleBitmaps.put(memoryCacheKey, bitmapHandle);
+				}
+			}
+			memoryCache.trim(level);
+			for (Map.Entry<String, BitmapHandle> entry : visibleBitmaps.entrySet()) {
+				Bitmap bitmap = entry.getValue().getBitmap();
+				engine.retainBitmap(bitmap); // reference of memory cache
+				memoryCache.put(entry.getKey(), bitmap);
+				entry.getValue().release();
+			}
+			if (bitmapPool != null) {
+				bitmapPool.clear();
+			}
+			ByteArrayPool.clear();
+			SizedByteArrayPool.clear();
+		} else {
+			memoryCache.trim(level);
+			if (bitmapPool != null) {
+				bitmapPool.trimToSize(level.getRetainedSize(bitmapPool.maxSize()));
+			}
+			ByteArrayPool.trimToSize(level.getRetainedSize(ByteArrayPool.MAX_SIZE));
+			SizedByteArrayPool.trimToSize(level.getRetainedSize(SizedByteArrayPool.getSizeLimit()));
+		}
+	}
+
+	/**
+	 * Trims memory in response to system callback. Call it from
+	 * {@link android.content.ComponentCallbacks2#onTrimMemory(int) onTrimMemory(int)} of your Application or
+	 * Activity. Levels which don't require releasing memory (e.g. when UI is hidden) are ignored.
+	 *
+	 * @param level Level passed to {@link android.content.ComponentCallbacks2#onTrimMemory(int) onTrimMemory(int)}
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @see #trimMemory(TrimLevel)
+	 */
+	public void onTrimMemory(int level) {
+		TrimLevel trimLevel = TrimLevel.fromTrimMemoryLevel(level);
+		if (trimLevel != null) {
+			trimMemory(trimLevel);
+		}
 	}
 
 	/**
@@ -697,6 +830,32 @@ public class ImageLoader {
 		engine.cancelDisplayTaskFor(new ImageViewAware(imageView));
 	}
 
+	/**
+	 * Changes {@linkplain LoadingPriority priority} of the task of loading and displaying image for passed
+	 * {@link com.nostra13.universalimageloader.core.imageaware.ImageAware ImageAware} if this task is still waiting
+	 * for execution. Does nothing if task is started already.
+	 *
+	 * @param imageAware {@link com.nostra13.universalimageloader.core.imageaware.ImageAware ImageAware} for
+	 *                   which display task will be re-prioritized
+	 * @param priority   New priority of display task
+	 */
+	public void setLoadingPriority(ImageAware imageAware, LoadingPriority priority) {
+		if (priority == null) throw new IllegalArgumentException("priority can't be null");
+		engine.setPriorityFor(imageAware, priority);
+	}
+
+	/**
+	 * Changes {@linkplain LoadingPriority priority} of the task of loading and displaying image for passed
+	 * {@link android.widget.ImageView ImageView} if this task is still waiting for execution. Does nothing if task is
+	 * started already.
+	 *
+	 * @param imageView {@link android.widget.ImageView ImageView} for which display task will be re-prioritized
+	 * @param priority  New priority of display task
+	 */
+	public void setLoadingPriority(ImageView imageView, LoadingPriority priority) {
+		setLoadingPriority(new ImageViewAware(imageView), priority);
+	}
+
 	/**
 	 * Denies or allows ImageLoader to download images from the network.<br />
 	 * <br />
@@ -722,6 +881,50 @@ public class ImageLoader {
 		engine.handleSlowNetwork(handleSlowNetwork);
 	}
 
+	/**
+	 * Returns contention statistics summarized for all image URIs: how many times display tasks found image URI already
+	 * loading by another task and how long they waited for it.
+	 */
+	public UriContentionStats getUriContentionStats() {
+		checkConfiguration();
+		return engine.getUriContentionStats();
+	}
+
+	/**
+	 * Returns contention statistics for incoming image URI.
+	 *
+	 * @return Statistics; <b>null</b> - if the URI wasn't contended (statistics is kept for recently contended URIs only)
+	 */
+	public UriContentionStats getUriContentionStats(String uri) {
+		checkConfiguration();
+		return engine.getUriContentionStats(uri);
+	}
+
+	/**
+	 * Returns number of display tasks which were dropped from full network task queue according to
+	 * {@linkplain ImageLoaderConfiguration.Builder#networkQueueLimit(int, com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy)
+	 * queue admission policy}.
+	 */
+	public long getDroppedTaskCount() {
+		checkConfiguration();
+		return engine.getDroppedTaskCount();
+	}
+
+	/** Returns number of display tasks which were rejected by task executors (e.g. because of full queue). */
+	public long getRejectedTaskCount() {
+		checkConfiguration();
+		return engine.getRejectedTaskCount();
+	}
+
+	/**
+	 * Returns statistics of pipeline stage: queue depth, average time which tasks wait in stage's queue and average time
+	 * which they run.
+	 */
+	public StageStats getStageStats(PipelineStage stage) {
+		checkConfiguration();
+		return engine.getStageStats(stage);
+	}
+
 	/**
 	 * Pause ImageLoader. All new "load&display" tasks won't be executed until ImageLoader is {@link #resume() resumed}.
 	 * <br />
@@ -744,6 +947,18 @@ public class ImageLoader {
         engine.resumePreload();
     }
 
+	/** Returns pause statistics: how long ImageLoader was {@linkplain #pause() paused} and how long tasks waited */
+	public PauseStats getPauseStats() {
+		checkConfiguration();
+		return engine.getPauseStats();
+	}
+
+	/** Returns pause statistics of {@linkplain #pausePreload() preloading} */
+	public PauseStats getPreloadPauseStats() {
+		checkConfiguration();
+		return engine.getPreloadPauseStats();
+	}
+
 	/**
 	 * Cancels all running and scheduled display image tasks.<br />
 	 * <b>NOTE:</b> This method doesn't shutdown
@@ -764,6 +979,9 @@ public class ImageLoader {
 		if (configuration != null) L.d(LOG_DESTROY);
 		stop();
 		configuration.diskCache.close();
+		if (configuration.reuseEvictedBitmaps) {
+			configuration.memoryCache.setEvictionListener(null);
+		}
 		engine = null;
 		configuration = null;
 	}
@@ -20,13 +20,19 @@ import android.content.res.Resources;
 import android.util.DisplayMetrics;
 import com.nostra13.universalimageloader.cache.disc.DiskCache;
 import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
+import com.nostra13.universalimageloader.cache.memory.EncodedMemoryCache;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
 import com.nostra13.universalimageloader.cache.memory.impl.FuzzyKeyMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.SizeTolerantMemoryCache;
 import com.nostra13.universalimageloader.core.assist.FlushedInputStream;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
 import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.core.executor.TaskExecutorFactory;
 import com.nostra13.universalimageloader.core.process.BitmapProcessor;
 import com.nostra13.universalimageloader.utils.L;
 import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
@@ -59,20 +65,30 @@ public final class ImageLoaderConfiguration {
 
 	final Executor taskExecutor;
 	final Executor taskExecutorForCachedImages;
+	final Executor taskExecutorForProcessing;
     final Executor taskExecutorForPreload;
 
+	final TaskExecutorFactory taskExecutorFactory;
 	final boolean customExecutor;
 	final boolean customExecutorForCachedImages;
     final boolean preloadEnabled;
 
 	final int threadPoolSize;
+	final int threadPoolSizeForDecoding;
+	final int threadPoolSizeForProcessing;
 	final int threadPriority;
 	final QueueProcessingType tasksProcessingType;
+	final int networkQueueLimit;
+	final QueueAdmissionPolicy networkQueueAdmissionPolicy;
 
 	final MemoryCache memoryCache;
+	/** Is <b>null</b> if encoded images aren't cached in memory */
+	final EncodedMemoryCache encodedMemoryCache;
 	final DiskCache diskCache;
 	final ImageDownloader downloader;
 	final ImageDecoder decoder;
+	final BitmapPool bitmapPool;
+	final boolean reuseEvictedBitmaps;
 	final DisplayImageOptions defaultDisplayImageOptions;
 
 	final ImageDownloader networkDeniedDownloader;
@@ -87,16 +103,25 @@ public final class ImageLoaderConfiguration {
 		processorForDiskCache = builder.processorForDiskCache;
 		taskExecutor = builder.taskExecutor;
 		taskExecutorForCachedImages = builder.taskExecutorForCachedImages;
+		taskExecutorForProcessing = builder.taskExecutorForProcessing;
         taskExecutorForPreload = builder.taskExecutorForPreload;
 		threadPoolSize = builder.threadPoolSize;
+		threadPoolSizeForDecoding = builder.threadPoolSizeForDecoding;
+		threadPoolSizeForProcessing = builder.threadPoolSizeForProcessing;
 		threadPriority = builder.threadPriority;
 		tasksProcessingType = builder.tasksProcessingType;
+		networkQueueLimit = builder.networkQueueLimit;
+		networkQueueAdmissionPolicy = builder.networkQueueAdmissionPolicy;
 		diskCache = builder.diskCache;
 		memoryCache = builder.memoryCache;
+		encodedMemoryCache = builder.encodedMemoryCache;
 		defaultDisplayImageOptions = builder.defaultDisplayImageOptions;
 		downloader = builder.downloader;
 		decoder = builder.decoder;
+		bitmapPool = builder.bitmapPool;
+		reuseEvictedBitmaps = builder.reuseEvictedBitmaps;
 
+		taskExecutorFactory = builder.taskExecutorFactory;
 		customExecutor = builder.customExecutor;
 		customExecutorForCachedImages = builder.customExecutorForCachedImages;
 
@@ -117,15 +142,20 @@ public final class ImageLoaderConfiguration {
 	 * <li>maxImageWidthForDikcCache = unlimited</li>
 	 * <li>maxImageHeightForDiskCache = unlimited</li>
 	 * <li>threadPoolSize = {@link Builder#DEFAULT_THREAD_POOL_SIZE this}</li>
+	 * <li>threadPoolSizeForDecoding = threadPoolSize</li>
+	 * <li>threadPoolSizeForProcessing = threadPoolSize</li>
 	 * <li>threadPriority = {@link Builder#DEFAULT_THREAD_PRIORITY this}</li>
 	 * <li>allow to cache different sizes of image in memory</li>
 	 * <li>memoryCache = {@link DefaultConfigurationFactory#createMemoryCache(int)}</li>
 	 * <li>diskCache = {@link com.nostra13.universalimageloader.cache.disc.impl.UnlimitedDiscCache}</li>
 	 * <li>imageDownloader = {@link DefaultConfigurationFactory#createImageDownloader(Context)}</li>
 	 * <li>imageDecoder = {@link DefaultConfigurationFactory#createImageDecoder(boolean)}</li>
+	 * <li>bitmapPool = none (Bitmaps aren't reused for decoding)</li>
 	 * <li>diskCacheFileNameGenerator = {@link DefaultConfigurationFactory#createFileNameGenerator()}</li>
 	 * <li>defaultDisplayImageOptions = {@link DisplayImageOptions#createSimple() Simple options}</li>
 	 * <li>tasksProcessingOrder = {@link QueueProcessingType#FIFO}</li>
+	 * <li>taskExecutorFactory = {@link DefaultConfigurationFactory#createTaskExecutorFactory()}</li>
+	 * <li>networkQueueLimit = unlimited</li>
 	 * <li>detailed logging disabled</li>
 	 * </ul>
 	 */
@@ -154,9 +184,12 @@ public final class ImageLoaderConfiguration {
 	 */
 	public static class Builder {
 
-		private static final String WARNING_OVERLAP_DISK_CACHE_PARAMS = "diskCache(), diskCacheSize() and diskCacheFileCount calls overlap each other";
+		private static final String WARNING_OVERLAP_DISK_CACHE_PARAMS = "diskCache(), diskCacheSize(), diskCacheFileCount() and openDiskCacheInBackground() calls overlap each other";
 		private static final String WARNING_OVERLAP_DISK_CACHE_NAME_GENERATOR = "diskCache() and diskCacheFileNameGenerator() calls overlap each other";
 		private static final String WARNING_OVERLAP_MEMORY_CACHE = "memoryCache() and memoryCacheSize() calls overlap each other";
+		private static final String WARNING_OVERLAP_ENCODED_MEMORY_CACHE = "encodedMemoryCache() and encodedMemoryCacheSize() calls overlap each other";
+		private static final String WARNING_OVERLAP_BITMAP_POOL = "bitmapPool() and bitmapPoolSize() calls overlap each other";
+		private static final String WARNING_BITMAP_REUSE_DENIED = "reuseEvictedBitmaps() call is ignored because of denyBitmapReuse() call";
 		private static final String WARNING_OVERLAP_EXECUTOR = "threadPoolSize(), threadPriority() and tasksProcessingOrder() calls "
 				+ "can overlap taskExecutor() and taskExecutorForCachedImages() calls.";
 
@@ -173,9 +206,6 @@ public final class ImageLoaderConfiguration {
 		/** {@value} */
 		public static final QueueProcessingType DEFAULT_TASK_PROCESSING_TYPE = QueueProcessingType.FIFO;
 
-        public static final int TASK_DISTRIBUTOR_QUEUE_CAPACITY = 100;
-        public static final int NETWORK_LOAD_QUEUE_CAPACITY = 50;
-
 		private Context context;
 
 		private int maxImageWidthForMemoryCache = 0;
@@ -186,11 +216,15 @@ public final class ImageLoaderConfiguration {
 
 		private Executor taskExecutor = null;
 		private Executor taskExecutorForCachedImages = null;
+		private Executor taskExecutorForProcessing = null;
         private Executor taskExecutorForPreload = null;
+		private TaskExecutorFactory taskExecutorFactory = null;
 		private boolean customExecutor = false;
 		private boolean customExecutorForCachedImages = false;
 
 		private int threadPoolSize = DEFAULT_THREAD_POOL_SIZE;
+		private int threadPoolSizeForDecoding = 0;
+		private int threadPoolSizeForProcessing = 0;
 		private int threadPriority = DEFAULT_THREAD_PRIORITY;
 
         private int threadPriorityForPreload = PRELOAD_THREAD_PRIORITY;
@@ -198,17 +232,29 @@ public final class ImageLoaderConfiguration {
         private boolean preloadEnabled = false;
 
 		private boolean denyCacheImageMultipleSizesInMemory = false;
+		private boolean useLargerCachedImagesInMemory = false;
+		private boolean downscaleLargerCachedImages = false;
 		private QueueProcessingType tasksProcessingType = DEFAULT_TASK_PROCESSING_TYPE;
+		private int networkQueueLimit = 0;
+		private QueueAdmissionPolicy networkQueueAdmissionPolicy = QueueAdmissionPolicy.REJECT;
 
 		private int memoryCacheSize = 0;
 		private long diskCacheSize = 0;
 		private int diskCacheFileCount = 0;
+		private boolean openDiskCacheInBackground = false;
+		private long diskCacheLookupTimeout = 0;
 
 		private MemoryCache memoryCache = null;
+		private int encodedMemoryCacheSize = 0;
+		private EncodedMemoryCache encodedMemoryCache = null;
 		private DiskCache diskCache = null;
 		private FileNameGenerator diskCacheFileNameGenerator = null;
 		private ImageDownloader downloader = null;
 		private ImageDecoder decoder;
+		private int bitmapPoolSize = 0;
+		private BitmapPool bitmapPool = null;
+		private boolean denyBitmapReuse = false;
+		private boolean reuseEvictedBitmaps = false;
 		private DisplayImageOptions defaultDisplayImageOptions = null;
 
 		private boolean writeLogs = false;
@@ -307,6 +353,23 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * Sets factory which creates task executors for display tasks and preload tasks. E.g. you can set
+		 * {@link com.nostra13.universalimageloader.core.executor.VirtualThreadTaskExecutorFactory} if ImageLoader
+		 * runs on JVM with virtual threads.<br />
+		 * Default value - {@link DefaultConfigurationFactory#createTaskExecutorFactory()}<br />
+		 * <b>NOTE:</b> Factory isn't used for executors which you set by {@link #taskExecutor(Executor)} and
+		 * {@link #taskExecutorForCachedImages(Executor)}.
+		 */
+		public Builder taskExecutorFactory(TaskExecutorFactory taskExecutorFactory) {
+			if (taskExecutor != null || taskExecutorForCachedImages != null) {
+				L.w(WARNING_OVERLAP_EXECUTOR);
+			}
+
+			this.taskExecutorFactory = taskExecutorFactory;
+			return this;
+		}
+
 		/**
 		 * Sets thread pool size for image display tasks.<br />
 		 * Default value - {@link #DEFAULT_THREAD_POOL_SIZE this}
@@ -320,6 +383,31 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * Sets thread pool size for decoding of images cached on disk
+		 * ({@link com.nostra13.universalimageloader.core.assist.PipelineStage#DECODE decode stage}). Thread pool size
+		 * set by {@link #threadPoolSize(int)} is used for the network stage only then.<br />
+		 * Default value - the same as {@link #threadPoolSize(int) threadPoolSize}
+		 */
+		public Builder threadPoolSizeForDecoding(int threadPoolSize) {
+			if (taskExecutorForCachedImages != null) {
+				L.w(WARNING_OVERLAP_EXECUTOR);
+			}
+
+			this.threadPoolSizeForDecoding = threadPoolSize;
+			return this;
+		}
+
+		/**
+		 * Sets thread pool size for pre-processing, caching in memory and post-processing of decoded images
+		 * ({@link com.nostra13.universalimageloader.core.assist.PipelineStage#PROCESS process stage}).<br />
+		 * Default value - the same as {@link #threadPoolSize(int) threadPoolSize}
+		 */
+		public Builder threadPoolSizeForProcessing(int threadPoolSize) {
+			this.threadPoolSizeForProcessing = threadPoolSize;
+			return this;
+		}
+
 		/**
 		 * Sets the priority for image loading threads. Should be <b>NOT</b> greater than {@link Thread#MAX_PRIORITY} or
 		 * less than {@link Thread#MIN_PRIORITY}<br />
@@ -387,6 +475,22 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * If memory cache doesn't contain image of requested size then image cached for larger size is taken from
+		 * memory cache (the smallest one from larger sizes). So image displayed in large view is taken from memory for
+		 * small view instead of decoding from disk.<br />
+		 * It makes sense if you allow to cache multiple sizes of one image in memory (see
+		 * {@link #denyCacheImageMultipleSizesInMemory()}).
+		 *
+		 * @param downscale <b>true</b> - larger image is downscaled to requested size on background thread and
+		 *                  downscaled image is cached too; <b>false</b> - larger image is used as is.
+		 */
+		public Builder useLargerCachedImagesInMemory(boolean downscale) {
+			this.useLargerCachedImagesInMemory = true;
+			this.downscaleLargerCachedImages = downscale;
+			return this;
+		}
+
 		/**
 		 * Sets type of queue processing for tasks for loading and displaying images.<br />
 		 * Default value - {@link QueueProcessingType#FIFO}
@@ -400,11 +504,34 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * Limits number of queued tasks which wait for loading images from the network. If the queue is full then
+		 * <b>admissionPolicy</b> defines which task (queued or incoming one) is dropped. Listeners of dropped tasks get
+		 * {@link com.nostra13.universalimageloader.core.listener.ImageLoadingListener#onLoadingCancelled(String,
+		 * android.view.View) onLoadingCancelled()} callback.<br />
+		 * Default value - unlimited queue.<br />
+		 * <b>NOTE:</b> This option has no effect if you set {@linkplain #taskExecutor(Executor) custom task executor}.
+		 *
+		 * @param maxQueuedTasks  Max number of queued network tasks. <b>0</b> means unlimited queue.
+		 * @param admissionPolicy Defines what to do with incoming task if queue is full
+		 */
+		public Builder networkQueueLimit(int maxQueuedTasks, QueueAdmissionPolicy admissionPolicy) {
+			if (maxQueuedTasks < 0) throw new IllegalArgumentException("maxQueuedTasks must be a non-negative number");
+			if (admissionPolicy == null) throw new IllegalArgumentException("admissionPolicy must be not null");
+			if (taskExecutor != null) {
+				L.w(WARNING_OVERLAP_EXECUTOR);
+			}
+
+			this.networkQueueLimit = maxQueuedTasks;
+			this.networkQueueAdmissionPolicy = admissionPolicy;
+			return this;
+		}
+
 		/**
 		 * Sets maximum memory cache size for {@link android.graphics.Bitmap bitmaps} (in bytes).<br />
 		 * Default value - 1/8 of available app memory.<br />
 		 * <b>NOTE:</b> If you use this method then
-		 * {@link com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache LruMemoryCache} will be used as
+		 * {@link com.nostra13.universalimageloader.cache.memory.impl.ShardedLruMemoryCache ShardedLruMemoryCache} will be used as
 		 * memory cache. You can use {@link #memoryCache(MemoryCache)} method to set your own implementation of
 		 * {@link MemoryCache}.
 		 */
@@ -424,7 +551,7 @@ public final class ImageLoaderConfiguration {
 		 * bitmaps}.<br />
 		 * Default value - 1/8 of available app memory.<br />
 		 * <b>NOTE:</b> If you use this method then
-		 * {@link com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache LruMemoryCache} will be used as
+		 * {@link com.nostra13.universalimageloader.cache.memory.impl.ShardedLruMemoryCache ShardedLruMemoryCache} will be used as
 		 * memory cache. You can use {@link #memoryCache(MemoryCache)} method to set your own implementation of
 		 * {@link MemoryCache}.
 		 */
@@ -444,7 +571,7 @@ public final class ImageLoaderConfiguration {
 
 		/**
 		 * Sets memory cache for {@link android.graphics.Bitmap bitmaps}.<br />
-		 * Default value - {@link com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache LruMemoryCache}
+		 * Default value - {@link com.nostra13.universalimageloader.cache.memory.impl.ShardedLruMemoryCache ShardedLruMemoryCache}
 		 * with limited memory cache size (size = 1/8 of available app memory)<br />
 		 * <br />
 		 * <b>NOTE:</b> If you set custom memory cache then following configuration option will not be considered:
@@ -461,6 +588,98 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * Enables {@linkplain EncodedMemoryCache memory cache of encoded images} and sets its maximum size (in bytes).
+		 * Image files read from disk cache are kept in this cache so next decoding of the image doesn't read disk.<br />
+		 * Default value - encoded images aren't cached in memory.
+		 */
+		public Builder encodedMemoryCacheSize(int encodedMemoryCacheSize) {
+			if (encodedMemoryCacheSize <= 0) {
+				throw new IllegalArgumentException("encodedMemoryCacheSize must be a positive number");
+			}
+
+			if (encodedMemoryCache != null) {
+				L.w(WARNING_OVERLAP_ENCODED_MEMORY_CACHE);
+			}
+
+			this.encodedMemoryCacheSize = encodedMemoryCacheSize;
+			return this;
+		}
+
+		/**
+		 * Sets {@linkplain EncodedMemoryCache memory cache of encoded images}. Image files read from disk cache are
+		 * kept in this cache so next decoding of the image doesn't read disk.<br />
+		 * Default value - encoded images aren't cached in memory.
+		 */
+		public Builder encodedMemoryCache(EncodedMemoryCache encodedMemoryCache) {
+			if (encodedMemoryCacheSize != 0) {
+				L.w(WARNING_OVERLAP_ENCODED_MEMORY_CACHE);
+			}
+
+			this.encodedMemoryCache = encodedMemoryCache;
+			return this;
+		}
+
+		/**
+		 * Enables reuse of Bitmaps for decoding and sets maximum size of {@linkplain BitmapPool pool} of reused Bitmaps
+		 * (in bytes). Pool memory is taken in addition to memory cache. Decoded images become mutable.<br />
+		 * Bitmaps aren't reused by default.<br />
+		 * <b>NOTE:</b> Pool is used by default {@linkplain #imageDecoder(ImageDecoder) image decoder} only.
+		 */
+		public Builder bitmapPoolSize(int bitmapPoolSize) {
+			if (bitmapPoolSize <= 0) throw new IllegalArgumentException("bitmapPoolSize must be a positive number");
+
+			if (bitmapPool != null) {
+				L.w(WARNING_OVERLAP_BITMAP_POOL);
+			}
+
+			this.bitmapPoolSize = bitmapPoolSize;
+			return this;
+		}
+
+		/**
+		 * Enables reuse of Bitmaps for decoding and sets {@linkplain BitmapPool pool} of reused Bitmaps. Bitmaps which
+		 * were decoded but weren't displayed are returned into this pool. Decoded images become mutable.<br />
+		 * Bitmaps aren't reused by default.<br />
+		 * <b>NOTE:</b> Pool is used by default {@linkplain #imageDecoder(ImageDecoder) image decoder} only.
+		 */
+		public Builder bitmapPool(BitmapPool bitmapPool) {
+			if (bitmapPoolSize != 0) {
+				L.w(WARNING_OVERLAP_BITMAP_POOL);
+			}
+
+			this.bitmapPool = bitmapPool;
+			return this;
+		}
+
+		/**
+		 * Denies reusing of Bitmaps for decoding even if {@linkplain #bitmapPool(BitmapPool) pool} is set. Every decoded
+		 * image will be placed into newly allocated Bitmap and decoded images will be immutable. It's default
+		 * behaviour.
+		 */
+		public Builder denyBitmapReuse() {
+			this.denyBitmapReuse = true;
+			return this;
+		}
+
+		/**
+		 * Bitmaps evicted from memory cache will be returned into {@linkplain #bitmapPool(BitmapPool) pool} and reused
+		 * for decoding of other images. Enables reuse of Bitmaps with {@linkplain
+		 * DefaultConfigurationFactory#createBitmapPool(int) default pool} if pool isn't set. Bitmap isn't reused while it's displayed in view or is going to be displayed.
+		 * Bitmaps loaded by {@link ImageLoader#loadImage(String,
+		 * com.nostra13.universalimageloader.core.listener.ImageLoadingListener) loadImage(...)} are never reused.<br />
+		 * <b>NOTE:</b> Don't keep references to Bitmaps passed to listeners of
+		 * {@link ImageLoader#displayImage(String, android.widget.ImageView) displayImage(...)}. Use
+		 * {@link ImageLoader#retainCachedBitmap(String)} instead of reading {@link ImageLoader#getMemoryCache() memory
+		 * cache} directly if you need cached Bitmap for a while.<br />
+		 * <b>NOTE:</b> This option replaces {@linkplain MemoryCache#setEvictionListener(MemoryCacheEvictionListener)
+		 * eviction listener} of memory cache.
+		 */
+		public Builder reuseEvictedBitmaps() {
+			this.reuseEvictedBitmaps = true;
+			return this;
+		}
+
 		/** @deprecated Use {@link #diskCacheSize(int)} instead */
 		@Deprecated
 		public Builder discCacheSize(int maxCacheSize) {
@@ -511,6 +730,31 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * Sets that default disk cache should be opened in background, so {@link #build()} isn't blocked by reading of
+		 * cache journal. Disk cache lookups wait for cache opening at most for <b>lookupTimeoutMillis</b> and are
+		 * treated as misses after that. Opening can be tracked by
+		 * {@link com.nostra13.universalimageloader.cache.disc.impl.AsyncOpenDiskCache#getReadyFuture()}.<br />
+		 * By default: disk cache is opened synchronously.<br />
+		 * <b>NOTE:</b> It has effect only if {@link #diskCacheSize(int)} or {@link #diskCacheFileCount(int)} is used.
+		 *
+		 * @param lookupTimeoutMillis Max time (in milliseconds) which disk cache lookups wait for cache opening.
+		 *                            <b>0</b> - don't wait.
+		 */
+		public Builder openDiskCacheInBackground(long lookupTimeoutMillis) {
+			if (lookupTimeoutMillis < 0) {
+				throw new IllegalArgumentException("lookupTimeoutMillis must not be negative");
+			}
+
+			if (diskCache != null) {
+				L.w(WARNING_OVERLAP_DISK_CACHE_PARAMS);
+			}
+
+			this.openDiskCacheInBackground = true;
+			this.diskCacheLookupTimeout = lookupTimeoutMillis;
+			return this;
+		}
+
 		/** @deprecated Use {@link #diskCacheFileNameGenerator(com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator)} */
 		@Deprecated
 		public Builder discCacheFileNameGenerator(FileNameGenerator fileNameGenerator) {
@@ -549,11 +793,12 @@ public final class ImageLoaderConfiguration {
 		 * <ul>
 		 * <li>{@link #diskCacheSize(int)}</li>
 		 * <li>{@link #diskCacheFileCount(int)}</li>
+		 * <li>{@link #openDiskCacheInBackground(long)}</li>
 		 * <li>{@link #diskCacheFileNameGenerator(FileNameGenerator)}</li>
 		 * </ul>
 		 */
 		public Builder diskCache(DiskCache diskCache) {
-			if (diskCacheSize > 0 || diskCacheFileCount > 0) {
+			if (diskCacheSize > 0 || diskCacheFileCount > 0 || openDiskCacheInBackground) {
 				L.w(WARNING_OVERLAP_DISK_CACHE_PARAMS);
 			}
 			if (diskCacheFileNameGenerator != null) {
@@ -614,29 +859,45 @@ public final class ImageLoaderConfiguration {
 		}
 
 		private void initEmptyFieldsWithDefaultValues() {
+			if (taskExecutorFactory == null) {
+				taskExecutorFactory = DefaultConfigurationFactory.createTaskExecutorFactory();
+			}
 			if (taskExecutor == null) {
-				taskExecutor = DefaultConfigurationFactory
-						.createNetworkLoadExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+				taskExecutor = taskExecutorFactory.createNetworkExecutor(threadPoolSize, threadPriority,
+						tasksProcessingType, networkQueueLimit, networkQueueAdmissionPolicy);
 			} else {
 				customExecutor = true;
 			}
+			if (threadPoolSizeForDecoding <= 0) {
+				threadPoolSizeForDecoding = threadPoolSize;
+			}
+			if (threadPoolSizeForProcessing <= 0) {
+				threadPoolSizeForProcessing = threadPoolSize;
+			}
 			if (taskExecutorForCachedImages == null) {
-				taskExecutorForCachedImages = DefaultConfigurationFactory
-						.createExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+				taskExecutorForCachedImages = taskExecutorFactory
+						.createDecodingExecutor(threadPoolSizeForDecoding, threadPriority, tasksProcessingType);
 			} else {
 				customExecutorForCachedImages = true;
 			}
+			taskExecutorForProcessing = taskExecutorFactory
+					.createProcessingExecutor(threadPoolSizeForProcessing, threadPriority, tasksProcessingType);
 
             if (taskExecutorForPreload == null && preloadEnabled) {
-                taskExecutorForPreload = DefaultConfigurationFactory.createExecutor(threadPoolSizeForPreload, threadPriorityForPreload, tasksProcessingType);
+                taskExecutorForPreload = taskExecutorFactory.createPreloadExecutor(threadPoolSizeForPreload, threadPriorityForPreload, tasksProcessingType);
             }
 
             if (diskCache == null) {
                 if (diskCacheFileNameGenerator == null) {
                     diskCacheFileNameGenerator = DefaultConfigurationFactory.createFileNameGenerator();
 				}
-				diskCache = DefaultConfigurationFactory
-						.createDiskCache(context, diskCacheFileNameGenerator, diskCacheSize, diskCacheFileCount);
+				if (openDiskCacheInBackground) {
+					diskCache = DefaultConfigurationFactory.createDiskCacheInBackground(context,
+							diskCacheFileNameGenerator, diskCacheSize, diskCacheFileCount, diskCacheLookupTimeout);
+				} else {
+					diskCache = DefaultConfigurationFactory
+							.createDiskCache(context, diskCacheFileNameGenerator, diskCacheSize, diskCacheFileCount);
+				}
 			}
 			if (memoryCache == null) {
 				memoryCache = DefaultConfigurationFactory.createMemoryCache(memoryCacheSize);
@@ -644,11 +905,27 @@ public final class ImageLoaderConfiguration {
 			if (denyCacheImageMultipleSizesInMemory) {
 				memoryCache = new FuzzyKeyMemoryCache(memoryCache, MemoryCacheUtils.createFuzzyKeyComparator());
 			}
+			if (useLargerCachedImagesInMemory) {
+				Executor downscaleExecutor = downscaleLargerCachedImages ?
+						DefaultConfigurationFactory.createDownscaleExecutor() : null;
+				memoryCache = new SizeTolerantMemoryCache(memoryCache, downscaleExecutor);
+			}
+			if (encodedMemoryCache == null && encodedMemoryCacheSize > 0) {
+				encodedMemoryCache = DefaultConfigurationFactory.createEncodedMemoryCache(encodedMemoryCacheSize);
+			}
 			if (downloader == null) {
 				downloader = DefaultConfigurationFactory.createImageDownloader(context);
 			}
+			if (denyBitmapReuse || !BitmapPool.isReuseSupported()) {
+				if (denyBitmapReuse && reuseEvictedBitmaps) {
+					L.w(WARNING_BITMAP_REUSE_DENIED);
+				}
+				bitmapPool = null;
+			} else if (bitmapPool == null && (bitmapPoolSize > 0 || reuseEvictedBitmaps)) {
+				bitmapPool = DefaultConfigurationFactory.createBitmapPool(bitmapPoolSize);
+			}
 			if (decoder == null) {
-				decoder = DefaultConfigurationFactory.createImageDecoder(writeLogs);
+				decoder = DefaultConfigurationFactory.createImageDecoder(writeLogs, bitmapPool);
 			}
 			if (defaultDisplayImageOptions == null) {
 				defaultDisplayImageOptions = DisplayImageOptions.createSimple();
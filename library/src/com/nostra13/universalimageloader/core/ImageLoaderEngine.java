@@ -15,30 +15,40 @@
  *******************************************************************************/
 package com.nostra13.universalimageloader.core;
 
+import android.graphics.Bitmap;
 import android.view.View;
 
 import com.nostra13.universalimageloader.BuildConfig;
+import com.nostra13.universalimageloader.core.assist.BitmapHandle;
 import com.nostra13.universalimageloader.core.assist.FailReason;
 import com.nostra13.universalimageloader.core.assist.FlushedInputStream;
-import com.nostra13.universalimageloader.core.assist.deque.BlockingDeque;
-import com.nostra13.universalimageloader.core.assist.deque.CyclingLinkedBlockingDeque;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.PauseStats;
+import com.nostra13.universalimageloader.core.assist.PipelineStage;
+import com.nostra13.universalimageloader.core.assist.StageStats;
+import com.nostra13.universalimageloader.core.assist.UriContentionStats;
+import com.nostra13.universalimageloader.core.assist.deque.PriorityTaskQueue;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
 import com.nostra13.universalimageloader.utils.L;
 
-import java.io.File;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * {@link ImageLoader} engine which responsible for {@linkplain LoadAndDisplayImageTask display task} execution.
@@ -53,62 +63,121 @@ class ImageLoaderEngine {
 	private Executor taskExecutor;
     private Executor taskExecutorForPreload;
 	private Executor taskExecutorForCachedImages;
+	private Executor taskExecutorForProcessing;
 	private Executor taskDistributor;
 
 	private final Map<Integer, String> cacheKeysForImageAwares = Collections.synchronizedMap(new HashMap<Integer, String>());
+	/** Memory cache keys of images which are displayed in views at this moment */
+	private final Map<View, String> displayedCacheKeys = Collections.synchronizedMap(new WeakHashMap<View, String>());
+	private final ConcurrentMap<Integer, LoadAndDisplayImageTask> queuedTasks = new ConcurrentHashMap<>();
     private final Set<String> cacheKeysForPreload = Collections.synchronizedSet(new HashSet<String>());
-	private final Map<String, ReentrantLock> uriLocks = new WeakHashMap<>();
+	private final UriLoadingRegistry<LoadAndDisplayImageTask> uriLoadingRegistry = new UriLoadingRegistry<>();
+	private final Map<PipelineStage, StageMetrics> stageMetrics = new EnumMap<PipelineStage, StageMetrics>(PipelineStage.class);
 
-	private final AtomicBoolean paused = new AtomicBoolean(false);
-    private final AtomicBoolean pausedPreload = new AtomicBoolean(false);
+	private final PauseGate pauseGate;
+	private final PauseGate preloadPauseGate;
+	/** Is <b>null</b> if evicted Bitmaps aren't reused */
+	private final BitmapUsageTracker bitmapUsageTracker;
 	private final AtomicBoolean networkDenied = new AtomicBoolean(false);
 	private final AtomicBoolean slowNetwork = new AtomicBoolean(false);
 
-	private final Object pauseLock = new Object();
+	private final AtomicLong droppedTaskCount = new AtomicLong();
+	private final AtomicLong rejectedTaskCount = new AtomicLong();
+	private final PriorityTaskQueue.DropListener dropListener = new PriorityTaskQueue.DropListener() {
+		@Override
+		public void onTaskDropped(Runnable task) {
+			if (task instanceof LoadAndDisplayImageTask) {
+				LoadAndDisplayImageTask displayTask = (LoadAndDisplayImageTask) task;
+				droppedTaskCount.incrementAndGet();
+				stageMetrics.get(displayTask.getStage()).onRemoved();
+				onTaskNotExecuted(displayTask);
+			}
+		}
+	};
 
 	ImageLoaderEngine(ImageLoaderConfiguration configuration) {
 		this.configuration = configuration;
 
 		taskExecutor = configuration.taskExecutor;
 		taskExecutorForCachedImages = configuration.taskExecutorForCachedImages;
-        taskDistributor = createTaskDistributorExecutor();
+		taskExecutorForProcessing = configuration.taskExecutorForProcessing;
+        taskDistributor = DefaultConfigurationFactory.createTaskDistributor();
         taskExecutorForPreload = configuration.taskExecutorForPreload;
+		listenDroppedTasks(taskExecutor);
+		// Size of wake-up batch only, it doesn't limit number of tasks which work after resume (e.g. on virtual threads)
+		pauseGate = new PauseGate(configuration.threadPoolSize);
+		preloadPauseGate = new PauseGate(1);
+		for (PipelineStage stage : PipelineStage.values()) {
+			stageMetrics.put(stage, new StageMetrics(stage));
+		}
+		if (configuration.reuseEvictedBitmaps && configuration.bitmapPool != null) {
+			bitmapUsageTracker = new BitmapUsageTracker(configuration.memoryCache, configuration.bitmapPool);
+			configuration.memoryCache.setEvictionListener(bitmapUsageTracker);
+		} else {
+			bitmapUsageTracker = null;
+		}
 	}
 
-    private ThreadPoolExecutor createTaskDistributorExecutor() {
-        BlockingDeque<Runnable> taskDistributorQueue = new CyclingLinkedBlockingDeque<>(ImageLoaderConfiguration.Builder.TASK_DISTRIBUTOR_QUEUE_CAPACITY);
-        ThreadPoolExecutor executor =  new ThreadPoolExecutor(0,
-                10,
-                60L,
-                TimeUnit.SECONDS,
-                taskDistributorQueue);
+	/**
+	 * Submits task to execution pool. First stage of task is chosen right on the calling thread by
+	 * {@linkplain com.nostra13.universalimageloader.cache.disc.DiskCache#contains(String) in-memory index} of disk
+	 * cache and by {@linkplain com.nostra13.universalimageloader.cache.memory.EncodedMemoryCache memory cache of
+	 * encoded images}: image cached on disk or in memory is decoded right away, other images are loaded at first.
+	 */
+	void submit(LoadAndDisplayImageTask task) {
+		queuedTasks.put(task.imageAwareId, task);
+		submitStage(task, getFirstStage(task));
+	}
 
-        return executor;
-//        return Executors.newCachedThreadPool();
-    }
+	/**
+	 * Re-submits deferred task. Task isn't submitted if its ImageAware was reused for another image (or another task
+	 * was queued for the ImageAware) while the task was waiting, so the newer task isn't overwritten.
+	 */
+	private void resubmit(LoadAndDisplayImageTask task) {
+		LoadAndDisplayImageTask queuedTask = queuedTasks.putIfAbsent(task.imageAwareId, task);
+		if ((queuedTask != null && queuedTask != task) || task.isTaskNotActual()) {
+			queuedTasks.remove(task.imageAwareId, task);
+			task.onNotExecuted();
+			return;
+		}
+		submitStage(task, getFirstStage(task));
+	}
 
-	/** Submits task to execution pool */
-	void submit(final LoadAndDisplayImageTask task) {
-        taskDistributor.execute(new Runnable() {
-			@Override
-			public void run() {
-				File image = configuration.diskCache.get(task.getLoadingUri());
-				boolean isImageCachedOnDisk = image != null && image.exists();
-				initExecutorsIfNeed();
-				if (isImageCachedOnDisk) {
-					taskExecutorForCachedImages.execute(task);
-				} else {
-                    if(BuildConfig.DEBUG) {
-                        logExecutorStats((ThreadPoolExecutor) taskExecutor);
-                    }
-					taskExecutor.execute(task);
-				}
-			}
-		});
+	private PipelineStage getFirstStage(LoadAndDisplayImageTask task) {
+		String uri = task.getLoadingUri();
+		boolean isImageCached = configuration.diskCache.contains(uri)
+				|| (configuration.encodedMemoryCache != null && configuration.encodedMemoryCache.contains(uri));
+		return isImageCached ? PipelineStage.DECODE : PipelineStage.IO;
+	}
 
-//        if(false && BuildConfig.DEBUG) {
-//            logExecutorStats((ThreadPoolExecutor) taskDistributor);
-//        }
+	/** Submits task to execution pool of incoming stage */
+	void submitStage(LoadAndDisplayImageTask task, PipelineStage stage) {
+		initExecutorsIfNeed();
+		Executor executor = getExecutorFor(stage);
+		if (BuildConfig.DEBUG && stage == PipelineStage.IO && executor instanceof ThreadPoolExecutor) {
+			logExecutorStats((ThreadPoolExecutor) executor);
+		}
+		StageMetrics metrics = stageMetrics.get(stage);
+		metrics.onSubmitted();
+		task.onSubmitted(stage);
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			rejectedTaskCount.incrementAndGet();
+			metrics.onRemoved();
+			onTaskNotExecuted(task);
+		}
+	}
+
+	private Executor getExecutorFor(PipelineStage stage) {
+		switch (stage) {
+			case DECODE:
+				return taskExecutorForCachedImages;
+			case PROCESS:
+				return taskExecutorForProcessing;
+			default:
+				return taskExecutor;
+		}
 	}
 
     void submit(final PreloadToDiskTask task) {
@@ -127,23 +196,52 @@ class ImageLoaderEngine {
 	/** Submits task to execution pool */
 	void submit(ProcessAndDisplayImageTask task) {
 		initExecutorsIfNeed();
-		taskExecutorForCachedImages.execute(task);
+		taskExecutorForProcessing.execute(task);
 	}
 
 	private void initExecutorsIfNeed() {
 		if (!configuration.customExecutor && ((ExecutorService) taskExecutor).isShutdown()) {
-			taskExecutor = createTaskExecutor();
+			taskExecutor = configuration.taskExecutorFactory.createNetworkExecutor(configuration.threadPoolSize,
+					configuration.threadPriority, configuration.tasksProcessingType, configuration.networkQueueLimit,
+					configuration.networkQueueAdmissionPolicy);
+			listenDroppedTasks(taskExecutor);
 		}
 		if (!configuration.customExecutorForCachedImages && ((ExecutorService) taskExecutorForCachedImages)
 				.isShutdown()) {
-			taskExecutorForCachedImages = createTaskExecutor();
+			taskExecutorForCachedImages = configuration.taskExecutorFactory.createDecodingExecutor(
+					configuration.threadPoolSizeForDecoding, configuration.threadPriority,
+					configuration.tasksProcessingType);
+		}
+		if (((ExecutorService) taskExecutorForProcessing).isShutdown()) {
+			taskExecutorForProcessing = configuration.taskExecutorFactory.createProcessingExecutor(
+					configuration.threadPoolSizeForProcessing, configuration.threadPriority,
+					configuration.tasksProcessingType);
 		}
 	}
 
-	private Executor createTaskExecutor() {
-		return DefaultConfigurationFactory
-				.createExecutor(configuration.threadPoolSize, configuration.threadPriority,
-				configuration.tasksProcessingType);
+	private void listenDroppedTasks(Executor executor) {
+		if (executor instanceof ThreadPoolExecutor) {
+			BlockingQueue<Runnable> queue = ((ThreadPoolExecutor) executor).getQueue();
+			if (queue instanceof PriorityTaskQueue) {
+				((PriorityTaskQueue) queue).setDropListener(dropListener);
+			}
+		}
+	}
+
+	/** Forgets task which was dropped from queue or rejected by executor and notifies its listener */
+	private void onTaskNotExecuted(LoadAndDisplayImageTask task) {
+		queuedTasks.remove(task.imageAwareId, task);
+		task.onNotExecuted();
+	}
+
+	/** @return Number of display tasks which were dropped from full queue of network task executor */
+	long getDroppedTaskCount() {
+		return droppedTaskCount.get();
+	}
+
+	/** @return Number of display tasks which were rejected by task executors */
+	long getRejectedTaskCount() {
+		return rejectedTaskCount.get();
 	}
 
 	/**
@@ -158,7 +256,11 @@ class ImageLoaderEngine {
 	 * exact moment.
 	 */
 	void prepareDisplayTaskFor(ImageAware imageAware, String memoryCacheKey) {
-		cacheKeysForImageAwares.put(imageAware.getId(), memoryCacheKey);
+		String previousCacheKey = cacheKeysForImageAwares.put(imageAware.getId(), memoryCacheKey);
+		if (previousCacheKey != null && !previousCacheKey.equals(memoryCacheKey)) {
+			// ImageAware is reused for another image
+			removeQueuedTaskFor(imageAware.getId());
+		}
 	}
 
     boolean preparePreloadFor(String uri) {
@@ -173,6 +275,50 @@ class ImageLoaderEngine {
         return cacheKeysForPreload.contains(uri);
     }
 
+	/** Forgets queued task which is started. Its priority can't be changed anymore. */
+	void onTaskStarted(LoadAndDisplayImageTask task) {
+		queuedTasks.remove(task.imageAwareId, task);
+	}
+
+	/** @param waitTime Time (in nanoseconds) which task waited in queue of the stage */
+	void onStageStarted(PipelineStage stage, long waitTime) {
+		stageMetrics.get(stage).onStarted(waitTime);
+	}
+
+	/** @param runTime Time (in nanoseconds) which task ran on the stage */
+	void onStageFinished(PipelineStage stage, long runTime) {
+		stageMetrics.get(stage).onFinished(runTime);
+	}
+
+	/** @return Statistics of pipeline stage */
+	StageStats getStageStats(PipelineStage stage) {
+		return stageMetrics.get(stage).getStats();
+	}
+
+	/**
+	 * Changes priority of queued task of loading and displaying image for incoming <b>imageAware</b>. Does nothing
+	 * if there is no such task or it's started already.
+	 */
+	void setPriorityFor(ImageAware imageAware, LoadingPriority priority) {
+		LoadAndDisplayImageTask task = queuedTasks.get(imageAware.getId());
+		if (task == null) return;
+
+		if (!reprioritize(taskExecutor, task, priority) && !reprioritize(taskExecutorForCachedImages, task, priority)) {
+			// Task isn't in executor queue yet (or executor doesn't support priorities)
+			task.setPriority(priority);
+		}
+	}
+
+	private static boolean reprioritize(Executor executor, LoadAndDisplayImageTask task, LoadingPriority priority) {
+		if (executor instanceof ThreadPoolExecutor) {
+			BlockingQueue<Runnable> queue = ((ThreadPoolExecutor) executor).getQueue();
+			if (queue instanceof PriorityTaskQueue) {
+				return ((PriorityTaskQueue) queue).reprioritize(task, priority);
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Cancels the task of loading and displaying image for incoming <b>imageAware</b>.
 	 *
@@ -181,6 +327,27 @@ class ImageLoaderEngine {
 	 */
 	void cancelDisplayTaskFor(ImageAware imageAware) {
 		cacheKeysForImageAwares.remove(imageAware.getId());
+		removeQueuedTaskFor(imageAware.getId());
+	}
+
+	/**
+	 * Removes queued (or deferred) task of loading and displaying image for ImageAware so the task won't occupy worker
+	 * thread only to find out it's not actual anymore. Running task isn't affected, it's cancelled by itself.
+	 */
+	private void removeQueuedTaskFor(int imageAwareId) {
+		LoadAndDisplayImageTask task = queuedTasks.remove(imageAwareId);
+		if (task == null) return;
+
+		if (removeFromQueue(taskExecutor, task) || removeFromQueue(taskExecutorForCachedImages, task)) {
+			stageMetrics.get(task.getStage()).onRemoved();
+			task.onNotExecuted();
+		} else if (uriLoadingRegistry.removeDeferredTask(task.uri, task)) {
+			task.onNotExecuted();
+		}
+	}
+
+	private static boolean removeFromQueue(Executor executor, Runnable task) {
+		return executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).remove(task);
 	}
 
 	/**
@@ -211,15 +378,15 @@ class ImageLoaderEngine {
 	 * /> Already running tasks are not paused.
 	 */
 	void pause() {
-		paused.set(true);
+		pauseGate.close();
 	}
 
-	/** Resumes engine work. Paused "load&display" tasks will continue its work. */
+	/**
+	 * Resumes engine work. Paused "load&display" tasks will continue its work. Waiting threads are woken up by small
+	 * batches so they don't compete for CPU all at once.
+	 */
 	void resume() {
-		paused.set(false);
-		synchronized (pauseLock) {
-			pauseLock.notifyAll();
-		}
+		pauseGate.open();
 	}
 
 	/**
@@ -236,31 +403,167 @@ class ImageLoaderEngine {
 		if (!configuration.customExecutorForCachedImages) {
 			((ExecutorService) taskExecutorForCachedImages).shutdownNow();
 		}
+		((ExecutorService) taskExecutorForProcessing).shutdownNow();
 
 		cacheKeysForImageAwares.clear();
+		displayedCacheKeys.clear();
+		queuedTasks.clear();
         cacheKeysForPreload.clear();
-		uriLocks.clear();
+		uriLoadingRegistry.clearDeferredTasks();
 	}
 
 	void fireCallback(Runnable r) {
 		taskDistributor.execute(r);
 	}
 
-	ReentrantLock getLockForUri(String uri) {
-		ReentrantLock lock = uriLocks.get(uri);
-		if (lock == null) {
-			lock = new ReentrantLock();
-			uriLocks.put(uri, lock);
+	/**
+	 * Starts loading of task's image URI. If the URI is loading by another task at this moment then incoming task is
+	 * deferred until the URI is loaded. So worker thread isn't blocked while waiting. Deferred task will be
+	 * re-submitted by {@link #finishUriLoading(String, String, boolean, ImageSize)}.
+	 *
+	 * @return <b>true</b> - if task can load URI; <b>false</b> - if task was deferred
+	 */
+	boolean startOrDeferUriLoading(LoadAndDisplayImageTask task) {
+		// Deferred task is considered as queued one so it can be removed if ImageAware is reused
+		queuedTasks.putIfAbsent(task.imageAwareId, task);
+		if (uriLoadingRegistry.acquireOrDefer(task.uri, task)) {
+			queuedTasks.remove(task.imageAwareId, task);
+			return true;
 		}
-		return lock;
+		return false;
 	}
 
-	AtomicBoolean getPause() {
-		return paused;
+	/**
+	 * Starts loading of image URI. Blocks current thread until the URI is loaded if it's loading by another task at
+	 * this moment.
+	 *
+	 * @throws InterruptedException if current thread was interrupted while waiting
+	 */
+	void startUriLoading(String uri) throws InterruptedException {
+		uriLoadingRegistry.acquire(uri);
 	}
 
-	Object getPauseLock() {
-		return pauseLock;
+	/**
+	 * Starts loading of image URI if it isn't loading by another task at this moment.
+	 *
+	 * @return <b>true</b> - if loading was started; <b>false</b> - otherwise
+	 */
+	boolean tryStartUriLoading(String uri) {
+		return uriLoadingRegistry.tryAcquire(uri);
+	}
+
+	/**
+	 * Finishes loading of image URI and re-submits tasks which were deferred while image URI was loading. The image
+	 * is in disk cache (or in memory cache) now so deferred tasks don't download it again.
+	 *
+	 * @param decodedImageUri  URI which was decoded by finished task (usually it's file from disk cache); can be null
+	 * @param decodedFromCache Whether image was decoded from disk cache (or from its copy in memory) or from original
+	 *                         source. Image in disk cache can differ from original one (e.g. it's resized).
+	 * @param sourceSize       Size of decoded image (before sampling); can be null. Deferred tasks decoding the same
+	 *                         image will skip decoding of image bounds.
+	 */
+	void finishUriLoading(String uri, String decodedImageUri, boolean decodedFromCache, ImageSize sourceSize) {
+		for (LoadAndDisplayImageTask task : uriLoadingRegistry.release(uri)) {
+			task.onUriLoaded(decodedImageUri, decodedFromCache, sourceSize);
+			resubmit(task);
+		}
+	}
+
+	/** @return <b>true</b> - if some tasks wait while image URI is loading by another task; <b>false</b> - otherwise */
+	boolean hasTasksWaitingForUri(String uri) {
+		return uriLoadingRegistry.hasDeferredTasks(uri);
+	}
+
+	/** @return <b>true</b> - if image URI is loading by some task at this moment; <b>false</b> - otherwise */
+	boolean isUriLoading(String uri) {
+		return uriLoadingRegistry.isLoading(uri);
+	}
+
+	/** @return Contention statistics summarized for all image URIs */
+	UriContentionStats getUriContentionStats() {
+		return uriLoadingRegistry.getStats();
+	}
+
+	/** @return Contention statistics for image URI; <b>null</b> - if there is no statistics for the URI */
+	UriContentionStats getUriContentionStats(String uri) {
+		return uriLoadingRegistry.getStats(uri);
+	}
+
+	/** @return Gate which holds tasks while engine is paused */
+	PauseGate getPauseGate() {
+		return pauseGate;
+	}
+
+	/** @return Gate which holds preload tasks while preloading is paused */
+	PauseGate getPreloadPauseGate() {
+		return preloadPauseGate;
+	}
+
+	/** @return Pause statistics of engine */
+	PauseStats getPauseStats() {
+		return pauseGate.getStats();
+	}
+
+	/** @return Pause statistics of preloading */
+	PauseStats getPreloadPauseStats() {
+		return preloadPauseGate.getStats();
+	}
+
+	/**
+	 * Gets Bitmap from memory cache. Returned handle is retained so Bitmap won't be reused after eviction from cache
+	 * until handle is {@linkplain BitmapHandle#release() released}.
+	 *
+	 * @return Retained handle or <b>null</b> if memory cache doesn't contain Bitmap for incoming key
+	 */
+	BitmapHandle retainFromMemoryCache(String memoryCacheKey) {
+		if (bitmapUsageTracker == null) {
+			Bitmap bitmap = configuration.memoryCache.get(memoryCacheKey);
+			return bitmap == null ? null : new BitmapHandle(bitmap, null);
+		}
+		return bitmapUsageTracker.retainFromMemoryCache(memoryCacheKey);
+	}
+
+	/**
+	 * Retains Bitmap which is going to be cached in memory so it won't be reused after eviction from cache until
+	 * returned handle is {@linkplain BitmapHandle#release() released}.
+	 */
+	BitmapHandle retainBitmap(Bitmap bitmap) {
+		if (bitmapUsageTracker == null) {
+			return new BitmapHandle(bitmap, null);
+		}
+		return bitmapUsageTracker.retain(bitmap);
+	}
+
+	/**
+	 * Bitmap displayed in ImageAware won't be reused until ImageAware displays something else. Its memory cache key is
+	 * considered as visible one while ImageAware displays it.
+	 */
+	void onBitmapDisplayed(ImageAware imageAware, String memoryCacheKey, Bitmap bitmap) {
+		View view = imageAware.getWrappedView();
+		if (view != null) {
+			displayedCacheKeys.put(view, memoryCacheKey);
+		}
+		if (bitmapUsageTracker != null) {
+			bitmapUsageTracker.onDisplayed(imageAware, bitmap);
+		}
+	}
+
+	/** Is called when ImageAware stops displaying loaded Bitmap (e.g. shows stub image) */
+	void onImageAwareReset(ImageAware imageAware) {
+		View view = imageAware.getWrappedView();
+		if (view != null) {
+			displayedCacheKeys.remove(view);
+		}
+		if (bitmapUsageTracker != null) {
+			bitmapUsageTracker.onReset(imageAware);
+		}
+	}
+
+	/** @return Memory cache keys of images which are displayed in views at this moment */
+	Set<String> getDisplayedCacheKeys() {
+		synchronized (displayedCacheKeys) {
+			return new HashSet<String>(displayedCacheKeys.values());
+		}
 	}
 
 	boolean isNetworkDenied() {
@@ -272,17 +575,15 @@ class ImageLoaderEngine {
 	}
 
     public void pausePreload() {
-        pausedPreload.set(true);
+        preloadPauseGate.close();
     }
 
     public void resumePreload() {
-        synchronized (paused) {
-            pausedPreload.set(false);
-        }
+        preloadPauseGate.open();
     }
 
-    public AtomicBoolean getPausedPreload() {
-        return pausedPreload;
+    public boolean isPreloadPaused() {
+        return preloadPauseGate.isClosed();
     }
 
     public int getPreloadQueueSize() {
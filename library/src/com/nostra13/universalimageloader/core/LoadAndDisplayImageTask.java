@@ -17,47 +17,61 @@ package com.nostra13.universalimageloader.core;
 
 import android.graphics.Bitmap;
 import android.os.Handler;
+import com.nostra13.universalimageloader.cache.memory.EncodedMemoryCache;
+import com.nostra13.universalimageloader.core.assist.BitmapHandle;
 import com.nostra13.universalimageloader.core.assist.FailReason;
 import com.nostra13.universalimageloader.core.assist.FailReason.FailType;
 import com.nostra13.universalimageloader.core.assist.ImageScaleType;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 import com.nostra13.universalimageloader.core.assist.LoadedFrom;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.PipelineStage;
 import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.assist.deque.PriorityTaskQueue;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.decode.ImageDecodingInfo;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
-import com.nostra13.universalimageloader.core.download.ImageDownloader.Scheme;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingProgressListener;
 import com.nostra13.universalimageloader.utils.IoUtils;
 import com.nostra13.universalimageloader.utils.L;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Presents load'n'display image task. Used to load image from Internet or file system, decode it to {@link Bitmap}, and
- * display it in {@link com.nostra13.universalimageloader.core.imageaware.ImageAware} using {@link DisplayBitmapTask}.
+ * display it in {@link com.nostra13.universalimageloader.core.imageaware.ImageAware} using {@link DisplayBitmapTask}.<br />
+ * Task passes {@linkplain PipelineStage stages} (download, decoding, processing) and each stage runs on its own task
+ * executor. Image URI is acquired by the first stage and released when loading is finished.<br />
+ * State of loading is kept in plain fields and is handed over between threads of stage executors. Custom executor
+ * isn't obliged to provide <i>happens-before</i> relation between {@link Executor#execute(Runnable)} and running of
+ * task so the task publishes its state itself: the volatile {@link #stage} is written right before the task is
+ * handed over (or dropped) and it's read first when the task is run (or dropped).
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @see ImageLoaderConfiguration
  * @see ImageLoadingInfo
  * @since 1.3.1
  */
-final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
+final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener, PriorityTaskQueue.Prioritized {
 
 	private static final String LOG_WAITING_FOR_RESUME = "ImageLoader is paused. Waiting...  [%s]";
 	private static final String LOG_RESUME_AFTER_PAUSE = ".. Resume loading [%s]";
 	private static final String LOG_DELAY_BEFORE_LOADING = "Delay %d ms before loading...  [%s]";
 	private static final String LOG_START_DISPLAY_IMAGE_TASK = "Start display image task [%s]";
 	private static final String LOG_WAITING_FOR_IMAGE_LOADED = "Image already is loading. Waiting... [%s]";
+	private static final String LOG_DEFER_UNTIL_IMAGE_LOADED = "Image already is loading. Task is deferred [%s]";
 	private static final String LOG_GET_IMAGE_FROM_MEMORY_CACHE_AFTER_WAITING = "...Get cached bitmap from memory after waiting. [%s]";
 	private static final String LOG_LOAD_IMAGE_FROM_NETWORK = "Load image from network [%s]";
 	private static final String LOG_LOAD_IMAGE_FROM_DISK_CACHE = "Load image from disk cache [%s]";
+	private static final String LOG_LOAD_IMAGE_FROM_ENCODED_MEMORY_CACHE = "Load encoded image from memory cache [%s]";
+	private static final String LOG_CACHE_ENCODED_IMAGE_IN_MEMORY = "Cache encoded image in memory [%s]";
 	private static final String LOG_RESIZE_CACHED_IMAGE_FILE = "Resize image in disk cache [%s]";
 	private static final String LOG_PREPROCESS_IMAGE = "PreProcess image before caching in memory [%s]";
 	private static final String LOG_POSTPROCESS_IMAGE = "PostProcess image before displaying [%s]";
@@ -67,6 +81,10 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	private static final String LOG_TASK_CANCELLED_IMAGEAWARE_REUSED = "ImageAware is reused for another image. Task is cancelled. [%s]";
 	private static final String LOG_TASK_CANCELLED_IMAGEAWARE_COLLECTED = "ImageAware was collected by GC. Task is cancelled. [%s]";
 	private static final String LOG_TASK_INTERRUPTED = "Task was interrupted [%s]";
+	private static final String LOG_TASK_NOT_EXECUTED = "Task was removed from queue of %s stage. Task is cancelled. [%s]";
+
+	/** How often (in milliseconds) paused task checks whether it's still actual */
+	private static final long PAUSE_CHECK_INTERVAL = 500;
 
 	private static final String ERROR_PRE_PROCESSOR_NULL = "Pre-processor returned null [%s]";
 	private static final String ERROR_POST_PROCESSOR_NULL = "Post-processor returned null [%s]";
@@ -85,6 +103,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	final String uri;
 	private final String memoryCacheKey;
 	final ImageAware imageAware;
+	final int imageAwareId;
 	private final ImageSize targetSize;
 	final DisplayImageOptions options;
 	final ImageLoadingListener listener;
@@ -92,7 +111,33 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	private final boolean syncLoading;
 
 	// State vars
+	/**
+	 * Stage which task is submitted to. It's written after all other state vars when the task is handed over to the
+	 * next stage and it's read before them when the task is run, so it publishes them to the thread of the stage.
+	 */
+	private volatile PipelineStage stage = PipelineStage.IO;
 	private LoadedFrom loadedFrom = LoadedFrom.NETWORK;
+	private volatile long stageSubmitTime;
+	private boolean uriLoadingStarted;
+	private boolean skipDiskCache;
+	private String imageUriForDecoding;
+	/** Image is read from disk cache stream ({@link #imageUriForDecoding} is original image URI then) */
+	private boolean decodeFromDiskCache;
+	/** Encoded image which is decoded instead of reading of {@link #imageUriForDecoding}. Can be <b>null</b>. */
+	private byte[] encodedImage;
+	private Bitmap bmp;
+	private boolean releaseOnCancel = true;
+	/** Handle of Bitmap which is cached in memory and is going to be displayed so it mustn't be reused */
+	private BitmapHandle bitmapHandle;
+	private volatile LoadingPriority priority;
+	private volatile boolean deferred;
+	private volatile String knownImageUri;
+	private volatile boolean knownFromCache;
+	private volatile ImageSize knownSourceSize;
+	private String decodedImageUri;
+	/** Image was decoded from disk cache (or from its copy in memory), not from original source */
+	private boolean decodedFromCache;
+	private ImageSize decodedSourceSize;
 
 	public LoadAndDisplayImageTask(ImageLoaderEngine engine, ImageLoadingInfo imageLoadingInfo, Handler handler) {
 		this.engine = engine;
@@ -107,39 +152,228 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		uri = imageLoadingInfo.uri;
 		memoryCacheKey = imageLoadingInfo.memoryCacheKey;
 		imageAware = imageLoadingInfo.imageAware;
+		imageAwareId = imageAware.getId();
 		targetSize = imageLoadingInfo.targetSize;
 		options = imageLoadingInfo.options;
 		listener = imageLoadingInfo.listener;
 		progressListener = imageLoadingInfo.progressListener;
 		syncLoading = options.isSyncLoading();
+		priority = options.getPriority();
 	}
 
 	@Override
 	public void run() {
-		if (waitIfPaused()) return;
-		if (delayIfNeed()) return;
+		PipelineStage currentStage = stage; // must be read first, see stage field
+		long submitTime = stageSubmitTime;
+		engine.onTaskStarted(this);
+		long startTime = System.nanoTime();
+		if (submitTime != 0) {
+			engine.onStageStarted(currentStage, startTime - submitTime);
+		}
+		try {
+			runStage(currentStage);
+		} finally {
+			if (submitTime != 0) {
+				engine.onStageFinished(currentStage, System.nanoTime() - startTime);
+			}
+		}
+	}
+
+	/**
+	 * Runs stage of loading. Every stage either hands the task over to the next stage ({@link #moveTo(PipelineStage)})
+	 * or finishes image loading (display, fail or cancel).
+	 */
+	private void runStage(PipelineStage stage) {
+		boolean firstStage = !uriLoadingStarted;
+		if (firstStage && !startLoading()) return;
+
+		try {
+			if (firstStage && takeFromMemoryCache()) return;
+
+			switch (stage) {
+				case IO:
+					runIoStage();
+					break;
+				case DECODE:
+					runDecodeStage();
+					break;
+				case PROCESS:
+					runProcessStage();
+					break;
+			}
+		} catch (TaskCancelledException e) {
+			fireCancelEvent();
+			releaseBitmap(bmp, releaseOnCancel);
+			releaseBitmapHandle();
+			finishLoading();
+		} catch (IllegalStateException e) {
+			fail(FailType.NETWORK_DENIED, null);
+		} catch (IOException e) {
+			L.e(e);
+			fail(FailType.IO_ERROR, e);
+		} catch (OutOfMemoryError e) {
+			L.e(e);
+			fail(FailType.OUT_OF_MEMORY, e);
+		} catch (Throwable e) {
+			L.e(e);
+			fail(FailType.UNKNOWN, e);
+		}
+	}
+
+	/** @return <b>true</b> - if image URI was acquired by this task; <b>false</b> - if task should be interrupted */
+	private boolean startLoading() {
+		if (waitIfPaused()) return false;
+		if (!deferred && delayIfNeed()) return false;
 
-		ReentrantLock loadFromUriLock = imageLoadingInfo.loadFromUriLock;
 		L.d(LOG_START_DISPLAY_IMAGE_TASK, memoryCacheKey);
-		if (loadFromUriLock.isLocked()) {
-			L.d(LOG_WAITING_FOR_IMAGE_LOADED, memoryCacheKey);
+		if (syncLoading) {
+			if (engine.isUriLoading(uri)) {
+				L.d(LOG_WAITING_FOR_IMAGE_LOADED, memoryCacheKey);
+			}
+			try {
+				engine.startUriLoading(uri);
+			} catch (InterruptedException e) {
+				L.e(LOG_TASK_INTERRUPTED, memoryCacheKey);
+				return false;
+			}
+		} else {
+			if (!engine.startOrDeferUriLoading(this)) {
+				L.d(LOG_DEFER_UNTIL_IMAGE_LOADED, memoryCacheKey);
+				return false;
+			}
 		}
+		uriLoadingStarted = true;
+		return true;
+	}
+
+	/** @return <b>true</b> - if image was found in memory cache; <b>false</b> - otherwise */
+	private boolean takeFromMemoryCache() throws TaskCancelledException {
+		checkTaskNotActual();
+
+		BitmapHandle cachedBitmapHandle = engine.retainFromMemoryCache(memoryCacheKey);
+		if (cachedBitmapHandle == null) return false;
+		if (cachedBitmapHandle.getBitmap().isRecycled()) {
+			cachedBitmapHandle.release();
+			return false;
+		}
+
+		loadedFrom = LoadedFrom.MEMORY_CACHE;
+		L.d(LOG_GET_IMAGE_FROM_MEMORY_CACHE_AFTER_WAITING, memoryCacheKey);
+		bitmapHandle = cachedBitmapHandle;
+		bmp = cachedBitmapHandle.getBitmap();
+		releaseOnCancel = false;
+
+		if (options.shouldPostProcess()) {
+			moveTo(PipelineStage.PROCESS);
+		} else {
+			checkTaskNotActual();
+			checkTaskInterrupted();
+			complete();
+		}
+		return true;
+	}
 
-		loadFromUriLock.lock();
-		Bitmap bmp = null;
-        boolean releaseOnCancel = true;
+	/** Downloads image into disk cache. Image which isn't cached on disk is decoded right from the source. */
+	private void runIoStage() throws Throwable {
+		checkTaskNotActual();
+
+		if (!skipDiskCache) {
+			if (takeFromEncodedMemoryCache()) {
+				moveTo(PipelineStage.DECODE);
+				return;
+			}
+			if (configuration.diskCache.contains(uri)) {
+				// Image is opened only once, at decoding stage
+				onImageFoundInDiskCache();
+				moveTo(PipelineStage.DECODE);
+				return;
+			}
+		}
+
+		L.d(LOG_LOAD_IMAGE_FROM_NETWORK, memoryCacheKey);
+		loadedFrom = LoadedFrom.NETWORK;
+
+		if (options.isCacheOnDisk() && tryCacheImageOnDisk() && configuration.diskCache.contains(uri)) {
+			imageUriForDecoding = uri;
+			decodeFromDiskCache = true;
+			moveTo(PipelineStage.DECODE);
+			return;
+		}
+
+		imageUriForDecoding = uri;
+		decodeFromDiskCache = false;
+		runDecodeStage();
+	}
+
+	/** Decodes image into Bitmap. Broken image in disk cache is loaded from the source again. */
+	private void runDecodeStage() throws Throwable {
+		if (imageUriForDecoding == null && !takeFromEncodedMemoryCache()) {
+			onImageFoundInDiskCache();
+		}
+
+		InputStream cachedImageStream = null;
+		if (decodeFromDiskCache) {
+			cachedImageStream = configuration.diskCache.openRead(uri);
+			if (cachedImageStream == null) {
+				decodeFromDiskCache = false;
+				if (loadedFrom == LoadedFrom.NETWORK) {
+					// Downloaded image can't be read from disk cache so it's decoded right from the source
+					imageUriForDecoding = uri;
+				} else {
+					// Image was removed from disk cache after the task had been submitted (or disk cache index is
+					// stale) so image is loaded from the source
+					imageUriForDecoding = null;
+					skipDiskCache = true;
+					moveTo(PipelineStage.IO);
+					return;
+				}
+			} else {
+				cachedImageStream = cacheEncodedImage(cachedImageStream);
+			}
+		}
 
 		try {
 			checkTaskNotActual();
+		} catch (TaskCancelledException e) {
+			IoUtils.closeSilently(cachedImageStream);
+			throw e;
+		}
+		Bitmap bitmap = decodeImage(imageUriForDecoding, cachedImageStream);
+		boolean decodedFromEncodedImage = encodedImage != null;
+		encodedImage = null;
+		if (bitmap == null || bitmap.getWidth() <= 0 || bitmap.getHeight() <= 0) {
+			releaseBitmap(bitmap, true);
+			if (decodedFromEncodedImage) {
+				configuration.encodedMemoryCache.remove(uri);
+			}
+			if (loadedFrom == LoadedFrom.DISC_CACHE) {
+				imageUriForDecoding = null;
+				decodeFromDiskCache = false;
+				skipDiskCache = true;
+				moveTo(PipelineStage.IO);
+			} else {
+				fail(FailType.DECODING_ERROR, null);
+			}
+			return;
+		}
+		bmp = bitmap;
 
-			bmp = configuration.memoryCache.get(memoryCacheKey);
-			if (bmp == null || bmp.isRecycled()) {
-				bmp = tryLoadBitmap();
-				if (bmp == null) return; // listener callback already was fired
+		checkTaskNotActual();
+		checkTaskInterrupted();
 
-				checkTaskNotActual();
-				checkTaskInterrupted();
+		if (options.shouldPreProcess() || options.shouldPostProcess()) {
+			moveTo(PipelineStage.PROCESS);
+		} else {
+			cacheInMemory();
+			complete();
+		}
+	}
 
+	/** Pre-processes decoded image, caches it in memory, post-processes it and displays */
+	private void runProcessStage() throws TaskCancelledException {
+		checkTaskNotActual();
+		try {
+			if (loadedFrom != LoadedFrom.MEMORY_CACHE) {
 				if (options.shouldPreProcess()) {
 					L.d(LOG_PREPROCESS_IMAGE, memoryCacheKey);
 					bmp = options.getPreProcessor().process(bmp);
@@ -147,16 +381,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 						L.e(ERROR_PRE_PROCESSOR_NULL, memoryCacheKey);
 					}
 				}
-
-				if (bmp != null && options.isCacheInMemory()) {
-					L.d(LOG_CACHE_IMAGE_IN_MEMORY, memoryCacheKey);
-					configuration.memoryCache.put(memoryCacheKey, bmp);
-                    releaseOnCancel = false;
-				}
-			} else {
-				loadedFrom = LoadedFrom.MEMORY_CACHE;
-				L.d(LOG_GET_IMAGE_FROM_MEMORY_CACHE_AFTER_WAITING, memoryCacheKey);
-                releaseOnCancel = false;
+				cacheInMemory();
 			}
 
 			if (bmp != null && options.shouldPostProcess()) {
@@ -169,35 +394,145 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 			checkTaskNotActual();
 			checkTaskInterrupted();
 		} catch (TaskCancelledException e) {
-			fireCancelEvent();
-            releaseBitmap(bmp, releaseOnCancel);
-			return;
+			throw e;
 		} catch (Throwable t) {
-            releaseBitmap(bmp, releaseOnCancel);
-        } finally {
-			loadFromUriLock.unlock();
+			L.e(t);
+			releaseBitmap(bmp, releaseOnCancel);
+			bmp = null;
+		}
+		complete();
+	}
+
+	private void onImageFoundInDiskCache() {
+		L.d(LOG_LOAD_IMAGE_FROM_DISK_CACHE, memoryCacheKey);
+		loadedFrom = LoadedFrom.DISC_CACHE;
+		imageUriForDecoding = uri;
+		decodeFromDiskCache = true;
+	}
+
+	/**
+	 * Takes encoded image from memory so it's decoded without reading of disk cache. Image is considered as loaded
+	 * from disk cache.
+	 *
+	 * @return <b>true</b> - if encoded image was found in memory; <b>false</b> - otherwise
+	 */
+	private boolean takeFromEncodedMemoryCache() {
+		EncodedMemoryCache encodedMemoryCache = configuration.encodedMemoryCache;
+		if (encodedMemoryCache == null || skipDiskCache) return false;
+
+		byte[] cachedImage = encodedMemoryCache.get(uri);
+		if (cachedImage == null) return false;
+
+		L.d(LOG_LOAD_IMAGE_FROM_ENCODED_MEMORY_CACHE, memoryCacheKey);
+		loadedFrom = LoadedFrom.DISC_CACHE;
+		imageUriForDecoding = uri;
+		decodeFromDiskCache = false;
+		encodedImage = cachedImage;
+		return true;
+	}
+
+	/**
+	 * Reads image from disk cache stream into memory cache of encoded images. Image is decoded from read bytes then.
+	 *
+	 * @return Incoming stream if image wasn't read or <b>null</b> if stream was consumed (and closed)
+	 */
+	private InputStream cacheEncodedImage(InputStream imageStream) {
+		EncodedMemoryCache encodedMemoryCache = configuration.encodedMemoryCache;
+		if (encodedMemoryCache == null) return imageStream;
+
+		int length;
+		try {
+			length = imageStream.available();
+		} catch (IOException e) {
+			L.e(e);
+			return imageStream;
 		}
+		if (length <= 0 || length > encodedMemoryCache.getMaxEntrySize()) return imageStream;
 
-		DisplayBitmapTask displayBitmapTask = new DisplayBitmapTask(bmp, imageLoadingInfo, engine, loadedFrom, decoder, releaseOnCancel);
+		byte[] imageBytes = new byte[length];
+		try {
+			new DataInputStream(imageStream).readFully(imageBytes);
+		} catch (IOException e) {
+			L.e(e);
+			return null; // image will be decoded from newly opened stream
+		} finally {
+			IoUtils.closeSilently(imageStream);
+		}
+		L.d(LOG_CACHE_ENCODED_IMAGE_IN_MEMORY, memoryCacheKey);
+		encodedMemoryCache.put(uri, imageBytes);
+		encodedImage = imageBytes;
+		return null;
+	}
+
+	private void cacheInMemory() {
+		if (bmp != null && options.isCacheInMemory()) {
+			L.d(LOG_CACHE_IMAGE_IN_MEMORY, memoryCacheKey);
+			// Cached image can be evicted before it's displayed so it's retained before caching
+			bitmapHandle = engine.retainBitmap(bmp);
+			configuration.memoryCache.put(memoryCacheKey, bmp);
+			releaseOnCancel = false;
+		}
+	}
+
+	/** Hands the task over to the next stage. Synchronous task runs all stages on the calling thread. */
+	private void moveTo(PipelineStage nextStage) {
+		if (syncLoading) {
+			stage = nextStage;
+			runStage(nextStage);
+		} else {
+			engine.submitStage(this, nextStage);
+		}
+	}
+
+	/** Finishes loading and displays loaded image */
+	private void complete() {
+		finishLoading();
+		BitmapHandle displayedBitmapHandle = null;
+		if (bitmapHandle != null && bitmapHandle.getBitmap() == bmp) {
+			displayedBitmapHandle = bitmapHandle; // DisplayBitmapTask will release it
+			bitmapHandle = null;
+		} else {
+			releaseBitmapHandle();
+		}
+		DisplayBitmapTask displayBitmapTask = new DisplayBitmapTask(bmp, imageLoadingInfo, engine, loadedFrom, decoder,
+				releaseOnCancel, displayedBitmapHandle);
 		runTask(displayBitmapTask, syncLoading, handler, engine);
 	}
 
+	private void fail(FailType failType, Throwable failCause) {
+		fireFailEvent(failType, failCause);
+		releaseBitmap(bmp, releaseOnCancel);
+		releaseBitmapHandle();
+		bmp = null;
+		finishLoading();
+	}
+
+	/** Releases image URI (if it was acquired) so deferred tasks can continue */
+	private void finishLoading() {
+		if (uriLoadingStarted) {
+			uriLoadingStarted = false;
+			engine.finishUriLoading(uri, decodedImageUri, decodedFromCache, decodedSourceSize);
+		}
+	}
+
 	/** @return <b>true</b> - if task should be interrupted; <b>false</b> - otherwise */
 	private boolean waitIfPaused() {
-		AtomicBoolean pause = engine.getPause();
-		if (pause.get()) {
-			synchronized (engine.getPauseLock()) {
-				if (pause.get()) {
-					L.d(LOG_WAITING_FOR_RESUME, memoryCacheKey);
-					try {
-						engine.getPauseLock().wait();
-					} catch (InterruptedException e) {
-						L.e(LOG_TASK_INTERRUPTED, memoryCacheKey);
-						return true;
-					}
-					L.d(LOG_RESUME_AFTER_PAUSE, memoryCacheKey);
+		PauseGate pauseGate = engine.getPauseGate();
+		if (pauseGate.isClosed()) {
+			L.d(LOG_WAITING_FOR_RESUME, memoryCacheKey);
+			try {
+				// Task which became not actual during pause doesn't wait for resume
+				while (!pauseGate.await(PAUSE_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+					if (isTaskNotActual()) return true;
 				}
+				// Gate staggers wake-ups only, it doesn't limit number of running tasks. So place is freed before any
+				// blocking IO of the task, the next waiting task is woken up at once.
+				pauseGate.leave();
+			} catch (InterruptedException e) {
+				L.e(LOG_TASK_INTERRUPTED, memoryCacheKey);
+				return true;
 			}
+			L.d(LOG_RESUME_AFTER_PAUSE, memoryCacheKey);
 		}
 		return isTaskNotActual();
 	}
@@ -217,68 +552,29 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		return false;
 	}
 
-	private Bitmap tryLoadBitmap() throws TaskCancelledException {
-		Bitmap bitmap = null;
-		try {
-			File imageFile = configuration.diskCache.get(uri);
-			if (imageFile != null && imageFile.exists()) {
-				L.d(LOG_LOAD_IMAGE_FROM_DISK_CACHE, memoryCacheKey);
-				loadedFrom = LoadedFrom.DISC_CACHE;
-
-				checkTaskNotActual();
-				bitmap = decodeImage(Scheme.FILE.wrap(imageFile.getAbsolutePath()));
-			}
-			if (bitmap == null || bitmap.getWidth() <= 0 || bitmap.getHeight() <= 0) {
-				L.d(LOG_LOAD_IMAGE_FROM_NETWORK, memoryCacheKey);
-				loadedFrom = LoadedFrom.NETWORK;
-
-				String imageUriForDecoding = uri;
-				if (options.isCacheOnDisk() && tryCacheImageOnDisk()) {
-					imageFile = configuration.diskCache.get(uri);
-					if (imageFile != null) {
-						imageUriForDecoding = Scheme.FILE.wrap(imageFile.getAbsolutePath());
-					}
-				}
-
-				checkTaskNotActual();
-				bitmap = decodeImage(imageUriForDecoding);
-
-				if (bitmap == null || bitmap.getWidth() <= 0 || bitmap.getHeight() <= 0) {
-                    releaseBitmap(bitmap, true);
-					fireFailEvent(FailType.DECODING_ERROR, null);
-				}
-			}
-		} catch (IllegalStateException e) {
-            fireFailEvent(FailType.NETWORK_DENIED, null);
-            releaseBitmap(bitmap, true);
-            bitmap = null;
-		} catch (TaskCancelledException e) {
-            releaseBitmap(bitmap, true);
-			throw e;
-		} catch (IOException e) {
-			L.e(e);
-			fireFailEvent(FailType.IO_ERROR, e);
-            releaseBitmap(bitmap, true);
-            bitmap = null;
-		} catch (OutOfMemoryError e) {
-			L.e(e);
-			fireFailEvent(FailType.OUT_OF_MEMORY, e);
-            releaseBitmap(bitmap, true);
-            bitmap = null;
-		} catch (Throwable e) {
-			L.e(e);
-			fireFailEvent(FailType.UNKNOWN, e);
-            releaseBitmap(bitmap, true);
-            bitmap = null;
-		}
-        return bitmap;
-	}
-
-	private Bitmap decodeImage(String imageUri) throws Throwable {
+	/** @param cachedImageStream Opened stream of image in disk cache. Can be <b>null</b>. */
+	private Bitmap decodeImage(String imageUri, InputStream cachedImageStream) throws Throwable {
 		ViewScaleType viewScaleType = imageAware.getScaleType();
+		ImageDownloader imageDownloader = getDownloader();
+		if (encodedImage != null) {
+			imageDownloader = new EncodedImageDownloader(imageUri, encodedImage, imageDownloader);
+		} else if (decodeFromDiskCache) {
+			imageDownloader = new DiskCacheImageDownloader(imageUri, configuration.diskCache, cachedImageStream,
+					imageDownloader);
+		}
 		ImageDecodingInfo decodingInfo = new ImageDecodingInfo(memoryCacheKey, imageUri, uri, targetSize, viewScaleType,
-				getDownloader(), options);
-		return decoder.decode(decodingInfo);
+				imageDownloader, options);
+		// Known size is reused only if the same image is decoded: image in disk cache can differ from original one
+		// (e.g. it's resized before saving)
+		boolean fromCache = encodedImage != null || decodeFromDiskCache;
+		if (imageUri.equals(knownImageUri) && fromCache == knownFromCache) {
+			decodingInfo.setSourceSize(knownSourceSize);
+		}
+		Bitmap bitmap = decoder.decode(decodingInfo);
+		decodedImageUri = imageUri;
+		decodedFromCache = fromCache;
+		decodedSourceSize = decodingInfo.getSourceSize();
+		return bitmap;
 	}
 
 	/** @return <b>true</b> - if image was downloaded successfully; <b>false</b> - otherwise */
@@ -295,6 +591,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 					L.d(LOG_RESIZE_CACHED_IMAGE_FILE, memoryCacheKey);
 					resizeAndSaveImage(width, height); // TODO : process boolean result
 				}
+				removeEncodedImage();
 			}
 		} catch (Throwable e) {
 			L.e(e);
@@ -303,6 +600,13 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		return loaded;
 	}
 
+	/** Removes stale copy of image from memory so encoded image is always the same as image in disk cache */
+	private void removeEncodedImage() {
+		if (configuration.encodedMemoryCache != null) {
+			configuration.encodedMemoryCache.remove(uri);
+		}
+	}
+
 	private boolean downloadImage() throws IOException {
 		InputStream is = getDownloader().getStream(uri, options.getExtraForDownloader());
 		return configuration.diskCache.save(uri, is, this);
@@ -312,14 +616,15 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	private boolean resizeAndSaveImage(int maxWidth, int maxHeight) throws Throwable {
 		// Decode image file, compress and re-save it
 		boolean saved = false;
-		File targetFile = configuration.diskCache.get(uri);
-		if (targetFile != null && targetFile.exists()) {
+		InputStream cachedImageStream = configuration.diskCache.openRead(uri);
+		if (cachedImageStream != null) {
 			ImageSize targetImageSize = new ImageSize(maxWidth, maxHeight);
 			DisplayImageOptions specialOptions = new DisplayImageOptions.Builder().cloneFrom(options)
 					.imageScaleType(ImageScaleType.IN_SAMPLE_INT).build();
-			ImageDecodingInfo decodingInfo = new ImageDecodingInfo(memoryCacheKey,
-					Scheme.FILE.wrap(targetFile.getAbsolutePath()), uri, targetImageSize, ViewScaleType.FIT_INSIDE,
-					getDownloader(), specialOptions);
+			ImageDownloader imageDownloader = new DiskCacheImageDownloader(uri, configuration.diskCache,
+					cachedImageStream, getDownloader());
+			ImageDecodingInfo decodingInfo = new ImageDecodingInfo(memoryCacheKey, uri, uri, targetImageSize,
+					ViewScaleType.FIT_INSIDE, imageDownloader, specialOptions);
 			Bitmap bmp = decoder.decode(decodingInfo);
 			if (bmp != null && configuration.processorForDiskCache != null) {
 				L.d(LOG_PROCESS_IMAGE_BEFORE_CACHE_ON_DISK, memoryCacheKey);
@@ -330,7 +635,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 			}
 			if (bmp != null) {
 				saved = configuration.diskCache.save(uri, bmp);
-				bmp.recycle();
+				decoder.release(bmp, options);
 			}
 		}
 		return saved;
@@ -343,7 +648,11 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 
 	/** @return <b>true</b> - if loading should be continued; <b>false</b> - if loading should be interrupted */
 	private boolean fireProgressEvent(final int current, final int total) {
-		if (isTaskInterrupted() || isTaskNotActual()) return false;
+		if (isTaskInterrupted()) return false;
+		if (isTaskNotActual()) {
+			// Continue loading if other tasks wait for this image
+			return engine.hasTasksWaitingForUri(uri);
+		}
 		if (progressListener != null) {
 			Runnable r = new Runnable() {
 				@Override
@@ -372,6 +681,25 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 
 	private void fireCancelEvent() {
 		if (syncLoading || isTaskInterrupted()) return;
+		postCancelEvent();
+	}
+
+	/**
+	 * Is called if queued task was removed from queue (ImageAware was reused, task was dropped from full queue) or
+	 * rejected by task executor so it won't be run.
+	 */
+	void onNotExecuted() {
+		L.d(LOG_TASK_NOT_EXECUTED, stage, memoryCacheKey); // stage is read first, see stage field
+		// Task could be dropped between stages so it should release loaded image and URI
+		releaseBitmap(bmp, releaseOnCancel);
+		releaseBitmapHandle();
+		bmp = null;
+		finishLoading();
+		if (syncLoading) return;
+		postCancelEvent();
+	}
+
+	private void postCancelEvent() {
 		Runnable r = new Runnable() {
 			@Override
 			public void run() {
@@ -387,6 +715,13 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
         }
     }
 
+	private void releaseBitmapHandle() {
+		if (bitmapHandle != null) {
+			bitmapHandle.release();
+			bitmapHandle = null;
+		}
+	}
+
     private ImageDownloader getDownloader() {
 		ImageDownloader d;
 		if (engine.isNetworkDenied()) {
@@ -413,7 +748,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	 * @return <b>true</b> - if task is not actual (target ImageAware is collected by GC or the image URI of this task
 	 * doesn't match to image URI which is actual for current ImageAware at this moment)); <b>false</b> - otherwise
 	 */
-	private boolean isTaskNotActual() {
+	boolean isTaskNotActual() {
 		return isViewCollected() || isViewReused();
 	}
 
@@ -473,6 +808,38 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		return uri;
 	}
 
+	/** @return Stage which task is submitted to (or running on) */
+	PipelineStage getStage() {
+		return stage;
+	}
+
+	/** Is called by engine right before task is submitted to executor of incoming stage */
+	void onSubmitted(PipelineStage stage) {
+		stageSubmitTime = System.nanoTime();
+		this.stage = stage; // must be written last, see stage field
+	}
+
+	/**
+	 * Is called for deferred task when another task finished loading of the same image URI. Task will be re-submitted
+	 * after that and it can reuse known source size of image if it decodes the same image.
+	 */
+	void onUriLoaded(String decodedImageUri, boolean decodedFromCache, ImageSize sourceSize) {
+		deferred = true;
+		knownImageUri = decodedImageUri;
+		knownFromCache = decodedFromCache;
+		knownSourceSize = sourceSize;
+	}
+
+	@Override
+	public LoadingPriority getPriority() {
+		return priority;
+	}
+
+	@Override
+	public void setPriority(LoadingPriority priority) {
+		this.priority = priority;
+	}
+
 	static void runTask(Runnable r, boolean sync, Handler handler, ImageLoaderEngine engine) {
 		if (sync) {
 			r.run();
@@ -492,4 +859,26 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	 */
 	class TaskCancelledException extends Exception {
 	}
+
+	/** Decorator. Provides encoded image from memory for its URI instead of reading the URI. */
+	private static class EncodedImageDownloader implements ImageDownloader {
+
+		private final String imageUri;
+		private final byte[] encodedImage;
+		private final ImageDownloader wrappedDownloader;
+
+		EncodedImageDownloader(String imageUri, byte[] encodedImage, ImageDownloader wrappedDownloader) {
+			this.imageUri = imageUri;
+			this.encodedImage = encodedImage;
+			this.wrappedDownloader = wrappedDownloader;
+		}
+
+		@Override
+		public InputStream getStream(String imageUri, Object extra) throws IOException {
+			if (this.imageUri.equals(imageUri)) {
+				return new ByteArrayInputStream(encodedImage);
+			}
+			return wrappedDownloader.getStream(imageUri, extra);
+		}
+	}
 }
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.PauseStats;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gate which holds worker threads while ImageLoader (or preloading) is paused. Waiting threads are parked without any
+ * monitor so they don't contend on a lock when gate is opened.<br />
+ * Opened gate doesn't wake up all waiting threads at once: not more than {@code wakeUpBatchSize} threads are woken up
+ * and not back to work yet. Every thread which {@linkplain #await(long, TimeUnit) passed} the gate must
+ * {@linkplain #leave() leave} it as soon as it's back on its run path (before any blocking work), so the next waiting
+ * thread is woken up. So resume after scroll doesn't make a wake-up storm, but the gate doesn't limit number of threads
+ * which work after resume.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+final class PauseGate {
+
+	private final int wakeUpBatchSize;
+
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private final Queue<Thread> waiters = new ConcurrentLinkedQueue<Thread>();
+	/** Number of threads which passed the gate and didn't {@linkplain #leave() leave} it yet */
+	private final AtomicInteger passedCount = new AtomicInteger();
+
+	private final AtomicInteger waitingCount = new AtomicInteger();
+	private final AtomicLong pauseCount = new AtomicLong();
+	private final AtomicLong pauseStartTime = new AtomicLong();
+	private final AtomicLong totalPausedTime = new AtomicLong();
+	private final AtomicLong maxPausedTime = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+
+	/** @param wakeUpBatchSize Max number of threads which passed the gate and didn't {@linkplain #leave() leave} it yet */
+	PauseGate(int wakeUpBatchSize) {
+		this.wakeUpBatchSize = Math.max(1, wakeUpBatchSize);
+	}
+
+	/** Closes gate. Threads which come to the gate will wait until it's {@linkplain #open() opened}. */
+	void close() {
+		if (closed.compareAndSet(false, true)) {
+			pauseStartTime.set(System.currentTimeMillis());
+			pauseCount.incrementAndGet();
+		}
+	}
+
+	/** Opens gate and wakes up first batch of waiting threads */
+	void open() {
+		if (closed.compareAndSet(true, false)) {
+			long pausedTime = System.currentTimeMillis() - pauseStartTime.get();
+			totalPausedTime.addAndGet(pausedTime);
+			long max;
+			do {
+				max = maxPausedTime.get();
+			} while (pausedTime > max && !maxPausedTime.compareAndSet(max, pausedTime));
+
+			for (int i = passedCount.get(); i < wakeUpBatchSize; i++) {
+				if (!wakeUpNext()) break;
+			}
+		}
+	}
+
+	boolean isClosed() {
+		return closed.get();
+	}
+
+	/**
+	 * Waits until gate is opened and there is a free place behind the gate but not longer than incoming timeout.
+	 * Thread which passed the gate must call {@link #leave()} when its work is done.
+	 *
+	 * @param timeout Max time to wait; <b>0</b> - wait without timeout
+	 * @return <b>true</b> - if thread passed the gate; <b>false</b> - if waiting time elapsed before thread passed the
+	 * gate
+	 * @throws InterruptedException if current thread was interrupted while waiting
+	 */
+	boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		if (!closed.get()) {
+			passedCount.incrementAndGet();
+			return true;
+		}
+
+		Thread current = Thread.currentThread();
+		long start = System.nanoTime();
+		long deadline = start + unit.toNanos(timeout);
+		boolean passed = false;
+		waitingCount.incrementAndGet();
+		try {
+			while (true) {
+				// Thread is registered before checking the gate so opening can't be missed. Woken up thread is removed
+				// from the queue so it registers again if it has to wait more (gate was closed again or it's full).
+				if (!waiters.contains(current)) {
+					waiters.add(current);
+				}
+				if (!closed.get() && tryPass()) {
+					passed = true;
+					return true;
+				}
+				if (Thread.interrupted()) throw new InterruptedException();
+				if (timeout > 0) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) return false;
+					LockSupport.parkNanos(this, remaining);
+				} else {
+					LockSupport.park(this);
+				}
+			}
+		} finally {
+			waiters.remove(current);
+			waitingCount.decrementAndGet();
+			totalWaitTime.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			if (!passed && !closed.get()) {
+				// Wake-up could be addressed to this thread, so it's handed over to the next one
+				wakeUpNext();
+			}
+		}
+	}
+
+	/** Frees place of thread which passed the gate and wakes up the next waiting thread if gate is open */
+	void leave() {
+		passedCount.decrementAndGet();
+		if (!closed.get()) {
+			wakeUpNext();
+		}
+	}
+
+	private boolean tryPass() {
+		int count;
+		do {
+			count = passedCount.get();
+			if (count >= wakeUpBatchSize) return false;
+		} while (!passedCount.compareAndSet(count, count + 1));
+		return true;
+	}
+
+	/** @return <b>true</b> - if some waiting thread was woken up; <b>false</b> - if there are no waiting threads */
+	private boolean wakeUpNext() {
+		Thread next = waiters.poll();
+		if (next == null) return false;
+
+		LockSupport.unpark(next);
+		return true;
+	}
+
+	PauseStats getStats() {
+		long pausedTime = totalPausedTime.get();
+		boolean paused = closed.get();
+		if (paused) {
+			pausedTime += System.currentTimeMillis() - pauseStartTime.get();
+		}
+		return new PauseStats(paused, pauseCount.get(), pausedTime, maxPausedTime.get(), waitingCount.get(),
+				totalWaitTime.get());
+	}
+}
@@ -27,18 +27,15 @@ import com.nostra13.universalimageloader.core.assist.ViewScaleType;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.decode.ImageDecodingInfo;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
-import com.nostra13.universalimageloader.core.download.ImageDownloader.Scheme;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingProgressListener;
 import com.nostra13.universalimageloader.utils.IoUtils;
 import com.nostra13.universalimageloader.utils.L;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
 
 final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
 
@@ -52,6 +49,7 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
     private static final String DIDNT_LOG_CACHE_IMAGE_ON_DISK = "DID NOT Preload Cache image on disk [%s]";
     private static final String LOG_PROCESS_IMAGE_BEFORE_CACHE_ON_DISK = "Preload Process image before cache on disk [%s]";
     private static final String LOG_TASK_INTERRUPTED = "Preload Task was interrupted [%s]";
+    private static final String LOG_PRELOAD_PAUSED = "Preload is paused. Task is dropped [%s]";
 
     private static final String ERROR_PROCESSOR_FOR_DISK_CACHE_NULL = "Bitmap processor for disk cache returned null [%s]";
 
@@ -102,7 +100,8 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
             return;
         }
 
-        if(engine.getPausedPreload().get()) {
+        if (engine.getPreloadPauseGate().isClosed()) {
+            L.d(LOG_PRELOAD_PAUSED, memoryCacheKey);
             cleanPreloadLock();
             return;
         }
@@ -112,23 +111,18 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
             return;
         }
 
-        File file = configuration.diskCache.get(uri);
-
-        boolean cachedOnDisk = (file != null) && file.exists();
+        boolean cachedOnDisk = configuration.diskCache.contains(uri);
         if(!engine.isPreloadActive(uri) || cachedOnDisk){
             cleanPreloadLock();
             return;
         }
 
-        ReentrantLock loadFromUriLock = imageLoadingInfo.loadFromUriLock;
         L.d(LOG_START_DISPLAY_IMAGE_TASK, memoryCacheKey);
-        if (loadFromUriLock.isLocked()) {
+        if (!engine.tryStartUriLoading(uri)) {
             cleanPreloadLock();
             return;
         }
 
-        loadFromUriLock.lock();
-
         try {
             L.d(LOG_LOAD_IMAGE_FROM_NETWORK, memoryCacheKey);
             tryCacheImageOnDisk();
@@ -141,7 +135,7 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
             L.e(e);
             fireFailEvent(FailType.UNKNOWN, e);
         } finally {
-            loadFromUriLock.unlock();
+            engine.finishUriLoading(uri, null, false, null);
             cleanPreloadLock();
         }
     }
@@ -152,20 +146,17 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
 
     /** @return <b>true</b> - if task should be interrupted; <b>false</b> - otherwise */
     private boolean waitIfPaused() {
-        AtomicBoolean pause = engine.getPause();
-        if (pause.get()) {
-            synchronized (engine.getPauseLock()) {
-                if (pause.get()) {
-                    L.d(LOG_WAITING_FOR_RESUME, memoryCacheKey);
-                    try {
-                        engine.getPauseLock().wait();
-                    } catch (InterruptedException e) {
-                        L.e(LOG_TASK_INTERRUPTED, memoryCacheKey);
-                        return true;
-                    }
-                    L.d(LOG_RESUME_AFTER_PAUSE, memoryCacheKey);
-                }
+        PauseGate pauseGate = engine.getPauseGate();
+        if (pauseGate.isClosed()) {
+            L.d(LOG_WAITING_FOR_RESUME, memoryCacheKey);
+            try {
+                pauseGate.await(0, TimeUnit.MILLISECONDS);
+                pauseGate.leave(); // place is freed before loading so the next waiting task is woken up at once
+            } catch (InterruptedException e) {
+                L.e(LOG_TASK_INTERRUPTED, memoryCacheKey);
+                return true;
             }
+            L.d(LOG_RESUME_AFTER_PAUSE, memoryCacheKey);
         }
         return checkTaskIsInterrupted();
     }
@@ -204,6 +195,10 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
                     L.d(LOG_RESIZE_CACHED_IMAGE_FILE, memoryCacheKey);
                     resizeAndSaveImage(width, height); // TODO : process boolean result
                 }
+                // Stale copy of image is removed from memory so encoded image is always the same as image in disk cache
+                if (configuration.encodedMemoryCache != null) {
+                    configuration.encodedMemoryCache.remove(uri);
+                }
             }
         } catch (Throwable e) {
             L.e(e);
@@ -226,14 +221,15 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
     private boolean resizeAndSaveImage(int maxWidth, int maxHeight) throws Throwable {
         // Decode image file, compress and re-save it
         boolean saved = false;
-        File targetFile = configuration.diskCache.get(uri);
-        if (targetFile != null && targetFile.exists()) {
+        InputStream cachedImageStream = configuration.diskCache.openRead(uri);
+        if (cachedImageStream != null) {
             ImageSize targetImageSize = new ImageSize(maxWidth, maxHeight);
             DisplayImageOptions specialOptions = new DisplayImageOptions.Builder().cloneFrom(options)
                     .imageScaleType(ImageScaleType.IN_SAMPLE_INT).build();
-            ImageDecodingInfo decodingInfo = new ImageDecodingInfo(memoryCacheKey,
-                    Scheme.FILE.wrap(targetFile.getAbsolutePath()), uri, targetImageSize, ViewScaleType.FIT_INSIDE,
-                    getDownloader(), specialOptions);
+            ImageDownloader imageDownloader = new DiskCacheImageDownloader(uri, configuration.diskCache,
+                    cachedImageStream, getDownloader());
+            ImageDecodingInfo decodingInfo = new ImageDecodingInfo(memoryCacheKey, uri, uri, targetImageSize,
+                    ViewScaleType.FIT_INSIDE, imageDownloader, specialOptions);
             Bitmap bmp = decoder.decode(decodingInfo);
             if (bmp != null && configuration.processorForDiskCache != null) {
                 L.d(LOG_PROCESS_IMAGE_BEFORE_CACHE_ON_DISK, memoryCacheKey);
@@ -244,7 +240,6 @@ final class PreloadToDiskTask implements Runnable, IoUtils.CopyListener {
             }
             if (bmp != null) {
                 saved = configuration.diskCache.save(uri, bmp);
-                bmp.recycle();
                 decoder.release(bmp, options);
             }
         }
@@ -18,6 +18,7 @@ package com.nostra13.universalimageloader.core;
 import android.graphics.Bitmap;
 import android.os.Handler;
 import android.widget.ImageView;
+import com.nostra13.universalimageloader.core.assist.BitmapHandle;
 import com.nostra13.universalimageloader.core.assist.LoadedFrom;
 import com.nostra13.universalimageloader.core.process.BitmapProcessor;
 import com.nostra13.universalimageloader.utils.L;
@@ -34,14 +35,15 @@ final class ProcessAndDisplayImageTask implements Runnable {
 	private static final String LOG_POSTPROCESS_IMAGE = "PostProcess image before displaying [%s]";
 
 	private final ImageLoaderEngine engine;
-	private final Bitmap bitmap;
+	private final BitmapHandle bitmapHandle;
 	private final ImageLoadingInfo imageLoadingInfo;
 	private final Handler handler;
 
-	public ProcessAndDisplayImageTask(ImageLoaderEngine engine, Bitmap bitmap, ImageLoadingInfo imageLoadingInfo,
-			Handler handler) {
+	/** @param bitmapHandle Retained handle of cached Bitmap. Task releases it. */
+	public ProcessAndDisplayImageTask(ImageLoaderEngine engine, BitmapHandle bitmapHandle,
+			ImageLoadingInfo imageLoadingInfo, Handler handler) {
 		this.engine = engine;
-		this.bitmap = bitmap;
+		this.bitmapHandle = bitmapHandle;
 		this.imageLoadingInfo = imageLoadingInfo;
 		this.handler = handler;
 	}
@@ -51,9 +53,18 @@ final class ProcessAndDisplayImageTask implements Runnable {
 		L.d(LOG_POSTPROCESS_IMAGE, imageLoadingInfo.memoryCacheKey);
 
 		BitmapProcessor processor = imageLoadingInfo.options.getPostProcessor();
-		Bitmap processedBitmap = processor.process(bitmap);
+		Bitmap bitmap = bitmapHandle.getBitmap();
+		Bitmap processedBitmap = null;
+		try {
+			processedBitmap = processor.process(bitmap);
+		} finally {
+			// Cached Bitmap is released after displaying if processor returned it as is
+			if (processedBitmap != bitmap) {
+				bitmapHandle.release();
+			}
+		}
 		DisplayBitmapTask displayBitmapTask = new DisplayBitmapTask(processedBitmap, imageLoadingInfo, engine,
-				LoadedFrom.MEMORY_CACHE);
+				LoadedFrom.MEMORY_CACHE, null, false, processedBitmap == bitmap ? bitmapHandle : null);
 		LoadAndDisplayImageTask.runTask(displayBitmapTask, imageLoadingInfo.options.isSyncLoading(), handler, engine);
 	}
 }
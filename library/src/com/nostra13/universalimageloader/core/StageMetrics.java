@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.PipelineStage;
+import com.nostra13.universalimageloader.core.assist.StageStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects statistics of {@linkplain PipelineStage pipeline stage}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+final class StageMetrics {
+
+	private final PipelineStage stage;
+
+	private final AtomicLong submittedCount = new AtomicLong();
+	private final AtomicLong removedCount = new AtomicLong();
+	private final AtomicLong startedCount = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private final AtomicLong totalRunTime = new AtomicLong();
+
+	StageMetrics(PipelineStage stage) {
+		this.stage = stage;
+	}
+
+	/** Task was submitted to stage's executor */
+	void onSubmitted() {
+		submittedCount.incrementAndGet();
+	}
+
+	/** Submitted task was removed from queue (or rejected) so it won't be started */
+	void onRemoved() {
+		removedCount.incrementAndGet();
+	}
+
+	/** @param waitTime Time (in nanoseconds) which task waited in queue */
+	void onStarted(long waitTime) {
+		startedCount.incrementAndGet();
+		totalWaitTime.addAndGet(waitTime);
+	}
+
+	/** @param runTime Time (in nanoseconds) which task ran */
+	void onFinished(long runTime) {
+		totalRunTime.addAndGet(runTime);
+	}
+
+	StageStats getStats() {
+		long started = startedCount.get();
+		int queueDepth = (int) Math.max(0, submittedCount.get() - removedCount.get() - started);
+		return new StageStats(stage, queueDepth, started, totalWaitTime.get(), totalRunTime.get());
+	}
+}
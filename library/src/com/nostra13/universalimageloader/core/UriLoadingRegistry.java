@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.UriContentionStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of image URIs which are loading at this moment. Only one task can load the URI at the same time, other
+ * tasks are deferred until the URI is released (or wait for it if they're synchronous).<br />
+ * URI entry exists only while URI is loading and it's removed by the task which loaded it, so registry size is
+ * bounded by number of running tasks. Also registry collects {@linkplain UriContentionStats contention statistics}.
+ *
+ * @param <T> Type of deferred tasks
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+final class UriLoadingRegistry<T> {
+
+	/** Max number of URIs which per-URI contention statistics is kept for */
+	private static final int MAX_STATS_URI_COUNT = 100;
+
+	private final ConcurrentMap<String, Loading<T>> loadings = new ConcurrentHashMap<>();
+
+	private final AtomicLong loadCount = new AtomicLong();
+	private final AtomicLong contendedCount = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private final AtomicLong maxWaitTime = new AtomicLong();
+	/**
+	 * Per-URI statistics. Entry is created only when task finds URI already loading so uncontended loadings don't
+	 * touch shared locks.
+	 */
+	private final ConcurrentMap<String, UriStats> uriStats = new ConcurrentHashMap<>();
+	private final Object uriStatsEvictionLock = new Object();
+
+	/**
+	 * Acquires URI for loading if it isn't loading by another task at this moment.
+	 *
+	 * @return <b>true</b> - if URI was acquired; <b>false</b> - otherwise
+	 */
+	boolean tryAcquire(String uri) {
+		if (loadings.putIfAbsent(uri, new Loading<T>()) == null) {
+			loadCount.incrementAndGet();
+			UriStats stats = uriStats.get(uri);
+			if (stats != null) {
+				stats.loadCount.incrementAndGet();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Acquires URI for loading. If URI is loading by another task at this moment then incoming task is deferred until
+	 * the URI is {@linkplain #release(String) released}.
+	 *
+	 * @return <b>true</b> - if URI was acquired; <b>false</b> - if task was deferred
+	 */
+	boolean acquireOrDefer(String uri, T task) {
+		while (true) {
+			if (tryAcquire(uri)) return true;
+
+			Loading<T> loading = loadings.get(uri);
+			if (loading == null) continue; // released just now
+
+			boolean deferred;
+			synchronized (loading) {
+				deferred = !loading.released;
+				if (deferred) {
+					loading.deferredTasks.add(task);
+					loading.deferTimes.add(System.currentTimeMillis());
+				}
+			}
+			if (deferred) {
+				getOrCreateStats(uri);
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Acquires URI for loading. Blocks until the URI is released if it's loading by another task at this moment.
+	 *
+	 * @throws InterruptedException if current thread was interrupted while waiting
+	 */
+	void acquire(String uri) throws InterruptedException {
+		long waitStart = 0;
+		while (!tryAcquire(uri)) {
+			Loading<T> loading = loadings.get(uri);
+			if (loading == null) continue; // released just now
+
+			if (waitStart == 0) {
+				waitStart = System.currentTimeMillis();
+				getOrCreateStats(uri);
+			}
+			synchronized (loading) {
+				while (!loading.released) {
+					loading.wait();
+				}
+			}
+		}
+		if (waitStart != 0) {
+			recordWait(uri, System.currentTimeMillis() - waitStart);
+		}
+	}
+
+	/**
+	 * Releases URI which was acquired by current task.
+	 *
+	 * @return Tasks which were deferred while URI was loading. They should be re-submitted. Returned list is a copy
+	 * so it isn't affected by later {@linkplain #removeDeferredTask(String, Object) removals} of deferred tasks.
+	 */
+	List<T> release(String uri) {
+		Loading<T> loading = loadings.remove(uri);
+		if (loading == null) return Collections.emptyList();
+
+		List<T> deferredTasks;
+		List<Long> deferTimes;
+		synchronized (loading) {
+			loading.released = true;
+			loading.notifyAll();
+			deferredTasks = new ArrayList<>(loading.deferredTasks);
+			deferTimes = new ArrayList<>(loading.deferTimes);
+		}
+
+		long now = System.currentTimeMillis();
+		for (Long deferTime : deferTimes) {
+			recordWait(uri, now - deferTime);
+		}
+		return deferredTasks;
+	}
+
+	/**
+	 * Removes task which was deferred until the URI is released.
+	 *
+	 * @return <b>true</b> - if task was deferred and it's removed; <b>false</b> - otherwise
+	 */
+	boolean removeDeferredTask(String uri, T task) {
+		Loading<T> loading = loadings.get(uri);
+		if (loading == null) return false;
+
+		synchronized (loading) {
+			int index = loading.deferredTasks.indexOf(task);
+			if (index < 0) return false;
+
+			loading.deferredTasks.remove(index);
+			loading.deferTimes.remove(index);
+			return true;
+		}
+	}
+
+	/** @return <b>true</b> - if some tasks are deferred until the URI is released; <b>false</b> - otherwise */
+	boolean hasDeferredTasks(String uri) {
+		Loading<T> loading = loadings.get(uri);
+		if (loading == null) return false;
+
+		synchronized (loading) {
+			return !loading.deferredTasks.isEmpty();
+		}
+	}
+
+	/** @return <b>true</b> - if URI is loading at this moment; <b>false</b> - otherwise */
+	boolean isLoading(String uri) {
+		return loadings.containsKey(uri);
+	}
+
+	/**
+	 * Forgets all deferred tasks. Loading URIs stay acquired until tasks which load them {@linkplain #release(String)
+	 * release} them.
+	 */
+	void clearDeferredTasks() {
+		for (Loading<T> loading : loadings.values()) {
+			synchronized (loading) {
+				loading.deferredTasks.clear();
+				loading.deferTimes.clear();
+			}
+		}
+	}
+
+	/** @return Contention statistics summarized for all URIs */
+	UriContentionStats getStats() {
+		return new UriContentionStats(null, loadCount.get(), contendedCount.get(), totalWaitTime.get(),
+				maxWaitTime.get());
+	}
+
+	/**
+	 * @return Contention statistics for incoming URI; <b>null</b> - if there is no statistics for URI (statistics is
+	 * kept only for {@value #MAX_STATS_URI_COUNT} recently contended URIs, loadings are counted since first contention)
+	 */
+	UriContentionStats getStats(String uri) {
+		UriStats stats = uriStats.get(uri);
+		return stats == null ? null : new UriContentionStats(uri, stats.loadCount.get(), stats.contendedCount.get(),
+				stats.totalWaitTime.get(), stats.maxWaitTime.get());
+	}
+
+	private void recordWait(String uri, long waitTime) {
+		contendedCount.incrementAndGet();
+		totalWaitTime.addAndGet(waitTime);
+		updateMax(maxWaitTime, waitTime);
+
+		UriStats stats = getOrCreateStats(uri);
+		stats.contendedCount.incrementAndGet();
+		stats.totalWaitTime.addAndGet(waitTime);
+		updateMax(stats.maxWaitTime, waitTime);
+		stats.lastContendedTime = System.currentTimeMillis();
+	}
+
+	private UriStats getOrCreateStats(String uri) {
+		UriStats stats = uriStats.get(uri);
+		if (stats != null) return stats;
+
+		stats = new UriStats();
+		UriStats existing = uriStats.putIfAbsent(uri, stats);
+		if (existing != null) return existing;
+
+		if (uriStats.size() > MAX_STATS_URI_COUNT) {
+			evictStaleStats();
+		}
+		return stats;
+	}
+
+	/** Removes statistics of least recently contended URIs. Is called on contended path only. */
+	private void evictStaleStats() {
+		synchronized (uriStatsEvictionLock) {
+			while (uriStats.size() > MAX_STATS_URI_COUNT) {
+				Map.Entry<String, UriStats> stalest = null;
+				for (Map.Entry<String, UriStats> entry : uriStats.entrySet()) {
+					if (stalest == null || entry.getValue().lastContendedTime < stalest.getValue().lastContendedTime) {
+						stalest = entry;
+					}
+				}
+				if (stalest == null) break;
+				uriStats.remove(stalest.getKey(), stalest.getValue());
+			}
+		}
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current;
+		do {
+			current = max.get();
+		} while (value > current && !max.compareAndSet(current, value));
+	}
+
+	/** URI which is loading at this moment */
+	private static final class Loading<T> {
+		final List<T> deferredTasks = new ArrayList<>();
+		final List<Long> deferTimes = new ArrayList<>();
+		boolean released;
+	}
+
+	private static final class UriStats {
+		/** Loading which was contended for the first time is counted too */
+		final AtomicLong loadCount = new AtomicLong(1);
+		final AtomicLong contendedCount = new AtomicLong();
+		final AtomicLong totalWaitTime = new AtomicLong();
+		final AtomicLong maxWaitTime = new AtomicLong();
+		volatile long lastContendedTime = System.currentTimeMillis();
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+import android.graphics.Bitmap;
+
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
+
+/**
+ * Reference-counted holder of {@link Bitmap}. Every owner of Bitmap (memory cache, view which displays it, task which
+ * is going to display it) holds one reference. When the last owner {@linkplain #release() releases} its reference
+ * Bitmap is returned into {@linkplain BitmapPool pool} (if reuse isn't {@linkplain #denyReuse() denied}) and can be
+ * reused for decoding of another image. So owner mustn't use Bitmap after releasing.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public final class BitmapHandle {
+
+	private static final String ERROR_RELEASED = "Bitmap handle was released already";
+
+	private final Bitmap bitmap;
+	private final BitmapPool bitmapPool;
+
+	private int refCount = 1;
+	private boolean reusable = true;
+
+	/**
+	 * Creates handle with one reference which belongs to creator.
+	 *
+	 * @param bitmap     Bitmap
+	 * @param bitmapPool Pool which Bitmap is returned into when the last reference is released. Can be <b>null</b> -
+	 *                   then Bitmap isn't reused.
+	 */
+	public BitmapHandle(Bitmap bitmap, BitmapPool bitmapPool) {
+		if (bitmap == null) throw new IllegalArgumentException("bitmap must not be null");
+
+		this.bitmap = bitmap;
+		this.bitmapPool = bitmapPool;
+	}
+
+	public Bitmap getBitmap() {
+		return bitmap;
+	}
+
+	/**
+	 * Adds reference to Bitmap
+	 *
+	 * @return This handle
+	 * @throws IllegalStateException if all references were released already
+	 */
+	public synchronized BitmapHandle retain() {
+		if (refCount <= 0) throw new IllegalStateException(ERROR_RELEASED);
+
+		refCount++;
+		return this;
+	}
+
+	/**
+	 * Releases reference to Bitmap. Bitmap is returned into pool when the last reference is released.
+	 *
+	 * @throws IllegalStateException if all references were released already
+	 */
+	public void release() {
+		boolean returnToPool;
+		synchronized (this) {
+			if (refCount <= 0) throw new IllegalStateException(ERROR_RELEASED);
+
+			refCount--;
+			returnToPool = refCount == 0 && reusable && bitmapPool != null;
+		}
+		if (returnToPool) {
+			bitmapPool.put(bitmap);
+		}
+	}
+
+	/** Denies reusing of Bitmap. Should be called if Bitmap was passed to code which doesn't use handle. */
+	public synchronized void denyReuse() {
+		reusable = false;
+	}
+
+	/** @return Number of not released references */
+	public synchronized int getRefCount() {
+		return refCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BitmapHandle[%s, refs=%d]", bitmap, getRefCount());
+	}
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Priority of image loading task. Tasks with higher priority are taken from the queue before tasks with lower
+ * priority; tasks of equal priority are processed according to {@link QueueProcessingType}.<br />
+ * Constants are declared from the highest priority to the lowest one.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public enum LoadingPriority {
+	/** Image is displayed on the screen right now */
+	VISIBLE,
+	/** Image is going to appear on the screen soon (e.g. next rows of list while scrolling) */
+	NEAR_VISIBLE,
+	/** Image is loaded in advance and most likely will be shown later */
+	PREFETCH,
+	/** Image isn't expected to be shown soon */
+	BACKGROUND
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Snapshot of pause statistics of ImageLoader (or of preloading): how often and how long it was paused and how long
+ * worker threads waited for resume.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public final class PauseStats {
+
+	private final boolean paused;
+	private final long pauseCount;
+	private final long totalPausedTime;
+	private final long maxPausedTime;
+	private final int waitingThreadCount;
+	private final long totalThreadWaitTime;
+
+	public PauseStats(boolean paused, long pauseCount, long totalPausedTime, long maxPausedTime,
+			int waitingThreadCount, long totalThreadWaitTime) {
+		this.paused = paused;
+		this.pauseCount = pauseCount;
+		this.totalPausedTime = totalPausedTime;
+		this.maxPausedTime = maxPausedTime;
+		this.waitingThreadCount = waitingThreadCount;
+		this.totalThreadWaitTime = totalThreadWaitTime;
+	}
+
+	/** @return <b>true</b> - if paused at this moment; <b>false</b> - otherwise */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/** @return Number of pauses */
+	public long getPauseCount() {
+		return pauseCount;
+	}
+
+	/** @return Total time (in milliseconds) spent in pause, including current pause */
+	public long getTotalPausedTime() {
+		return totalPausedTime;
+	}
+
+	/** @return Duration (in milliseconds) of the longest finished pause */
+	public long getMaxPausedTime() {
+		return maxPausedTime;
+	}
+
+	/** @return Number of worker threads which wait for resume at this moment */
+	public int getWaitingThreadCount() {
+		return waitingThreadCount;
+	}
+
+	/** @return Total time (in milliseconds) which worker threads waited for resume */
+	public long getTotalThreadWaitTime() {
+		return totalThreadWaitTime;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("paused=%b, pauses=%d, paused total=%dms, max=%dms, waiting threads=%d, thread wait=%dms",
+				paused, pauseCount, totalPausedTime, maxPausedTime, waitingThreadCount, totalThreadWaitTime);
+	}
+}
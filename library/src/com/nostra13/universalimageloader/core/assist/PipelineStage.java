@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Stage of image loading pipeline. Every stage has its own task executor so slow downloads don't occupy decoding
+ * threads and vice versa.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public enum PipelineStage {
+	/** Loading of image from the network (or other source) and caching it on disk */
+	IO,
+	/** Decoding of image from disk cache into Bitmap */
+	DECODE,
+	/** Pre-processing, caching in memory and post-processing of Bitmap */
+	PROCESS
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Defines what bounded task queue does with incoming task when it's full. Dropped and rejected display tasks are
+ * reported to their listeners by
+ * {@link com.nostra13.universalimageloader.core.listener.ImageLoadingListener#onLoadingCancelled(String, android.view.View)
+ * onLoadingCancelled()} callback.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public enum QueueAdmissionPolicy {
+	/** The task which waits in queue longest is dropped, incoming task is queued */
+	DROP_OLDEST,
+	/**
+	 * The oldest task of the lowest {@linkplain LoadingPriority priority} is dropped if it's not
+	 * {@link LoadingPriority#VISIBLE visible} and its priority isn't higher than priority of incoming task. Otherwise
+	 * incoming task is rejected.
+	 */
+	DROP_NOT_VISIBLE,
+	/** Incoming task is rejected */
+	REJECT
+}
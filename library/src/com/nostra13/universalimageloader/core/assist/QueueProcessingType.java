@@ -16,7 +16,8 @@
 package com.nostra13.universalimageloader.core.assist;
 
 /**
- * Queue processing type which will be used for display task processing
+ * Queue processing type which will be used for display task processing. Defines order of tasks of equal
+ * {@linkplain LoadingPriority priority}.
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @since 1.6.3
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Snapshot of statistics of {@linkplain PipelineStage pipeline stage}: how many tasks wait in stage's queue, how long
+ * tasks waited in queue and how long they ran.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public final class StageStats {
+
+	private final PipelineStage stage;
+	private final int queueDepth;
+	private final long startedCount;
+	private final long totalWaitTime;
+	private final long totalRunTime;
+
+	/**
+	 * @param totalWaitTime Total time (in nanoseconds) which started tasks waited in queue
+	 * @param totalRunTime  Total time (in nanoseconds) which tasks ran
+	 */
+	public StageStats(PipelineStage stage, int queueDepth, long startedCount, long totalWaitTime, long totalRunTime) {
+		this.stage = stage;
+		this.queueDepth = queueDepth;
+		this.startedCount = startedCount;
+		this.totalWaitTime = totalWaitTime;
+		this.totalRunTime = totalRunTime;
+	}
+
+	public PipelineStage getStage() {
+		return stage;
+	}
+
+	/** @return Number of tasks which wait in stage's queue at this moment */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/** @return Number of tasks which were started on this stage */
+	public long getStartedCount() {
+		return startedCount;
+	}
+
+	/** @return Average time (in milliseconds) which task waited in stage's queue */
+	public double getAverageWaitTime() {
+		return startedCount == 0 ? 0 : totalWaitTime / 1e6 / startedCount;
+	}
+
+	/** @return Average time (in milliseconds) which task ran on this stage */
+	public double getAverageRunTime() {
+		return startedCount == 0 ? 0 : totalRunTime / 1e6 / startedCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: queue=%d, started=%d, wait avg=%.1fms, run avg=%.1fms", stage, queueDepth,
+				startedCount, getAverageWaitTime(), getAverageRunTime());
+	}
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Snapshot of contention statistics for image URI (or for all URIs): how many times tasks found the URI already
+ * loading by another task and how long they waited for it.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public final class UriContentionStats {
+
+	private final String uri;
+	private final long loadCount;
+	private final long contendedCount;
+	private final long totalWaitTime;
+	private final long maxWaitTime;
+
+	public UriContentionStats(String uri, long loadCount, long contendedCount, long totalWaitTime, long maxWaitTime) {
+		this.uri = uri;
+		this.loadCount = loadCount;
+		this.contendedCount = contendedCount;
+		this.totalWaitTime = totalWaitTime;
+		this.maxWaitTime = maxWaitTime;
+	}
+
+	/** @return Image URI; <b>null</b> - for summary statistics of all URIs */
+	public String getUri() {
+		return uri;
+	}
+
+	/** @return Number of URI loadings (number of times the URI was acquired for loading) */
+	public long getLoadCount() {
+		return loadCount;
+	}
+
+	/** @return Number of tasks which found URI already loading by another task */
+	public long getContendedCount() {
+		return contendedCount;
+	}
+
+	/** @return Total time (in milliseconds) which contended tasks waited for URI */
+	public long getTotalWaitTime() {
+		return totalWaitTime;
+	}
+
+	/** @return Maximum time (in milliseconds) which contended task waited for URI */
+	public long getMaxWaitTime() {
+		return maxWaitTime;
+	}
+
+	/** @return Average time (in milliseconds) which contended task waited for URI */
+	public long getAverageWaitTime() {
+		return contendedCount == 0 ? 0 : totalWaitTime / contendedCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: loads=%d, contended=%d, wait total=%dms, avg=%dms, max=%dms", uri == null ? "*" : uri,
+				loadCount, contendedCount, totalWaitTime, getAverageWaitTime(), maxWaitTime);
+	}
+}
@@ -0,0 +1,426 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist.deque;
+
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking queue for task executors which takes tasks according to their {@linkplain LoadingPriority priority}.
+ * Tasks of equal priority are taken in FIFO or LIFO order. Priority of queued task can be changed in place by
+ * {@link #reprioritize(Runnable, LoadingPriority)}.<br />
+ * Tasks which don't implement {@link Prioritized} are considered as {@link LoadingPriority#VISIBLE} ones.<br />
+ * Queue can be bounded. Then {@link QueueAdmissionPolicy} defines what happens with incoming task if queue is full:
+ * some queued task is dropped (and reported to {@link DropListener}) or incoming task is rejected (<b>offer()</b>
+ * returns <b>false</b>).
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+	private static final LoadingPriority DEFAULT_PRIORITY = LoadingPriority.VISIBLE;
+
+	/** Task which knows its own {@link LoadingPriority} */
+	public interface Prioritized {
+		LoadingPriority getPriority();
+
+		void setPriority(LoadingPriority priority);
+	}
+
+	/** Listener which is notified about tasks dropped from full queue according to {@link QueueAdmissionPolicy} */
+	public interface DropListener {
+		/** Is called on the thread which offered new task to queue. Dropped task won't be executed. */
+		void onTaskDropped(Runnable task);
+	}
+
+	private final boolean lifo;
+	private final int capacity;
+	private final QueueAdmissionPolicy admissionPolicy;
+	private final ArrayDeque<Node>[] buckets;
+	private int count;
+	private long enqueuedCount;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+
+	private volatile DropListener dropListener;
+
+	/** @param lifo <b>true</b> - tasks of equal priority are taken in LIFO order; <b>false</b> - in FIFO order */
+	public PriorityTaskQueue(boolean lifo) {
+		this(lifo, Integer.MAX_VALUE, QueueAdmissionPolicy.REJECT);
+	}
+
+	/**
+	 * @param lifo            <b>true</b> - tasks of equal priority are taken in LIFO order; <b>false</b> - in FIFO
+	 *                        order
+	 * @param capacity        Max number of queued tasks
+	 * @param admissionPolicy Defines what to do with incoming task if queue is full
+	 */
+	@SuppressWarnings("unchecked")
+	public PriorityTaskQueue(boolean lifo, int capacity, QueueAdmissionPolicy admissionPolicy) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive number");
+		if (admissionPolicy == null) throw new IllegalArgumentException("admissionPolicy must be not null");
+
+		this.lifo = lifo;
+		this.capacity = capacity;
+		this.admissionPolicy = admissionPolicy;
+		LoadingPriority[] priorities = LoadingPriority.values();
+		buckets = new ArrayDeque[priorities.length];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new ArrayDeque<Node>();
+		}
+	}
+
+	/** Sets listener for tasks dropped from full queue. Can be <b>null</b>. */
+	public void setDropListener(DropListener dropListener) {
+		this.dropListener = dropListener;
+	}
+
+	/**
+	 * Changes priority of incoming task. If the task is waiting in this queue then it's moved to its new place in
+	 * queue.
+	 *
+	 * @return <b>true</b> - if task was found in queue and was moved; <b>false</b> - otherwise (priority of task isn't
+	 * changed then)
+	 */
+	public boolean reprioritize(Runnable task, LoadingPriority priority) {
+		if (!(task instanceof Prioritized)) return false;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			Node node = removeFromBuckets(task);
+			if (node == null) return false;
+			((Prioritized) task).setPriority(priority);
+			enqueue(node);
+			count++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean offer(Runnable task) {
+		if (task == null) throw new NullPointerException();
+		Runnable droppedTask = null;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			if (count >= capacity) {
+				Node victim = selectVictimFor(task);
+				if (victim == null) return false;
+
+				removeNode(victim);
+				droppedTask = victim.task;
+			}
+			enqueue(new Node(task, enqueuedCount++));
+			count++;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+
+		DropListener dropListener = this.dropListener;
+		if (droppedTask != null && dropListener != null) {
+			dropListener.onTaskDropped(droppedTask);
+		}
+		return true;
+	}
+
+	/** Doesn't block. Throws {@link IllegalStateException} if incoming task is rejected by full queue. */
+	@Override
+	public void put(Runnable task) throws InterruptedException {
+		add(task);
+	}
+
+	/** Doesn't wait for space. Works like {@link #offer(Runnable)}. */
+	@Override
+	public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+		return offer(task);
+	}
+
+	@Override
+	public Runnable take() throws InterruptedException {
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		try {
+			while (count == 0) {
+				notEmpty.await();
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		try {
+			while (count == 0) {
+				if (nanos <= 0) return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable poll() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			return count == 0 ? null : dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable peek() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			for (ArrayDeque<Node> bucket : buckets) {
+				if (!bucket.isEmpty()) return bucket.peekFirst().task;
+			}
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int remainingCapacity() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			return capacity - count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (o == null) return false;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			return removeFromBuckets(o) != null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o == null) return false;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			for (ArrayDeque<Node> bucket : buckets) {
+				for (Node node : bucket) {
+					if (o.equals(node.task)) return true;
+				}
+			}
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super Runnable> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super Runnable> c, int maxElements) {
+		if (c == null) throw new NullPointerException();
+		if (c == this) throw new IllegalArgumentException();
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			int n = Math.min(maxElements, count);
+			for (int i = 0; i < n; i++) {
+				c.add(dequeue());
+			}
+			return n;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns iterator over snapshot of queue. Tasks are iterated in order they would be taken from queue. */
+	@Override
+	public Iterator<Runnable> iterator() {
+		final List<Runnable> snapshot;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			snapshot = new ArrayList<Runnable>(count);
+			for (ArrayDeque<Node> bucket : buckets) {
+				for (Node node : bucket) {
+					snapshot.add(node.task);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		return new Iterator<Runnable>() {
+			private int next = 0;
+			private Runnable last;
+
+			@Override
+			public boolean hasNext() {
+				return next < snapshot.size();
+			}
+
+			@Override
+			public Runnable next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				last = snapshot.get(next++);
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) throw new IllegalStateException();
+				PriorityTaskQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	/** @return Queued task which should be dropped to admit incoming task; <b>null</b> - if incoming task is rejected */
+	private Node selectVictimFor(Runnable task) {
+		switch (admissionPolicy) {
+			case DROP_OLDEST:
+				Node oldest = null;
+				for (ArrayDeque<Node> bucket : buckets) {
+					Node node = oldestIn(bucket);
+					if (node != null && (oldest == null || node.sequence < oldest.sequence)) {
+						oldest = node;
+					}
+				}
+				return oldest;
+			case DROP_NOT_VISIBLE:
+				int incomingPriority = priorityOf(task).ordinal();
+				for (int i = buckets.length - 1; i > LoadingPriority.VISIBLE.ordinal() && i >= incomingPriority; i--) {
+					Node node = oldestIn(buckets[i]);
+					if (node != null) return node;
+				}
+				return null;
+			case REJECT:
+			default:
+				return null;
+		}
+	}
+
+	private Node oldestIn(ArrayDeque<Node> bucket) {
+		return lifo ? bucket.peekLast() : bucket.peekFirst();
+	}
+
+	private void enqueue(Node node) {
+		ArrayDeque<Node> bucket = buckets[priorityOf(node.task).ordinal()];
+		if (lifo) {
+			bucket.addFirst(node);
+		} else {
+			bucket.addLast(node);
+		}
+	}
+
+	private Runnable dequeue() {
+		for (ArrayDeque<Node> bucket : buckets) {
+			if (!bucket.isEmpty()) {
+				count--;
+				return bucket.pollFirst().task;
+			}
+		}
+		throw new IllegalStateException("Queue is empty, count = " + count);
+	}
+
+	private Node removeFromBuckets(Object task) {
+		for (ArrayDeque<Node> bucket : buckets) {
+			for (Iterator<Node> it = bucket.iterator(); it.hasNext(); ) {
+				Node node = it.next();
+				if (task.equals(node.task)) {
+					it.remove();
+					count--;
+					return node;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void removeNode(Node node) {
+		for (ArrayDeque<Node> bucket : buckets) {
+			if (bucket.removeFirstOccurrence(node)) {
+				count--;
+				return;
+			}
+		}
+	}
+
+	private static LoadingPriority priorityOf(Runnable task) {
+		LoadingPriority priority = null;
+		if (task instanceof Prioritized) {
+			priority = ((Prioritized) task).getPriority();
+		}
+		return priority == null ? DEFAULT_PRIORITY : priority;
+	}
+
+	/** Queued task with its sequence number in order of queueing */
+	private static final class Node {
+		final Runnable task;
+		final long sequence;
+
+		Node(Runnable task, long sequence) {
+			this.task = task;
+			this.sequence = sequence;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist.pool;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of mutable {@link Bitmap Bitmaps} which can be reused for decoding of new images (via
+ * {@link android.graphics.BitmapFactory.Options#inBitmap Options.inBitmap}) instead of allocation of new ones.<br />
+ * Bitmaps are bucketed by {@linkplain Bitmap.Config config} and allocation size. On Android 4.4+ any pooled Bitmap
+ * which is big enough (but not more than {@value #MAX_SIZE_MULTIPLIER} times bigger than needed) can be reused, on
+ * Android 3.0 - 4.3 only Bitmap of exactly the same dimensions can be reused. Pool isn't used on older Android
+ * versions.<br />
+ * Pool size is limited by sum of sizes of pooled Bitmaps. Least recently pooled Bitmaps are recycled when limit is
+ * exceeded.<br />
+ * <br />
+ * <b>NOTE:</b> Bitmap must be put into pool only if nobody uses it anymore (it isn't displayed and isn't cached in
+ * memory).
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class BitmapPool {
+
+	/** {@value} */
+	public static final int MAX_SIZE_MULTIPLIER = 4;
+
+	private final int maxSize;
+	private final Map<Bitmap.Config, TreeMap<Integer, LinkedList<Bitmap>>> buckets =
+			new EnumMap<Bitmap.Config, TreeMap<Integer, LinkedList<Bitmap>>>(Bitmap.Config.class);
+	/** Pooled Bitmaps in order of pooling */
+	private final LinkedHashSet<Bitmap> pooled = new LinkedHashSet<Bitmap>();
+
+	private int size;
+	private int hitCount;
+	private int missCount;
+
+	/** @param maxSize Maximum sum of the sizes of the Bitmaps in this pool */
+	public BitmapPool(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.maxSize = maxSize;
+	}
+
+	/** @return <b>true</b> - if Bitmaps can be reused for decoding on current Android version */
+	public static boolean isReuseSupported() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+	}
+
+	/**
+	 * Puts Bitmap into pool. Bitmap isn't pooled if it's recycled, immutable or too big for this pool.
+	 *
+	 * @return <b>true</b> - if Bitmap was pooled; <b>false</b> - otherwise (Bitmap isn't changed)
+	 */
+	public boolean put(Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() == null
+				|| !isReuseSupported()) {
+			return false;
+		}
+		int bitmapSize = sizeOf(bitmap);
+		if (bitmapSize <= 0 || bitmapSize > maxSize) return false;
+
+		synchronized (this) {
+			if (!pooled.add(bitmap)) return true;
+
+			TreeMap<Integer, LinkedList<Bitmap>> sizes = buckets.get(bitmap.getConfig());
+			if (sizes == null) {
+				sizes = new TreeMap<Integer, LinkedList<Bitmap>>();
+				buckets.put(bitmap.getConfig(), sizes);
+			}
+			LinkedList<Bitmap> bucket = sizes.get(bitmapSize);
+			if (bucket == null) {
+				bucket = new LinkedList<Bitmap>();
+				sizes.put(bitmapSize, bucket);
+			}
+			bucket.addLast(bitmap);
+			size += bitmapSize;
+
+			trimToSize(maxSize);
+		}
+		return true;
+	}
+
+	/**
+	 * Takes Bitmap which can be reused for decoding of image of incoming dimensions.
+	 *
+	 * @param width  Width of decoded image (width of source image scaled down by sample size)
+	 * @param height Height of decoded image
+	 * @param config Config of decoded image
+	 * @return Bitmap removed from pool or <b>null</b> if pool has no suitable Bitmap
+	 */
+	public Bitmap get(int width, int height, Bitmap.Config config) {
+		if (width <= 0 || height <= 0 || config == null || !isReuseSupported()) return null;
+
+		int neededSize = width * height * getBytesPerPixel(config);
+		synchronized (this) {
+			TreeMap<Integer, LinkedList<Bitmap>> sizes = buckets.get(config);
+			Bitmap result = null;
+			if (sizes != null) {
+				if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+					Map.Entry<Integer, LinkedList<Bitmap>> entry = sizes.ceilingEntry(neededSize);
+					if (entry != null && entry.getKey() <= neededSize * MAX_SIZE_MULTIPLIER) {
+						result = entry.getValue().removeLast();
+					}
+				} else {
+					result = removeSameSized(sizes.get(neededSize), width, height);
+				}
+			}
+
+			if (result == null) {
+				missCount++;
+				return null;
+			}
+			hitCount++;
+			pooled.remove(result);
+			int resultSize = sizeOf(result);
+			size -= resultSize;
+			removeBucketIfEmpty(sizes, resultSize);
+			return result;
+		}
+	}
+
+	/** Recycles all pooled Bitmaps */
+	public void clear() {
+		trimToSize(0);
+	}
+
+	/** Recycles least recently pooled Bitmaps until sum of sizes of pooled Bitmaps is not bigger than incoming size */
+	public synchronized void trimToSize(int maxSize) {
+		Iterator<Bitmap> iterator = pooled.iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			Bitmap bitmap = iterator.next();
+			iterator.remove();
+
+			int bitmapSize = sizeOf(bitmap);
+			TreeMap<Integer, LinkedList<Bitmap>> sizes = buckets.get(bitmap.getConfig());
+			sizes.get(bitmapSize).remove(bitmap);
+			removeBucketIfEmpty(sizes, bitmapSize);
+			size -= bitmapSize;
+			bitmap.recycle();
+		}
+	}
+
+	/** @return Sum of the sizes of the Bitmaps in this pool */
+	public synchronized int size() {
+		return size;
+	}
+
+	/** @return Maximum sum of the sizes of the Bitmaps in this pool */
+	public int maxSize() {
+		return maxSize;
+	}
+
+	/** @return Number of {@link #get(int, int, Bitmap.Config)} calls which returned pooled Bitmap */
+	public synchronized int hitCount() {
+		return hitCount;
+	}
+
+	/** @return Number of {@link #get(int, int, Bitmap.Config)} calls which returned <b>null</b> */
+	public synchronized int missCount() {
+		return missCount;
+	}
+
+	private static Bitmap removeSameSized(LinkedList<Bitmap> bucket, int width, int height) {
+		if (bucket == null) return null;
+
+		Iterator<Bitmap> iterator = bucket.descendingIterator();
+		while (iterator.hasNext()) {
+			Bitmap bitmap = iterator.next();
+			if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+				iterator.remove();
+				return bitmap;
+			}
+		}
+		return null;
+	}
+
+	private static void removeBucketIfEmpty(TreeMap<Integer, LinkedList<Bitmap>> sizes, int bitmapSize) {
+		LinkedList<Bitmap> bucket = sizes.get(bitmapSize);
+		if (bucket != null && bucket.isEmpty()) {
+			sizes.remove(bitmapSize);
+		}
+	}
+
+	/** Returns the size of memory allocated for {@code Bitmap} in bytes. */
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	private static int sizeOf(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			return bitmap.getAllocationByteCount();
+		}
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	private static int getBytesPerPixel(Bitmap.Config config) {
+		switch (config) {
+			case ALPHA_8:
+				return 1;
+			case RGB_565:
+			case ARGB_4444:
+				return 2;
+			case ARGB_8888:
+			default:
+				return 4;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BitmapPool[maxSize=%d,size=%d,hits=%d,misses=%d]", maxSize, size(), hitCount(),
+				missCount());
+	}
+}
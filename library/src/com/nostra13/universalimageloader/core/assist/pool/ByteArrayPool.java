@@ -32,6 +32,13 @@ public class ByteArrayPool {
         }
     }
 
+    /** Drops pooled buffers until pool holds not more than incoming number of buffers */
+    public static synchronized void trimToSize(int maxCount) {
+        while (queue.size() > maxCount) {
+            queue.poll();
+        }
+    }
+
     public static synchronized void clear() {
         queue.clear();
     }
@@ -50,17 +50,22 @@ public class SizedByteArrayPool {
         mBuffersBySize.add(pos, buf);
         mCurrentSize += buf.length;
         //Arrays.fill(byteArray, (byte) 0);
-        trim();
+        trimToSize(mSizeLimit);
     }
 
-    private static synchronized void trim() {
-        while (mCurrentSize > mSizeLimit) {
+    /** Removes least recently used buffers until sum size of pooled buffers is not bigger than incoming size */
+    public static synchronized void trimToSize(int maxSize) {
+        while (mCurrentSize > maxSize && !mBuffersByLastUse.isEmpty()) {
             byte[] buf = mBuffersByLastUse.remove(0);
             mBuffersBySize.remove(buf);
             mCurrentSize -= buf.length;
         }
     }
 
+    public static synchronized int getSizeLimit() {
+        return mSizeLimit;
+    }
+
     public static synchronized void clear() {
         mBuffersByLastUse.clear();
         mBuffersBySize.clear();
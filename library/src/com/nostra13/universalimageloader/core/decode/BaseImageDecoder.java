@@ -15,13 +15,16 @@
  *******************************************************************************/
 package com.nostra13.universalimageloader.core.decode;
 
+import android.annotation.TargetApi;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.BitmapFactory.Options;
+import android.os.Build;
 
 import com.nostra13.universalimageloader.core.DisplayImageOptions;
 import com.nostra13.universalimageloader.core.assist.ImageScaleType;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
 import com.nostra13.universalimageloader.core.assist.pool.ByteArrayPool;
 import com.nostra13.universalimageloader.utils.ImageSizeUtils;
 import com.nostra13.universalimageloader.utils.IoUtils;
@@ -31,7 +34,8 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * Decodes images to {@link Bitmap}, scales them to needed size
+ * Decodes images to {@link Bitmap}, scales them to needed size. Decoded images reuse memory of
+ * {@linkplain BitmapPool pooled} Bitmaps if pool is set.
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @see ImageDecodingInfo
@@ -43,9 +47,12 @@ public class BaseImageDecoder implements ImageDecoder {
 	protected static final String LOG_SCALE_IMAGE = "Scale subsampled image (%1$s) to %2$s (scale = %3$.5f) [%4$s]";
 	protected static final String LOG_ROTATE_IMAGE = "Rotate image on %1$d\u00B0 [%2$s]";
 	protected static final String LOG_FLIP_IMAGE = "Flip image horizontally [%s]";
+	protected static final String LOG_REUSE_BITMAP = "Reuse pooled bitmap (%1$dx%2$d) for image [%3$s]";
 	protected static final String ERROR_CANT_DECODE_IMAGE = "Image can't be decoded [%s]";
+	protected static final String WARNING_CANT_REUSE_BITMAP = "Pooled bitmap can't be reused for image [%s]";
 
 	protected final boolean loggingEnabled;
+	protected final BitmapPool bitmapPool;
 
 	/**
 	 * @param loggingEnabled Whether debug logs will be written to LogCat. Usually should match {@link
@@ -53,12 +60,26 @@ public class BaseImageDecoder implements ImageDecoder {
 	 *                       ImageLoaderConfiguration.writeDebugLogs()}
 	 */
 	public BaseImageDecoder(boolean loggingEnabled) {
+		this(loggingEnabled, null);
+	}
+
+	/**
+	 * @param loggingEnabled Whether debug logs will be written to LogCat. Usually should match {@link
+	 *                       com.nostra13.universalimageloader.core.ImageLoaderConfiguration.Builder#writeDebugLogs()
+	 *                       ImageLoaderConfiguration.writeDebugLogs()}
+	 * @param bitmapPool     Pool of Bitmaps which are reused for decoding and which {@linkplain #release(Bitmap,
+	 *                       DisplayImageOptions) released} Bitmaps are returned to. Can be <b>null</b> - then Bitmaps
+	 *                       aren't reused.
+	 */
+	public BaseImageDecoder(boolean loggingEnabled, BitmapPool bitmapPool) {
 		this.loggingEnabled = loggingEnabled;
+		this.bitmapPool = bitmapPool;
 	}
 
 	/**
 	 * Decodes image from URI into {@link Bitmap}. Image is scaled close to incoming {@linkplain ImageSize target size}
-	 * during decoding (depend on incoming parameters).
+	 * during decoding (depend on incoming parameters). Image bounds aren't decoded if
+	 * {@linkplain ImageDecodingInfo#getSourceSize() source size} is known already.
 	 *
 	 * @param decodingInfo Needed data for decoding image
 	 * @return Decoded bitmap
@@ -71,12 +92,30 @@ public class BaseImageDecoder implements ImageDecoder {
 
         try {
             InputStream imageStream = getImageStream(decodingInfo);
-            ImageFileInfo imageInfo = defineImageSizeAndRotation(imageStream, decodingInfo);
-            Options decodingOptions = prepareDecodingOptions(imageInfo.imageSize, decodingInfo);
-            imageStream = resetStream(imageStream, decodingInfo);
-            Bitmap decodedBitmap = decodeStream(imageStream, decodingOptions);
+            ImageSize imageSize = decodingInfo.getSourceSize();
+            if (imageSize == null) {
+                ImageFileInfo imageInfo = defineImageSizeAndRotation(imageStream, decodingInfo);
+                imageSize = imageInfo.imageSize;
+                if (imageSize.getWidth() > 0 && imageSize.getHeight() > 0) {
+                    decodingInfo.setSourceSize(imageSize);
+                }
+                imageStream = resetStream(imageStream, decodingInfo);
+            }
+            Options decodingOptions = prepareDecodingOptions(imageSize, decodingInfo);
+            Bitmap decodedBitmap;
+            try {
+                decodedBitmap = decodeStream(imageStream, decodingOptions);
+            } catch (IllegalArgumentException e) {
+                // Pooled bitmap doesn't fit actual decoded image (e.g. image format doesn't support reuse)
+                if (decodingOptions.inBitmap == null) throw e;
+                L.w(WARNING_CANT_REUSE_BITMAP, decodingInfo.getImageKey());
+                release(decodingOptions.inBitmap, null);
+                decodingOptions.inBitmap = null;
+                decodedBitmap = decodeStream(getImageStream(decodingInfo), decodingOptions);
+            }
             if (decodedBitmap == null) {
                 L.e(ERROR_CANT_DECODE_IMAGE, decodingInfo.getImageKey());
+                release(decodingOptions.inBitmap, null);
             }
 //            } else {
 //                decodedBitmap = considerExactScaleAndOrientaiton(decodedBitmap, decodingInfo, imageInfo.exif.rotation, imageInfo.exif.flipHorizontal);
@@ -170,9 +209,41 @@ public class BaseImageDecoder implements ImageDecoder {
 
 		Options decodingOptions = decodingInfo.getDecodingOptions();
 		decodingOptions.inSampleSize = scale;
+		if (bitmapPool != null && BitmapPool.isReuseSupported()) {
+			prepareBitmapForReuse(imageSize, scale, decodingInfo);
+		}
 		return decodingOptions;
 	}
 
+	/**
+	 * Takes Bitmap from pool which decoded image can be placed into. Bitmap can be reused only if it isn't smaller than
+	 * decoded image on Android 4.4+ or if it has the same size as not subsampled image on older Android versions.
+	 * Decoded image becomes mutable so it can be pooled later.
+	 */
+	@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+	protected void prepareBitmapForReuse(ImageSize imageSize, int scale, ImageDecodingInfo decodingInfo) {
+		Options decodingOptions = decodingInfo.getDecodingOptions();
+		if (decodingOptions.inPurgeable || decodingOptions.inBitmap != null) return;
+
+		decodingOptions.inMutable = true;
+		if (scale > 1 && Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) return;
+
+		// Decoder rounds subsampled dimensions differently for different formats so bigger ones are expected
+		int width = (imageSize.getWidth() + scale - 1) / scale;
+		int height = (imageSize.getHeight() + scale - 1) / scale;
+		Bitmap.Config config = decodingOptions.inPreferredConfig;
+		if (config == null) {
+			config = Bitmap.Config.ARGB_8888;
+		}
+		Bitmap reusedBitmap = bitmapPool.get(width, height, config);
+		if (reusedBitmap != null) {
+			decodingOptions.inBitmap = reusedBitmap;
+			if (loggingEnabled) {
+				L.d(LOG_REUSE_BITMAP, reusedBitmap.getWidth(), reusedBitmap.getHeight(), decodingInfo.getImageKey());
+			}
+		}
+	}
+
 	protected InputStream resetStream(InputStream imageStream, ImageDecodingInfo decodingInfo) throws IOException {
 		try {
 			imageStream.reset();
@@ -191,10 +262,16 @@ public class BaseImageDecoder implements ImageDecoder {
 		}
 	}
 
-    @Override
-    public void release(Bitmap bitmap, DisplayImageOptions options) {
-
-    }
+	/**
+	 * Returns Bitmap into {@linkplain BitmapPool pool} (if pool is set) so it can be reused for decoding of other
+	 * images. Bitmap mustn't be used by caller after releasing.
+	 */
+	@Override
+	public void release(Bitmap bitmap, DisplayImageOptions options) {
+		if (bitmap != null && bitmapPool != null) {
+			bitmapPool.put(bitmap);
+		}
+	}
 
     //	protected Bitmap considerExactScaleAndOrientaiton(Bitmap subsampledBitmap, ImageDecodingInfo decodingInfo,
 //													  int rotation, boolean flipHorizontal) {
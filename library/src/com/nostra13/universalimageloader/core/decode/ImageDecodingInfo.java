@@ -47,6 +47,8 @@ public class ImageDecodingInfo {
 	private final boolean considerExifParams;
 	private final Options decodingOptions;
 
+	private ImageSize sourceSize;
+
 	public ImageDecodingInfo(String imageKey, String imageUri, String originalImageUri, ImageSize targetSize, ViewScaleType viewScaleType,
 							 ImageDownloader downloader, DisplayImageOptions displayOptions) {
 		this.imageKey = imageKey;
@@ -147,4 +149,20 @@ public class ImageDecodingInfo {
 	public Options getDecodingOptions() {
 		return decodingOptions;
 	}
+
+	/**
+	 * @return Size of source image if it's known already (e.g. it was defined during decoding of the same image for
+	 * another target size); <b>null</b> - otherwise
+	 */
+	public ImageSize getSourceSize() {
+		return sourceSize;
+	}
+
+	/**
+	 * Sets known size of source image. Decoder can skip decoding of image bounds then. Decoder also sets source size
+	 * itself after it was defined so it can be reused for decoding of the same image.
+	 */
+	public void setSourceSize(ImageSize sourceSize) {
+		this.sourceSize = sourceSize;
+	}
 }
\ No newline at end of file
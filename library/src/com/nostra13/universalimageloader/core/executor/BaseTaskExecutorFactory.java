@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.executor;
+
+import com.nostra13.universalimageloader.core.DefaultConfigurationFactory;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
+import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Default implementation of {@link TaskExecutorFactory}. Creates fixed-size pools of platform threads with
+ * {@linkplain com.nostra13.universalimageloader.core.assist.deque.PriorityTaskQueue priority task queues}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class BaseTaskExecutorFactory implements TaskExecutorFactory {
+
+	@Override
+	public Executor createNetworkExecutor(int threadPoolSize, int threadPriority,
+			QueueProcessingType tasksProcessingType, int maxQueuedTasks, QueueAdmissionPolicy admissionPolicy) {
+		return DefaultConfigurationFactory.createNetworkLoadExecutor(threadPoolSize, threadPriority,
+				tasksProcessingType, maxQueuedTasks, admissionPolicy);
+	}
+
+	@Override
+	public Executor createDecodingExecutor(int threadPoolSize, int threadPriority,
+			QueueProcessingType tasksProcessingType) {
+		return DefaultConfigurationFactory.createExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+	}
+
+	@Override
+	public Executor createProcessingExecutor(int threadPoolSize, int threadPriority,
+			QueueProcessingType tasksProcessingType) {
+		return DefaultConfigurationFactory.createExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+	}
+
+	@Override
+	public Executor createPreloadExecutor(int threadPoolSize, int threadPriority,
+			QueueProcessingType tasksProcessingType) {
+		return DefaultConfigurationFactory.createExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+	}
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.executor;
+
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
+import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Creates task executors for {@link com.nostra13.universalimageloader.core.ImageLoader ImageLoader}'s tasks. Executors
+ * are created on configuration building and they are re-created after
+ * {@linkplain com.nostra13.universalimageloader.core.ImageLoader#stop() stop} if they were shut down.<br />
+ * Executors should be {@link java.util.concurrent.ExecutorService ExecutorService}s so ImageLoader can shut them
+ * down. Implementations have to be thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see BaseTaskExecutorFactory
+ * @see VirtualThreadTaskExecutorFactory
+ * @since 1.9.2
+ */
+public interface TaskExecutorFactory {
+
+	/**
+	 * Creates executor for tasks which load images from the network (and other sources which aren't cached on disk).
+	 *
+	 * @param threadPoolSize      Configured thread pool size
+	 * @param threadPriority      Configured thread priority
+	 * @param tasksProcessingType Configured order of processing of tasks of equal priority
+	 * @param maxQueuedTasks      Configured max number of queued tasks; <b>0</b> - unlimited
+	 * @param admissionPolicy     Defines what to do with incoming task if queue is full
+	 */
+	Executor createNetworkExecutor(int threadPoolSize, int threadPriority, QueueProcessingType tasksProcessingType,
+			int maxQueuedTasks, QueueAdmissionPolicy admissionPolicy);
+
+	/**
+	 * Creates executor for tasks which decode images cached on disk. These tasks are mostly CPU-bound.
+	 *
+	 * @param threadPoolSize      Configured thread pool size
+	 * @param threadPriority      Configured thread priority
+	 * @param tasksProcessingType Configured order of processing of tasks of equal priority
+	 */
+	Executor createDecodingExecutor(int threadPoolSize, int threadPriority, QueueProcessingType tasksProcessingType);
+
+	/**
+	 * Creates executor for tasks which pre-process, cache in memory and post-process decoded images. These tasks are
+	 * CPU-bound.
+	 *
+	 * @param threadPoolSize      Configured thread pool size for processing
+	 * @param threadPriority      Configured thread priority
+	 * @param tasksProcessingType Configured order of processing of tasks of equal priority
+	 */
+	Executor createProcessingExecutor(int threadPoolSize, int threadPriority, QueueProcessingType tasksProcessingType);
+
+	/**
+	 * Creates executor for tasks which preload images on disk.
+	 *
+	 * @param threadPoolSize      Configured thread pool size for preloading
+	 * @param threadPriority      Configured thread priority for preloading
+	 * @param tasksProcessingType Configured order of processing of tasks of equal priority
+	 */
+	Executor createPreloadExecutor(int threadPoolSize, int threadPriority, QueueProcessingType tasksProcessingType);
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.executor;
+
+import com.nostra13.universalimageloader.core.DefaultConfigurationFactory;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
+import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
+import com.nostra13.universalimageloader.utils.L;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link TaskExecutorFactory} for JVM hosts which support virtual threads (Java 21+). Network tasks (and preload
+ * tasks) run on virtual threads so thousands of concurrent downloads don't need thousands of OS threads. Decoding
+ * tasks are CPU-bound so they still run on {@linkplain BaseTaskExecutorFactory bounded pool} of platform threads.<br />
+ * Number of concurrently running network tasks is limited by <b>maxConcurrentTasks</b>, other tasks wait in
+ * {@linkplain com.nostra13.universalimageloader.core.assist.deque.PriorityTaskQueue priority queue}. So task
+ * priorities and {@linkplain QueueAdmissionPolicy network queue limit} work as for platform thread pool, and while
+ * engine is paused only running tasks wait for resume, queued tasks stay in queue.<br />
+ * If virtual threads aren't supported (e.g. on Android) then this factory works as {@link BaseTaskExecutorFactory}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class VirtualThreadTaskExecutorFactory extends BaseTaskExecutorFactory {
+
+	/** Default max number of concurrently running network tasks */
+	public static final int DEFAULT_MAX_CONCURRENT_TASKS = 256;
+
+	private static final String WARNING_NOT_SUPPORTED = "Virtual threads aren't supported. Platform thread pool is used.";
+	private static final String THREAD_NAME_PREFIX = "uil-vt-";
+	private static final String PRELOAD_THREAD_NAME_PREFIX = "uil-vt-preload-";
+
+	private static final Method THREAD_OF_VIRTUAL = findMethod(Thread.class.getName(), "ofVirtual");
+	private static final Method THREAD_BUILDER_NAME = findMethod("java.lang.Thread$Builder", "name", String.class,
+			long.class);
+	private static final Method THREAD_BUILDER_FACTORY = findMethod("java.lang.Thread$Builder", "factory");
+
+	private final int maxConcurrentTasks;
+
+	/** @return <b>true</b> - if virtual threads are supported by current runtime; <b>false</b> - otherwise */
+	public static boolean isSupported() {
+		return THREAD_OF_VIRTUAL != null && THREAD_BUILDER_NAME != null && THREAD_BUILDER_FACTORY != null;
+	}
+
+	public VirtualThreadTaskExecutorFactory() {
+		this(DEFAULT_MAX_CONCURRENT_TASKS);
+	}
+
+	/** @param maxConcurrentTasks Max number of concurrently running network tasks (and preload tasks) */
+	public VirtualThreadTaskExecutorFactory(int maxConcurrentTasks) {
+		if (maxConcurrentTasks <= 0) throw new IllegalArgumentException("maxConcurrentTasks must be positive number");
+		this.maxConcurrentTasks = maxConcurrentTasks;
+	}
+
+	@Override
+	public Executor createNetworkExecutor(int threadPoolSize, int threadPriority,
+			QueueProcessingType tasksProcessingType, int maxQueuedTasks, QueueAdmissionPolicy admissionPolicy) {
+		ThreadFactory threadFactory = createThreadFactory(THREAD_NAME_PREFIX);
+		if (threadFactory == null) {
+			return super.createNetworkExecutor(threadPoolSize, threadPriority, tasksProcessingType, maxQueuedTasks,
+					admissionPolicy);
+		}
+		return DefaultConfigurationFactory.createNetworkLoadExecutor(maxConcurrentTasks, threadFactory,
+				tasksProcessingType, maxQueuedTasks, admissionPolicy);
+	}
+
+	@Override
+	public Executor createPreloadExecutor(int threadPoolSize, int threadPriority,
+			QueueProcessingType tasksProcessingType) {
+		ThreadFactory threadFactory = createThreadFactory(PRELOAD_THREAD_NAME_PREFIX);
+		if (threadFactory == null) {
+			return super.createPreloadExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+		}
+		return DefaultConfigurationFactory.createNetworkLoadExecutor(maxConcurrentTasks, threadFactory,
+				tasksProcessingType, 0, null);
+	}
+
+	/**
+	 * Creates factory of threads for network and preload tasks.
+	 *
+	 * @return Factory of virtual threads; <b>null</b> - if virtual threads aren't supported (platform thread pool is
+	 * used then)
+	 */
+	protected ThreadFactory createThreadFactory(String threadNamePrefix) {
+		if (!isSupported()) {
+			L.w(WARNING_NOT_SUPPORTED);
+			return null;
+		}
+		try {
+			Object builder = THREAD_OF_VIRTUAL.invoke(null);
+			builder = THREAD_BUILDER_NAME.invoke(builder, threadNamePrefix, 1L);
+			return (ThreadFactory) THREAD_BUILDER_FACTORY.invoke(builder);
+		} catch (Exception e) {
+			L.e(e);
+			return null;
+		}
+	}
+
+	private static Method findMethod(String className, String methodName, Class<?>... parameterTypes) {
+		try {
+			return Class.forName(className).getMethod(methodName, parameterTypes);
+		} catch (ClassNotFoundException e) {
+			return null;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright 2011-2013 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.listener;
+
+import android.os.SystemClock;
+import android.widget.AbsListView;
+import android.widget.AbsListView.OnScrollListener;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.core.DisplayImageOptions;
+import com.nostra13.universalimageloader.core.ImageLoader;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Listener-helper for {@linkplain AbsListView list views} which keeps images of items ahead of scroll direction warm
+ * instead of {@linkplain PauseOnScrollListener pausing} ImageLoader. Nearest items of prefetch window are
+ * {@linkplain ImageLoader#loadImage(String, ImageSize, DisplayImageOptions, ImageLoadingListener) loaded into memory}
+ * with {@link LoadingPriority#PREFETCH} priority, the rest of window is
+ * {@linkplain ImageLoader#preloadImage(String, DisplayImageOptions, ImageLoadingListener) preloaded on disk} (if
+ * preload is enabled in configuration).<br />
+ * Window size adapts to scroll velocity (faster scroll - wider window) and to hit rate of memory cache for items which
+ * come into view (low hit rate - wider window, high hit rate - narrower window).<br />
+ * Set it to your list view's {@link AbsListView#setOnScrollListener(OnScrollListener) setOnScrollListener(...)}. This
+ * listener can wrap your custom {@linkplain OnScrollListener listener}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.2
+ */
+public class PrefetchOnScrollListener implements OnScrollListener {
+
+	/** {@value} */
+	public static final int DEFAULT_MIN_WINDOW_SIZE = 4;
+	/** {@value} */
+	public static final int DEFAULT_MAX_WINDOW_SIZE = 40;
+	/** {@value} */
+	public static final int DEFAULT_MAX_ITEMS_IN_MEMORY = 6;
+
+	/** How far ahead (in milliseconds of scrolling) window should cover */
+	private static final long LOOKAHEAD_TIME = 1000;
+	/** Weight of new measurement in smoothed velocity and hit rate */
+	private static final float SMOOTHING = 0.3f;
+	/** Hit rate which window size is adjusted to */
+	private static final float TARGET_HIT_RATE = 0.9f;
+	private static final float MIN_HIT_RATE_FACTOR = 0.5f;
+	private static final float MAX_HIT_RATE_FACTOR = 2f;
+
+	private final ImageLoader imageLoader;
+	private final DisplayImageOptions options;
+	private final ImageSize targetSize;
+	private final int minWindowSize;
+	private final int maxWindowSize;
+	private final int maxItemsInMemory;
+	private final OnScrollListener externalListener;
+
+	private List<String> imageUris = Collections.emptyList();
+	/** URIs which were prefetched recently. Bounded by double max window size. */
+	private final Set<String> prefetchedUris = new LinkedHashSet<String>();
+
+	private int lastFirstVisibleItem = -1;
+	private int lastLastVisibleItem = -1;
+	private long lastScrollTime;
+	private boolean scrollingDown = true;
+	private float velocity; // items per second
+	private float hitRate = 1f;
+	private float hitRateFactor = 1f;
+	private int windowSize;
+
+	/**
+	 * @param imageLoader {@linkplain ImageLoader} instance for prefetching
+	 * @param imageUris   Image URIs of list items (in order of adapter positions)
+	 * @param options     Options for prefetching images into memory. Should be the same as options for displaying
+	 *                    images in list items.
+	 * @param targetSize  Size of list item's image view
+	 */
+	public PrefetchOnScrollListener(ImageLoader imageLoader, List<String> imageUris, DisplayImageOptions options,
+			ImageSize targetSize) {
+		this(imageLoader, imageUris, options, targetSize, DEFAULT_MIN_WINDOW_SIZE, DEFAULT_MAX_WINDOW_SIZE,
+				DEFAULT_MAX_ITEMS_IN_MEMORY, null);
+	}
+
+	/**
+	 * @param imageLoader      {@linkplain ImageLoader} instance for prefetching
+	 * @param imageUris        Image URIs of list items (in order of adapter positions)
+	 * @param options          Options for prefetching images into memory. Should be the same as options for
+	 *                         displaying images in list items.
+	 * @param targetSize       Size of list item's image view
+	 * @param minWindowSize    Min number of items which are prefetched ahead of scroll direction
+	 * @param maxWindowSize    Max number of items which are prefetched ahead of scroll direction
+	 * @param maxItemsInMemory Max number of nearest window items which are decoded into memory. Other window items are
+	 *                         preloaded on disk only.
+	 * @param customListener   Your custom {@link OnScrollListener} for {@linkplain AbsListView list view} which also
+	 *                         will be get scroll events
+	 */
+	public PrefetchOnScrollListener(ImageLoader imageLoader, List<String> imageUris, DisplayImageOptions options,
+			ImageSize targetSize, int minWindowSize, int maxWindowSize, int maxItemsInMemory,
+			OnScrollListener customListener) {
+		if (minWindowSize < 0 || maxWindowSize < minWindowSize) {
+			throw new IllegalArgumentException("Wrong window size bounds: " + minWindowSize + ", " + maxWindowSize);
+		}
+		this.imageLoader = imageLoader;
+		this.options = new DisplayImageOptions.Builder().cloneFrom(options).priority(LoadingPriority.PREFETCH)
+				.build();
+		this.targetSize = targetSize;
+		this.minWindowSize = minWindowSize;
+		this.maxWindowSize = maxWindowSize;
+		this.maxItemsInMemory = maxItemsInMemory;
+		this.externalListener = customListener;
+		this.windowSize = minWindowSize;
+		setImageUris(imageUris);
+	}
+
+	/** Sets image URIs of list items. Should be called when adapter data is changed. */
+	public void setImageUris(List<String> imageUris) {
+		this.imageUris = imageUris == null ? Collections.<String>emptyList() : imageUris;
+		prefetchedUris.clear();
+	}
+
+	/** @return Current size of prefetch window (in items) */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/** @return Smoothed hit rate of memory cache for items which came into view */
+	public float getHitRate() {
+		return hitRate;
+	}
+
+	/** @return Smoothed scroll velocity (in items per second) */
+	public float getVelocity() {
+		return velocity;
+	}
+
+	@Override
+	public void onScrollStateChanged(AbsListView view, int scrollState) {
+		if (scrollState == OnScrollListener.SCROLL_STATE_IDLE) {
+			velocity = 0;
+			updateWindowSize();
+			prefetch(lastFirstVisibleItem, lastLastVisibleItem);
+		}
+		if (externalListener != null) {
+			externalListener.onScrollStateChanged(view, scrollState);
+		}
+	}
+
+	@Override
+	public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+		if (visibleItemCount > 0) {
+			onVisibleRangeChanged(firstVisibleItem, firstVisibleItem + visibleItemCount - 1);
+		}
+		if (externalListener != null) {
+			externalListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+		}
+	}
+
+	private void onVisibleRangeChanged(int firstVisibleItem, int lastVisibleItem) {
+		if (firstVisibleItem == lastFirstVisibleItem && lastVisibleItem == lastLastVisibleItem) return;
+
+		long now = SystemClock.uptimeMillis();
+		if (lastFirstVisibleItem >= 0) {
+			int shift = firstVisibleItem - lastFirstVisibleItem;
+			if (shift != 0) {
+				scrollingDown = shift > 0;
+			}
+			long elapsed = Math.max(now - lastScrollTime, 1);
+			float currentVelocity = Math.abs(shift) * 1000f / elapsed;
+			velocity += SMOOTHING * (currentVelocity - velocity);
+
+			measureHitRate(firstVisibleItem, lastVisibleItem);
+		}
+		lastFirstVisibleItem = firstVisibleItem;
+		lastLastVisibleItem = lastVisibleItem;
+		lastScrollTime = now;
+
+		updateWindowSize();
+		prefetch(firstVisibleItem, lastVisibleItem);
+	}
+
+	/**
+	 * Checks whether images of items which came into view are in memory cache already. Cached keys are found by
+	 * {@linkplain MemoryCache#keysForUri(String) index} so check doesn't iterate over memory cache on UI thread.
+	 */
+	private void measureHitRate(int firstVisibleItem, int lastVisibleItem) {
+		int from;
+		int to;
+		if (scrollingDown) {
+			from = Math.max(lastLastVisibleItem + 1, firstVisibleItem);
+			to = lastVisibleItem;
+		} else {
+			from = firstVisibleItem;
+			to = Math.min(lastFirstVisibleItem - 1, lastVisibleItem);
+		}
+		MemoryCache memoryCache = imageLoader.getMemoryCache();
+		for (int position = from; position <= to; position++) {
+			String uri = getImageUri(position);
+			if (uri == null) continue;
+
+			boolean hit = !memoryCache.keysForUri(uri).isEmpty();
+			hitRate += SMOOTHING * ((hit ? 1f : 0f) - hitRate);
+			if (hitRate < TARGET_HIT_RATE) {
+				hitRateFactor = Math.min(hitRateFactor * 1.25f, MAX_HIT_RATE_FACTOR);
+			} else {
+				hitRateFactor = Math.max(hitRateFactor * 0.95f, MIN_HIT_RATE_FACTOR);
+			}
+		}
+	}
+
+	private void updateWindowSize() {
+		float size = (minWindowSize + velocity * LOOKAHEAD_TIME / 1000f) * hitRateFactor;
+		windowSize = Math.max(minWindowSize, Math.min(maxWindowSize, Math.round(size)));
+	}
+
+	private void prefetch(int firstVisibleItem, int lastVisibleItem) {
+		if (firstVisibleItem < 0) return;
+
+		for (int i = 1; i <= windowSize; i++) {
+			int position = scrollingDown ? lastVisibleItem + i : firstVisibleItem - i;
+			String uri = getImageUri(position);
+			if (uri == null) {
+				if (position < 0 || position >= imageUris.size()) break;
+				continue;
+			}
+			if (!prefetchedUris.add(uri)) continue;
+			trimPrefetchedUris();
+
+			if (i <= maxItemsInMemory && options.isCacheInMemory()) {
+				imageLoader.loadImage(uri, targetSize, options, null);
+			} else {
+				imageLoader.preloadImage(uri, options, null);
+			}
+		}
+	}
+
+	private void trimPrefetchedUris() {
+		int maxSize = maxWindowSize * 2;
+		while (prefetchedUris.size() > maxSize) {
+			prefetchedUris.remove(prefetchedUris.iterator().next());
+		}
+	}
+
+	private String getImageUri(int position) {
+		if (position < 0 || position >= imageUris.size()) return null;
+		return imageUris.get(position);
+	}
+}
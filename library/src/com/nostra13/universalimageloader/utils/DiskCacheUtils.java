@@ -31,19 +31,24 @@ public final class DiskCacheUtils {
 	private DiskCacheUtils() {
 	}
 
-	/** Returns {@link File} of cached image or <b>null</b> if image was not cached in disk cache */
+	/**
+	 * Returns {@link File} of cached image or <b>null</b> if image was not cached in disk cache. Disk caches which don't
+	 * store images as separate files (e.g. {@link com.nostra13.universalimageloader.cache.disc.impl.PackedDiscCache})
+	 * always return <b>null</b> here, use {@link DiskCache#contains(String)} and {@link DiskCache#openRead(String)}
+	 * for them.
+	 */
 	public static File findInCache(String imageUri, DiskCache diskCache) {
 		File image = diskCache.get(imageUri);
 		return image != null && image.exists() ? image : null;
 	}
 
 	/**
-	 * Removed cached image file from disk cache (if image was cached in disk cache before)
+	 * Removed cached image from disk cache (if image was cached in disk cache before). Image is removed through
+	 * {@link DiskCache#remove(String)} so disk cache which keeps own index (journal) of images stays consistent.
 	 *
-	 * @return <b>true</b> - if cached image file existed and was deleted; <b>false</b> - otherwise.
+	 * @return <b>true</b> - if cached image existed and was removed; <b>false</b> - otherwise.
 	 */
 	public static boolean removeFromCache(String imageUri, DiskCache diskCache) {
-		File image = diskCache.get(imageUri);
-		return image != null && image.exists() && image.delete();
+		return diskCache.remove(imageUri);
 	}
 }
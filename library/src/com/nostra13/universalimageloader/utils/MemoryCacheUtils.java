@@ -47,6 +47,37 @@ public final class MemoryCacheUtils {
 		return new StringBuilder(imageUri).append(URI_AND_SIZE_SEPARATOR).append(targetSize.getWidth()).append(WIDTH_AND_HEIGHT_SEPARATOR).append(targetSize.getHeight()).toString();
 	}
 
+	/**
+	 * Extracts image URI from memory cache key {@linkplain #generateKey(String, ImageSize) generated} for the image
+	 *
+	 * @return Image URI or <b>null</b> if key has unknown format
+	 */
+	public static String getImageUri(String memoryCacheKey) {
+		int separatorIndex = memoryCacheKey.lastIndexOf(URI_AND_SIZE_SEPARATOR);
+		return separatorIndex < 0 ? null : memoryCacheKey.substring(0, separatorIndex);
+	}
+
+	/**
+	 * Extracts target size from memory cache key {@linkplain #generateKey(String, ImageSize) generated} for the image
+	 *
+	 * @return Target size or <b>null</b> if key has unknown format
+	 */
+	public static ImageSize getTargetSize(String memoryCacheKey) {
+		int separatorIndex = memoryCacheKey.lastIndexOf(URI_AND_SIZE_SEPARATOR);
+		if (separatorIndex < 0) return null;
+
+		String size = memoryCacheKey.substring(separatorIndex + URI_AND_SIZE_SEPARATOR.length());
+		int sizeSeparatorIndex = size.indexOf(WIDTH_AND_HEIGHT_SEPARATOR);
+		if (sizeSeparatorIndex < 0) return null;
+		try {
+			int width = Integer.parseInt(size.substring(0, sizeSeparatorIndex));
+			int height = Integer.parseInt(size.substring(sizeSeparatorIndex + WIDTH_AND_HEIGHT_SEPARATOR.length()));
+			return new ImageSize(width, height);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
 	public static Comparator<String> createFuzzyKeyComparator() {
 		return new Comparator<String>() {
 			@Override
@@ -59,35 +90,32 @@ public final class MemoryCacheUtils {
 	}
 
 	/**
-	 * Searches all bitmaps in memory cache which are corresponded to incoming URI.<br />
+	 * Searches all bitmaps in memory cache which are corresponded to incoming URI. Keys of bitmaps are found by
+	 * {@link MemoryCache#keysForUri(String) index} of memory cache so search time doesn't depend on cache size.<br />
 	 * <b>Note:</b> Memory cache can contain multiple sizes of the same image if only you didn't set
 	 * {@link ImageLoaderConfiguration.Builder#denyCacheImageMultipleSizesInMemory()
 	 * denyCacheImageMultipleSizesInMemory()} option in {@linkplain ImageLoaderConfiguration configuration}
 	 */
 	public static List<Bitmap> findCachedBitmapsForImageUri(String imageUri, MemoryCache memoryCache) {
 		List<Bitmap> values = new ArrayList<>();
-		for (String key : memoryCache.keys()) {
-			if (key.startsWith(imageUri)) {
-				values.add(memoryCache.get(key));
+		for (String key : memoryCache.keysForUri(imageUri)) {
+			Bitmap bitmap = memoryCache.get(key);
+			if (bitmap != null) {
+				values.add(bitmap);
 			}
 		}
 		return values;
 	}
 
 	/**
-	 * Searches all keys in memory cache which are corresponded to incoming URI.<br />
+	 * Searches all keys in memory cache which are corresponded to incoming URI. Keys are found by
+	 * {@link MemoryCache#keysForUri(String) index} of memory cache so search time doesn't depend on cache size.<br />
 	 * <b>Note:</b> Memory cache can contain multiple sizes of the same image if only you didn't set
 	 * {@link ImageLoaderConfiguration.Builder#denyCacheImageMultipleSizesInMemory()
 	 * denyCacheImageMultipleSizesInMemory()} option in {@linkplain ImageLoaderConfiguration configuration}
 	 */
 	public static List<String> findCacheKeysForImageUri(String imageUri, MemoryCache memoryCache) {
-		List<String> values = new ArrayList<>();
-		for (String key : memoryCache.keys()) {
-			if (key.startsWith(imageUri)) {
-				values.add(key);
-			}
-		}
-		return values;
+		return new ArrayList<>(memoryCache.keysForUri(imageUri));
 	}
 
 	/**
@@ -97,13 +125,7 @@ public final class MemoryCacheUtils {
 	 * denyCacheImageMultipleSizesInMemory()} option in {@linkplain ImageLoaderConfiguration configuration}
 	 */
 	public static void removeFromCache(String imageUri, MemoryCache memoryCache) {
-		List<String> keysToRemove = new ArrayList<>();
-		for (String key : memoryCache.keys()) {
-			if (key.startsWith(imageUri)) {
-				keysToRemove.add(key);
-			}
-		}
-		for (String keyToRemove : keysToRemove) {
+		for (String keyToRemove : memoryCache.keysForUri(imageUri)) {
 			memoryCache.remove(keyToRemove);
 		}
 	}
@@ -0,0 +1,168 @@
+package com.nostra13.universalimageloader.cache.disc.impl;
+
+import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import org.fest.assertions.api.Assertions;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class AsyncOpenDiskCacheTest {
+
+	private static final long LOOKUP_TIMEOUT = 100; // milliseconds
+	private static final long OPEN_TIMEOUT = 5000; // milliseconds
+
+	private final Executor executor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			new Thread(command).start();
+		}
+	};
+
+	private File cacheDir;
+	private CountDownLatch openAllowed;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDir = File.createTempFile("async", "cache");
+		cacheDir.delete();
+		cacheDir.mkdirs();
+		openAllowed = new CountDownLatch(1);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		openAllowed.countDown();
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testNegativeTimeoutIsRejected() throws Exception {
+		try {
+			new AsyncOpenDiskCache(cacheDir, new BlockingOpener(), executor, -1);
+			Assert.fail();
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	@Test
+	public void testLookupGivesUpAfterTimeoutWhileCacheIsOpening() throws Exception {
+		AsyncOpenDiskCache cache = new AsyncOpenDiskCache(cacheDir, new BlockingOpener(), executor, LOOKUP_TIMEOUT);
+
+		long start = System.nanoTime();
+		Assertions.assertThat(cache.get("uri")).isNull();
+		Assertions.assertThat(cache.openRead("uri")).isNull();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		Assertions.assertThat(elapsed).isGreaterThanOrEqualTo(LOOKUP_TIMEOUT * 2);
+		Assertions.assertThat(cache.isReady()).isFalse();
+	}
+
+	@Test
+	public void testNonBlockingMethodsDoNotWaitForOpening() throws Exception {
+		AsyncOpenDiskCache cache = new AsyncOpenDiskCache(cacheDir, new BlockingOpener(), executor, 0);
+
+		long start = System.nanoTime();
+		Assertions.assertThat(cache.get("uri")).isNull();
+		Assertions.assertThat(cache.contains("uri")).isFalse();
+		Assertions.assertThat(cache.getDirectory()).isEqualTo(cacheDir);
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		Assertions.assertThat(elapsed).isLessThan(LOOKUP_TIMEOUT);
+	}
+
+	@Test
+	public void testLookupWaitsForOpeningWithinTimeout() throws Exception {
+		AsyncOpenDiskCache cache = new AsyncOpenDiskCache(cacheDir, new BlockingOpener(), executor, OPEN_TIMEOUT);
+		allowOpeningLater();
+
+		File file = cache.get("uri");
+
+		Assertions.assertThat(file).isNotNull();
+		Assertions.assertThat(file.getParentFile()).isEqualTo(cacheDir);
+		Assertions.assertThat(cache.isReady()).isTrue();
+	}
+
+	@Test
+	public void testSaveWaitsForOpening() throws Exception {
+		final AsyncOpenDiskCache cache = new AsyncOpenDiskCache(cacheDir, new BlockingOpener(), executor, 0);
+		final AtomicBoolean saved = new AtomicBoolean();
+		Thread saver = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					saved.set(cache.save("uri", new ByteArrayInputStream(new byte[]{1, 2, 3}), null));
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		saver.start();
+		saver.join(LOOKUP_TIMEOUT);
+		Assertions.assertThat(saver.isAlive()).isTrue();
+
+		openAllowed.countDown();
+		saver.join(OPEN_TIMEOUT);
+
+		Assertions.assertThat(saved.get()).isTrue();
+		InputStream imageStream = cache.openRead("uri");
+		Assertions.assertThat(imageStream).isNotNull();
+		imageStream.close();
+	}
+
+	@Test
+	public void testFailedOpeningIsReportedAsMissingCache() throws Exception {
+		AsyncOpenDiskCache cache = new AsyncOpenDiskCache(cacheDir, new Callable<DiskCache>() {
+			@Override
+			public DiskCache call() throws Exception {
+				throw new IOException("Disk cache can't be opened");
+			}
+		}, executor, OPEN_TIMEOUT);
+
+		Assertions.assertThat(cache.get("uri")).isNull();
+		Assertions.assertThat(cache.isReady()).isTrue();
+		Assertions.assertThat(cache.save("uri", new ByteArrayInputStream(new byte[]{1}), null)).isFalse();
+		Assertions.assertThat(cache.remove("uri")).isFalse();
+		Assertions.assertThat(cache.getDirectory()).isEqualTo(cacheDir);
+		cache.close();
+	}
+
+	private void allowOpeningLater() {
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(LOOKUP_TIMEOUT);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				openAllowed.countDown();
+			}
+		}).start();
+	}
+
+	/** Opens disk cache when opening is allowed by test */
+	private class BlockingOpener implements Callable<DiskCache> {
+		@Override
+		public DiskCache call() throws Exception {
+			openAllowed.await();
+			return new UnlimitedDiscCache(cacheDir);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.nostra13.universalimageloader.cache.disc.impl;
+
+import org.fest.assertions.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class BaseDiscCacheTest {
+
+	private static final long INDEX_TIMEOUT = 5000; // milliseconds
+	private static final int PRESENT_FILES_COUNT = 2000;
+
+	private File cacheDir;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDir = File.createTempFile("base", "cache");
+		cacheDir.delete();
+		cacheDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testPresentFilesAreIndexed() throws Exception {
+		UnlimitedDiscCache cache = new UnlimitedDiscCache(cacheDir);
+		createFile(cache, "uri1");
+		createFile(cache, "uri2");
+		cache = new UnlimitedDiscCache(cacheDir);
+
+		awaitIndexed(cache, "uri1");
+
+		Assertions.assertThat(cache.contains("uri2")).isTrue();
+		Assertions.assertThat(cache.contains("uri3")).isFalse();
+	}
+
+	@Test
+	public void testTempFilesAreNotIndexed() throws Exception {
+		UnlimitedDiscCache cache = new UnlimitedDiscCache(cacheDir);
+		createFile(cache, "uri1");
+		new File(cacheDir, cache.fileNameGenerator.generate("uri2") + ".tmp").createNewFile();
+		cache = new UnlimitedDiscCache(cacheDir);
+
+		awaitIndexed(cache, "uri1");
+
+		Assertions.assertThat(cache.contains("uri2")).isFalse();
+	}
+
+	@Test
+	public void testIndexIsConsistentAfterSaveAndRemove() throws Exception {
+		UnlimitedDiscCache cache = new UnlimitedDiscCache(cacheDir);
+		createFile(cache, "present");
+		cache = new UnlimitedDiscCache(cacheDir);
+		awaitIndexed(cache, "present");
+
+		Assertions.assertThat(save(cache, "uri1")).isTrue();
+		Assertions.assertThat(cache.contains("uri1")).isTrue();
+
+		Assertions.assertThat(cache.remove("uri1")).isTrue();
+		Assertions.assertThat(cache.contains("uri1")).isFalse();
+		Assertions.assertThat(cache.get("uri1").exists()).isFalse();
+
+		Assertions.assertThat(save(cache, "uri1")).isTrue();
+		Assertions.assertThat(cache.contains("uri1")).isTrue();
+	}
+
+	@Test
+	public void testIndexIsConsistentAfterClear() throws Exception {
+		UnlimitedDiscCache cache = new UnlimitedDiscCache(cacheDir);
+		createFile(cache, "present");
+		cache = new UnlimitedDiscCache(cacheDir);
+		awaitIndexed(cache, "present");
+		save(cache, "uri1");
+
+		cache.clear();
+
+		Assertions.assertThat(cache.contains("present")).isFalse();
+		Assertions.assertThat(cache.contains("uri1")).isFalse();
+		Assertions.assertThat(save(cache, "uri2")).isTrue();
+		Assertions.assertThat(cache.contains("uri2")).isTrue();
+	}
+
+	@Test
+	public void testFileRemovedWhileIndexingIsNotIndexed() throws Exception {
+		UnlimitedDiscCache cache = new UnlimitedDiscCache(cacheDir);
+		for (int i = 0; i < PRESENT_FILES_COUNT; i++) {
+			createFile(cache, "uri" + i);
+		}
+		cache = new UnlimitedDiscCache(cacheDir);
+
+		cache.remove("uri0");
+		save(cache, "saved");
+		awaitIndexed(cache, "uri1");
+
+		Assertions.assertThat(cache.contains("uri0")).isFalse();
+		Assertions.assertThat(cache.contains("saved")).isTrue();
+		Assertions.assertThat(cache.contains("uri" + (PRESENT_FILES_COUNT - 1))).isTrue();
+	}
+
+	@Test
+	public void testClearWhileIndexingIsNotUndone() throws Exception {
+		UnlimitedDiscCache cache = new UnlimitedDiscCache(cacheDir);
+		for (int i = 0; i < PRESENT_FILES_COUNT; i++) {
+			createFile(cache, "uri" + i);
+		}
+		cache = new UnlimitedDiscCache(cacheDir);
+
+		cache.clear();
+		save(cache, "saved");
+		awaitIndexed(cache, "saved");
+
+		for (int i = 0; i < PRESENT_FILES_COUNT; i++) {
+			Assertions.assertThat(cache.contains("uri" + i)).isFalse();
+		}
+	}
+
+	private static void awaitIndexed(BaseDiscCache cache, String presentUri) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + INDEX_TIMEOUT;
+		while (!cache.contains(presentUri) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertThat(cache.contains(presentUri)).isTrue();
+	}
+
+	private static void createFile(BaseDiscCache cache, String imageUri) throws IOException {
+		FileOutputStream os = new FileOutputStream(cache.get(imageUri));
+		try {
+			os.write(imageUri.getBytes("UTF-8"));
+		} finally {
+			os.close();
+		}
+	}
+
+	private static boolean save(BaseDiscCache cache, String imageUri) throws IOException {
+		return cache.save(imageUri, new ByteArrayInputStream(imageUri.getBytes("UTF-8")), null);
+	}
+}
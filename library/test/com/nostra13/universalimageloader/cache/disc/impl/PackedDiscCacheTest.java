@@ -0,0 +1,276 @@
+package com.nostra13.universalimageloader.cache.disc.impl;
+
+import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
+import com.nostra13.universalimageloader.utils.DiskCacheUtils;
+import org.fest.assertions.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+public class PackedDiscCacheTest {
+
+	private static final int SEGMENT_SIZE = 1024;
+	private static final int IMAGE_SIZE = 200;
+
+	private File cacheDir;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDir = File.createTempFile("packed", "cache");
+		cacheDir.delete();
+		cacheDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testSavedImageIsRead() throws Exception {
+		PackedDiscCache cache = openCache(0);
+
+		Assertions.assertThat(save(cache, "uri1")).isTrue();
+
+		Assertions.assertThat(cache.contains("uri1")).isTrue();
+		Assertions.assertThat(Arrays.equals(read(cache, "uri1"), image("uri1"))).isTrue();
+		Assertions.assertThat(cache.contains("uri2")).isFalse();
+		Assertions.assertThat(cache.openRead("uri2")).isNull();
+		Assertions.assertThat(cache.get("uri1")).isNull();
+		cache.close();
+	}
+
+	@Test
+	public void testRemovedImageIsNotRead() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		save(cache, "uri1");
+
+		Assertions.assertThat(DiskCacheUtils.removeFromCache("uri1", cache)).isTrue();
+
+		Assertions.assertThat(cache.contains("uri1")).isFalse();
+		Assertions.assertThat(cache.openRead("uri1")).isNull();
+		Assertions.assertThat(cache.remove("uri1")).isFalse();
+		cache.close();
+	}
+
+	@Test
+	public void testImagesAreReadAfterReopen() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		for (int i = 0; i < 20; i++) {
+			save(cache, "uri" + i);
+		}
+		cache.remove("uri3");
+		cache.close();
+
+		cache = openCache(0);
+		for (int i = 0; i < 20; i++) {
+			if (i == 3) {
+				Assertions.assertThat(cache.contains("uri3")).isFalse();
+			} else {
+				Assertions.assertThat(Arrays.equals(read(cache, "uri" + i), image("uri" + i))).isTrue();
+			}
+		}
+		cache.close();
+	}
+
+	@Test
+	public void testImagesAreRecoveredAfterCrash() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		// More writes than checkpoint interval, so part of index is in index log and part is in segments only
+		for (int i = 0; i < 100; i++) {
+			save(cache, "uri" + i);
+		}
+		cache.remove("uri7");
+		// Cache isn't closed
+
+		PackedDiscCache recovered = openCache(0);
+		for (int i = 0; i < 100; i++) {
+			if (i == 7) {
+				Assertions.assertThat(recovered.contains("uri7")).isFalse();
+			} else {
+				Assertions.assertThat(Arrays.equals(read(recovered, "uri" + i), image("uri" + i))).isTrue();
+			}
+		}
+		recovered.close();
+	}
+
+	@Test
+	public void testIndexLogDoesNotGrowWithOverwrites() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		for (int i = 0; i < 3000; i++) {
+			save(cache, "uri" + (i % 10));
+		}
+		// Index log is replaced by snapshot of 10 images from time to time
+		Assertions.assertThat(new File(cacheDir, "index.log").length()).isLessThan(32 * 1024);
+		// Cache isn't closed
+
+		PackedDiscCache recovered = openCache(0);
+		for (int i = 0; i < 10; i++) {
+			Assertions.assertThat(Arrays.equals(read(recovered, "uri" + i), image("uri" + i))).isTrue();
+		}
+		recovered.close();
+	}
+
+	@Test
+	public void testTornTailIsCutOff() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		save(cache, "uri1");
+		save(cache, "uri2");
+		// Cache isn't closed and last record is written partially
+		File segment = new File(cacheDir, "0.seg");
+		RandomAccessFile file = new RandomAccessFile(segment, "rw");
+		file.setLength(segment.length() - 10);
+		file.close();
+
+		cache = openCache(0);
+		Assertions.assertThat(Arrays.equals(read(cache, "uri1"), image("uri1"))).isTrue();
+		Assertions.assertThat(cache.contains("uri2")).isFalse();
+
+		save(cache, "uri3");
+		cache.close();
+		cache = openCache(0);
+		Assertions.assertThat(Arrays.equals(read(cache, "uri1"), image("uri1"))).isTrue();
+		Assertions.assertThat(Arrays.equals(read(cache, "uri3"), image("uri3"))).isTrue();
+		cache.close();
+	}
+
+	@Test
+	public void testImagesAreRecoveredWithoutIndex() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		for (int i = 0; i < 10; i++) {
+			save(cache, "uri" + i);
+		}
+		cache.remove("uri5");
+		cache.close();
+		new File(cacheDir, "index").delete();
+		new File(cacheDir, "index.log").delete();
+
+		cache = openCache(0);
+		for (int i = 0; i < 10; i++) {
+			if (i == 5) {
+				Assertions.assertThat(cache.contains("uri5")).isFalse();
+			} else {
+				Assertions.assertThat(Arrays.equals(read(cache, "uri" + i), image("uri" + i))).isTrue();
+			}
+		}
+		cache.close();
+	}
+
+	@Test
+	public void testCompactionKeepsLiveImagesAndRemovals() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		for (int i = 0; i < 8; i++) {
+			save(cache, "uri" + i);
+		}
+		File firstSegment = new File(cacheDir, "0.seg");
+		Assertions.assertThat(firstSegment.exists()).isTrue();
+
+		// First segment becomes sparse and it's compacted in background
+		cache.remove("uri0");
+		cache.remove("uri1");
+		cache.remove("uri2");
+		for (int i = 0; i < 500 && firstSegment.exists(); i++) {
+			Thread.sleep(10);
+		}
+		Assertions.assertThat(firstSegment.exists()).isFalse();
+
+		for (int i = 0; i < 8; i++) {
+			if (i < 3) {
+				Assertions.assertThat(cache.contains("uri" + i)).isFalse();
+			} else {
+				Assertions.assertThat(Arrays.equals(read(cache, "uri" + i), image("uri" + i))).isTrue();
+			}
+		}
+		cache.close();
+
+		new File(cacheDir, "index").delete();
+		new File(cacheDir, "index.log").delete();
+		cache = openCache(0);
+		for (int i = 0; i < 8; i++) {
+			Assertions.assertThat(cache.contains("uri" + i)).isEqualTo(i >= 3);
+		}
+		cache.close();
+	}
+
+	@Test
+	public void testOldestSegmentIsDroppedWhenCacheIsFull() throws Exception {
+		int maxSize = SEGMENT_SIZE * 3;
+		PackedDiscCache cache = openCache(maxSize);
+		for (int i = 0; i < 40; i++) {
+			save(cache, "uri" + i);
+			Assertions.assertThat(cache.getSize()).isLessThanOrEqualTo(maxSize);
+		}
+
+		Assertions.assertThat(new File(cacheDir, "0.seg").exists()).isFalse();
+		Assertions.assertThat(cache.contains("uri0")).isFalse();
+		Assertions.assertThat(Arrays.equals(read(cache, "uri39"), image("uri39"))).isTrue();
+		cache.close();
+
+		cache = openCache(maxSize);
+		Assertions.assertThat(cache.contains("uri0")).isFalse();
+		Assertions.assertThat(Arrays.equals(read(cache, "uri39"), image("uri39"))).isTrue();
+		cache.close();
+	}
+
+	@Test
+	public void testClearRemovesAllImages() throws Exception {
+		PackedDiscCache cache = openCache(0);
+		for (int i = 0; i < 10; i++) {
+			save(cache, "uri" + i);
+		}
+
+		cache.clear();
+
+		Assertions.assertThat(cache.contains("uri1")).isFalse();
+		Assertions.assertThat(cache.getSize()).isEqualTo(0L);
+		save(cache, "uri1");
+		Assertions.assertThat(Arrays.equals(read(cache, "uri1"), image("uri1"))).isTrue();
+		cache.close();
+	}
+
+	private PackedDiscCache openCache(long maxSize) throws IOException {
+		return new PackedDiscCache(cacheDir, new HashCodeFileNameGenerator(), maxSize, SEGMENT_SIZE);
+	}
+
+	private static boolean save(PackedDiscCache cache, String uri) throws IOException {
+		return cache.save(uri, new ByteArrayInputStream(image(uri)), null);
+	}
+
+	private static byte[] image(String uri) {
+		byte[] image = new byte[IMAGE_SIZE];
+		Arrays.fill(image, (byte) uri.hashCode());
+		image[0] = (byte) uri.length();
+		return image;
+	}
+
+	private static byte[] read(PackedDiscCache cache, String uri) throws IOException {
+		InputStream in = cache.openRead(uri);
+		if (in == null) return null;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			byte[] buffer = new byte[64];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,241 @@
+package com.nostra13.universalimageloader.cache.disc.impl.ext;
+
+import org.fest.assertions.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DiskLruCacheTest {
+
+	private File cacheDir;
+	private DiskLruCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDir = File.createTempFile("disklru", "cache");
+		cacheDir.delete();
+		cacheDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (cache != null) {
+			cache.close();
+		}
+		Util.deleteContents(cacheDir);
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testBinaryJournalIsReadAfterReopen() throws Exception {
+		cache = open(true);
+		for (int i = 0; i < 20; i++) {
+			set("k" + i, "v" + i);
+		}
+		cache.remove("k3");
+		set("k4", "v4.2");
+		cache.close();
+
+		cache = open(true);
+		Assertions.assertThat(get("k0")).isEqualTo("v0");
+		Assertions.assertThat(get("k19")).isEqualTo("v19");
+		Assertions.assertThat(get("k4")).isEqualTo("v4.2");
+		Assertions.assertThat(cache.contains("k3")).isFalse();
+		Assertions.assertThat(journal(true).exists()).isTrue();
+		Assertions.assertThat(journal(false).exists()).isFalse();
+	}
+
+	@Test
+	public void testTornTailOfBinaryJournalIsDropped() throws Exception {
+		cache = open(true);
+		set("k1", "v1");
+		set("k2", "v2");
+		cache.close();
+		// Last CLEAN record of k2 is written partially
+		RandomAccessFile file = new RandomAccessFile(journal(true), "rw");
+		file.setLength(file.length() - 5);
+		file.close();
+
+		cache = open(true);
+		Assertions.assertThat(get("k1")).isEqualTo("v1");
+		Assertions.assertThat(cache.contains("k2")).isFalse();
+		set("k3", "v3");
+		cache.close();
+
+		// Journal is rebuilt, so records appended after torn tail are read
+		cache = open(true);
+		Assertions.assertThat(get("k1")).isEqualTo("v1");
+		Assertions.assertThat(get("k3")).isEqualTo("v3");
+	}
+
+	@Test
+	public void testTextJournalIsMigratedToBinary() throws Exception {
+		cache = open(false);
+		set("k1", "v1");
+		set("k2", "v2");
+		cache.remove("k2");
+		cache.close();
+
+		cache = open(true);
+		Assertions.assertThat(get("k1")).isEqualTo("v1");
+		Assertions.assertThat(cache.contains("k2")).isFalse();
+		Assertions.assertThat(journal(true).exists()).isTrue();
+		Assertions.assertThat(journal(false).exists()).isFalse();
+	}
+
+	@Test
+	public void testBinaryJournalIsMigratedToText() throws Exception {
+		cache = open(true);
+		set("k1", "v1");
+		set("k2", "v2");
+		cache.remove("k2");
+		cache.close();
+
+		cache = open(false);
+		Assertions.assertThat(get("k1")).isEqualTo("v1");
+		Assertions.assertThat(cache.contains("k2")).isFalse();
+		Assertions.assertThat(journal(false).exists()).isTrue();
+		Assertions.assertThat(journal(true).exists()).isFalse();
+	}
+
+	@Test
+	public void testStaleJournalOfAnotherFormatIsDeleted() throws Exception {
+		cache = open(false);
+		set("k1", "v1");
+		cache.close();
+		byte[] textJournal = readFile(journal(false));
+
+		cache = open(true);
+		set("k2", "v2");
+		cache.close();
+		// Crash right after migration left text journal
+		writeFile(journal(false), textJournal);
+
+		cache = open(true);
+		Assertions.assertThat(journal(false).exists()).isFalse();
+		cache.close();
+
+		cache = open(false);
+		Assertions.assertThat(get("k1")).isEqualTo("v1");
+		Assertions.assertThat(get("k2")).isEqualTo("v2");
+	}
+
+	@Test
+	public void testGetWhileEditIsCommittedReturnsConsistentSnapshot() throws Exception {
+		// Every commit is counted as new file, so file count isn't limited here
+		cache = DiskLruCache.open(cacheDir, 1, 1, 1024 * 1024, Integer.MAX_VALUE, false);
+		set("key", value(0));
+
+		final int editCount = 2000;
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicBoolean editing = new AtomicBoolean(true);
+		Thread[] readers = new Thread[3];
+		for (int r = 0; r < readers.length; r++) {
+			readers[r] = new Thread() {
+				@Override
+				public void run() {
+					while (editing.get()) {
+						try {
+							DiskLruCache.Snapshot snapshot = cache.get("key");
+							if (snapshot == null) continue; // value file is replaced at this moment
+
+							try {
+								String value = snapshot.getString(0);
+								// Length of snapshot must match the value which was opened
+								if (snapshot.getLength(0) != value.length() || !value.equals(value(version(value)))) {
+									failures.incrementAndGet();
+								}
+							} finally {
+								snapshot.close();
+							}
+						} catch (Exception e) {
+							failures.incrementAndGet();
+						}
+					}
+				}
+			};
+			readers[r].start();
+		}
+		for (int i = 1; i <= editCount; i++) {
+			set("key", value(i));
+		}
+		editing.set(false);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		Assertions.assertThat(failures.get()).isEqualTo(0);
+		Assertions.assertThat(get("key")).isEqualTo(value(editCount));
+	}
+
+	/** @return Value which length depends on version */
+	private static String value(int version) {
+		StringBuilder value = new StringBuilder().append(version).append(':');
+		for (int i = 0; i < version % 37; i++) {
+			value.append('x');
+		}
+		return value.toString();
+	}
+
+	private static int version(String value) {
+		return Integer.parseInt(value.substring(0, value.indexOf(':')));
+	}
+
+	private DiskLruCache open(boolean binaryJournal) throws IOException {
+		return DiskLruCache.open(cacheDir, 1, 1, 1024 * 1024, 1000, binaryJournal);
+	}
+
+	private File journal(boolean binary) {
+		return new File(cacheDir, binary ? "journal.bin" : "journal");
+	}
+
+	private void set(String key, String value) throws IOException {
+		DiskLruCache.Editor editor = cache.edit(key);
+		editor.set(0, value);
+		editor.commit();
+	}
+
+	private String get(String key) throws IOException {
+		DiskLruCache.Snapshot snapshot = cache.get(key);
+		if (snapshot == null) return null;
+
+		try {
+			return snapshot.getString(0);
+		} finally {
+			snapshot.close();
+		}
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		byte[] bytes = new byte[(int) file.length()];
+		InputStream in = new FileInputStream(file);
+		try {
+			int offset = 0;
+			while (offset < bytes.length) {
+				offset += in.read(bytes, offset, bytes.length - offset);
+			}
+		} finally {
+			in.close();
+		}
+		return bytes;
+	}
+
+	private static void writeFile(File file, byte[] bytes) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+
+public class EncodedMemoryCacheTest {
+
+	private static final int MAX_SIZE = 800; // max entry size is 100 bytes
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		EncodedMemoryCache cache = new EncodedMemoryCache(MAX_SIZE);
+		byte[] image = new byte[100];
+
+		Assertions.assertThat(cache.put("uri", image)).isTrue();
+
+		Assertions.assertThat(cache.contains("uri")).isTrue();
+		Assertions.assertThat(cache.get("uri")).isSameAs(image);
+		Assertions.assertThat(cache.get("another uri")).isNull();
+		Assertions.assertThat(cache.size()).isEqualTo(100);
+	}
+
+	@Test
+	public void testImageBiggerThanMaxEntrySizeIsNotCached() throws Exception {
+		EncodedMemoryCache cache = new EncodedMemoryCache(MAX_SIZE);
+
+		Assertions.assertThat(cache.getMaxEntrySize()).isEqualTo(100);
+		Assertions.assertThat(cache.put("uri", new byte[101])).isFalse();
+
+		Assertions.assertThat(cache.contains("uri")).isFalse();
+		Assertions.assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testReplacedImageIsNotCountedTwice() throws Exception {
+		EncodedMemoryCache cache = new EncodedMemoryCache(MAX_SIZE);
+		cache.put("uri", new byte[100]);
+		byte[] image = new byte[50];
+
+		cache.put("uri", image);
+
+		Assertions.assertThat(cache.size()).isEqualTo(50);
+		Assertions.assertThat(cache.get("uri")).isSameAs(image);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedImageIsEvicted() throws Exception {
+		EncodedMemoryCache cache = new EncodedMemoryCache(MAX_SIZE);
+		for (int i = 0; i < 8; i++) {
+			cache.put("uri" + i, new byte[100]);
+		}
+		cache.get("uri0");
+
+		cache.put("uri8", new byte[100]);
+
+		Assertions.assertThat(cache.size()).isEqualTo(MAX_SIZE);
+		Assertions.assertThat(cache.contains("uri0")).isTrue();
+		Assertions.assertThat(cache.contains("uri1")).isFalse();
+		Assertions.assertThat(cache.contains("uri8")).isTrue();
+	}
+
+	@Test
+	public void testRemoveAndClear() throws Exception {
+		EncodedMemoryCache cache = new EncodedMemoryCache(MAX_SIZE);
+		byte[] image = new byte[100];
+		cache.put("uri1", image);
+		cache.put("uri2", new byte[100]);
+
+		Assertions.assertThat(cache.remove("uri1")).isSameAs(image);
+		Assertions.assertThat(cache.remove("uri1")).isNull();
+		Assertions.assertThat(cache.size()).isEqualTo(100);
+
+		cache.clear();
+		Assertions.assertThat(cache.contains("uri2")).isFalse();
+		Assertions.assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testTrimKeepsRetainedPartOfMaxSize() throws Exception {
+		EncodedMemoryCache cache = new EncodedMemoryCache(MAX_SIZE);
+		for (int i = 0; i < 8; i++) {
+			cache.put("uri" + i, new byte[100]);
+		}
+
+		cache.trim(TrimLevel.MODERATE);
+		Assertions.assertThat(cache.size()).isEqualTo(200);
+		Assertions.assertThat(cache.contains("uri7")).isTrue();
+		Assertions.assertThat(cache.contains("uri5")).isFalse();
+
+		cache.trim(TrimLevel.CRITICAL);
+		Assertions.assertThat(cache.size()).isEqualTo(0);
+	}
+}
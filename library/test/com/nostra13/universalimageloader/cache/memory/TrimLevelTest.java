@@ -0,0 +1,147 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.impl.LRULimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.ShardedLruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.TinyLfuMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.WeakMemoryCache;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrimLevelTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4; // 10x10 ARGB_8888
+	private static final int MAX_SIZE = BITMAP_SIZE * 8;
+
+	@Test
+	public void testRetainedSize() throws Exception {
+		Assertions.assertThat(TrimLevel.BACKGROUND.getRetainedSize(1000)).isEqualTo(500);
+		Assertions.assertThat(TrimLevel.MODERATE.getRetainedSize(1000)).isEqualTo(250);
+		Assertions.assertThat(TrimLevel.CRITICAL.getRetainedSize(1000)).isEqualTo(0);
+		Assertions.assertThat(TrimLevel.BACKGROUND.getRetainedSize(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE / 2);
+	}
+
+	@Test
+	public void testTrimMemoryLevelMapping() throws Exception {
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)).isEqualTo(TrimLevel.CRITICAL);
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_MODERATE)).isEqualTo(TrimLevel.MODERATE);
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)).isEqualTo(TrimLevel.BACKGROUND);
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)).isNull();
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)).isEqualTo(TrimLevel.CRITICAL);
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)).isEqualTo(TrimLevel.MODERATE);
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE)).isEqualTo(TrimLevel.BACKGROUND);
+		Assertions.assertThat(TrimLevel.fromTrimMemoryLevel(0)).isNull();
+	}
+
+	@Test
+	public void testStrongCachesKeepRetainedPartOfMaxSize() throws Exception {
+		for (TrimLevel level : TrimLevel.values()) {
+			for (MemoryCache cache : createStrongCaches()) {
+				fill(cache);
+
+				cache.trim(level);
+
+				int retainedCount = level.getRetainedSize(MAX_SIZE) / BITMAP_SIZE;
+				Assertions.assertThat(cache.keys()).hasSize(retainedCount);
+			}
+		}
+	}
+
+	@Test
+	public void testLruCacheKeepsRecentlyUsedBitmaps() throws Exception {
+		LruMemoryCache cache = new LruMemoryCache(MAX_SIZE);
+		List<String> keys = fill(cache);
+		cache.get(keys.get(0));
+
+		cache.trim(TrimLevel.MODERATE);
+
+		Assertions.assertThat(cache.keys()).hasSize(2);
+		Assertions.assertThat(cache.keys()).contains(keys.get(0), keys.get(keys.size() - 1));
+	}
+
+	@Test
+	public void testTrimmedBitmapsAreReportedToListener() throws Exception {
+		LruMemoryCache cache = new LruMemoryCache(MAX_SIZE);
+		final List<EvictionCause> causes = new ArrayList<EvictionCause>();
+		cache.setEvictionListener(new MemoryCacheEvictionListener() {
+			@Override
+			public void onEvicted(String key, Bitmap value, int size, EvictionCause cause) {
+				causes.add(cause);
+			}
+		});
+		fill(cache);
+
+		cache.trim(TrimLevel.BACKGROUND);
+
+		Assertions.assertThat(causes).hasSize(4);
+		for (EvictionCause cause : causes) {
+			Assertions.assertThat(cause).isEqualTo(EvictionCause.TRIMMED);
+		}
+	}
+
+	@Test
+	public void testReferenceCacheIsClearedOnlyOnCriticalLevel() throws Exception {
+		WeakMemoryCache cache = new WeakMemoryCache();
+		List<String> keys = new ArrayList<String>();
+		List<Bitmap> bitmaps = new ArrayList<Bitmap>(); // keeps weakly referenced bitmaps reachable
+		for (int i = 0; i < 4; i++) {
+			keys.add("key" + i);
+			bitmaps.add(createBitmap());
+			cache.put(keys.get(i), bitmaps.get(i));
+		}
+
+		cache.trim(TrimLevel.BACKGROUND);
+		cache.trim(TrimLevel.MODERATE);
+		Assertions.assertThat(cache.keys()).hasSize(4);
+
+		cache.trim(TrimLevel.CRITICAL);
+		Assertions.assertThat(cache.keys()).isEmpty();
+	}
+
+	@Test
+	public void testLimitedCacheKeepsTrimmedBitmapsByWeakReferences() throws Exception {
+		LRULimitedMemoryCache cache = new LRULimitedMemoryCache(MAX_SIZE);
+		List<Bitmap> bitmaps = new ArrayList<Bitmap>(); // keeps weakly referenced bitmaps reachable
+		for (int i = 0; i < 8; i++) {
+			bitmaps.add(createBitmap());
+			cache.put("key" + i, bitmaps.get(i));
+		}
+
+		cache.trim(TrimLevel.MODERATE);
+		Assertions.assertThat(cache.get("key0")).isSameAs(bitmaps.get(0));
+
+		cache.trim(TrimLevel.CRITICAL);
+		Assertions.assertThat(cache.keys()).isEmpty();
+		Assertions.assertThat(cache.get("key7")).isNull();
+	}
+
+	private static List<MemoryCache> createStrongCaches() {
+		return Arrays.<MemoryCache>asList(new LruMemoryCache(MAX_SIZE), new ShardedLruMemoryCache(MAX_SIZE, 1),
+				new TinyLfuMemoryCache(MAX_SIZE));
+	}
+
+	/** Puts {@code MAX_SIZE / BITMAP_SIZE} Bitmaps into cache, returns their keys in order of putting */
+	private static List<String> fill(MemoryCache cache) {
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < MAX_SIZE / BITMAP_SIZE; i++) {
+			String key = "key" + i;
+			keys.add(key);
+			cache.put(key, createBitmap());
+			cache.get(key); // makes TinyLFU admit bitmap into main region
+		}
+		return keys;
+	}
+
+	private static Bitmap createBitmap() {
+		return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+	}
+}
@@ -0,0 +1,67 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+
+import java.util.Collection;
+
+public class UriKeyIndexTest {
+
+	private static final String URI = "http://site.com/image_1.png";
+
+	@Test
+	public void testKeysOfAllSizesAreIndexedByUri() throws Exception {
+		UriKeyIndex index = new UriKeyIndex();
+		String smallKey = MemoryCacheUtils.generateKey(URI, new ImageSize(10, 10));
+		String largeKey = MemoryCacheUtils.generateKey(URI, new ImageSize(100, 100));
+		index.add(smallKey);
+		index.add(largeKey);
+		index.add(MemoryCacheUtils.generateKey("http://site.com/image_2.png", new ImageSize(10, 10)));
+
+		Collection<String> keys = index.get(URI);
+
+		Assertions.assertThat(keys).hasSize(2);
+		Assertions.assertThat(keys).contains(smallKey, largeKey);
+	}
+
+	@Test
+	public void testRemovedKeyIsNotReturned() throws Exception {
+		UriKeyIndex index = new UriKeyIndex();
+		String smallKey = MemoryCacheUtils.generateKey(URI, new ImageSize(10, 10));
+		String largeKey = MemoryCacheUtils.generateKey(URI, new ImageSize(100, 100));
+		index.add(smallKey);
+		index.add(largeKey);
+
+		index.remove(smallKey);
+		Assertions.assertThat(index.get(URI)).hasSize(1);
+		Assertions.assertThat(index.get(URI)).contains(largeKey);
+
+		index.remove(largeKey);
+		index.remove(largeKey);
+		Assertions.assertThat(index.get(URI)).isEmpty();
+	}
+
+	@Test
+	public void testKeyOfUnknownFormatIsIndexedAsUri() throws Exception {
+		UriKeyIndex index = new UriKeyIndex();
+		index.add("key");
+
+		Assertions.assertThat(index.get("key")).hasSize(1);
+		Assertions.assertThat(index.get("key")).contains("key");
+	}
+
+	@Test
+	public void testReturnedKeysAreCopy() throws Exception {
+		UriKeyIndex index = new UriKeyIndex();
+		String key = MemoryCacheUtils.generateKey(URI, new ImageSize(10, 10));
+		index.add(key);
+
+		Collection<String> keys = index.get(URI);
+		index.clear();
+
+		Assertions.assertThat(keys).hasSize(1);
+		Assertions.assertThat(index.get(URI)).isEmpty();
+	}
+}
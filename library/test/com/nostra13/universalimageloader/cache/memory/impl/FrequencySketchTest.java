@@ -0,0 +1,43 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+	@Test
+	public void testFrequencyIsCountedPerKey() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 5; i++) {
+			sketch.increment("avatar");
+		}
+		sketch.increment("feed_image");
+
+		Assertions.assertThat(sketch.frequency("avatar")).isEqualTo(5);
+		Assertions.assertThat(sketch.frequency("feed_image")).isEqualTo(1);
+		Assertions.assertThat(sketch.frequency("unknown")).isEqualTo(0);
+	}
+
+	@Test
+	public void testFrequencyIsSaturated() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 100; i++) {
+			sketch.increment("icon");
+		}
+
+		Assertions.assertThat(sketch.frequency("icon")).isEqualTo(15);
+	}
+
+	@Test
+	public void testOldFrequencyFadesAway() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(64); // counters are halved every 640 increments
+		for (int i = 0; i < 15; i++) {
+			sketch.increment("icon");
+		}
+		for (int i = 0; i < 3000; i++) {
+			sketch.increment("image_" + i);
+		}
+
+		Assertions.assertThat(sketch.frequency("icon")).isLessThan(4);
+	}
+}
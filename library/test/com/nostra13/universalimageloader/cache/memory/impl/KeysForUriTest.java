@@ -0,0 +1,94 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimLevel;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class KeysForUriTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4; // 10x10 ARGB_8888
+	private static final String URI = "http://site.com/image.png";
+
+	/** Keeps Bitmaps of reference caches reachable */
+	private final List<Bitmap> bitmaps = new ArrayList<Bitmap>();
+
+	@Test
+	public void testKeysOfPutAndRemovedBitmapsAreIndexed() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 8)) {
+			String smallKey = put(cache, URI, 10);
+			String largeKey = put(cache, URI, 100);
+			put(cache, "http://site.com/other.png", 10);
+
+			Assertions.assertThat(cache.keysForUri(URI)).hasSize(2);
+			Assertions.assertThat(cache.keysForUri(URI)).contains(smallKey, largeKey);
+
+			cache.remove(smallKey);
+			Assertions.assertThat(cache.keysForUri(URI)).hasSize(1);
+			Assertions.assertThat(cache.keysForUri(URI)).contains(largeKey);
+
+			cache.clear();
+			Assertions.assertThat(cache.keysForUri(URI)).isEmpty();
+		}
+	}
+
+	@Test
+	public void testKeysOfEvictedBitmapsAreNotReturned() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 4)) {
+			for (int i = 0; i < 20; i++) {
+				put(cache, URI, i + 1);
+				assertIndexMatchesKeys(cache);
+			}
+			cache.trim(TrimLevel.CRITICAL);
+			Assertions.assertThat(cache.keysForUri(URI)).isEmpty();
+		}
+	}
+
+	@Test
+	public void testRemoveFromCacheRemovesAllSizes() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 8)) {
+			put(cache, URI, 10);
+			put(cache, URI, 100);
+			String otherKey = put(cache, "http://site.com/other.png", 10);
+
+			MemoryCacheUtils.removeFromCache(URI, cache);
+
+			Assertions.assertThat(cache.keysForUri(URI)).isEmpty();
+			Assertions.assertThat(MemoryCacheUtils.findCachedBitmapsForImageUri(URI, cache)).isEmpty();
+			Assertions.assertThat(cache.keys()).hasSize(1);
+			Assertions.assertThat(cache.keys()).contains(otherKey);
+		}
+	}
+
+	private List<MemoryCache> createCaches(int maxSize) {
+		return Arrays.<MemoryCache>asList(new LruMemoryCache(maxSize), new ShardedLruMemoryCache(maxSize),
+				new TinyLfuMemoryCache(maxSize), new LRULimitedMemoryCache(maxSize), new WeakMemoryCache(),
+				new LimitedAgeMemoryCache(new LruMemoryCache(maxSize), 60));
+	}
+
+	private String put(MemoryCache cache, String imageUri, int targetSize) {
+		String key = MemoryCacheUtils.generateKey(imageUri, new ImageSize(targetSize, targetSize));
+		Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		bitmaps.add(bitmap);
+		cache.put(key, bitmap);
+		return key;
+	}
+
+	private static void assertIndexMatchesKeys(MemoryCache cache) {
+		List<String> indexedKeys = new ArrayList<String>(cache.keysForUri(URI));
+		Assertions.assertThat(indexedKeys).hasSize(cache.keys().size());
+		for (String key : indexedKeys) {
+			Assertions.assertThat(cache.keys().contains(key)).isTrue();
+		}
+	}
+}
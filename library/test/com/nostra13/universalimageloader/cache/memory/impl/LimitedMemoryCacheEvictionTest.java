@@ -0,0 +1,80 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class LimitedMemoryCacheEvictionTest {
+
+	private static final int SIZE_LIMIT = 1000; // bytes
+
+	@Test
+	public void testLeastFrequentlyUsedBitmapIsEvicted() throws Exception {
+		UsingFreqLimitedMemoryCache cache = new UsingFreqLimitedMemoryCache(SIZE_LIMIT);
+		Bitmap frequent = createBitmap(10); // 400 bytes
+		Bitmap rare = createBitmap(10);
+		Bitmap recent = createBitmap(10);
+		cache.put("frequent", frequent);
+		cache.put("rare", rare);
+		cache.get("frequent");
+		cache.get("frequent");
+		cache.get("rare");
+
+		cache.put("recent", recent);
+
+		// "rare" was evicted, remaining Bitmaps are evicted in order of usage count
+		Assertions.assertThat(cache.removeNext()).isSameAs(recent);
+		Assertions.assertThat(cache.removeNext()).isSameAs(frequent);
+		Assertions.assertThat(cache.removeNext()).isNull();
+	}
+
+	@Test
+	public void testRemovedBitmapIsNotEvicted() throws Exception {
+		UsingFreqLimitedMemoryCache cache = new UsingFreqLimitedMemoryCache(SIZE_LIMIT);
+		Bitmap first = createBitmap(10);
+		Bitmap second = createBitmap(10);
+		cache.put("first", first);
+		cache.put("second", second);
+
+		Assertions.assertThat(cache.remove("first")).isSameAs(first);
+
+		Assertions.assertThat(cache.removeNext()).isSameAs(second);
+		Assertions.assertThat(cache.removeNext()).isNull();
+	}
+
+	@Test
+	public void testLargestBitmapIsEvicted() throws Exception {
+		LargestLimitedMemoryCache cache = new LargestLimitedMemoryCache(SIZE_LIMIT);
+		Bitmap small = createBitmap(5); // 100 bytes
+		Bitmap large = createBitmap(12); // 576 bytes
+		Bitmap medium = createBitmap(10); // 400 bytes
+		cache.put("small", small);
+		cache.put("large", large);
+
+		cache.put("medium", medium);
+
+		// "large" was evicted, remaining Bitmaps are evicted from the largest one
+		Assertions.assertThat(cache.removeNext()).isSameAs(medium);
+		Assertions.assertThat(cache.removeNext()).isSameAs(small);
+		Assertions.assertThat(cache.removeNext()).isNull();
+	}
+
+	@Test
+	public void testClearedCacheHasNothingToEvict() throws Exception {
+		LargestLimitedMemoryCache cache = new LargestLimitedMemoryCache(SIZE_LIMIT);
+		cache.put("small", createBitmap(5));
+		cache.put("medium", createBitmap(10));
+
+		cache.clear();
+
+		Assertions.assertThat(cache.removeNext()).isNull();
+		Assertions.assertThat(cache.get("small")).isNull();
+	}
+
+	private static Bitmap createBitmap(int size) {
+		return Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+	}
+}
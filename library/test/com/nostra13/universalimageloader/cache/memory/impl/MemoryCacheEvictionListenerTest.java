@@ -0,0 +1,186 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.EvictionCause;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheEvictionListener;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class MemoryCacheEvictionListenerTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4; // 10x10 ARGB_8888
+
+	@Test
+	public void testReplacedBitmapIsReported() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 20)) {
+			RecordingListener listener = new RecordingListener();
+			cache.setEvictionListener(listener);
+			Bitmap first = createBitmap();
+			Bitmap second = createBitmap();
+
+			cache.put("key", first);
+			cache.put("key", second);
+
+			listener.assertEvicted(cache, new Eviction("key", first, EvictionCause.REPLACED));
+			Assertions.assertThat(cache.get("key")).isSameAs(second);
+		}
+	}
+
+	@Test
+	public void testSameBitmapPutTwiceIsNotReported() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 20)) {
+			RecordingListener listener = new RecordingListener();
+			cache.setEvictionListener(listener);
+			Bitmap bitmap = createBitmap();
+
+			cache.put("key", bitmap);
+			cache.put("key", bitmap);
+
+			listener.assertEvicted(cache);
+		}
+	}
+
+	@Test
+	public void testRemovedBitmapIsReportedAsNotEvicted() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 20)) {
+			RecordingListener listener = new RecordingListener();
+			cache.setEvictionListener(listener);
+			Bitmap bitmap = createBitmap();
+			cache.put("key", bitmap);
+
+			Assertions.assertThat(cache.remove("key")).isSameAs(bitmap);
+			Assertions.assertThat(cache.remove("key")).isNull();
+
+			listener.assertEvicted(cache, new Eviction("key", bitmap, EvictionCause.REMOVED));
+			Assertions.assertThat(listener.evictions.get(0).cause.wasEvicted()).isFalse();
+		}
+	}
+
+	@Test
+	public void testClearedBitmapsAreReported() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 20)) {
+			RecordingListener listener = new RecordingListener();
+			cache.setEvictionListener(listener);
+			cache.put("key1", createBitmap());
+			cache.put("key2", createBitmap());
+
+			cache.clear();
+
+			Assertions.assertThat(listener.evictions).hasSize(2);
+			for (Eviction eviction : listener.evictions) {
+				Assertions.assertThat(eviction.cause).isEqualTo(EvictionCause.CLEARED);
+				Assertions.assertThat(eviction.size).isEqualTo(BITMAP_SIZE);
+			}
+			Assertions.assertThat(cache.keys()).isEmpty();
+		}
+	}
+
+	@Test
+	public void testTrimmedBitmapsAreReported() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 20)) {
+			RecordingListener listener = new RecordingListener();
+			cache.setEvictionListener(listener);
+			for (int i = 0; i < 4; i++) {
+				cache.put("key" + i, createBitmap());
+			}
+
+			cache.trimToSize(BITMAP_SIZE);
+
+			Assertions.assertThat(listener.evictions).hasSize(3);
+			for (Eviction eviction : listener.evictions) {
+				Assertions.assertThat(eviction.cause).isEqualTo(EvictionCause.TRIMMED);
+			}
+			Assertions.assertThat(cache.keys()).hasSize(1);
+		}
+	}
+
+	@Test
+	public void testOverflowIsReportedAsSizeEviction() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 4)) {
+			RecordingListener listener = new RecordingListener();
+			cache.setEvictionListener(listener);
+			int count = 20;
+			for (int i = 0; i < count; i++) {
+				cache.put("key" + i, createBitmap());
+			}
+
+			Assertions.assertThat(listener.evictions).hasSize(count - cache.keys().size());
+			for (Eviction eviction : listener.evictions) {
+				Assertions.assertThat(eviction.cause).isEqualTo(EvictionCause.SIZE);
+				Assertions.assertThat(eviction.size).isEqualTo(BITMAP_SIZE);
+				Assertions.assertThat(cache.keys().contains(eviction.key)).isFalse();
+			}
+		}
+	}
+
+	@Test
+	public void testRemovedListenerIsNotNotified() throws Exception {
+		for (MemoryCache cache : createCaches(BITMAP_SIZE * 20)) {
+			RecordingListener listener = new RecordingListener();
+			cache.setEvictionListener(listener);
+			cache.setEvictionListener(null);
+			cache.put("key", createBitmap());
+
+			cache.put("key", createBitmap());
+			cache.clear();
+
+			listener.assertEvicted(cache);
+		}
+	}
+
+	private static List<MemoryCache> createCaches(int maxSize) {
+		return Arrays.<MemoryCache>asList(new LruMemoryCache(maxSize), new ShardedLruMemoryCache(maxSize, 1),
+				new TinyLfuMemoryCache(maxSize));
+	}
+
+	private static Bitmap createBitmap() {
+		return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+	}
+
+	private static class RecordingListener implements MemoryCacheEvictionListener {
+
+		final List<Eviction> evictions = new ArrayList<Eviction>();
+
+		@Override
+		public void onEvicted(String key, Bitmap value, int size, EvictionCause cause) {
+			evictions.add(new Eviction(key, value, size, cause));
+		}
+
+		void assertEvicted(MemoryCache cache, Eviction... expected) {
+			Assertions.assertThat(evictions.size()).isEqualTo(expected.length);
+			for (int i = 0; i < expected.length; i++) {
+				Eviction actual = evictions.get(i);
+				Assertions.assertThat(actual.key).isEqualTo(expected[i].key);
+				Assertions.assertThat(actual.value).isSameAs(expected[i].value);
+				Assertions.assertThat(actual.cause).isEqualTo(expected[i].cause);
+				Assertions.assertThat(actual.size).isEqualTo(expected[i].size);
+			}
+		}
+	}
+
+	private static class Eviction {
+		final String key;
+		final Bitmap value;
+		final int size;
+		final EvictionCause cause;
+
+		Eviction(String key, Bitmap value, EvictionCause cause) {
+			this(key, value, BITMAP_SIZE, cause);
+		}
+
+		Eviction(String key, Bitmap value, int size, EvictionCause cause) {
+			this.key = key;
+			this.value = value;
+			this.size = size;
+			this.cause = cause;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class ShardedLruMemoryCacheTest {
+
+	private static final int SHARD_COUNT = 4;
+
+	@Test
+	public void testBitmapsBiggerThanShardBudgetDoNotExceedMaxSize() throws Exception {
+		Bitmap bitmap = createBitmap(100); // 40000 bytes
+		int maxSize = 100000; // shard budget is 25000 bytes
+		ShardedLruMemoryCache cache = new ShardedLruMemoryCache(maxSize, SHARD_COUNT);
+
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < 64; i++) {
+			String key = "key" + i;
+			keys.add(key);
+			Assertions.assertThat(cache.put(key, bitmap)).isTrue();
+			Assertions.assertThat(cache.size()).isLessThanOrEqualTo(maxSize);
+			Assertions.assertThat(cachedSize(cache, keys)).isEqualTo(cache.size());
+		}
+		Assertions.assertThat(cache.get("key63")).isSameAs(bitmap);
+	}
+
+	@Test
+	public void testSkewedKeysDoNotExceedMaxSize() throws Exception {
+		int maxSize = 200000;
+		ShardedLruMemoryCache cache = new ShardedLruMemoryCache(maxSize, SHARD_COUNT);
+		List<String> hotKeys = keysOfShard(0, 16);
+		List<String> allKeys = new ArrayList<String>(hotKeys);
+		Random random = new Random(1);
+
+		for (int i = 0; i < 2000; i++) {
+			String key;
+			if (random.nextInt(10) < 9) {
+				key = hotKeys.get(random.nextInt(hotKeys.size()));
+			} else {
+				key = "cold" + random.nextInt(100);
+				allKeys.add(key);
+			}
+			cache.put(key, createBitmap(20 + random.nextInt(200)));
+			Assertions.assertThat(cache.size()).isLessThanOrEqualTo(maxSize);
+		}
+		Assertions.assertThat(cachedSize(cache, allKeys)).isEqualTo(cache.size());
+	}
+
+	@Test
+	public void testConcurrentPutsDoNotExceedMaxSize() throws Exception {
+		final int maxSize = 100000;
+		final ShardedLruMemoryCache cache = new ShardedLruMemoryCache(maxSize, SHARD_COUNT);
+		final Bitmap bitmap = createBitmap(100);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int threadIndex = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 1000; i++) {
+						cache.put("key" + threadIndex + "_" + (i % 50), bitmap);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assertions.assertThat(cache.size()).isLessThanOrEqualTo(maxSize);
+	}
+
+	@Test
+	public void testBitmapBiggerThanMaxSizeIsNotCached() throws Exception {
+		ShardedLruMemoryCache cache = new ShardedLruMemoryCache(10000, SHARD_COUNT);
+		cache.put("small", createBitmap(10));
+
+		Assertions.assertThat(cache.put("big", createBitmap(100))).isFalse();
+		Assertions.assertThat(cache.get("big")).isNull();
+		Assertions.assertThat(cache.get("small")).isNotNull();
+	}
+
+	private static Bitmap createBitmap(int side) {
+		return Bitmap.createBitmap(side, side, Bitmap.Config.ARGB_8888);
+	}
+
+	/** @return Sum of sizes of Bitmaps which can be got from cache by incoming keys */
+	private static int cachedSize(ShardedLruMemoryCache cache, List<String> keys) {
+		int size = 0;
+		for (String key : new HashSet<String>(keys)) {
+			Bitmap bitmap = cache.get(key);
+			if (bitmap != null) {
+				size += bitmap.getRowBytes() * bitmap.getHeight();
+			}
+		}
+		return size;
+	}
+
+	/** @return Keys which fall into the same shard of cache */
+	private static List<String> keysOfShard(int shard, int count) {
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; keys.size() < count; i++) {
+			String key = "hot" + i;
+			int h = key.hashCode();
+			h ^= (h >>> 16);
+			if ((h & (SHARD_COUNT - 1)) == shard) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+}
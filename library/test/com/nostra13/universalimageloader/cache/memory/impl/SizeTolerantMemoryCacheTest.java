@@ -0,0 +1,128 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+import org.fest.assertions.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+public class SizeTolerantMemoryCacheTest {
+
+	private static final String URI = "http://example.com/image.png";
+	private static final String SMALL_KEY = MemoryCacheUtils.generateKey(URI, new ImageSize(50, 50));
+	private static final String MEDIUM_KEY = MemoryCacheUtils.generateKey(URI, new ImageSize(100, 100));
+	private static final String LARGE_KEY = MemoryCacheUtils.generateKey(URI, new ImageSize(200, 200));
+
+	private LruMemoryCache wrappedCache;
+	private ManualExecutor downscaleExecutor;
+
+	@Before
+	public void setUp() throws Exception {
+		wrappedCache = new LruMemoryCache(1024 * 1024);
+		downscaleExecutor = new ManualExecutor();
+	}
+
+	@Test
+	public void testExactKeyIsPreferred() throws Exception {
+		SizeTolerantMemoryCache cache = new SizeTolerantMemoryCache(wrappedCache);
+		Bitmap medium = createBitmap(100);
+		Bitmap large = createBitmap(200);
+		cache.put(MEDIUM_KEY, medium);
+		cache.put(LARGE_KEY, large);
+
+		Assertions.assertThat(cache.get(MEDIUM_KEY)).isSameAs(medium);
+		Assertions.assertThat(cache.get(LARGE_KEY)).isSameAs(large);
+	}
+
+	@Test
+	public void testSmallestLargerBitmapIsReturnedOnMiss() throws Exception {
+		SizeTolerantMemoryCache cache = new SizeTolerantMemoryCache(wrappedCache);
+		Bitmap medium = createBitmap(100);
+		cache.put(LARGE_KEY, createBitmap(200));
+		cache.put(MEDIUM_KEY, medium);
+
+		Assertions.assertThat(cache.get(SMALL_KEY)).isSameAs(medium);
+		Assertions.assertThat(wrappedCache.get(SMALL_KEY)).isNull();
+	}
+
+	@Test
+	public void testSmallerBitmapIsNotReturnedForLargerSize() throws Exception {
+		SizeTolerantMemoryCache cache = new SizeTolerantMemoryCache(wrappedCache);
+		cache.put(SMALL_KEY, createBitmap(50));
+
+		Assertions.assertThat(cache.get(MEDIUM_KEY)).isNull();
+		Assertions.assertThat(cache.get(MemoryCacheUtils.generateKey("http://example.com/other.png",
+				new ImageSize(10, 10)))).isNull();
+	}
+
+	@Test
+	public void testLargerBitmapIsDownscaledForRequestedKey() throws Exception {
+		SizeTolerantMemoryCache cache = new SizeTolerantMemoryCache(wrappedCache, downscaleExecutor);
+		Bitmap large = createBitmap(200);
+		cache.put(LARGE_KEY, large);
+
+		Assertions.assertThat(cache.get(SMALL_KEY)).isSameAs(large);
+		Assertions.assertThat(cache.get(SMALL_KEY)).isSameAs(large); // downscaling is in progress
+		Assertions.assertThat(downscaleExecutor.tasks).hasSize(1);
+
+		downscaleExecutor.runAll();
+
+		Bitmap downscaled = cache.get(SMALL_KEY);
+		Assertions.assertThat(downscaled == large).isFalse();
+		Assertions.assertThat(downscaled.getWidth()).isEqualTo(50);
+		Assertions.assertThat(downscaled.getHeight()).isEqualTo(50);
+		Assertions.assertThat(cache.get(LARGE_KEY)).isSameAs(large);
+		Assertions.assertThat(large.isRecycled()).isFalse();
+	}
+
+	@Test
+	public void testBitmapEvictedBeforeDownscalingIsNotDownscaled() throws Exception {
+		SizeTolerantMemoryCache cache = new SizeTolerantMemoryCache(wrappedCache, downscaleExecutor);
+		cache.put(LARGE_KEY, createBitmap(200));
+		cache.get(SMALL_KEY);
+
+		cache.trimToSize(0); // evicted Bitmap can be reused for decoding of another image already
+
+		downscaleExecutor.runAll();
+		Assertions.assertThat(cache.get(SMALL_KEY)).isNull();
+	}
+
+	@Test
+	public void testBitmapReplacedBeforeDownscalingIsNotDownscaled() throws Exception {
+		SizeTolerantMemoryCache cache = new SizeTolerantMemoryCache(wrappedCache, downscaleExecutor);
+		Bitmap large = createBitmap(200);
+		cache.put(LARGE_KEY, large);
+		cache.get(SMALL_KEY);
+
+		cache.put(LARGE_KEY, createBitmap(200));
+
+		downscaleExecutor.runAll();
+		Assertions.assertThat(wrappedCache.get(SMALL_KEY)).isNull();
+	}
+
+	private static Bitmap createBitmap(int size) {
+		return Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+	}
+
+	private static class ManualExecutor implements Executor {
+		final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+		@Override
+		public void execute(Runnable command) {
+			tasks.add(command);
+		}
+
+		void runAll() {
+			while (!tasks.isEmpty()) {
+				tasks.poll().run();
+			}
+		}
+	}
+}
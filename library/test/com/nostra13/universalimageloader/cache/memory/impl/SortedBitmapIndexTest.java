@@ -0,0 +1,83 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class SortedBitmapIndexTest {
+
+	@Test
+	public void testBitmapsArePolledByRank() throws Exception {
+		SortedBitmapIndex index = new SortedBitmapIndex();
+		Bitmap low = createBitmap();
+		Bitmap middle = createBitmap();
+		Bitmap high = createBitmap();
+		index.put(middle, 5);
+		index.put(high, 10);
+		index.put(low, 1);
+
+		Assertions.assertThat(index.pollLowest()).isSameAs(low);
+		Assertions.assertThat(index.pollHighest()).isSameAs(high);
+		Assertions.assertThat(index.pollHighest()).isSameAs(middle);
+		Assertions.assertThat(index.pollLowest()).isNull();
+		Assertions.assertThat(index.pollHighest()).isNull();
+	}
+
+	@Test
+	public void testBitmapsOfEqualRankArePolledInOrderOfAdding() throws Exception {
+		SortedBitmapIndex index = new SortedBitmapIndex();
+		Bitmap first = createBitmap();
+		Bitmap second = createBitmap();
+		Bitmap third = createBitmap();
+		index.put(first, 1);
+		index.put(second, 1);
+		index.put(third, 1);
+
+		Assertions.assertThat(index.pollLowest()).isSameAs(first);
+		Assertions.assertThat(index.pollHighest()).isSameAs(second);
+		Assertions.assertThat(index.pollLowest()).isSameAs(third);
+	}
+
+	@Test
+	public void testRankIsChanged() throws Exception {
+		SortedBitmapIndex index = new SortedBitmapIndex();
+		Bitmap first = createBitmap();
+		Bitmap second = createBitmap();
+		index.put(first, 0);
+		index.put(second, 0);
+
+		index.put(first, 1);
+
+		Assertions.assertThat(index.getRank(first)).isEqualTo(1);
+		Assertions.assertThat(index.pollLowest()).isSameAs(second);
+		Assertions.assertThat(index.pollLowest()).isSameAs(first);
+		Assertions.assertThat(index.getRank(first)).isNull();
+	}
+
+	@Test
+	public void testRemovedBitmapIsNotPolled() throws Exception {
+		SortedBitmapIndex index = new SortedBitmapIndex();
+		Bitmap first = createBitmap();
+		Bitmap second = createBitmap();
+		index.put(first, 1);
+		index.put(second, 2);
+
+		Assertions.assertThat(index.remove(first)).isTrue();
+		Assertions.assertThat(index.remove(first)).isFalse();
+
+		Assertions.assertThat(index.pollLowest()).isSameAs(second);
+		Assertions.assertThat(index.pollLowest()).isNull();
+
+		index.put(first, 1);
+		index.clear();
+		Assertions.assertThat(index.pollHighest()).isNull();
+		Assertions.assertThat(index.getRank(first)).isNull();
+	}
+
+	private static Bitmap createBitmap() {
+		return Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+	}
+}
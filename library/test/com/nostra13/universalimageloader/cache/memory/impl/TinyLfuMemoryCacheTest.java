@@ -0,0 +1,128 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class TinyLfuMemoryCacheTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4; // 10x10 ARGB_8888
+	/** Window keeps 2 Bitmaps, main region keeps 18 Bitmaps */
+	private static final int MAX_SIZE = BITMAP_SIZE * 20;
+
+	private final Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+
+	@Test
+	public void testFrequentlyUsedBitmapsSurviveScan() throws Exception {
+		TinyLfuMemoryCache cache = new TinyLfuMemoryCache(MAX_SIZE);
+		List<String> hotKeys = new ArrayList<String>();
+		for (int i = 0; i < 10; i++) {
+			hotKeys.add("hot" + i);
+		}
+		for (int round = 0; round < 5; round++) {
+			for (String key : hotKeys) {
+				if (cache.get(key) == null) {
+					cache.put(key, bitmap);
+				}
+			}
+		}
+
+		for (int i = 0; i < 200; i++) {
+			cache.put("scan" + i, bitmap);
+		}
+
+		for (String key : hotKeys) {
+			Assertions.assertThat(cache.keys().contains(key)).isTrue();
+		}
+		Assertions.assertThat(cache.size()).isLessThanOrEqualTo(MAX_SIZE);
+	}
+
+	@Test
+	public void testCandidateIsAdmittedOnlyIfUsedMoreOftenThanVictim() throws Exception {
+		TinyLfuMemoryCache cache = new TinyLfuMemoryCache(MAX_SIZE);
+		for (int i = 0; i < 20; i++) {
+			cache.put("cold" + i, bitmap);
+		}
+		for (int i = 0; i < 5; i++) {
+			cache.get("wanted"); // misses are counted by frequency sketch too
+		}
+
+		cache.put("wanted", bitmap);
+		cache.put("once1", bitmap);
+		cache.put("once2", bitmap);
+		cache.put("once3", bitmap); // pushes "wanted" and "once1" out of window
+
+		Assertions.assertThat(cache.keys().contains("wanted")).isTrue();
+		Assertions.assertThat(cache.keys().contains("once1")).isFalse();
+		Assertions.assertThat(cache.size()).isEqualTo(MAX_SIZE);
+	}
+
+	@Test
+	public void testBitmapBiggerThanMainRegionIsNotAdmitted() throws Exception {
+		TinyLfuMemoryCache cache = new TinyLfuMemoryCache(MAX_SIZE);
+		cache.put("small", bitmap);
+
+		cache.put("large", Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+
+		Assertions.assertThat(cache.keys().contains("large")).isFalse();
+		Assertions.assertThat(cache.keys().contains("small")).isTrue();
+		Assertions.assertThat(cache.size()).isEqualTo(BITMAP_SIZE);
+	}
+
+	/** Feed trace is a scan of unique post images with small set of reused avatars, TinyLFU should keep avatars */
+	@Test
+	public void testFeedTraceHasMoreHitsThanLru() throws Exception {
+		List<String> trace = createFeedTrace();
+		int maxSize = BITMAP_SIZE * 60;
+
+		int tinyLfuHits = replay(trace, new TinyLfuMemoryCache(maxSize));
+		int lruHits = replay(trace, new LruMemoryCache(maxSize));
+
+		Assertions.assertThat(tinyLfuHits).isGreaterThan(lruHits);
+	}
+
+	/** @return Number of cache hits for trace. Missed images are put into cache as image loader does. */
+	private int replay(List<String> trace, MemoryCache cache) {
+		int hits = 0;
+		for (String key : trace) {
+			if (cache.get(key) != null) {
+				hits++;
+			} else {
+				cache.put(key, bitmap);
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Feed of 3000 unique posts, every post shows its image and its author's avatar. Authors are 40 users, some of them
+	 * post much more often than others. User sometimes scrolls back a little.
+	 */
+	private static List<String> createFeedTrace() {
+		Random random = new Random(42);
+		List<String> trace = new ArrayList<String>();
+		int postCount = 3000;
+		int authorCount = 40;
+		for (int post = 0; post < postCount; post++) {
+			int author = (int) (authorCount * Math.pow(random.nextDouble(), 3)); // skewed to first authors
+			trace.add("http://example.com/avatar/" + author);
+			trace.add("http://example.com/post/" + post);
+
+			if (post > 10 && random.nextInt(20) == 0) {
+				// Scroll back for a few posts
+				for (int back = post - 1; back > post - 5; back--) {
+					trace.add("http://example.com/post/" + back);
+				}
+			}
+		}
+		return trace;
+	}
+}
@@ -0,0 +1,225 @@
+package com.nostra13.universalimageloader.core;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.view.View;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.SizeTolerantMemoryCache;
+import com.nostra13.universalimageloader.core.assist.BitmapHandle;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
+import com.nostra13.universalimageloader.core.imageaware.ImageAware;
+import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+import org.fest.assertions.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class BitmapUsageTrackerTest {
+
+	private static final int BITMAP_SIZE = 10; // 10x10 ARGB_8888 - 400 bytes
+
+	private MemoryCache memoryCache;
+	private RecordingBitmapPool pool;
+	private BitmapUsageTracker tracker;
+
+	@Before
+	public void setUp() throws Exception {
+		memoryCache = new LruMemoryCache(1000); // two Bitmaps fit
+		pool = new RecordingBitmapPool();
+		tracker = new BitmapUsageTracker(memoryCache, pool);
+		memoryCache.setEvictionListener(tracker);
+	}
+
+	@Test
+	public void testBitmapEvictedWhileHandleIsHeldIsPooledOnRelease() throws Exception {
+		Bitmap bitmap = createBitmap();
+		BitmapHandle handle = cache("key1", bitmap);
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(2);
+
+		evictAll();
+		Assertions.assertThat(memoryCache.get("key1")).isNull();
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(1);
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		handle.release();
+		Assertions.assertThat(pool.pooled).hasSize(1);
+		Assertions.assertThat(pool.pooled.get(0)).isSameAs(bitmap);
+	}
+
+	@Test
+	public void testBitmapReleasedBeforeEvictionIsPooledOnEviction() throws Exception {
+		Bitmap bitmap = createBitmap();
+		cache("key1", bitmap).release();
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		evictAll();
+
+		Assertions.assertThat(pool.pooled).hasSize(1);
+		Assertions.assertThat(pool.pooled.get(0)).isSameAs(bitmap);
+	}
+
+	@Test
+	public void testBitmapRetainedFromCacheIsHeldAfterEviction() throws Exception {
+		Bitmap bitmap = createBitmap();
+		cache("key1", bitmap).release();
+
+		BitmapHandle handle = tracker.retainFromMemoryCache("key1");
+		Assertions.assertThat(handle.getBitmap()).isSameAs(bitmap);
+		Assertions.assertThat(tracker.retainFromMemoryCache("key2")).isNull();
+
+		evictAll();
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		handle.release();
+		Assertions.assertThat(pool.pooled).hasSize(1);
+	}
+
+	@Test
+	public void testRemovedBitmapIsNeverPooled() throws Exception {
+		Bitmap bitmap = createBitmap();
+		BitmapHandle handle = cache("key1", bitmap);
+
+		Assertions.assertThat(memoryCache.remove("key1")).isSameAs(bitmap);
+		handle.release();
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		// Caller of remove(...) can cache the Bitmap again
+		cache("key1", bitmap).release();
+		evictAll();
+		Assertions.assertThat(pool.pooled).isEmpty();
+	}
+
+	@Test
+	public void testBitmapDisplayedInViewIsPooledAfterReset() throws Exception {
+		Bitmap bitmap = createBitmap();
+		ImageAware imageAware = new ViewImageAware(new View(new Activity()));
+		BitmapHandle handle = cache("key1", bitmap);
+		tracker.onDisplayed(imageAware, bitmap);
+		handle.release(); // display task is done
+
+		evictAll();
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		tracker.onReset(imageAware);
+		Assertions.assertThat(pool.pooled).hasSize(1);
+	}
+
+	@Test
+	public void testDisplayingAnotherBitmapReleasesPreviousOne() throws Exception {
+		Bitmap first = createBitmap();
+		Bitmap second = createBitmap();
+		ImageAware imageAware = new ViewImageAware(new View(new Activity()));
+		cache("key1", first).release();
+		tracker.onDisplayed(imageAware, first);
+		evictAll();
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		cache("key2", second).release();
+		tracker.onDisplayed(imageAware, second);
+
+		Assertions.assertThat(pool.pooled).hasSize(1);
+		Assertions.assertThat(pool.pooled.get(0)).isSameAs(first);
+	}
+
+	@Test
+	public void testBitmapPassedToNotViewImageAwareIsNeverPooled() throws Exception {
+		Bitmap bitmap = createBitmap();
+		BitmapHandle handle = cache("key1", bitmap);
+		tracker.onDisplayed(new NonViewAware(new ImageSize(10, 10), ViewScaleType.CROP), bitmap);
+		handle.release();
+
+		evictAll();
+
+		Assertions.assertThat(pool.pooled).isEmpty();
+	}
+
+	@Test
+	public void testRecycledBitmapIsNotRetainedAgainAfterRelease() throws Exception {
+		Bitmap bitmap = createBitmap();
+		cache("key1", bitmap).release();
+		bitmap.recycle(); // e.g. by application code
+
+		// Display task finds out cached Bitmap is recycled and releases it right away
+		BitmapHandle handle = tracker.retainFromMemoryCache("key1");
+		Assertions.assertThat(handle.getBitmap().isRecycled()).isTrue();
+		handle.release();
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(1);
+
+		evictAll();
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testLargerBitmapServedForSmallerSizeIsHeldAfterEviction() throws Exception {
+		memoryCache = new SizeTolerantMemoryCache(new LruMemoryCache(1000));
+		tracker = new BitmapUsageTracker(memoryCache, pool);
+		memoryCache.setEvictionListener(tracker);
+		String uri = "http://example.com/image.png";
+		Bitmap bitmap = createBitmap();
+		cache(MemoryCacheUtils.generateKey(uri, new ImageSize(200, 200)), bitmap).release();
+
+		BitmapHandle handle = tracker.retainFromMemoryCache(MemoryCacheUtils.generateKey(uri, new ImageSize(50, 50)));
+		Assertions.assertThat(handle.getBitmap()).isSameAs(bitmap);
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(2);
+
+		evictAll();
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		handle.release();
+		Assertions.assertThat(pool.pooled).hasSize(1);
+	}
+
+	/** Caches Bitmap like display task does. Returned handle holds reference of the task. */
+	private BitmapHandle cache(String key, Bitmap bitmap) {
+		BitmapHandle handle = tracker.retain(bitmap);
+		memoryCache.put(key, bitmap);
+		return handle;
+	}
+
+	/** Evicts all cached Bitmaps */
+	private void evictAll() {
+		memoryCache.trimToSize(0);
+	}
+
+	private static Bitmap createBitmap() {
+		return Bitmap.createBitmap(BITMAP_SIZE, BITMAP_SIZE, Bitmap.Config.ARGB_8888);
+	}
+
+	private static class ViewImageAware extends NonViewAware {
+		private final View view;
+
+		ViewImageAware(View view) {
+			super(new ImageSize(10, 10), ViewScaleType.CROP);
+			this.view = view;
+		}
+
+		@Override
+		public View getWrappedView() {
+			return view;
+		}
+	}
+
+	/** Pool which only records pooled Bitmaps */
+	private static class RecordingBitmapPool extends BitmapPool {
+		final List<Bitmap> pooled = new ArrayList<Bitmap>();
+
+		RecordingBitmapPool() {
+			super(1024 * 1024);
+		}
+
+		@Override
+		public synchronized boolean put(Bitmap bitmap) {
+			pooled.add(bitmap);
+			return true;
+		}
+	}
+}
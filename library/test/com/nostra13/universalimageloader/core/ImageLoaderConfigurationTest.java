@@ -0,0 +1,42 @@
+package com.nostra13.universalimageloader.core;
+
+import android.app.Activity;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
+import org.fest.assertions.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class ImageLoaderConfigurationTest {
+
+	@Test
+	public void testBitmapsAreNotReusedByDefault() throws Exception {
+		ImageLoaderConfiguration configuration = new ImageLoaderConfiguration.Builder(new Activity()).build();
+
+		Assertions.assertThat(configuration.bitmapPool).isNull();
+	}
+
+	@Test
+	public void testBitmapPoolSizeEnablesReuse() throws Exception {
+		Assume.assumeTrue(BitmapPool.isReuseSupported());
+
+		ImageLoaderConfiguration configuration = new ImageLoaderConfiguration.Builder(new Activity())
+				.bitmapPoolSize(1024)
+				.build();
+
+		Assertions.assertThat(configuration.bitmapPool).isNotNull();
+		Assertions.assertThat(configuration.bitmapPool.maxSize()).isEqualTo(1024);
+	}
+
+	@Test
+	public void testDeniedReuseOverridesBitmapPool() throws Exception {
+		ImageLoaderConfiguration configuration = new ImageLoaderConfiguration.Builder(new Activity())
+				.bitmapPool(new BitmapPool(1024))
+				.denyBitmapReuse()
+				.build();
+
+		Assertions.assertThat(configuration.bitmapPool).isNull();
+	}
+}
@@ -0,0 +1,598 @@
+package com.nostra13.universalimageloader.core;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.view.View;
+import com.nostra13.universalimageloader.cache.disc.impl.UnlimitedDiscCache;
+import com.nostra13.universalimageloader.core.assist.FailReason;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.LoadedFrom;
+import com.nostra13.universalimageloader.core.assist.PipelineStage;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
+import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
+import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.decode.ImageDecoder;
+import com.nostra13.universalimageloader.core.decode.ImageDecodingInfo;
+import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.core.executor.TaskExecutorFactory;
+import com.nostra13.universalimageloader.core.imageaware.ImageAware;
+import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
+import com.nostra13.universalimageloader.core.listener.SimpleImageLoadingListener;
+import com.nostra13.universalimageloader.core.process.BitmapProcessor;
+import com.nostra13.universalimageloader.utils.IoUtils;
+import org.fest.assertions.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class LoadAndDisplayImageTaskTest {
+
+	private static final String URI = "http://example.com/image.png";
+	private static final String MEMORY_CACHE_KEY = URI + "_100x100";
+	private static final byte[] IMAGE = {1, 2, 3, 4};
+	private static final byte[] BROKEN_IMAGE = {0};
+	private static final ImageSize SOURCE_SIZE = new ImageSize(400, 300);
+	private static final long CALLBACK_TIMEOUT = 5000; // milliseconds
+
+	private final List<PipelineStage> submittedStages = Collections.synchronizedList(new ArrayList<PipelineStage>());
+	private final ManualExecutor networkExecutor = new ManualExecutor(PipelineStage.IO, submittedStages);
+	private final ManualExecutor decodingExecutor = new ManualExecutor(PipelineStage.DECODE, submittedStages);
+	private final ManualExecutor processingExecutor = new ManualExecutor(PipelineStage.PROCESS, submittedStages);
+	private final AtomicInteger downloadCount = new AtomicInteger();
+	private final AtomicInteger decodeCount = new AtomicInteger();
+	/** Source sizes which were known before decoding */
+	private final List<ImageSize> knownSourceSizes = Collections.synchronizedList(new ArrayList<ImageSize>());
+
+	/** Downloads wait for it if it's set */
+	private volatile CountDownLatch downloadAllowed;
+
+	private File cacheDir;
+	private UnlimitedDiscCache diskCache;
+	private ImageLoaderEngine engine;
+	private ImageAware imageAware;
+	private ResultListener listener;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDir = File.createTempFile("task", "cache");
+		cacheDir.delete();
+		cacheDir.mkdirs();
+		diskCache = new UnlimitedDiscCache(cacheDir);
+		awaitDiskCacheIndexed();
+
+		engine = new ImageLoaderEngine(createConfiguration().build());
+		imageAware = new NonViewAware(URI, new ImageSize(100, 100), ViewScaleType.CROP);
+		listener = new ResultListener();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (downloadAllowed != null) {
+			downloadAllowed.countDown();
+		}
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testNotCachedImageIsDownloadedThenDecoded() throws Exception {
+		submit(createOptions().build());
+		Assertions.assertThat(submittedStages).isEqualTo(stages(PipelineStage.IO));
+
+		networkExecutor.runNext();
+		Assertions.assertThat(downloadCount.get()).isEqualTo(1);
+		Assertions.assertThat(decodeCount.get()).isEqualTo(0);
+		Assertions.assertThat(submittedStages).isEqualTo(stages(PipelineStage.IO, PipelineStage.DECODE));
+
+		decodingExecutor.runNext();
+		listener.await();
+		Assertions.assertThat(listener.loadedFrom).isEqualTo(LoadedFrom.NETWORK);
+		Assertions.assertThat(decodeCount.get()).isEqualTo(1);
+		Assertions.assertThat(engine.isUriLoading(URI)).isFalse();
+	}
+
+	@Test
+	public void testCachedImageIsDecodedWithoutIoStage() throws Exception {
+		putIntoDiskCache(IMAGE);
+
+		submit(createOptions().build());
+		Assertions.assertThat(submittedStages).isEqualTo(stages(PipelineStage.DECODE));
+
+		decodingExecutor.runNext();
+		listener.await();
+		Assertions.assertThat(listener.loadedFrom).isEqualTo(LoadedFrom.DISC_CACHE);
+		Assertions.assertThat(downloadCount.get()).isEqualTo(0);
+		Assertions.assertThat(networkExecutor.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testPostProcessingRunsOnProcessingStage() throws Exception {
+		putIntoDiskCache(IMAGE);
+		final AtomicInteger processCount = new AtomicInteger();
+		BitmapProcessor postProcessor = new BitmapProcessor() {
+			@Override
+			public Bitmap process(Bitmap bitmap) {
+				processCount.incrementAndGet();
+				return bitmap;
+			}
+		};
+
+		submit(createOptions().postProcessor(postProcessor).build());
+		decodingExecutor.runNext();
+		Assertions.assertThat(processCount.get()).isEqualTo(0);
+		Assertions.assertThat(submittedStages).isEqualTo(stages(PipelineStage.DECODE, PipelineStage.PROCESS));
+
+		processingExecutor.runNext();
+		listener.await();
+		Assertions.assertThat(processCount.get()).isEqualTo(1);
+		Assertions.assertThat(listener.loadedFrom).isEqualTo(LoadedFrom.DISC_CACHE);
+	}
+
+	@Test
+	public void testTaskCancelledBetweenStagesIsNotDecoded() throws Exception {
+		submit(createOptions().build());
+		networkExecutor.runNext();
+
+		engine.prepareDisplayTaskFor(imageAware, "another image");
+		decodingExecutor.runNext();
+
+		listener.await();
+		Assertions.assertThat(listener.cancelled).isTrue();
+		Assertions.assertThat(decodeCount.get()).isEqualTo(0);
+		Assertions.assertThat(processingExecutor.size()).isEqualTo(0);
+		Assertions.assertThat(engine.isUriLoading(URI)).isFalse();
+	}
+
+	@Test
+	public void testBrokenImageInDiskCacheIsLoadedFromNetwork() throws Exception {
+		putIntoDiskCache(BROKEN_IMAGE);
+
+		submit(createOptions().build());
+		decodingExecutor.runNext();
+		Assertions.assertThat(downloadCount.get()).isEqualTo(0);
+		Assertions.assertThat(submittedStages).isEqualTo(stages(PipelineStage.DECODE, PipelineStage.IO));
+
+		networkExecutor.runNext();
+		Assertions.assertThat(downloadCount.get()).isEqualTo(1);
+		decodingExecutor.runNext();
+
+		listener.await();
+		Assertions.assertThat(listener.loadedFrom).isEqualTo(LoadedFrom.NETWORK);
+		Assertions.assertThat(submittedStages)
+				.isEqualTo(stages(PipelineStage.DECODE, PipelineStage.IO, PipelineStage.DECODE));
+		Assertions.assertThat(decodeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testImageRemovedFromDiskCacheAfterSubmitIsLoadedFromNetwork() throws Exception {
+		putIntoDiskCache(IMAGE);
+
+		submit(createOptions().build());
+		diskCache.get(URI).delete(); // bypassing cache API so index is stale
+		decodingExecutor.runNext();
+		Assertions.assertThat(decodeCount.get()).isEqualTo(0);
+		Assertions.assertThat(submittedStages).isEqualTo(stages(PipelineStage.DECODE, PipelineStage.IO));
+
+		networkExecutor.runNext();
+		decodingExecutor.runNext();
+
+		listener.await();
+		Assertions.assertThat(listener.loadedFrom).isEqualTo(LoadedFrom.NETWORK);
+		Assertions.assertThat(downloadCount.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testRecycledBitmapInMemoryCacheIsLoadedAgain() throws Exception {
+		Bitmap recycled = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		recycled.recycle();
+		engine.configuration.memoryCache.put(MEMORY_CACHE_KEY, recycled);
+
+		submit(createOptions().build());
+		networkExecutor.runNext();
+		decodingExecutor.runNext();
+
+		listener.await();
+		Assertions.assertThat(listener.loadedFrom).isEqualTo(LoadedFrom.NETWORK);
+		Assertions.assertThat(engine.configuration.memoryCache.get(MEMORY_CACHE_KEY).isRecycled()).isFalse();
+	}
+
+	@Test
+	public void testDroppedTaskReleasesUri() throws Exception {
+		submit(createOptions().build());
+		networkExecutor.runNext();
+		LoadAndDisplayImageTask task = (LoadAndDisplayImageTask) decodingExecutor.poll();
+
+		task.onNotExecuted();
+
+		listener.await();
+		Assertions.assertThat(listener.cancelled).isTrue();
+		Assertions.assertThat(engine.isUriLoading(URI)).isFalse();
+	}
+
+	@Test
+	public void testDeferredTaskIsResubmittedWhenUriIsLoaded() throws Exception {
+		ImageAware anotherImageAware = new NonViewAware("another view", new ImageSize(100, 100), ViewScaleType.CROP);
+		ResultListener anotherListener = new ResultListener();
+		submit(createOptions().build());
+		submit(anotherImageAware, createOptions().build(), anotherListener);
+		networkExecutor.runNext();
+		networkExecutor.runNext(); // URI is loading by the first task so the second one is deferred
+		Assertions.assertThat(decodingExecutor.size()).isEqualTo(1);
+
+		decodingExecutor.runNext();
+		listener.await();
+		Assertions.assertThat(decodingExecutor.size()).isEqualTo(1);
+
+		decodingExecutor.runNext();
+		anotherListener.await();
+		Assertions.assertThat(anotherListener.loadedFrom).isEqualTo(LoadedFrom.MEMORY_CACHE);
+		Assertions.assertThat(downloadCount.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testDeferredTaskDoesNotOverwriteNewerTaskForSameImageAware() throws Exception {
+		ImageAware anotherImageAware = new NonViewAware("another view", new ImageSize(100, 100), ViewScaleType.CROP);
+		ResultListener deferredListener = new ResultListener();
+		submit(createOptions().build());
+		LoadAndDisplayImageTask deferredTask = submit(anotherImageAware, createOptions().build(), deferredListener);
+		networkExecutor.runNext();
+		networkExecutor.runNext();
+		LoadAndDisplayImageTask newerTask = submit(anotherImageAware, createOptions().build(), new ResultListener());
+		Assertions.assertThat(decodingExecutor.size()).isEqualTo(2);
+
+		decodingExecutor.runNext(); // finishes loading of URI and releases deferred task
+
+		deferredListener.await();
+		Assertions.assertThat(deferredListener.cancelled).isTrue();
+		Assertions.assertThat(decodingExecutor.size()).isEqualTo(1);
+		Runnable queuedTask = decodingExecutor.poll();
+		Assertions.assertThat(queuedTask).isSameAs(newerTask);
+		Assertions.assertThat(queuedTask == deferredTask).isFalse();
+	}
+
+	@Test
+	public void testConcurrentLoadForAnotherSizeIsCoalesced() throws Exception {
+		ImageAware smallImageAware = new NonViewAware("small view", new ImageSize(50, 50), ViewScaleType.CROP);
+		ResultListener smallListener = new ResultListener();
+		submit(createOptions().build());
+		submit(smallImageAware, new ImageSize(50, 50), URI + "_50x50", createOptions().build(), smallListener);
+		networkExecutor.runNext();
+		networkExecutor.runNext(); // the second task is deferred while the first one loads the same URI
+		Assertions.assertThat(engine.getUriContentionStats(URI)).isNotNull();
+
+		decodingExecutor.runNext();
+		listener.await();
+		decodingExecutor.runNext();
+		smallListener.await();
+
+		Assertions.assertThat(smallListener.loadedFrom).isEqualTo(LoadedFrom.DISC_CACHE);
+		Assertions.assertThat(downloadCount.get()).isEqualTo(1);
+		Assertions.assertThat(decodeCount.get()).isEqualTo(2);
+		// Deferred task reuses source size of image decoded by the first task
+		Assertions.assertThat(knownSourceSizes.get(0)).isNull();
+		Assertions.assertThat(knownSourceSizes.get(1)).isSameAs(SOURCE_SIZE);
+	}
+
+	@Test
+	public void testSourceSizeOfAnotherImageIsNotReused() throws Exception {
+		ImageAware smallImageAware = new NonViewAware("small view", new ImageSize(50, 50), ViewScaleType.CROP);
+		ResultListener smallListener = new ResultListener();
+		downloadAllowed = new CountDownLatch(1);
+		// The first task decodes original image, the second one decodes image from disk cache (it can be resized)
+		submit(createOptions().cacheOnDisk(false).build());
+		submit(smallImageAware, new ImageSize(50, 50), URI + "_50x50", createOptions().build(), smallListener);
+		Thread loadingThread = new Thread(networkExecutor.poll());
+		loadingThread.start();
+		long deadline = System.currentTimeMillis() + CALLBACK_TIMEOUT;
+		while (downloadCount.get() < 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		networkExecutor.runNext(); // the second task is deferred while the first one loads the same URI
+		downloadAllowed.countDown();
+		loadingThread.join(CALLBACK_TIMEOUT);
+		listener.await();
+
+		networkExecutor.runNext();
+		decodingExecutor.runNext();
+		smallListener.await();
+
+		Assertions.assertThat(downloadCount.get()).isEqualTo(2);
+		Assertions.assertThat(decodeCount.get()).isEqualTo(2);
+		Assertions.assertThat(knownSourceSizes.get(0)).isNull();
+		Assertions.assertThat(knownSourceSizes.get(1)).isNull();
+	}
+
+	@Test
+	public void testTaskWhichPassedPauseGateDoesNotHoldItWhileDownloading() throws Exception {
+		engine = new ImageLoaderEngine(createConfiguration().threadPoolSize(1).build());
+
+		// Wake-up batch is 1 but both tasks download at the same time
+		assertPausedTasksDownloadConcurrently(2);
+	}
+
+	/** Network executor of virtual-thread backend runs much more tasks than configured thread pool size */
+	@Test
+	public void testResumedTasksAreNotLimitedByThreadPoolSize() throws Exception {
+		engine = new ImageLoaderEngine(createConfiguration().threadPoolSize(3).build());
+
+		assertPausedTasksDownloadConcurrently(10);
+	}
+
+	/**
+	 * Runs every network task of paused engine on its own thread, resumes engine and checks that all tasks start their
+	 * downloads while no download is finished
+	 */
+	private void assertPausedTasksDownloadConcurrently(int taskCount) throws Exception {
+		downloadAllowed = new CountDownLatch(1);
+		engine.pause();
+		for (int i = 0; i < taskCount; i++) {
+			String uri = URI + i;
+			ImageAware imageAware = new NonViewAware(uri, new ImageSize(100, 100), ViewScaleType.CROP);
+			ImageLoadingInfo info = new ImageLoadingInfo(uri, imageAware, new ImageSize(100, 100), uri + "_100x100",
+					createOptions().build(), new ResultListener(), null);
+			engine.prepareDisplayTaskFor(imageAware, info.memoryCacheKey);
+			engine.submit(new LoadAndDisplayImageTask(engine, info, null));
+		}
+		List<Thread> threads = new ArrayList<Thread>();
+		Runnable task;
+		while ((task = networkExecutor.poll()) != null) {
+			Thread thread = new Thread(task);
+			thread.start();
+			threads.add(thread);
+		}
+		long deadline = System.currentTimeMillis() + CALLBACK_TIMEOUT;
+		while (engine.getPauseStats().getWaitingThreadCount() < taskCount && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		engine.resume();
+		// Waiting task re-checks the gate every 500 ms, all downloads must start before that
+		deadline = System.currentTimeMillis() + 250;
+		while (downloadCount.get() < taskCount && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		Assertions.assertThat(downloadCount.get()).isEqualTo(taskCount);
+		downloadAllowed.countDown();
+		for (Thread thread : threads) {
+			thread.join(CALLBACK_TIMEOUT);
+		}
+	}
+
+	private ImageLoaderConfiguration.Builder createConfiguration() {
+		return new ImageLoaderConfiguration.Builder(new Activity())
+				.taskExecutorFactory(new ManualExecutorFactory())
+				.diskCache(diskCache)
+				.memoryCacheSize(1024 * 1024)
+				.denyBitmapReuse()
+				.imageDownloader(new TestDownloader())
+				.imageDecoder(new TestDecoder());
+	}
+
+	private DisplayImageOptions.Builder createOptions() {
+		return new DisplayImageOptions.Builder().cacheInMemory(true).cacheOnDisk(true);
+	}
+
+	private void submit(DisplayImageOptions options) {
+		submit(imageAware, options, listener);
+	}
+
+	private LoadAndDisplayImageTask submit(ImageAware imageAware, DisplayImageOptions options,
+			ResultListener listener) {
+		return submit(imageAware, new ImageSize(100, 100), MEMORY_CACHE_KEY, options, listener);
+	}
+
+	private LoadAndDisplayImageTask submit(ImageAware imageAware, ImageSize targetSize, String memoryCacheKey,
+			DisplayImageOptions options, ResultListener listener) {
+		ImageLoadingInfo info = new ImageLoadingInfo(URI, imageAware, targetSize, memoryCacheKey, options, listener,
+				null);
+		engine.prepareDisplayTaskFor(imageAware, memoryCacheKey);
+		LoadAndDisplayImageTask task = new LoadAndDisplayImageTask(engine, info, null);
+		engine.submit(task);
+		return task;
+	}
+
+	private void putIntoDiskCache(byte[] image) throws IOException {
+		diskCache.save(URI, new ByteArrayInputStream(image), null);
+	}
+
+	private void awaitDiskCacheIndexed() throws Exception {
+		String uri = "sentinel";
+		diskCache.save(uri, new ByteArrayInputStream(IMAGE), null);
+		long deadline = System.currentTimeMillis() + CALLBACK_TIMEOUT;
+		while (!diskCache.contains(uri) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertThat(diskCache.contains(uri)).isTrue();
+	}
+
+	private static List<PipelineStage> stages(PipelineStage... stages) {
+		List<PipelineStage> list = new ArrayList<PipelineStage>();
+		Collections.addAll(list, stages);
+		return list;
+	}
+
+	private static byte[] readFully(InputStream is) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try {
+			byte[] buffer = new byte[256];
+			int count;
+			while ((count = is.read(buffer)) != -1) {
+				os.write(buffer, 0, count);
+			}
+		} finally {
+			IoUtils.closeSilently(is);
+		}
+		return os.toByteArray();
+	}
+
+	private class TestDownloader implements ImageDownloader {
+		@Override
+		public InputStream getStream(String imageUri, Object extra) throws IOException {
+			downloadCount.incrementAndGet();
+			CountDownLatch allowed = downloadAllowed;
+			if (allowed != null) {
+				try {
+					allowed.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			return new ByteArrayInputStream(IMAGE);
+		}
+	}
+
+	private class TestDecoder implements ImageDecoder {
+		@Override
+		public Bitmap decode(ImageDecodingInfo decodingInfo) throws Throwable {
+			decodeCount.incrementAndGet();
+			knownSourceSizes.add(decodingInfo.getSourceSize());
+			if (decodingInfo.getSourceSize() == null) {
+				decodingInfo.setSourceSize(SOURCE_SIZE);
+			}
+			InputStream is = decodingInfo.getDownloader().getStream(decodingInfo.getImageUri(), null);
+			if (Arrays.equals(readFully(is), BROKEN_IMAGE)) return null;
+			return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		}
+
+		@Override
+		public void release(Bitmap bitmap, DisplayImageOptions options) {
+			bitmap.recycle();
+		}
+	}
+
+	private static class ResultListener extends SimpleImageLoadingListener {
+		private final CountDownLatch latch = new CountDownLatch(1);
+		volatile LoadedFrom loadedFrom;
+		volatile boolean cancelled;
+
+		@Override
+		public void onLoadingComplete(String imageUri, View view, Bitmap loadedImage, LoadedFrom loadedFrom) {
+			this.loadedFrom = loadedFrom;
+			latch.countDown();
+		}
+
+		@Override
+		public void onLoadingFailed(String imageUri, View view, FailReason failReason) {
+			latch.countDown();
+		}
+
+		@Override
+		public void onLoadingCancelled(String imageUri, View view) {
+			cancelled = true;
+			latch.countDown();
+		}
+
+		void await() throws InterruptedException {
+			Assertions.assertThat(latch.await(CALLBACK_TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+		}
+	}
+
+	/** Executor which runs submitted tasks only on demand, each one on a new thread */
+	static class ManualExecutor extends AbstractExecutorService {
+		private final PipelineStage stage;
+		private final List<PipelineStage> submittedStages;
+		private final LinkedList<Runnable> queue = new LinkedList<Runnable>();
+
+		ManualExecutor(PipelineStage stage, List<PipelineStage> submittedStages) {
+			this.stage = stage;
+			this.submittedStages = submittedStages;
+		}
+
+		@Override
+		public synchronized void execute(Runnable command) {
+			submittedStages.add(stage);
+			queue.add(command);
+		}
+
+		synchronized Runnable poll() {
+			return queue.poll();
+		}
+
+		synchronized int size() {
+			return queue.size();
+		}
+
+		void runNext() throws InterruptedException {
+			Runnable task = poll();
+			Assertions.assertThat(task).isNotNull();
+			Thread thread = new Thread(task);
+			thread.start();
+			thread.join();
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return false;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return false;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return false;
+		}
+	}
+
+	private class ManualExecutorFactory implements TaskExecutorFactory {
+		@Override
+		public Executor createNetworkExecutor(int threadPoolSize, int threadPriority,
+				QueueProcessingType tasksProcessingType, int maxQueuedTasks, QueueAdmissionPolicy admissionPolicy) {
+			return networkExecutor;
+		}
+
+		@Override
+		public Executor createDecodingExecutor(int threadPoolSize, int threadPriority,
+				QueueProcessingType tasksProcessingType) {
+			return decodingExecutor;
+		}
+
+		@Override
+		public Executor createProcessingExecutor(int threadPoolSize, int threadPriority,
+				QueueProcessingType tasksProcessingType) {
+			return processingExecutor;
+		}
+
+		@Override
+		public Executor createPreloadExecutor(int threadPoolSize, int threadPriority,
+				QueueProcessingType tasksProcessingType) {
+			return new ManualExecutor(PipelineStage.IO, new ArrayList<PipelineStage>());
+		}
+	}
+}
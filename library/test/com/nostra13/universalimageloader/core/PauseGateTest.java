@@ -0,0 +1,186 @@
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.PauseStats;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PauseGateTest {
+
+	@Test
+	public void testOpenGateDoesNotBlock() throws Exception {
+		PauseGate gate = new PauseGate(1);
+
+		Assertions.assertThat(gate.isClosed()).isFalse();
+		Assertions.assertThat(gate.await(10, TimeUnit.MILLISECONDS)).isTrue();
+	}
+
+	@Test
+	public void testClosedGateTimesOut() throws Exception {
+		PauseGate gate = new PauseGate(1);
+		gate.close();
+
+		Assertions.assertThat(gate.await(20, TimeUnit.MILLISECONDS)).isFalse();
+		Assertions.assertThat(gate.getStats().getWaitingThreadCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testAllWaitingThreadsPassOpenedGate() throws Exception {
+		final PauseGate gate = new PauseGate(2);
+		gate.close();
+
+		int threadCount = 8;
+		final CountDownLatch passed = new CountDownLatch(threadCount);
+		final AtomicInteger failed = new AtomicInteger();
+		for (int i = 0; i < threadCount; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						if (gate.await(0, TimeUnit.MILLISECONDS)) {
+							gate.leave();
+						} else {
+							failed.incrementAndGet();
+						}
+					} catch (InterruptedException e) {
+						failed.incrementAndGet();
+					}
+					passed.countDown();
+				}
+			}.start();
+		}
+		while (gate.getStats().getWaitingThreadCount() < threadCount) {
+			Thread.sleep(5);
+		}
+
+		gate.open();
+
+		Assertions.assertThat(passed.await(5, TimeUnit.SECONDS)).isTrue();
+		Assertions.assertThat(failed.get()).isEqualTo(0);
+		PauseStats stats = gate.getStats();
+		Assertions.assertThat(stats.isPaused()).isFalse();
+		Assertions.assertThat(stats.getPauseCount()).isEqualTo(1L);
+		Assertions.assertThat(stats.getWaitingThreadCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testNotMoreThanBatchSizeThreadsPassAtOnce() throws Exception {
+		final int batchSize = 2;
+		final PauseGate gate = new PauseGate(batchSize);
+		gate.close();
+
+		int threadCount = 8;
+		final CountDownLatch passed = new CountDownLatch(threadCount);
+		final AtomicInteger working = new AtomicInteger();
+		final AtomicInteger maxWorking = new AtomicInteger();
+		for (int i = 0; i < threadCount; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						if (gate.await(0, TimeUnit.MILLISECONDS)) {
+							int count = working.incrementAndGet();
+							int max;
+							do {
+								max = maxWorking.get();
+							} while (count > max && !maxWorking.compareAndSet(max, count));
+							Thread.sleep(10);
+							working.decrementAndGet();
+							gate.leave();
+							passed.countDown();
+						}
+					} catch (InterruptedException e) {
+						// test fails by timeout
+					}
+				}
+			}.start();
+		}
+		while (gate.getStats().getWaitingThreadCount() < threadCount) {
+			Thread.sleep(5);
+		}
+
+		gate.open();
+
+		Assertions.assertThat(passed.await(5, TimeUnit.SECONDS)).isTrue();
+		Assertions.assertThat(maxWorking.get()).isLessThanOrEqualTo(batchSize);
+	}
+
+	@Test
+	public void testWaiterWokenUpIntoClosedGateIsWokenUpByNextOpen() throws Exception {
+		final PauseGate gate = new PauseGate(1);
+		// Occupy the only place behind the gate so woken up waiter has to wait again
+		Assertions.assertThat(gate.await(0, TimeUnit.MILLISECONDS)).isTrue();
+		gate.close();
+
+		final CountDownLatch passed = new CountDownLatch(1);
+		Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					if (gate.await(0, TimeUnit.MILLISECONDS)) {
+						passed.countDown();
+						gate.leave();
+					}
+				} catch (InterruptedException e) {
+					// test fails by timeout
+				}
+			}
+		};
+		waiter.start();
+		while (gate.getStats().getWaitingThreadCount() < 1) {
+			Thread.sleep(5);
+		}
+
+		gate.open(); // waiter is woken up but gate is full
+		Thread.sleep(20);
+		gate.close();
+		gate.leave(); // gate is closed so nobody is woken up
+		Thread.sleep(20);
+		Assertions.assertThat(passed.getCount()).isEqualTo(1L);
+
+		gate.open();
+
+		Assertions.assertThat(passed.await(5, TimeUnit.SECONDS)).isTrue();
+		waiter.join(1000);
+		Assertions.assertThat(gate.getStats().getWaitingThreadCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testWaitersPassAfterCloseOpenRace() throws Exception {
+		final PauseGate gate = new PauseGate(2);
+		gate.close();
+
+		int threadCount = 6;
+		final CountDownLatch passed = new CountDownLatch(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						if (gate.await(0, TimeUnit.MILLISECONDS)) {
+							Thread.sleep(1);
+							gate.leave();
+							passed.countDown();
+						}
+					} catch (InterruptedException e) {
+						// test fails by timeout
+					}
+				}
+			}.start();
+		}
+		while (gate.getStats().getWaitingThreadCount() < threadCount) {
+			Thread.sleep(5);
+		}
+
+		for (int i = 0; i < 200; i++) {
+			gate.open();
+			gate.close();
+		}
+		gate.open();
+
+		Assertions.assertThat(passed.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+}
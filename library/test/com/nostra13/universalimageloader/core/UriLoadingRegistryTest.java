@@ -0,0 +1,171 @@
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.UriContentionStats;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class UriLoadingRegistryTest {
+
+	private static final String URI = "http://example.com/image.png";
+
+	@Test
+	public void testSecondTaskIsDeferredAndReturnedOnRelease() throws Exception {
+		UriLoadingRegistry<String> registry = new UriLoadingRegistry<String>();
+
+		Assertions.assertThat(registry.acquireOrDefer(URI, "first")).isTrue();
+		Assertions.assertThat(registry.acquireOrDefer(URI, "second")).isFalse();
+		Assertions.assertThat(registry.acquireOrDefer(URI, "third")).isFalse();
+		Assertions.assertThat(registry.hasDeferredTasks(URI)).isTrue();
+
+		List<String> deferred = registry.release(URI);
+
+		Assertions.assertThat(deferred).hasSize(2).contains("second", "third");
+		Assertions.assertThat(registry.isLoading(URI)).isFalse();
+		Assertions.assertThat(registry.tryAcquire(URI)).isTrue();
+	}
+
+	@Test
+	public void testCancelledDeferredTaskIsNotReturnedOnRelease() throws Exception {
+		UriLoadingRegistry<String> registry = new UriLoadingRegistry<String>();
+		registry.tryAcquire(URI);
+		registry.acquireOrDefer(URI, "second");
+		registry.acquireOrDefer(URI, "third");
+
+		Assertions.assertThat(registry.removeDeferredTask(URI, "second")).isTrue();
+		Assertions.assertThat(registry.removeDeferredTask(URI, "second")).isFalse();
+
+		List<String> deferred = registry.release(URI);
+		Assertions.assertThat(deferred).hasSize(1).contains("third");
+	}
+
+	@Test
+	public void testReleasedListIsNotChangedByLaterClear() throws Exception {
+		UriLoadingRegistry<String> registry = new UriLoadingRegistry<String>();
+		registry.tryAcquire(URI);
+		registry.acquireOrDefer(URI, "second");
+
+		List<String> deferred = registry.release(URI);
+		registry.clearDeferredTasks();
+		Assertions.assertThat(registry.removeDeferredTask(URI, "second")).isFalse();
+
+		Assertions.assertThat(deferred).hasSize(1).contains("second");
+	}
+
+	@Test
+	public void testClearDeferredTasksKeepsUriAcquired() throws Exception {
+		UriLoadingRegistry<String> registry = new UriLoadingRegistry<String>();
+		registry.tryAcquire(URI);
+		registry.acquireOrDefer(URI, "second");
+
+		registry.clearDeferredTasks();
+
+		Assertions.assertThat(registry.hasDeferredTasks(URI)).isFalse();
+		Assertions.assertThat(registry.isLoading(URI)).isTrue();
+		Assertions.assertThat(registry.release(URI)).isEmpty();
+	}
+
+	@Test
+	public void testSynchronousAcquireWaitsForRelease() throws Exception {
+		final UriLoadingRegistry<String> registry = new UriLoadingRegistry<String>();
+		registry.tryAcquire(URI);
+
+		final CountDownLatch acquired = new CountDownLatch(1);
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					registry.acquire(URI);
+					acquired.countDown();
+				} catch (InterruptedException e) {
+					// test fails by timeout
+				}
+			}
+		}.start();
+
+		Assertions.assertThat(acquired.await(50, TimeUnit.MILLISECONDS)).isFalse();
+		registry.release(URI);
+		Assertions.assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+
+		UriContentionStats stats = registry.getStats();
+		Assertions.assertThat(stats.getLoadCount()).isEqualTo(2L);
+		Assertions.assertThat(stats.getContendedCount()).isEqualTo(1L);
+	}
+
+	@Test
+	public void testPerUriStatsAreKeptForContendedUrisOnly() throws Exception {
+		UriLoadingRegistry<String> registry = new UriLoadingRegistry<String>();
+		registry.tryAcquire("uncontended");
+		registry.release("uncontended");
+		registry.tryAcquire(URI);
+		registry.acquireOrDefer(URI, "second");
+		registry.release(URI);
+		registry.tryAcquire(URI);
+		registry.release(URI);
+
+		Assertions.assertThat(registry.getStats("uncontended")).isNull();
+		UriContentionStats stats = registry.getStats(URI);
+		Assertions.assertThat(stats.getLoadCount()).isEqualTo(2L);
+		Assertions.assertThat(stats.getContendedCount()).isEqualTo(1L);
+		Assertions.assertThat(registry.getStats().getLoadCount()).isEqualTo(3L);
+	}
+
+	@Test
+	public void testPerUriStatsAreBounded() throws Exception {
+		UriLoadingRegistry<String> registry = new UriLoadingRegistry<String>();
+		for (int i = 0; i < 300; i++) {
+			String uri = URI + i;
+			registry.tryAcquire(uri);
+			registry.acquireOrDefer(uri, "second");
+			registry.release(uri);
+		}
+
+		int keptCount = 0;
+		for (int i = 0; i < 300; i++) {
+			if (registry.getStats(URI + i) != null) keptCount++;
+		}
+		Assertions.assertThat(keptCount).isEqualTo(100);
+		Assertions.assertThat(registry.getStats().getContendedCount()).isEqualTo(300L);
+	}
+
+	@Test
+	public void testConcurrentDeferReleaseAndCancelDoNotLoseTasks() throws Exception {
+		final UriLoadingRegistry<Integer> registry = new UriLoadingRegistry<Integer>();
+		final int taskCount = 2000;
+		final int[] handled = new int[taskCount];
+
+		Thread canceller = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < taskCount; i += 2) {
+					registry.removeDeferredTask(URI, i);
+					registry.clearDeferredTasks();
+				}
+			}
+		};
+		registry.tryAcquire(URI);
+		canceller.start();
+		for (int i = 0; i < taskCount; i++) {
+			if (registry.acquireOrDefer(URI, i)) {
+				handled[i]++;
+				for (Integer task : registry.release(URI)) {
+					handled[task]++;
+				}
+			}
+			if (i % 10 == 0) {
+				for (Integer task : registry.release(URI)) {
+					handled[task]++;
+				}
+				registry.tryAcquire(URI);
+			}
+		}
+		canceller.join();
+
+		for (int count : handled) {
+			Assertions.assertThat(count).isLessThanOrEqualTo(1);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.nostra13.universalimageloader.core.assist;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.core.assist.pool.BitmapPool;
+import org.fest.assertions.api.Assertions;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class BitmapHandleTest {
+
+	private Bitmap bitmap;
+	private RecordingBitmapPool pool;
+
+	@Before
+	public void setUp() throws Exception {
+		bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		pool = new RecordingBitmapPool();
+	}
+
+	@Test
+	public void testBitmapIsPooledWhenLastReferenceIsReleased() throws Exception {
+		BitmapHandle handle = new BitmapHandle(bitmap, pool);
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(1);
+
+		Assertions.assertThat(handle.retain()).isSameAs(handle);
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(2);
+
+		handle.release();
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(1);
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		handle.release();
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(0);
+		Assertions.assertThat(pool.pooled).hasSize(1);
+		Assertions.assertThat(pool.pooled.get(0)).isSameAs(bitmap);
+	}
+
+	@Test
+	public void testReleasedHandleCanNotBeRetainedOrReleased() throws Exception {
+		BitmapHandle handle = new BitmapHandle(bitmap, pool);
+		handle.release();
+
+		try {
+			handle.retain();
+			Assert.fail();
+		} catch (IllegalStateException expected) {
+		}
+		try {
+			handle.release();
+			Assert.fail();
+		} catch (IllegalStateException expected) {
+		}
+		Assertions.assertThat(pool.pooled).hasSize(1);
+	}
+
+	@Test
+	public void testBitmapIsNotPooledIfReuseIsDenied() throws Exception {
+		BitmapHandle handle = new BitmapHandle(bitmap, pool);
+		handle.retain();
+
+		handle.denyReuse(); // e.g. Bitmap was passed out while it's held
+		handle.release();
+		handle.release();
+
+		Assertions.assertThat(pool.pooled).isEmpty();
+	}
+
+	@Test
+	public void testBitmapWithoutPoolIsNotPooled() throws Exception {
+		BitmapHandle handle = new BitmapHandle(bitmap, null);
+
+		handle.retain().release();
+		handle.release();
+
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(0);
+		Assertions.assertThat(bitmap.isRecycled()).isFalse();
+	}
+
+	@Test
+	public void testConcurrentRetainAndReleasePoolBitmapOnce() throws Exception {
+		final BitmapHandle handle = new BitmapHandle(bitmap, pool);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						handle.retain();
+						handle.release();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assertions.assertThat(handle.getRefCount()).isEqualTo(1);
+		Assertions.assertThat(pool.pooled).isEmpty();
+
+		handle.release();
+		Assertions.assertThat(pool.pooled).hasSize(1);
+	}
+
+	/** Pool which only records pooled Bitmaps */
+	static class RecordingBitmapPool extends BitmapPool {
+		final List<Bitmap> pooled = new ArrayList<Bitmap>();
+
+		RecordingBitmapPool() {
+			super(1024 * 1024);
+		}
+
+		@Override
+		public synchronized boolean put(Bitmap bitmap) {
+			pooled.add(bitmap);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.nostra13.universalimageloader.core.assist.deque;
+
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
+import org.fest.assertions.api.Assertions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PriorityTaskQueueTest {
+
+	@Test
+	public void testTasksAreTakenByPriority() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(false);
+		Task background = new Task(LoadingPriority.BACKGROUND);
+		Task prefetch = new Task(LoadingPriority.PREFETCH);
+		Task visible = new Task(LoadingPriority.VISIBLE);
+		queue.offer(background);
+		queue.offer(prefetch);
+		queue.offer(visible);
+
+		Assertions.assertThat(queue.size()).isEqualTo(3);
+		Assertions.assertThat(queue.take()).isSameAs(visible);
+		Assertions.assertThat(queue.take()).isSameAs(prefetch);
+		Assertions.assertThat(queue.take()).isSameAs(background);
+		Assertions.assertThat(queue.poll()).isNull();
+	}
+
+	@Test
+	public void testEqualPriorityTasksKeepProcessingOrder() throws Exception {
+		Task first = new Task(LoadingPriority.VISIBLE);
+		Task second = new Task(LoadingPriority.VISIBLE);
+
+		PriorityTaskQueue fifo = new PriorityTaskQueue(false);
+		fifo.offer(first);
+		fifo.offer(second);
+		Assertions.assertThat(fifo.poll()).isSameAs(first);
+
+		PriorityTaskQueue lifo = new PriorityTaskQueue(true);
+		lifo.offer(first);
+		lifo.offer(second);
+		Assertions.assertThat(lifo.poll()).isSameAs(second);
+	}
+
+	@Test
+	public void testReprioritizeMovesQueuedTask() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(false);
+		Task visible = new Task(LoadingPriority.VISIBLE);
+		Task prefetch = new Task(LoadingPriority.PREFETCH);
+		queue.offer(visible);
+		queue.offer(prefetch);
+
+		Assertions.assertThat(queue.reprioritize(visible, LoadingPriority.BACKGROUND)).isTrue();
+		Assertions.assertThat(visible.getPriority()).isEqualTo(LoadingPriority.BACKGROUND);
+		Assertions.assertThat(queue.size()).isEqualTo(2);
+		Assertions.assertThat(queue.poll()).isSameAs(prefetch);
+		Assertions.assertThat(queue.poll()).isSameAs(visible);
+
+		Task notQueued = new Task(LoadingPriority.PREFETCH);
+		Assertions.assertThat(queue.reprioritize(notQueued, LoadingPriority.VISIBLE)).isFalse();
+		Assertions.assertThat(notQueued.getPriority()).isEqualTo(LoadingPriority.PREFETCH);
+	}
+
+	@Test
+	public void testNotPrioritizedTaskIsConsideredVisible() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(false);
+		Task prefetch = new Task(LoadingPriority.PREFETCH);
+		Runnable plain = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		queue.offer(prefetch);
+		queue.offer(plain);
+
+		Assertions.assertThat(queue.remove(prefetch)).isTrue();
+		Assertions.assertThat(queue.size()).isEqualTo(1);
+		Assertions.assertThat(queue.poll()).isSameAs(plain);
+	}
+
+	@Test
+	public void testFullQueueDropsOldestTask() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(false, 2, QueueAdmissionPolicy.DROP_OLDEST);
+		final List<Runnable> dropped = new ArrayList<Runnable>();
+		queue.setDropListener(new PriorityTaskQueue.DropListener() {
+			@Override
+			public void onTaskDropped(Runnable task) {
+				dropped.add(task);
+			}
+		});
+		Task oldest = new Task(LoadingPriority.VISIBLE);
+		Task prefetch = new Task(LoadingPriority.PREFETCH);
+		Task incoming = new Task(LoadingPriority.BACKGROUND);
+		queue.offer(oldest);
+		queue.offer(prefetch);
+
+		Assertions.assertThat(queue.remainingCapacity()).isEqualTo(0);
+		Assertions.assertThat(queue.offer(incoming)).isTrue();
+		Assertions.assertThat(dropped).hasSize(1);
+		Assertions.assertThat(dropped.get(0)).isSameAs(oldest);
+		Assertions.assertThat(queue.size()).isEqualTo(2);
+		Assertions.assertThat(queue.poll()).isSameAs(prefetch);
+		Assertions.assertThat(queue.poll()).isSameAs(incoming);
+	}
+
+	@Test
+	public void testFullQueueDropsOnlyNotVisibleTasks() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(false, 2, QueueAdmissionPolicy.DROP_NOT_VISIBLE);
+		Task visible = new Task(LoadingPriority.VISIBLE);
+		Task prefetch = new Task(LoadingPriority.PREFETCH);
+		queue.offer(visible);
+		queue.offer(prefetch);
+
+		Assertions.assertThat(queue.offer(new Task(LoadingPriority.BACKGROUND))).isFalse();
+		Assertions.assertThat(queue.offer(new Task(LoadingPriority.VISIBLE))).isTrue();
+		Assertions.assertThat(queue.contains(prefetch)).isFalse();
+		Assertions.assertThat(queue.offer(new Task(LoadingPriority.VISIBLE))).isFalse();
+		Assertions.assertThat(queue.contains(visible)).isTrue();
+
+		PriorityTaskQueue rejecting = new PriorityTaskQueue(false, 1, QueueAdmissionPolicy.REJECT);
+		Assertions.assertThat(rejecting.offer(prefetch)).isTrue();
+		Assertions.assertThat(rejecting.offer(visible)).isFalse();
+	}
+
+	private static class Task implements Runnable, PriorityTaskQueue.Prioritized {
+		private LoadingPriority priority;
+
+		Task(LoadingPriority priority) {
+			this.priority = priority;
+		}
+
+		@Override
+		public void run() {
+		}
+
+		@Override
+		public LoadingPriority getPriority() {
+			return priority;
+		}
+
+		@Override
+		public void setPriority(LoadingPriority priority) {
+			this.priority = priority;
+		}
+	}
+}
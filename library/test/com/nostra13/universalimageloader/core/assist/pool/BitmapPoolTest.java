@@ -0,0 +1,122 @@
+package com.nostra13.universalimageloader.core.assist.pool;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.core.decode.BaseImageDecoder;
+import org.fest.assertions.api.Assertions;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class BitmapPoolTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4; // 10x10 ARGB_8888
+
+	@Before
+	public void setUp() throws Exception {
+		Assume.assumeTrue(BitmapPool.isReuseSupported());
+	}
+
+	@Test
+	public void testPooledBitmapIsReusedForSameSize() throws Exception {
+		BitmapPool pool = new BitmapPool(BITMAP_SIZE * 4);
+		Bitmap bitmap = createBitmap(10, Bitmap.Config.ARGB_8888);
+
+		Assertions.assertThat(pool.put(bitmap)).isTrue();
+		Assertions.assertThat(pool.size()).isEqualTo(BITMAP_SIZE);
+
+		Assertions.assertThat(pool.get(10, 10, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+		Assertions.assertThat(pool.size()).isEqualTo(0);
+		Assertions.assertThat(pool.hitCount()).isEqualTo(1);
+		Assertions.assertThat(pool.get(10, 10, Bitmap.Config.ARGB_8888)).isNull();
+		Assertions.assertThat(pool.missCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testBitmapIsNotReusedForAnotherConfigOrLargerSize() throws Exception {
+		BitmapPool pool = new BitmapPool(BITMAP_SIZE * 4);
+		pool.put(createBitmap(10, Bitmap.Config.ARGB_8888));
+
+		Assertions.assertThat(pool.get(10, 10, Bitmap.Config.RGB_565)).isNull();
+		Assertions.assertThat(pool.get(20, 20, Bitmap.Config.ARGB_8888)).isNull();
+		Assertions.assertThat(pool.get(0, 10, Bitmap.Config.ARGB_8888)).isNull();
+		Assertions.assertThat(pool.missCount()).isEqualTo(2);
+		Assertions.assertThat(pool.size()).isEqualTo(BITMAP_SIZE);
+	}
+
+	@Test
+	public void testRecycledOrTooLargeBitmapIsNotPooled() throws Exception {
+		BitmapPool pool = new BitmapPool(BITMAP_SIZE);
+		Bitmap recycled = createBitmap(10, Bitmap.Config.ARGB_8888);
+		recycled.recycle();
+
+		Assertions.assertThat(pool.put(recycled)).isFalse();
+		Assertions.assertThat(pool.put(createBitmap(20, Bitmap.Config.ARGB_8888))).isFalse();
+		Assertions.assertThat(pool.put(null)).isFalse();
+		Assertions.assertThat(pool.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testBitmapPooledTwiceIsCountedOnce() throws Exception {
+		BitmapPool pool = new BitmapPool(BITMAP_SIZE * 4);
+		Bitmap bitmap = createBitmap(10, Bitmap.Config.ARGB_8888);
+
+		pool.put(bitmap);
+		Assertions.assertThat(pool.put(bitmap)).isTrue();
+
+		Assertions.assertThat(pool.size()).isEqualTo(BITMAP_SIZE);
+		Assertions.assertThat(pool.get(10, 10, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+		Assertions.assertThat(pool.get(10, 10, Bitmap.Config.ARGB_8888)).isNull();
+	}
+
+	@Test
+	public void testLeastRecentlyPooledBitmapIsRecycledOnOverflow() throws Exception {
+		BitmapPool pool = new BitmapPool(BITMAP_SIZE * 2);
+		Bitmap first = createBitmap(10, Bitmap.Config.ARGB_8888);
+		Bitmap second = createBitmap(10, Bitmap.Config.ARGB_8888);
+		Bitmap third = createBitmap(10, Bitmap.Config.ARGB_8888);
+
+		pool.put(first);
+		pool.put(second);
+		pool.put(third);
+
+		Assertions.assertThat(pool.size()).isEqualTo(BITMAP_SIZE * 2);
+		Assertions.assertThat(first.isRecycled()).isTrue();
+		Assertions.assertThat(second.isRecycled()).isFalse();
+		Assertions.assertThat(third.isRecycled()).isFalse();
+	}
+
+	@Test
+	public void testClearRecyclesPooledBitmaps() throws Exception {
+		BitmapPool pool = new BitmapPool(BITMAP_SIZE * 4);
+		Bitmap first = createBitmap(10, Bitmap.Config.ARGB_8888);
+		Bitmap second = createBitmap(10, Bitmap.Config.RGB_565);
+		pool.put(first);
+		pool.put(second);
+
+		pool.clear();
+
+		Assertions.assertThat(pool.size()).isEqualTo(0);
+		Assertions.assertThat(first.isRecycled()).isTrue();
+		Assertions.assertThat(second.isRecycled()).isTrue();
+		Assertions.assertThat(pool.get(10, 10, Bitmap.Config.RGB_565)).isNull();
+	}
+
+	@Test
+	public void testDecoderReleasesBitmapIntoPool() throws Exception {
+		BitmapPool pool = new BitmapPool(BITMAP_SIZE * 4);
+		BaseImageDecoder decoder = new BaseImageDecoder(false, pool);
+		Bitmap bitmap = createBitmap(10, Bitmap.Config.ARGB_8888);
+
+		decoder.release(bitmap, null);
+
+		Assertions.assertThat(bitmap.isRecycled()).isFalse();
+		Assertions.assertThat(pool.get(10, 10, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+	}
+
+	private static Bitmap createBitmap(int size, Bitmap.Config config) {
+		return Bitmap.createBitmap(size, size, config);
+	}
+}
@@ -0,0 +1,202 @@
+package com.nostra13.universalimageloader.core.executor;
+
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.QueueAdmissionPolicy;
+import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
+import com.nostra13.universalimageloader.core.assist.deque.PriorityTaskQueue;
+import org.fest.assertions.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class VirtualThreadTaskExecutorFactoryTest {
+
+	private static final long TIMEOUT = 5000; // milliseconds
+
+	@Test
+	public void testNetworkTasksRunUpToMaxConcurrentTasks() throws Exception {
+		ThreadPoolExecutor executor = createNetworkExecutor(2, 0, QueueAdmissionPolicy.DROP_OLDEST);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch finished = new CountDownLatch(5);
+		AtomicInteger running = new AtomicInteger();
+		for (int i = 0; i < 5; i++) {
+			executor.execute(new BlockingTask(LoadingPriority.VISIBLE, running, started, release, finished));
+		}
+
+		Assertions.assertThat(started.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+		Thread.sleep(100);
+		Assertions.assertThat(running.get()).isEqualTo(2);
+		Assertions.assertThat(executor.getQueue().size()).isEqualTo(3);
+
+		release.countDown();
+		Assertions.assertThat(finished.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+		executor.shutdown();
+	}
+
+	@Test
+	public void testQueuedTasksAreTakenByPriority() throws Exception {
+		ThreadPoolExecutor executor = createNetworkExecutor(1, 0, QueueAdmissionPolicy.DROP_OLDEST);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(3);
+		executor.execute(new BlockingTask(LoadingPriority.VISIBLE, new AtomicInteger(), started, release, finished));
+		Assertions.assertThat(started.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+
+		List<LoadingPriority> order = Collections.synchronizedList(new ArrayList<LoadingPriority>());
+		executor.execute(new RecordingTask(LoadingPriority.BACKGROUND, order, finished));
+		executor.execute(new RecordingTask(LoadingPriority.VISIBLE, order, finished));
+		release.countDown();
+
+		Assertions.assertThat(finished.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+		Assertions.assertThat(order.get(0)).isEqualTo(LoadingPriority.VISIBLE);
+		Assertions.assertThat(order.get(1)).isEqualTo(LoadingPriority.BACKGROUND);
+		executor.shutdown();
+	}
+
+	@Test
+	public void testNetworkQueueIsLimited() throws Exception {
+		ThreadPoolExecutor executor = createNetworkExecutor(1, 1, QueueAdmissionPolicy.DROP_OLDEST);
+		final List<Runnable> droppedTasks = new ArrayList<Runnable>();
+		((PriorityTaskQueue) executor.getQueue()).setDropListener(new PriorityTaskQueue.DropListener() {
+			@Override
+			public void onTaskDropped(Runnable task) {
+				droppedTasks.add(task);
+			}
+		});
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(2);
+		executor.execute(new BlockingTask(LoadingPriority.VISIBLE, new AtomicInteger(), started, release, finished));
+		Assertions.assertThat(started.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+
+		List<LoadingPriority> order = Collections.synchronizedList(new ArrayList<LoadingPriority>());
+		Runnable oldest = new RecordingTask(LoadingPriority.VISIBLE, order, finished);
+		executor.execute(oldest);
+		executor.execute(new RecordingTask(LoadingPriority.VISIBLE, order, finished));
+
+		Assertions.assertThat(droppedTasks).hasSize(1);
+		Assertions.assertThat(droppedTasks.get(0)).isSameAs(oldest);
+		release.countDown();
+		Assertions.assertThat(finished.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+		Assertions.assertThat(order).hasSize(1);
+		executor.shutdown();
+	}
+
+	@Test
+	public void testTasksRunOnVirtualThreadsIfSupported() throws Exception {
+		Assume.assumeTrue(VirtualThreadTaskExecutorFactory.isSupported());
+		Executor executor = new VirtualThreadTaskExecutorFactory(2).createNetworkExecutor(3, Thread.NORM_PRIORITY,
+				QueueProcessingType.FIFO, 0, QueueAdmissionPolicy.DROP_OLDEST);
+		final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+		final CountDownLatch finished = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				thread.set(Thread.currentThread());
+				finished.countDown();
+			}
+		});
+
+		Assertions.assertThat(finished.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+		Assertions.assertThat(Thread.class.getMethod("isVirtual").invoke(thread.get())).isEqualTo(true);
+		Assertions.assertThat(executor instanceof ThreadPoolExecutor).isTrue();
+		((ThreadPoolExecutor) executor).shutdown();
+	}
+
+	/** Creates network executor of factory which uses platform threads instead of virtual ones */
+	private static ThreadPoolExecutor createNetworkExecutor(int maxConcurrentTasks, int maxQueuedTasks,
+			QueueAdmissionPolicy admissionPolicy) {
+		TaskExecutorFactory factory = new VirtualThreadTaskExecutorFactory(maxConcurrentTasks) {
+			@Override
+			protected ThreadFactory createThreadFactory(String threadNamePrefix) {
+				return new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						return new Thread(r);
+					}
+				};
+			}
+		};
+		return (ThreadPoolExecutor) factory.createNetworkExecutor(10, Thread.NORM_PRIORITY, QueueProcessingType.FIFO,
+				maxQueuedTasks, admissionPolicy);
+	}
+
+	private static class BlockingTask implements Runnable, PriorityTaskQueue.Prioritized {
+		private final AtomicInteger running;
+		private final CountDownLatch started;
+		private final CountDownLatch release;
+		private final CountDownLatch finished;
+		private LoadingPriority priority;
+
+		BlockingTask(LoadingPriority priority, AtomicInteger running, CountDownLatch started, CountDownLatch release,
+				CountDownLatch finished) {
+			this.priority = priority;
+			this.running = running;
+			this.started = started;
+			this.release = release;
+			this.finished = finished;
+		}
+
+		@Override
+		public void run() {
+			running.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			running.decrementAndGet();
+			finished.countDown();
+		}
+
+		@Override
+		public LoadingPriority getPriority() {
+			return priority;
+		}
+
+		@Override
+		public void setPriority(LoadingPriority priority) {
+			this.priority = priority;
+		}
+	}
+
+	private static class RecordingTask implements Runnable, PriorityTaskQueue.Prioritized {
+		private final List<LoadingPriority> order;
+		private final CountDownLatch finished;
+		private LoadingPriority priority;
+
+		RecordingTask(LoadingPriority priority, List<LoadingPriority> order, CountDownLatch finished) {
+			this.priority = priority;
+			this.order = order;
+			this.finished = finished;
+		}
+
+		@Override
+		public void run() {
+			order.add(priority);
+			finished.countDown();
+		}
+
+		@Override
+		public LoadingPriority getPriority() {
+			return priority;
+		}
+
+		@Override
+		public void setPriority(LoadingPriority priority) {
+			this.priority = priority;
+		}
+	}
+}